@@ -0,0 +1,46 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the converter and timestamp benchmarks with the GC profiler, so that every result is reported with its
+ * allocation rate (<code>gc.alloc.rate</code>) and the bytes allocated per operation (<code>gc.alloc.rate.norm</code>). Any
+ * standard JMH option may be passed on the command line, e.g. <code>-p items=1000</code> or a benchmark name pattern.
+ * <p>Started by <code>mvn -P benchmark test-compile exec:exec</code>.</p>
+ * @since 2016.02
+ */
+public class BenchmarkRunner {
+    static public void main(String ... args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+
+        options.parent(cmd);
+        if( cmd.getIncludes().isEmpty() ) {
+            options.include("org\\.dasein\\.cloud\\.openstack\\.nova\\.os\\..*(ConverterBenchmark|TimestampBenchmark)");
+        }
+        options.addProfiler(GCProfiler.class);
+        new Runner(options.build()).run();
+    }
+}
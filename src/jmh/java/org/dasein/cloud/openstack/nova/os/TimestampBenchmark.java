@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.concurrent.TimeUnit;
+
+import org.dasein.cloud.CloudException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link NovaOpenStack#parseTimestamp(String)} with the <code>SimpleDateFormat</code> fall-through it
+ * replaced, for each format the clouds emit. The formats are listed in the order the old method tried them, so later
+ * ones show the cost of the exceptions thrown by the formats tried first.
+ * @since 2016.02
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimestampBenchmark {
+    @Param({ "2014-02-10T16:03:12.123Z", "2012-06-18T14:47:02Z", "2015-08-27T09:49:58.000000Z", "2016-01-15T12:00:00.123456", "2012-06-16 19:41:29" })
+    public String time;
+
+    /**
+     * The implementation of {@link NovaOpenStack#parseTimestamp(String)} before 2016.02, kept as it was.
+     */
+    static private long legacyParseTimestamp(String time) throws CloudException {
+        if( time == null ) {
+            return 0L;
+        }
+        SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+
+        if( time.length() > 0 ) {
+            try {
+                return fmt.parse(time).getTime();
+            }
+            catch( ParseException e ) {
+                fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+                try {
+                    return fmt.parse(time).getTime();
+                }
+                catch( ParseException encore ) {
+                    fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+                    try {
+                        return fmt.parse(time).getTime();
+                    }
+                    catch( ParseException again ) {
+                        try {
+                            return fmt.parse(time).getTime();
+                        }
+                        catch( ParseException whynot ) {
+                            fmt = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+                            try {
+                                return fmt.parse(time).getTime();
+                            }
+                            catch( ParseException because ) {
+                                throw new CloudException("Could not parse date: " + time);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return 0L;
+    }
+
+    @Benchmark
+    public long parseTimestamp() throws CloudException {
+        return NovaOpenStack.parseTimestamp(time);
+    }
+
+    @Benchmark
+    public long legacyParseTimestamp() throws CloudException {
+        return legacyParseTimestamp(time);
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os.compute;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.ResourceStatus;
+import org.dasein.cloud.compute.MachineImage;
+import org.dasein.cloud.compute.Platform;
+import org.dasein.cloud.compute.VirtualMachine;
+import org.dasein.cloud.compute.VirtualMachineProduct;
+import org.dasein.cloud.compute.Volume;
+import org.dasein.cloud.compute.VolumeProduct;
+import org.dasein.cloud.compute.VolumeType;
+import org.dasein.cloud.network.IpAddress;
+import org.dasein.cloud.network.VLAN;
+import org.dasein.cloud.openstack.nova.os.NovaOpenStack;
+import org.dasein.cloud.openstack.nova.os.OpenStackProvider;
+import org.dasein.cloud.openstack.nova.os.Payloads;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the compute converters turning API JSON into Dasein model objects. Each operation converts one item,
+ * walking through a payload of <code>items</code> distinct copies of the fixtures so that the results reflect a sweep
+ * of a large account rather than one hot object; run with <code>-prof gc</code> to see the bytes allocated per item.
+ * {@link #parseServerListing()} measures parsing a whole listing response of the same size.
+ * <p>The services are subclassed so that every lookup that would reach the cloud (tenant, region, platform from the
+ * image, firewalls of the server) answers with a constant instead.</p>
+ * @since 2016.02
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class ComputeConverterBenchmark {
+    static private final String REGION = "RegionOne";
+    static private final String TENANT = "e2312698a3534c3aab7038d46a80795d";
+
+    static private class Servers extends NovaServer {
+        Servers(NovaOpenStack provider) {
+            super(provider);
+        }
+
+        @Override
+        protected @Nonnull String getTenantId() {
+            return TENANT;
+        }
+
+        @Override
+        protected String getRegionId() {
+            return REGION;
+        }
+
+        @Override
+        protected OpenStackProvider getCloudProvider() {
+            return OpenStackProvider.OTHER;
+        }
+
+        @Override
+        protected Platform getPlatform(String vmName, String vmDescription, String imageId) {
+            return Platform.guess(vmName + " " + vmDescription);
+        }
+
+        @Override
+        protected @Nonnull Iterable<String> listFirewalls(@Nonnull String vmId, @Nonnull JSONObject server) {
+            return Collections.emptyList();
+        }
+    }
+
+    static private class Images extends NovaImage {
+        Images(NovaOpenStack provider) {
+            super(provider);
+        }
+
+        @Override
+        protected @Nonnull String getTenantId() {
+            return TENANT;
+        }
+
+        @Override
+        protected String getRegionId() {
+            return REGION;
+        }
+    }
+
+    static private class Volumes extends CinderVolume {
+        Volumes(NovaOpenStack provider) {
+            super(provider);
+        }
+
+        @Override
+        protected String getRegionId() {
+            return REGION;
+        }
+    }
+
+    @Param({ "1000", "10000", "100000" })
+    public int items;
+
+    private Images  images;
+    private Servers servers;
+    private Volumes volumes;
+
+    private JSONObject[]        flavorItems;
+    private JSONObject[]        imageItems;
+    private String              serverListing;
+    private JSONObject[]        serverItems;
+    private List<VolumeProduct> volumeTypes;
+    private JSONObject[]        volumeItems;
+
+    private int flavor;
+    private int image;
+    private int server;
+    private int status;
+    private int volume;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        NovaOpenStack provider = new NovaOpenStack();
+
+        servers = new Servers(provider);
+        images = new Images(provider);
+        volumes = new Volumes(provider);
+
+        serverItems = Payloads.replicate(Payloads.read("nova/fixtures/compute/get_server.json", "server"), items, "ACTIVE", "BUILD", "SHUTOFF", "PAUSED", "REBOOT");
+        serverListing = Payloads.toListing("servers", serverItems);
+        flavorItems = Payloads.replicate(Payloads.read("nova/fixtures/compute/get_flavor.json", "flavor"), items);
+        imageItems = Payloads.replicate(Payloads.read("nova/fixtures/compute/get_image.json", "image"), items, "ACTIVE", "SAVING");
+        volumeItems = Payloads.replicate(Payloads.read("nova/fixtures/compute/get_volume.json", "volume"), items, "available", "in-use", "creating");
+        volumeTypes = Collections.singletonList(VolumeProduct.getInstance("1", "lvmdriver-1", "lvmdriver-1", VolumeType.HDD));
+    }
+
+    private int next(int index) {
+        return (index + 1 == items ? 0 : index + 1);
+    }
+
+    @Benchmark
+    public VirtualMachine toVirtualMachine() throws JSONException, CloudException, InternalException {
+        server = next(server);
+        return servers.toVirtualMachine(serverItems[server], Collections.<IpAddress>emptyList(), Collections.<IpAddress>emptyList(), Collections.<VLAN>emptyList());
+    }
+
+    @Benchmark
+    public ResourceStatus toStatus() throws JSONException, CloudException, InternalException {
+        status = next(status);
+        return servers.toStatus(serverItems[status]);
+    }
+
+    @Benchmark
+    public VirtualMachineProduct toProduct() throws JSONException, CloudException, InternalException {
+        flavor = next(flavor);
+        return servers.toProduct(flavorItems[flavor]);
+    }
+
+    @Benchmark
+    public MachineImage toImage() throws CloudException, InternalException {
+        image = next(image);
+        return images.toImage(imageItems[image]);
+    }
+
+    @Benchmark
+    public Volume toVolume() throws CloudException, InternalException {
+        volume = next(volume);
+        return volumes.toVolume(volumeItems[volume], volumeTypes);
+    }
+
+    @Benchmark
+    public JSONObject parseServerListing() throws JSONException {
+        return new JSONObject(serverListing);
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os.network;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.network.IpAddress;
+import org.dasein.cloud.network.Subnet;
+import org.dasein.cloud.network.VLAN;
+import org.dasein.cloud.openstack.nova.os.NovaOpenStack;
+import org.dasein.cloud.openstack.nova.os.Payloads;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the network converters turning API JSON into Dasein model objects, measured the same way as
+ * {@link org.dasein.cloud.openstack.nova.os.compute.ComputeConverterBenchmark}: one item per operation, walking
+ * through <code>items</code> distinct copies of the fixtures. Subnets are converted against a known network so that
+ * no network lookup is made.
+ * @since 2016.02
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class NetworkConverterBenchmark {
+    static private final String REGION = "RegionOne";
+    static private final String TENANT = "e2312698a3534c3aab7038d46a80795d";
+
+    static private class Networks extends Quantum {
+        Networks(NovaOpenStack provider) {
+            super(provider);
+        }
+
+        @Override
+        protected @Nonnull String getTenantId() {
+            return TENANT;
+        }
+
+        @Override
+        protected String getCurrentRegionId() {
+            return REGION;
+        }
+    }
+
+    static private class FloatingIps extends NovaFloatingIP {
+        FloatingIps(NovaOpenStack provider) {
+            super(provider);
+        }
+
+        @Override
+        protected String getRegionId() {
+            return REGION;
+        }
+    }
+
+    @Param({ "1000", "10000", "100000" })
+    public int items;
+
+    private FloatingIps floatingIps;
+    private Networks    networks;
+
+    private JSONObject[] ipItems;
+    private JSONObject[] subnetItems;
+    private VLAN         vlan;
+    private JSONObject[] vlanItems;
+
+    private int ip;
+    private int subnet;
+    private int network;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        NovaOpenStack provider = new NovaOpenStack();
+
+        networks = new Networks(provider);
+        floatingIps = new FloatingIps(provider);
+
+        vlan = networks.toVLAN(Payloads.read("nova/fixtures/get_vlan.json", "network"));
+        vlanItems = Payloads.replicate(Payloads.read("nova/fixtures/get_vlan.json", "network"), items, "ACTIVE", "BUILD", "DOWN");
+        subnetItems = Payloads.replicate(Payloads.read("nova/fixtures/get_subnet.json", "subnet"), items);
+        ipItems = Payloads.replicate(Payloads.read("nova/fixtures/get_floating_ip.json", "floating_ip"), items);
+    }
+
+    private int next(int index) {
+        return (index + 1 == items ? 0 : index + 1);
+    }
+
+    @Benchmark
+    public VLAN toVLAN() throws CloudException, InternalException {
+        network = next(network);
+        return networks.toVLAN(vlanItems[network]);
+    }
+
+    @Benchmark
+    public Subnet toSubnet() throws CloudException, InternalException {
+        subnet = next(subnet);
+        return networks.toSubnet(subnetItems[subnet], vlan);
+    }
+
+    @Benchmark
+    public IpAddress toIP() throws JSONException, InternalException {
+        ip = next(ip);
+        return floatingIps.toIP(ipItems[ip]);
+    }
+}
@@ -24,12 +24,12 @@ import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.security.cert.CertificateException;
-import java.security.cert.X509Certificate;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Properties;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -39,28 +39,20 @@ import javax.annotation.Nullable;
 
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
-import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
-import org.apache.http.HttpVersion;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
-import org.apache.http.conn.params.ConnRoutePNames;
-import org.apache.http.conn.scheme.Scheme;
-import org.apache.http.conn.ssl.SSLSocketFactory;
-import org.apache.http.conn.ssl.TrustStrategy;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.http.params.BasicHttpParams;
-import org.apache.http.params.HttpParams;
-import org.apache.http.params.HttpProtocolParams;
-import org.apache.http.protocol.HTTP;
 import org.apache.http.util.EntityUtils;
 import org.apache.log4j.Logger;
 import org.dasein.cloud.CloudErrorType;
@@ -70,11 +62,6 @@ import org.dasein.cloud.InternalException;
 import org.dasein.cloud.ProviderContext;
 import org.dasein.cloud.openstack.nova.os.ext.hp.db.HPRDBMS;
 import org.dasein.cloud.util.APITrace;
-import org.dasein.cloud.util.Cache;
-import org.dasein.cloud.util.CacheLevel;
-import org.dasein.util.CalendarWrapper;
-import org.dasein.util.uom.time.Day;
-import org.dasein.util.uom.time.TimePeriod;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -84,7 +71,712 @@ public abstract class AbstractMethod {
 
     public AbstractMethod(NovaOpenStack provider) { this.provider = provider; }
 
-    public synchronized @Nullable AuthenticationContext authenticate() throws CloudException, InternalException {
+    /**
+     * A single attempt at an API call made with the specified authentication context.
+     * @param <T> the result of the call
+     */
+    protected interface AuthenticatedCall<T> {
+        T call(@Nonnull AuthenticationContext context) throws CloudException, InternalException;
+    }
+
+    /**
+     * Runs an API call, retrying it within fixed bounds. A rejected token (401) is discarded and the call repeated once
+     * with a freshly authenticated context; a second rejection is reported to the caller. Throttled and transient
+     * failures are retried according to the provider's {@link RetryPolicy}.
+     * @param verb the HTTP verb of the call, used to decide whether repeating it is safe
+     * @param replayable false if the call cannot be repeated at all, such as an upload from a stream
+     * @param call the call to make
+     * @param <T> the result of the call
+     * @return the result of the first successful attempt
+     * @throws CloudException the call failed and was not retried, or ran out of retries
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    protected <T> T execute(@Nonnull String verb, boolean replayable, @Nonnull AuthenticatedCall<T> call) throws CloudException, InternalException {
+        Logger std = NovaOpenStack.getLogger(NovaOpenStack.class, "std");
+        RetryPolicy policy = provider.getRetryPolicy();
+        RequestMetrics metrics = provider.getRequestMetrics();
+        boolean reauthenticated = false;
+        int attempt = 0;
+
+        while( true ) {
+            AuthenticationContext context = provider.getAuthenticationContext();
+
+            if( metrics != null ) {
+                metrics.setCatalog(context);
+            }
+            try {
+                return call.call(context);
+            }
+            catch( NovaException e ) {
+                if( metrics != null ) {
+                    metrics.recordError(e.getErrorType());
+                }
+                if( e.getHttpCode() == HttpStatus.SC_UNAUTHORIZED ) {
+                    provider.invalidateAuthenticationContext(context);
+                    if( reauthenticated || !replayable ) {
+                        throw e;
+                    }
+                    policy.recordReauthentication();
+                    reauthenticated = true;
+                    continue;
+                }
+                long delay = (replayable ? policy.getRetryDelay(verb, e, attempt) : -1L);
+
+                if( delay < 0 ) {
+                    throw e;
+                }
+                std.warn(verb + " failed with " + e.getHttpCode() + ", retrying in " + delay + "ms (attempt " + (attempt + 1) + ")");
+                attempt++;
+                policy.pause(delay);
+            }
+            catch( CloudException e ) {
+                if( metrics != null ) {
+                    metrics.recordError(e.getErrorType());
+                }
+                throw e;
+            }
+            catch( InternalException e ) {
+                if( metrics != null && e.getCause() instanceof IOException ) {
+                    metrics.recordError(CloudErrorType.COMMUNICATION);
+                }
+                long delay = (replayable ? policy.getRetryDelay(verb, e, attempt) : -1L);
+
+                if( delay < 0 ) {
+                    throw e;
+                }
+                std.warn(verb + " failed with " + e.getMessage() + ", retrying in " + delay + "ms (attempt " + (attempt + 1) + ")");
+                attempt++;
+                policy.pause(delay);
+            }
+        }
+    }
+
+    /**
+     * Sends a request through the client, recording it in the connection's {@link RequestMetrics}.
+     * @param client the client to send the request through
+     * @param request the request
+     * @param service the service type of the endpoint, or <code>null</code> to look it up in the service catalog
+     * @param endpoint the URL of the service
+     * @param resource the resource path relative to the endpoint
+     * @return the response
+     * @throws IOException the request failed without a response
+     */
+    private @Nonnull HttpResponse send(@Nonnull HttpClient client, @Nonnull HttpUriRequest request, @Nullable String service, @Nonnull String endpoint, @Nullable String resource) throws IOException {
+        RequestMetrics metrics = (provider == null ? null : provider.getRequestMetrics());
+
+        if( metrics == null ) {
+            return client.execute(request);
+        }
+        RequestMetrics.Request call = metrics.start(service, request, endpoint, resource);
+        HttpResponse response;
+
+        try {
+            response = client.execute(request);
+        }
+        catch( IOException | RuntimeException e ) {
+            call.fail();
+            throw e;
+        }
+        call.complete(response);
+        return response;
+    }
+
+    /**
+     * A single attempt at an asynchronous API call made with the specified authentication context. The attempt sends
+     * its request and returns at once, reporting the outcome to the callback from an I/O dispatcher thread.
+     * @param <T> the result of the call
+     */
+    protected interface AsyncCall<T> {
+        void call(@Nonnull AuthenticationContext context, @Nonnull FutureCallback<T> callback) throws CloudException, InternalException;
+    }
+
+    /**
+     * The asynchronous counterpart of {@link #execute(String, boolean, AuthenticatedCall)}, with the same rules for
+     * reauthenticating and retrying. No thread waits on the call while it is in flight: reauthentication and retry
+     * delays run on the scheduler thread of the provider's {@link NovaAsyncClient}.
+     * @param verb the HTTP verb of the call, used to decide whether repeating it is safe
+     * @param replayable false if the call cannot be repeated at all
+     * @param call the call to make
+     * @param callback told of the outcome of the call, or <code>null</code>
+     * @param <T> the result of the call
+     * @return the pending result of the first successful attempt
+     */
+    protected @Nonnull <T> Future<T> executeAsync(@Nonnull String verb, boolean replayable, @Nonnull AsyncCall<T> call, @Nullable FutureCallback<T> callback) {
+        BasicFuture<T> future = new BasicFuture<T>(callback);
+
+        new AsyncAttempt<T>(verb, replayable, call, future).run();
+        return future;
+    }
+
+    /**
+     * Makes one attempt at an asynchronous call and, on failure, decides whether to schedule another.
+     */
+    private class AsyncAttempt<T> implements Runnable, FutureCallback<T> {
+        private final AsyncCall<T>   call;
+        private final BasicFuture<T> future;
+        private final boolean        replayable;
+        private final String         verb;
+
+        private int                   attempt;
+        private AuthenticationContext context;
+        private boolean               reauthenticated;
+
+        AsyncAttempt(@Nonnull String verb, boolean replayable, @Nonnull AsyncCall<T> call, @Nonnull BasicFuture<T> future) {
+            this.verb = verb;
+            this.replayable = replayable;
+            this.call = call;
+            this.future = future;
+        }
+
+        @Override
+        public void run() {
+            if( future.isDone() ) {
+                return;
+            }
+            try {
+                context = provider.getAuthenticationContext();
+            }
+            catch( CloudException | InternalException | RuntimeException e ) {
+                future.failed(e);
+                return;
+            }
+            provider.getRequestMetrics().setCatalog(context);
+            try {
+                call.call(context, this);
+            }
+            catch( CloudException | InternalException | RuntimeException e ) {
+                failed(e);
+            }
+        }
+
+        @Override
+        public void completed(T result) {
+            future.completed(result);
+        }
+
+        @Override
+        public void failed(Exception e) {
+            Logger std = NovaOpenStack.getLogger(NovaOpenStack.class, "std");
+            RetryPolicy policy = provider.getRetryPolicy();
+            RequestMetrics metrics = provider.getRequestMetrics();
+
+            if( e instanceof NovaException ) {
+                NovaException ne = (NovaException)e;
+
+                metrics.recordError(ne.getErrorType());
+                if( ne.getHttpCode() == HttpStatus.SC_UNAUTHORIZED ) {
+                    provider.invalidateAuthenticationContext(context);
+                    if( reauthenticated || !replayable ) {
+                        future.failed(e);
+                        return;
+                    }
+                    policy.recordReauthentication();
+                    reauthenticated = true;
+                    retry(0L);
+                    return;
+                }
+            }
+            else if( e instanceof CloudException ) {
+                metrics.recordError(((CloudException)e).getErrorType());
+                future.failed(e);
+                return;
+            }
+            else if( e instanceof InternalException ) {
+                if( e.getCause() instanceof IOException ) {
+                    metrics.recordError(CloudErrorType.COMMUNICATION);
+                }
+            }
+            else {
+                future.failed(e);
+                return;
+            }
+            long delay = (replayable ? policy.getRetryDelay(verb, e, attempt) : -1L);
+
+            if( delay < 0 ) {
+                future.failed(e);
+                return;
+            }
+            std.warn(verb + " failed with " + e.getMessage() + ", retrying in " + delay + "ms (attempt " + (attempt + 1) + ")");
+            attempt++;
+            retry(delay);
+        }
+
+        @Override
+        public void cancelled() {
+            future.cancel(true);
+        }
+
+        private void retry(long delay) {
+            try {
+                provider.getAsyncClient().schedule(this, delay);
+            }
+            catch( InternalException | RuntimeException e ) {
+                future.failed(e);
+            }
+        }
+    }
+
+    /**
+     * Passes the result of one asynchronous call on to another callback after converting it. Failures and
+     * cancellation are passed on unchanged.
+     */
+    static private abstract class AsyncRelay<S,T> implements FutureCallback<S> {
+        private final FutureCallback<T> target;
+
+        AsyncRelay(@Nonnull FutureCallback<T> target) {
+            this.target = target;
+        }
+
+        protected abstract T convert(S result) throws CloudException, InternalException;
+
+        @Override
+        public void completed(S result) {
+            T value;
+
+            try {
+                value = convert(result);
+            }
+            catch( CloudException | InternalException | RuntimeException e ) {
+                target.failed(e);
+                return;
+            }
+            target.completed(value);
+        }
+
+        @Override
+        public void failed(Exception e) {
+            target.failed(e);
+        }
+
+        @Override
+        public void cancelled() {
+            target.cancelled();
+        }
+    }
+
+    /**
+     * Passes the body of a JSON response on as a {@link JSONObject}.
+     */
+    static private class JsonRelay extends AsyncRelay<String,JSONObject> {
+        JsonRelay(@Nonnull FutureCallback<JSONObject> target) {
+            super(target);
+        }
+
+        @Override
+        protected JSONObject convert(String response) throws CloudException {
+            if( response == null ) {
+                return null;
+            }
+            try {
+                return new JSONObject(response);
+            }
+            catch( JSONException e ) {
+                throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
+            }
+        }
+    }
+
+    /**
+     * Sends a request through the provider's {@link NovaAsyncClient} and interprets the response as the blocking
+     * primitives do: a 404 completes the call with <code>null</code>, any other error status fails it with a
+     * {@link NovaException}, and a failure to get a response fails it with an {@link InternalException}.
+     * @param request the request, with its headers and entity set
+     * @param endpoint the URL of the service
+     * @param resource the resource path relative to the endpoint
+     * @param payload the body of the request, for the wire log, or <code>null</code>
+     * @param callback told of the outcome, or <code>null</code>
+     * @return the pending body of the response
+     */
+    private @Nonnull Future<String> sendAsync(@Nonnull HttpUriRequest request, @Nonnull final String endpoint, @Nonnull final String resource, @Nullable String payload, @Nullable FutureCallback<String> callback) {
+        final Logger std = NovaOpenStack.getLogger(NovaOpenStack.class, "std");
+        final WireLogger.Exchange wire = WireLogger.open(provider);
+        final BasicFuture<String> future = new BasicFuture<String>(callback);
+        final String verb = request.getMethod();
+        final ResponseCache cache = getResponseCache();
+        final long generation;
+
+        if( cache != null && verb.equals("GET") && cache.isCacheable(resource) ) {
+            String cached = cache.get(endpoint, resource);
+
+            if( cached != null ) {
+                std.debug("Using cached response for GET " + resource);
+                future.completed(cached);
+                return future;
+            }
+            generation = cache.getGeneration();
+        }
+        else {
+            generation = -1L;
+        }
+        wire.begin(null, endpoint, resource);
+        wire.request(request);
+        wire.body(payload);
+        APITrace.trace(provider, verb + " " + toAPIResource(resource));
+
+        final RequestMetrics.Request metrics = provider.getRequestMetrics().start(null, request, endpoint, resource);
+
+        try {
+            provider.getAsyncClient().execute(request, new FutureCallback<HttpResponse>() {
+                @Override
+                public void completed(HttpResponse response) {
+                    metrics.complete(response);
+                    wire.response(response);
+                    try {
+                        int code = response.getStatusLine().getStatusCode();
+                        HttpEntity entity = response.getEntity();
+                        String data = (entity == null ? null : EntityUtils.toString(entity));
+
+                        wire.body(data);
+                        if( !verb.equals("GET") ) {
+                            invalidateCache(resource);
+                        }
+                        if( code == HttpStatus.SC_NOT_FOUND ) {
+                            future.completed(null);
+                        }
+                        else if( code >= 200 && code < 300 ) {
+                            if( generation >= 0L && data != null ) {
+                                cache.put(endpoint, resource, data, generation);
+                            }
+                            future.completed(data);
+                        }
+                        else {
+                            NovaException.ExceptionItems items = NovaException.parseException(code, data, response);
+
+                            if( items == null ) {
+                                future.completed(null);
+                            }
+                            else {
+                                std.error(verb + " " + resource + ": [" + code + " : " + items.message + "] " + items.details);
+                                future.failed(new NovaException(items));
+                            }
+                        }
+                    }
+                    catch( IOException e ) {
+                        std.error("Failed to read response due to a cloud I/O error: " + e.getMessage());
+                        future.failed(new InternalException(e));
+                    }
+                    finally {
+                        wire.end();
+                    }
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    metrics.fail();
+                    wire.end();
+                    std.error("I/O error from server communications: " + e.getMessage());
+                    future.failed(e instanceof IOException ? new InternalException(e) : e);
+                }
+
+                @Override
+                public void cancelled() {
+                    metrics.fail();
+                    wire.end();
+                    future.cancel(true);
+                }
+            });
+        }
+        catch( InternalException | RuntimeException e ) {
+            metrics.fail();
+            wire.end();
+            future.failed(e);
+        }
+        return future;
+    }
+
+    private @Nonnull StringEntity toJsonEntity(@Nullable String payload) {
+        return new StringEntity(payload == null ? "" : payload, ContentType.APPLICATION_JSON);
+    }
+
+    /**
+     * The asynchronous counterpart of {@link #getString(String, String, String)}.
+     * @param authToken the token to authenticate the request with
+     * @param endpoint the URL of the service
+     * @param resource the resource path relative to the endpoint
+     * @param callback told of the outcome, or <code>null</code>
+     * @return the pending body of the response, <code>null</code> if the resource does not exist
+     */
+    protected @Nonnull Future<String> getStringAsync(@Nonnull String authToken, @Nonnull String endpoint, @Nonnull String resource, @Nullable FutureCallback<String> callback) {
+        HttpGet get = new HttpGet(endpoint + resource);
+
+        get.addHeader("Content-Type", "application/json");
+        get.addHeader("X-Auth-Token", authToken);
+        return sendAsync(get, endpoint, resource, null, callback);
+    }
+
+    /**
+     * The asynchronous counterpart of {@link #postString(String, String, String, String)}.
+     * @param authToken the token to authenticate the request with
+     * @param endpoint the URL of the service
+     * @param resource the resource path relative to the endpoint
+     * @param payload the JSON body of the request
+     * @param callback told of the outcome, or <code>null</code>
+     * @return the pending body of the response
+     */
+    protected @Nonnull Future<String> postStringAsync(@Nonnull String authToken, @Nonnull String endpoint, @Nonnull String resource, @Nullable String payload, @Nullable FutureCallback<String> callback) {
+        HttpPost post = new HttpPost(endpoint + resource);
+
+        post.addHeader("Content-Type", "application/json");
+        post.addHeader("X-Auth-Token", authToken);
+        post.setEntity(toJsonEntity(payload));
+        return sendAsync(post, endpoint, resource, payload, callback);
+    }
+
+    /**
+     * The asynchronous counterpart of {@link #putString(String, String, String, String)}.
+     * @param authToken the token to authenticate the request with
+     * @param endpoint the URL of the service
+     * @param resource the resource path relative to the endpoint
+     * @param payload the JSON body of the request
+     * @param callback told of the outcome, or <code>null</code>
+     * @return the pending body of the response
+     */
+    protected @Nonnull Future<String> putStringAsync(@Nonnull String authToken, @Nonnull String endpoint, @Nonnull String resource, @Nullable String payload, @Nullable FutureCallback<String> callback) {
+        HttpPut put = new HttpPut(endpoint + resource);
+
+        put.addHeader("Content-Type", "application/json");
+        put.addHeader("X-Auth-Token", authToken);
+        put.setEntity(toJsonEntity(payload));
+        return sendAsync(put, endpoint, resource, payload, callback);
+    }
+
+    /**
+     * The asynchronous counterpart of {@link #delete(String, String, String)}.
+     * @param authToken the token to authenticate the request with
+     * @param endpoint the URL of the service
+     * @param resource the resource path relative to the endpoint
+     * @param callback told of the outcome, or <code>null</code>
+     * @return the pending body of the response, if any
+     */
+    protected @Nonnull Future<String> deleteAsync(@Nonnull String authToken, @Nonnull String endpoint, @Nonnull String resource, @Nullable FutureCallback<String> callback) {
+        HttpDelete delete = new HttpDelete(endpoint + resource);
+
+        delete.addHeader("Content-Type", "application/json");
+        delete.addHeader("X-Auth-Token", authToken);
+        return sendAsync(delete, endpoint, resource, null, callback);
+    }
+
+    private @Nonnull String getServiceEndpoint(@Nonnull AuthenticationContext context, @Nonnull String service) throws CloudException {
+        String endpoint = context.getServiceUrl(service);
+
+        if( endpoint == null ) {
+            throw new CloudException("No " + service + " URL has been established in " + context.getMyRegion());
+        }
+        return endpoint;
+    }
+
+    /**
+     * The asynchronous counterpart of {@link #getResource(String, String, String, boolean)}.
+     * @param service the service catalog type hosting the resource
+     * @param resource the resource path
+     * @param resourceId the ID appended to the path, or a query string starting with <code>?</code>, or <code>null</code>
+     * @param suffix true to fetch the <code>/detail</code> view when no ID is given
+     * @param callback told of the outcome, or <code>null</code>
+     * @return the pending resource, <code>null</code> if it does not exist
+     */
+    public @Nonnull Future<JSONObject> getResourceAsync(@Nonnull final String service, @Nonnull final String resource, @Nullable final String resourceId, final boolean suffix, @Nullable FutureCallback<JSONObject> callback) {
+        return executeAsync("GET", true, new AsyncCall<JSONObject>() {
+            public void call(@Nonnull AuthenticationContext context, @Nonnull FutureCallback<JSONObject> result) throws CloudException {
+                String resourceUri = resource;
+
+                if( resourceId != null ) {
+                    resourceUri += (resourceId.startsWith("?") ? resourceId : "/" + resourceId);
+                }
+                else if( suffix ) {
+                    resourceUri += "/detail";
+                }
+                getStringAsync(context.getAuthToken(), getServiceEndpoint(context, service), resourceUri, new JsonRelay(result));
+            }
+        }, callback);
+    }
+
+    /**
+     * The asynchronous counterpart of {@link #postString(String, String, String, JSONObject, boolean)}.
+     * @param service the service catalog type hosting the resource
+     * @param resource the resource path
+     * @param resourceId the ID appended to the path, or <code>null</code>
+     * @param body the body of the request
+     * @param suffix true to post to the <code>/action</code> resource of the ID
+     * @param callback told of the outcome, or <code>null</code>
+     * @return the pending response, <code>null</code> if there is none
+     */
+    public @Nonnull Future<JSONObject> postStringAsync(@Nonnull final String service, @Nonnull final String resource, @Nullable final String resourceId, @Nonnull final JSONObject body, final boolean suffix, @Nullable FutureCallback<JSONObject> callback) {
+        return executeAsync("POST", true, new AsyncCall<JSONObject>() {
+            public void call(@Nonnull AuthenticationContext context, @Nonnull FutureCallback<JSONObject> result) throws CloudException {
+                String resourceUri = resource;
+
+                if( resourceId != null ) {
+                    resourceUri += "/" + (suffix ? (resourceId + "/action") : resourceId);
+                }
+                postStringAsync(context.getAuthToken(), getServiceEndpoint(context, service), resourceUri, body.toString(), new JsonRelay(result));
+            }
+        }, callback);
+    }
+
+    /**
+     * The asynchronous counterpart of {@link #putString(String, String, String, JSONObject, String)}.
+     * @param service the service catalog type hosting the resource
+     * @param resource the resource path
+     * @param resourceId the ID appended to the path, or <code>null</code>
+     * @param body the body of the request
+     * @param suffix a path appended after the ID, or <code>null</code>
+     * @param callback told of the outcome, or <code>null</code>
+     * @return the pending response, <code>null</code> if there is none
+     */
+    public @Nonnull Future<JSONObject> putStringAsync(@Nonnull final String service, @Nonnull final String resource, @Nullable final String resourceId, @Nonnull final JSONObject body, @Nullable final String suffix, @Nullable FutureCallback<JSONObject> callback) {
+        return executeAsync("PUT", true, new AsyncCall<JSONObject>() {
+            public void call(@Nonnull AuthenticationContext context, @Nonnull FutureCallback<JSONObject> result) throws CloudException {
+                String resourceUri = resource;
+
+                if( resourceId != null ) {
+                    resourceUri += "/" + (suffix != null ? (resourceId + "/" + suffix) : resourceId);
+                }
+                putStringAsync(context.getAuthToken(), getServiceEndpoint(context, service), resourceUri, body.toString(), new JsonRelay(result));
+            }
+        }, callback);
+    }
+
+    /**
+     * The asynchronous counterpart of {@link #deleteResource(String, String, String, String)}.
+     * @param service the service catalog type hosting the resource
+     * @param resource the resource path
+     * @param resourceId the ID of the resource to delete
+     * @param suffix a path appended after the ID, or <code>null</code>
+     * @param callback told of the outcome, or <code>null</code>
+     * @return completes once the resource has been deleted
+     */
+    public @Nonnull Future<Void> deleteResourceAsync(@Nonnull final String service, @Nonnull final String resource, @Nonnull final String resourceId, @Nullable final String suffix, @Nullable FutureCallback<Void> callback) {
+        return executeAsync("DELETE", true, new AsyncCall<Void>() {
+            public void call(@Nonnull AuthenticationContext context, @Nonnull FutureCallback<Void> result) throws CloudException {
+                String resourceUri = resource + "/" + resourceId + (suffix == null ? "" : "/" + suffix);
+
+                deleteAsync(context.getAuthToken(), getServiceEndpoint(context, service), resourceUri, new AsyncRelay<String,Void>(result) {
+                    @Override
+                    protected Void convert(String response) {
+                        return null;
+                    }
+                });
+            }
+        }, callback);
+    }
+
+    /**
+     * The asynchronous counterpart of {@link #getStreamedResource(String, String, String, boolean, String, boolean, ItemHandler)}.
+     * Each page is fetched once the previous one has been handled, following the same <code>limit</code>/<code>marker</code>
+     * rules. The handler runs on an I/O dispatcher thread and must not block.
+     * @param service the service catalog type hosting the collection
+     * @param resource the collection resource, e.g. <code>/servers</code>
+     * @param collection the name of the JSON array holding the items, e.g. <code>servers</code>
+     * @param suffix true to list the <code>/detail</code> view of the collection
+     * @param query any additional URL-encoded query parameters (without a leading <code>?</code> or <code>&amp;</code>)
+     * @param paged true if the service supports <code>limit</code>/<code>marker</code> paging for this collection
+     * @param handler the consumer receiving each item
+     * @param callback told once the listing is complete or has failed, or <code>null</code>
+     * @return completes once every item has been handled
+     */
+    public @Nonnull Future<Void> getPagedResourceAsync(@Nonnull String service, @Nonnull String resource, @Nonnull String collection, boolean suffix, @Nullable String query, boolean paged, @Nonnull ItemHandler handler, @Nullable FutureCallback<Void> callback) {
+        BasicFuture<Void> future = new BasicFuture<Void>(callback);
+
+        new AsyncPager(service, (suffix ? resource + "/detail" : resource), collection, query, (paged ? getPageSize() : 0), handler, future).fetch(null);
+        return future;
+    }
+
+    /**
+     * Fetches the pages of an asynchronous listing one after the other.
+     */
+    private class AsyncPager implements FutureCallback<JSONObject> {
+        private final String            collection;
+        private final BasicFuture<Void> future;
+        private final ItemHandler       handler;
+        private final int               pageSize;
+        private final String            query;
+        private final String            resourceUri;
+        private final String            service;
+
+        private String marker;
+
+        AsyncPager(@Nonnull String service, @Nonnull String resourceUri, @Nonnull String collection, @Nullable String query, int pageSize, @Nonnull ItemHandler handler, @Nonnull BasicFuture<Void> future) {
+            this.service = service;
+            this.resourceUri = resourceUri;
+            this.collection = collection;
+            this.query = query;
+            this.pageSize = pageSize;
+            this.handler = handler;
+            this.future = future;
+        }
+
+        void fetch(@Nullable String marker) {
+            String params;
+
+            this.marker = marker;
+            try {
+                params = getPageParameters(pageSize, marker, query);
+            }
+            catch( InternalException e ) {
+                future.failed(e);
+                return;
+            }
+            getResourceAsync(service, resourceUri + params, null, false, this);
+        }
+
+        @Override
+        public void completed(JSONObject ob) {
+            if( future.isDone() ) {
+                return;
+            }
+            if( ob == null || !ob.has(collection) ) {
+                future.completed(null);
+                return;
+            }
+            String next;
+
+            try {
+                JSONArray page = ob.getJSONArray(collection);
+
+                for( int i=0; i<page.length(); i++ ) {
+                    if( !handler.handle(page.getJSONObject(i)) ) {
+                        future.completed(null);
+                        return;
+                    }
+                }
+                if( pageSize < 1 || page.length() < 1 ) {
+                    future.completed(null);
+                    return;
+                }
+                next = getNextMarker(ob, collection);
+                if( next == null && page.length() == pageSize ) {
+                    JSONObject last = page.getJSONObject(page.length() - 1);
+
+                    next = (last.has("id") && !last.isNull("id") ? last.getString("id") : null);
+                }
+            }
+            catch( JSONException e ) {
+                future.failed(new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", "Missing JSON element for " + collection + " in " + ob.toString()));
+                return;
+            }
+            catch( CloudException | InternalException | RuntimeException e ) {
+                future.failed(e);
+                return;
+            }
+            if( next == null || next.equals(marker) ) {
+                future.completed(null);
+                return;
+            }
+            fetch(next);
+        }
+
+        @Override
+        public void failed(Exception e) {
+            future.failed(e);
+        }
+
+        @Override
+        public void cancelled() {
+            future.cancel(true);
+        }
+    }
+
+    public @Nullable AuthenticationContext authenticate() throws CloudException, InternalException {
         Logger std = NovaOpenStack.getLogger(NovaOpenStack.class, "std");
         
         if( std.isTraceEnabled() ) {
@@ -142,17 +834,14 @@ public abstract class AbstractMethod {
     
     private @Nullable AuthenticationContext authenticateKeystone(@Nonnull String endpoint) throws CloudException, InternalException {
         Logger std = NovaOpenStack.getLogger(NovaOpenStack.class, "std");
-        Logger wire = NovaOpenStack.getLogger(NovaOpenStack.class, "wire");
+        WireLogger.Exchange wire = WireLogger.open(provider);
         
         if( std.isTraceEnabled() ) {
             std.trace("enter - " + AbstractMethod.class.getName() + ".authenticateKeystone(" + endpoint + ")");
         }
-        if( wire.isDebugEnabled() ) {
-            wire.debug("KEYSTONE --------------------------------------------------------> " + endpoint);
-            wire.debug("");
-        }
+        wire.begin("KEYSTONE", endpoint, null);
 
-        HttpClient client = null;
+        HttpResponse response = null;
 
         try {
             String accessPublic = null;
@@ -227,17 +916,11 @@ public abstract class AbstractMethod {
             
             jsonAuth.put("auth", json);
 
-            client = getClient();
+            HttpClient client = getClient();
             HttpPost post = new HttpPost(endpoint + "/tokens");
             
             post.addHeader("Content-Type", "application/json");
-            if( wire.isDebugEnabled() ) {
-                wire.debug(post.getRequestLine().toString());
-                for( Header header : post.getAllHeaders() ) {
-                    wire.debug(header.getName() + ": " + header.getValue());
-                }
-                wire.debug("");
-            }
+            wire.request(post);
 
 
             String payload = (new JSONObject(jsonAuth)).toString();
@@ -249,23 +932,12 @@ public abstract class AbstractMethod {
             catch( UnsupportedEncodingException e ) {
                 throw new InternalException(e);
             }
-            /*try { wire.debug(EntityUtils.toString(post.getEntity())); }
-            catch( IOException ignore ) { }*/
-
-            wire.debug("");
-
-            HttpResponse response;
+            wire.body(payload);
 
             try {
                 APITrace.trace(provider, "POST authenticateKeystone");
-                response = client.execute(post);
-                if( wire.isDebugEnabled() ) {
-                    wire.debug(response.getStatusLine().toString());
-                    for( Header header : response.getAllHeaders() ) {
-                        wire.debug(header.getName() + ": " + header.getValue());
-                    }
-                    wire.debug("");
-                }
+                response = send(client, post, "identity", endpoint, "/tokens");
+                wire.response(response);
             }
             catch( IOException e ) {
                 std.error("I/O error from server communications: " + e.getMessage());
@@ -289,10 +961,7 @@ public abstract class AbstractMethod {
 
                     if( entity != null ) {
                         data = EntityUtils.toString(entity);
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(data);
-                            wire.debug("");
-                        }
+                        wire.body(data);
                     }
                 }
                 catch( IOException e ) {
@@ -300,7 +969,7 @@ public abstract class AbstractMethod {
                     e.printStackTrace();
                     throw new CloudException(e);
                 }
-                NovaException.ExceptionItems items = NovaException.parseException(code, data);
+                NovaException.ExceptionItems items = NovaException.parseException(code, data, response);
                 
                 if( items == null ) {
                     items = new NovaException.ExceptionItems();
@@ -320,10 +989,7 @@ public abstract class AbstractMethod {
 
                     if( entity != null ) {
                         data = EntityUtils.toString(entity);
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(data);
-                            wire.debug("");
-                        }
+                        wire.body(data);
                     }
                 }
                 catch( IOException e ) {
@@ -338,6 +1004,7 @@ public abstract class AbstractMethod {
                     String id, tenantId;
                     JSONArray catalog;
                     JSONObject token;
+                    long expires = -1L;
 
                     try {
                         JSONObject rj = new JSONObject(data);
@@ -354,6 +1021,14 @@ public abstract class AbstractMethod {
                                 tenantId = t.getString("id");
                             }
                         }
+                        if( token.has("expires") && !token.isNull("expires") ) {
+                            try {
+                                expires = NovaOpenStack.parseTimestamp(token.getString("expires"));
+                            }
+                            catch( CloudException e ) {
+                                std.warn("authenticateKeystone(): Unable to parse token expiration: " + token.getString("expires"));
+                            }
+                        }
                     }
                     catch( JSONException e ) {
                         std.error("authenticateKeystone(): Invalid response from server: " + e.getMessage());
@@ -484,29 +1159,26 @@ public abstract class AbstractMethod {
                             endpoints.put("region-a.geo-1", "https://region-a.geo-1.dbaas-mysql.hpcloudsvc.com:8779/v1.0/66565797737008");
                             services.put(HPRDBMS.SERVICE, endpoints);
                         }
-                        return new AuthenticationContext(myRegionId, id, tenantId, services, null);
+                        return new AuthenticationContext(myRegionId, id, tenantId, services, null, provider.getCloudProvider(), expires);
                     }
                 }
             }
             throw new CloudException("No authentication tokens were provided");
         }
         finally {
-            if (client != null) {
-                client.getConnectionManager().shutdown();
+            if( response != null ) {
+                EntityUtils.consumeQuietly(response.getEntity());
             }
             if( std.isTraceEnabled() ) {
                 std.trace("exit - " + AbstractMethod.class.getName() + ".authenticateKeystone()");
             }
-            if( wire.isDebugEnabled() ) {
-                wire.debug("");
-                wire.debug("KEYSTONE --------------------------------------------------------> " + endpoint);
-            }
+            wire.end();
         }
     }
     
     private @Nullable AuthenticationContext authenticateStandard(@Nonnull String endpointUrls) throws CloudException, InternalException {
         Logger std = NovaOpenStack.getLogger(NovaOpenStack.class, "std");
-        Logger wire = NovaOpenStack.getLogger(NovaOpenStack.class, "wire");
+        WireLogger.Exchange wire = WireLogger.open(provider);
         
         if( std.isTraceEnabled() ) {
             std.trace("enter - " + AbstractMethod.class.getName() + ".authenticateStandard(" + endpointUrls + ")");
@@ -543,41 +1215,25 @@ public abstract class AbstractMethod {
             String tenantId = account;
 
             for( String endpoint : endpoints ) {
-                if( wire.isDebugEnabled() ) {
-                    wire.debug("STANDARD --------------------------------------------------------> " + endpoint);
-                    wire.debug("");
-                }
+                wire.begin("STANDARD", endpoint, null);
                 
-                HttpClient client = null;
+                HttpResponse response = null;
 
                 try {
                     ProviderContext ctx = provider.getContext();
-                    client = getClient();
+                    HttpClient client = getClient();
                     HttpGet get = new HttpGet(endpoint);
 
                     get.addHeader("Content-Type", "application/json");
                     get.addHeader("X-Auth-User", accessPublic);
                     get.addHeader("X-Auth-Key", accessPrivate);
                     get.addHeader("X-Auth-Project-Id", account);
-                    if( wire.isDebugEnabled() ) {
-                        wire.debug(get.getRequestLine().toString());
-                        for( Header header : get.getAllHeaders() ) {
-                            wire.debug(header.getName() + ": " + header.getValue());
-                        }
-                        wire.debug("");
-                    }
-                    HttpResponse response;
+                    wire.request(get);
 
                     try {
                         APITrace.trace(provider, "GET authenticateStandard");
-                        response = client.execute(get);
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(response.getStatusLine().toString());
-                            for( Header header : response.getAllHeaders() ) {
-                                wire.debug(header.getName() + ": " + header.getValue());
-                            }
-                            wire.debug("");
-                        }
+                        response = send(client, get, "identity", endpoint, null);
+                        wire.response(response);
                     }
                     catch( IOException e ) {
                         std.error("I/O error from server communications: " + e.getMessage());
@@ -599,10 +1255,7 @@ public abstract class AbstractMethod {
 
                             if( entity != null ) {
                                 data = EntityUtils.toString(entity);
-                                if( wire.isDebugEnabled() ) {
-                                    wire.debug(data);
-                                    wire.debug("");
-                                }
+                                wire.body(data);
                             }
                         }
                         catch( IOException e ) {
@@ -613,11 +1266,7 @@ public abstract class AbstractMethod {
                         if( code == HttpStatus.SC_INTERNAL_SERVER_ERROR && data.contains("<faultstring>") ) {
                             return null;
                         }
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(response);
-                        }
-                        wire.debug("");
-                        NovaException.ExceptionItems items = NovaException.parseException(code, data);
+                        NovaException.ExceptionItems items = NovaException.parseException(code, data, response);
                         
                         if( items.type.equals(CloudErrorType.AUTHENTICATION) ) {
                             return null;
@@ -685,20 +1334,17 @@ public abstract class AbstractMethod {
                     }
                 }
                finally {
-                   if (client != null) {
-                       client.getConnectionManager().shutdown();
+                   if( response != null ) {
+                       EntityUtils.consumeQuietly(response.getEntity());
                    }
-                   if( wire.isDebugEnabled() ) {
-                       wire.debug("");
-                       wire.debug("STANDARD --------------------------------------------------------> " + endpoint);
-                   }                    
+                   wire.end();                    
                }
             }
             if( authToken == null ) {
                 std.warn("authenticateStandard(): No authentication token in response");
                 throw new CloudException("No authentication token in cloud response");
             }
-            return new AuthenticationContext(myRegion, authToken, tenantId, services, null);
+            return new AuthenticationContext(myRegion, authToken, tenantId, services, null, provider.getCloudProvider(), -1L);
         }
         finally {
             if( std.isTraceEnabled() ) {
@@ -710,7 +1356,7 @@ public abstract class AbstractMethod {
     
     private @Nullable AuthenticationContext authenticateSwift(@Nonnull String endpoint) throws CloudException, InternalException {
         Logger std = NovaOpenStack.getLogger(NovaOpenStack.class, "std");
-        Logger wire = NovaOpenStack.getLogger(NovaOpenStack.class, "wire");
+        WireLogger.Exchange wire = WireLogger.open(provider);
         
         if( std.isTraceEnabled() ) {
             std.trace("enter - " + AbstractMethod.class.getName() + ".authenticate()");
@@ -737,14 +1383,11 @@ public abstract class AbstractMethod {
         String authToken = null, storageToken = null;
         String thisRegion = toRegion(endpoint);
 
-        if( wire.isDebugEnabled() ) {
-            wire.debug("--------------------------------------------------------> " + endpoint);
-            wire.debug("");
-        }
+        wire.begin(null, endpoint, null);
         
-        HttpClient client = null;
+        HttpResponse response = null;
         try {
-            client = getClient();
+            HttpClient client = getClient();
             HttpGet get = new HttpGet(endpoint);
 
             ProviderContext ctx = provider.getContext();
@@ -766,25 +1409,12 @@ public abstract class AbstractMethod {
             get.addHeader("Content-Type", "application/json");
             get.addHeader("X-Auth-User", account);
             get.addHeader("X-Auth-Key", accessPrivate);
-            if( wire.isDebugEnabled() ) {
-                wire.debug(get.getRequestLine().toString());
-                for( Header header : get.getAllHeaders() ) {
-                    wire.debug(header.getName() + ": " + header.getValue());
-                }
-                wire.debug("");
-            }
-            HttpResponse response;
+            wire.request(get);
 
             try {
                 APITrace.trace(provider, "GET authenticateSwift");
-                response = client.execute(get);
-                if( wire.isDebugEnabled() ) {
-                    wire.debug(response.getStatusLine().toString());
-                    for( Header header : response.getAllHeaders() ) {
-                        wire.debug(header.getName() + ": " + header.getValue());
-                    }
-                    wire.debug("");
-                }
+                response = send(client, get, "identity", endpoint, null);
+                wire.response(response);
             }
             catch( IOException e ) {
                 std.error("I/O error from server communications: " + e.getMessage());
@@ -806,10 +1436,7 @@ public abstract class AbstractMethod {
 
                     if( entity != null ) {
                         data = EntityUtils.toString(entity);
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(data);
-                            wire.debug("");
-                        }
+                        wire.body(data);
                     }
                 }
                 catch( IOException e ) {
@@ -817,7 +1444,7 @@ public abstract class AbstractMethod {
                     e.printStackTrace();
                     throw new CloudException(e);
                 }
-                NovaException.ExceptionItems items = NovaException.parseException(code, data);
+                NovaException.ExceptionItems items = NovaException.parseException(code, data, response);
                 
                 if( items.type.equals(CloudErrorType.AUTHENTICATION) ) {
                     return null;
@@ -867,86 +1494,59 @@ public abstract class AbstractMethod {
                     std.warn("authenticate(): No authentication token in response");
                     throw new CloudException("No authentication token in cloud response");
                 }
-                return new AuthenticationContext(thisRegion, authToken, tenantId, services, storageToken);
+                return new AuthenticationContext(thisRegion, authToken, tenantId, services, storageToken, provider.getCloudProvider(), -1L);
             }
         }
         finally {
-            if (client != null) {
-                client.getConnectionManager().shutdown();
+            if( response != null ) {
+                EntityUtils.consumeQuietly(response.getEntity());
             }
             if( std.isTraceEnabled() ) {
                 std.trace("exit - " + AbstractMethod.class.getName() + ".authenticate()");
             }
-            if( wire.isDebugEnabled() ) {
-                wire.debug("");
-                wire.debug("--------------------------------------------------------> " + endpoint);
-            }            
+            wire.end();            
         }
     }
 
     public void deleteResource(@Nonnull final String service, @Nonnull final String resource, @Nonnull final String resourceId, @Nullable final String suffix) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getServiceUrl(service);
+        execute("DELETE", true, new AuthenticatedCall<Void>() {
+            public Void call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getServiceUrl(service);
 
-        if( endpoint == null ) {
-            throw new CloudException("No " + service + " endpoint exists");
-        }
-        String resourceUri = resource + "/" + resourceId;
-        if( suffix != null ) {
-            resourceUri = resource + "/" + resourceId + "/" + suffix;
-        }
-        try {
-            delete(context.getAuthToken(), endpoint, resourceUri);
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                deleteResource(service, resource, resourceId, suffix);
-            }
-            else {
-                throw ex;
+                if( endpoint == null ) {
+                    throw new CloudException("No " + service + " endpoint exists");
+                }
+                String resourceUri = resource + "/" + resourceId;
+                if( suffix != null ) {
+                    resourceUri = resource + "/" + resourceId + "/" + suffix;
+                }
+                delete(context.getAuthToken(), endpoint, resourceUri);
+                return null;
             }
-        }
+        });
     }
     
     protected void delete(@Nonnull final String authToken, @Nonnull final String endpoint, @Nonnull final String resource) throws CloudException, InternalException {
         Logger std = NovaOpenStack.getLogger(NovaOpenStack.class, "std");
-        Logger wire = NovaOpenStack.getLogger(NovaOpenStack.class, "wire");
+        WireLogger.Exchange wire = WireLogger.open(provider);
         
         if( std.isTraceEnabled() ) {
-            std.trace("enter - " + AbstractMethod.class.getName() + ".delete(" + authToken + "," + endpoint + "," + resource + ")");
+            std.trace("enter - " + AbstractMethod.class.getName() + ".delete(" + endpoint + "," + resource + ")");
         }
-        if( wire.isDebugEnabled() ) {
-            wire.debug("--------------------------------------------------------> " + endpoint + resource);
-            wire.debug("");
-        }
-        HttpClient client = null;
+        wire.begin(null, endpoint, resource);
+        HttpResponse response = null;
         try {
-            client = getClient();
+            HttpClient client = getClient();
             HttpDelete delete = new HttpDelete(endpoint + resource);
             
             delete.addHeader("Content-Type", "application/json");
             delete.addHeader("X-Auth-Token", authToken);
-            if( wire.isDebugEnabled() ) {
-                wire.debug(delete.getRequestLine().toString());
-                for( Header header : delete.getAllHeaders() ) {
-                    wire.debug(header.getName() + ": " + header.getValue());
-                }
-                wire.debug("");
-            }
-            HttpResponse response;
+            wire.request(delete);
 
             try {
                 APITrace.trace(provider, "DELETE " + toAPIResource(resource));
-                response = client.execute(delete);
-                if( wire.isDebugEnabled() ) {
-                    wire.debug(response.getStatusLine().toString());
-                    for( Header header : response.getAllHeaders() ) {
-                        wire.debug(header.getName() + ": " + header.getValue());
-                    }
-                    wire.debug("");
-                }
+                response = send(client, delete, null, endpoint, resource);
+                wire.response(response);
             }
             catch( IOException e ) {
                 std.error("I/O error from server communications: " + e.getMessage());
@@ -965,10 +1565,7 @@ public abstract class AbstractMethod {
 
                     if( entity != null ) {
                         data = EntityUtils.toString(entity);
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(data);
-                            wire.debug("");
-                        }
+                        wire.body(data);
                     }
                 }
                 catch( IOException e ) {
@@ -976,7 +1573,7 @@ public abstract class AbstractMethod {
                     e.printStackTrace();
                     throw new CloudException(e);
                 }
-                NovaException.ExceptionItems items = NovaException.parseException(code, data);
+                NovaException.ExceptionItems items = NovaException.parseException(code, data, response);
                 
                 if( items == null ) {
                     items = new NovaException.ExceptionItems();
@@ -988,148 +1585,421 @@ public abstract class AbstractMethod {
                 std.error("delete(): [" +  code + " : " + items.message + "] " + items.details);
                 throw new NovaException(items);
             }
-            else {
-                wire.debug("");
-            }
         }
         finally {
-            if (client != null) {
-                client.getConnectionManager().shutdown();
+            if( response != null ) {
+                EntityUtils.consumeQuietly(response.getEntity());
             }
+            invalidateCache(resource);
             if( std.isTraceEnabled() ) {
                 std.trace("exit - " + AbstractMethod.class.getName() + ".delete()");
             }
-            if( wire.isDebugEnabled() ) {
-                wire.debug("");
-                wire.debug("--------------------------------------------------------> " + endpoint + resource);
-            }               
+            wire.end();               
         }
     }
 
     public @Nullable String[] getItemList(@Nonnull final String service, @Nonnull final String resource, final boolean suffix) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getServiceUrl(service);
+        return execute("GET", true, new AuthenticatedCall<String[]>() {
+            public String[] call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getServiceUrl(service);
 
-        if( endpoint == null ) {
-            throw new CloudException("No " + service + " URL has been established in " + context.getMyRegion());
-        }
-        String resourceUri = resource;
-        if( suffix ) {
-            resourceUri += "/detail";
-        }
-        try {
-            String response = getString(context.getAuthToken(), endpoint, resourceUri);
+                if( endpoint == null ) {
+                    throw new CloudException("No " + service + " URL has been established in " + context.getMyRegion());
+                }
+                String resourceUri = resource;
+                if( suffix ) {
+                    resourceUri += "/detail";
+                }
+                String response = getString(context.getAuthToken(), endpoint, resourceUri);
 
-            if( response == null ) {
-                return null;
-            }
-            if( response.length() < 1 ) {
-                return new String[0];
-            }
-            String[] items = response.split("\n");
+                if( response == null ) {
+                    return null;
+                }
+                if( response.length() < 1 ) {
+                    return new String[0];
+                }
+                String[] items = response.split("\n");
 
-            if( items == null || items.length < 1 ) {
-                return new String[] { response.trim() };
-            }
-            for( int i=0; i< items.length; i++ ) {
-                items[i] = items[i].trim();
-            }
-            return items;
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                return getItemList(service, resource, suffix);
+                if( items == null || items.length < 1 ) {
+                    return new String[] { response.trim() };
+                }
+                for( int i=0; i< items.length; i++ ) {
+                    items[i] = items[i].trim();
+                }
+                return items;
             }
-            else {
-                throw ex;
-            }
-        }
+        });
     }
     
     public @Nullable JSONObject getResource(@Nonnull final String service, @Nonnull final String resource, @Nullable final String resourceId, final boolean suffix) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getServiceUrl(service);
+        return execute("GET", true, new AuthenticatedCall<JSONObject>() {
+            public JSONObject call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getServiceUrl(service);
 
-        if( endpoint == null ) {
-            throw new CloudException("No " + service + " URL has been established in " + context.getMyRegion());
+                if( endpoint == null ) {
+                    throw new CloudException("No " + service + " URL has been established in " + context.getMyRegion());
+                }
+                String resourceUri = resource;
+                if( resourceId != null ) {
+                    if( resourceId.startsWith("?") ) {
+                        resourceUri += resourceId;
+                    }
+                    else {
+                        resourceUri += "/" + resourceId;
+                    }
+                }
+                else if( suffix ) {
+                    resourceUri += "/detail";
+                }
+                String response = getString(context.getAuthToken(), endpoint, resourceUri);
+
+                if( response == null ) {
+                    return null;
+                }
+                try {
+                    return new JSONObject(response);
+                }
+                catch( JSONException e ) {
+                    throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Receives the items of a paginated listing one page at a time, as each page arrives from the cloud.
+     */
+    public interface PageHandler {
+        /**
+         * Processes a single page of results.
+         * @param page the items in the current page
+         * @return true if the next page should be fetched, false to stop the listing early
+         * @throws CloudException an error occurred processing the page
+         * @throws InternalException an internal error occurred processing the page
+         * @throws JSONException an item in the page did not have the expected structure
+         */
+        boolean handle(@Nonnull JSONArray page) throws CloudException, InternalException, JSONException;
+    }
+
+    static public final int DEFAULT_PAGE_SIZE = 1000;
+
+    /**
+     * Walks a paginated OpenStack collection using <code>limit</code>/<code>marker</code> query parameters, following the
+     * <code>&lt;collection&gt;_links</code> "next" link when the service provides one and falling back to the ID of the last
+     * item in a full page when it does not. Each page is handed to the handler as soon as it is parsed, so callers never
+     * need to hold the complete listing in memory. The page size is read from the <code>listPageSize</code> custom
+     * property and defaults to {@link #DEFAULT_PAGE_SIZE}.
+     * @param service the service catalog type hosting the collection (e.g. <code>compute</code> or <code>volume</code>)
+     * @param resource the collection resource, e.g. <code>/servers</code>
+     * @param collection the name of the JSON array holding the items, e.g. <code>servers</code>
+     * @param suffix true to list the <code>/detail</code> view of the collection
+     * @param query any additional URL-encoded query parameters (without a leading <code>?</code> or <code>&amp;</code>)
+     * @param handler the consumer receiving each page
+     * @throws CloudException an error occurred talking to the cloud
+     * @throws InternalException an internal error occurred building or processing the request
+     */
+    public void getPagedResource(@Nonnull String service, @Nonnull String resource, @Nonnull String collection, boolean suffix, @Nullable String query, @Nonnull PageHandler handler) throws CloudException, InternalException {
+        String resourceUri = (suffix ? resource + "/detail" : resource);
+        int pageSize = getPageSize();
+        String marker = null;
+
+        while( true ) {
+            JSONObject ob = getResource(service, resourceUri, getPageParameters(pageSize, marker, query), false);
+
+            if( ob == null || !ob.has(collection) ) {
+                return;
+            }
+            String next;
+
+            try {
+                JSONArray page = ob.getJSONArray(collection);
+
+                if( page.length() < 1 ) {
+                    return;
+                }
+                if( !handler.handle(page) ) {
+                    return;
+                }
+                next = getNextMarker(ob, collection);
+                if( next == null && page.length() == pageSize ) {
+                    JSONObject last = page.getJSONObject(page.length() - 1);
+
+                    next = (last.has("id") && !last.isNull("id") ? last.getString("id") : null);
+                }
+            }
+            catch( JSONException e ) {
+                throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", "Missing JSON element for " + collection + " in " + ob.toString());
+            }
+            if( next == null || next.equals(marker) ) {
+                return;
+            }
+            marker = next;
         }
-        String resourceUri = resource;
-        if( resourceId != null ) {
-            if( resourceId.startsWith("?") ) {
-                resourceUri += resourceId;
+    }
+
+    /**
+     * Receives the items of a streamed listing one at a time, as each is read from the response.
+     */
+    public interface ItemHandler {
+        /**
+         * Processes a single item.
+         * @param item the item just read
+         * @return true to continue reading the listing, false to stop early
+         * @throws CloudException an error occurred processing the item
+         * @throws InternalException an internal error occurred processing the item
+         * @throws JSONException the item did not have the expected structure
+         */
+        boolean handle(@Nonnull JSONObject item) throws CloudException, InternalException, JSONException;
+    }
+
+    /**
+     * Lists an OpenStack collection by reading each response incrementally with a {@link JsonItemReader}, handing every
+     * item to the handler as soon as it has been parsed. Neither the response body nor the JSON tree of the whole
+     * response is ever held in memory. Paged listings follow the same <code>limit</code>/<code>marker</code> rules as
+     * {@link #getPagedResource(String, String, String, boolean, String, PageHandler)}. Setting the
+     * <code>streamingParse</code> custom property to <code>false</code> falls back to parsing each response into a
+     * {@link JSONObject} first.
+     * @param service the service catalog type hosting the collection
+     * @param resource the collection resource, e.g. <code>/servers</code>
+     * @param collection the name of the JSON array holding the items, e.g. <code>servers</code>
+     * @param suffix true to list the <code>/detail</code> view of the collection
+     * @param query any additional URL-encoded query parameters (without a leading <code>?</code> or <code>&amp;</code>)
+     * @param paged true if the service supports <code>limit</code>/<code>marker</code> paging for this collection
+     * @param handler the consumer receiving each item
+     * @throws CloudException an error occurred talking to the cloud or parsing its response
+     * @throws InternalException an internal error occurred building or processing the request
+     */
+    public void getStreamedResource(@Nonnull final String service, @Nonnull String resource, @Nonnull String collection, boolean suffix, @Nullable String query, boolean paged, @Nonnull final ItemHandler handler) throws CloudException, InternalException {
+        String resourceUri = (suffix ? resource + "/detail" : resource);
+
+        if( !isStreamingEnabled() ) {
+            PageHandler pages = new PageHandler() {
+                public boolean handle(@Nonnull JSONArray page) throws CloudException, InternalException, JSONException {
+                    for( int i=0; i<page.length(); i++ ) {
+                        if( !handler.handle(page.getJSONObject(i)) ) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            };
+
+            if( paged ) {
+                getPagedResource(service, resource, collection, suffix, query, pages);
             }
             else {
-                resourceUri += "/" + resourceId;
+                String params = getPageParameters(0, null, query);
+                JSONObject ob = getResource(service, resourceUri, params.length() > 0 ? params : null, false);
+
+                try {
+                    if( ob != null && ob.has(collection) ) {
+                        pages.handle(ob.getJSONArray(collection));
+                    }
+                }
+                catch( JSONException e ) {
+                    throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", "Missing JSON element for " + collection + " in " + ob.toString());
+                }
             }
+            return;
         }
-        else if( suffix ) {
-            resourceUri += "/detail";
-        }
-        try {
-            String response = getString(context.getAuthToken(), endpoint, resourceUri);
+        int pageSize = (paged ? getPageSize() : 0);
+        String marker = null;
 
-            if( response == null ) {
-                return null;
+        while( true ) {
+            final String uri = resourceUri + getPageParameters(pageSize, marker, query);
+            InputStream input = execute("GET", true, new AuthenticatedCall<InputStream>() {
+                public InputStream call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                    String endpoint = context.getServiceUrl(service);
+
+                    if( endpoint == null ) {
+                        throw new CloudException("No " + service + " URL has been established in " + context.getMyRegion());
+                    }
+                    if( !endpoint.endsWith("/") && !uri.startsWith("/") ) {
+                        endpoint = endpoint + "/";
+                    }
+                    return getStream(context.getAuthToken(), endpoint, uri);
+                }
+            });
+
+            if( input == null ) {
+                return;
             }
+            JsonItemReader reader = new JsonItemReader(input, collection);
+            String next;
+
             try {
-                return new JSONObject(response);
+                String lastId = null;
+                int count = 0;
+                JSONObject item;
+
+                while( (item = reader.next()) != null ) {
+                    count++;
+                    lastId = (item.has("id") && !item.isNull("id") ? item.getString("id") : null);
+                    if( !handler.handle(item) ) {
+                        return;
+                    }
+                }
+                if( !paged || count < 1 ) {
+                    return;
+                }
+                next = getNextMarker(reader.getRemainder(), collection);
+                if( next == null && count == pageSize ) {
+                    next = lastId;
+                }
             }
             catch( JSONException e ) {
-                throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
+                throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", "Unable to read " + collection + " from " + uri + ": " + e.getMessage());
             }
+            finally {
+                reader.close();
+            }
+            if( next == null || next.equals(marker) ) {
+                return;
+            }
+            marker = next;
+        }
+    }
+
+    private @Nonnull String getPageParameters(int limit, @Nullable String marker, @Nullable String query) throws InternalException {
+        StringBuilder params = new StringBuilder();
+
+        if( limit > 0 ) {
+            params.append("&limit=").append(limit);
         }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                return getResource(service, resource, resourceId, suffix);
+        if( marker != null ) {
+            try {
+                params.append("&marker=").append(URLEncoder.encode(marker, "utf-8"));
             }
-            else {
-                throw ex;
+            catch( UnsupportedEncodingException e ) {
+                throw new InternalException(e);
             }
         }
+        if( query != null && query.length() > 0 ) {
+            params.append("&").append(query);
+        }
+        if( params.length() < 1 ) {
+            return "";
+        }
+        params.setCharAt(0, '?');
+        return params.toString();
     }
-    
+
+    private boolean isStreamingEnabled() {
+        ProviderContext ctx = provider.getContext();
+        String value = (ctx == null || ctx.getCustomProperties() == null ? null : ctx.getCustomProperties().getProperty("streamingParse"));
+
+        return (value == null || !value.trim().equalsIgnoreCase("false"));
+    }
+
+    private @Nullable String getNextMarker(@Nonnull JSONObject ob, @Nonnull String collection) throws JSONException {
+        String key = collection + "_links";
+
+        if( !ob.has(key) || ob.isNull(key) ) {
+            return null;
+        }
+        JSONArray links = ob.getJSONArray(key);
+
+        for( int i=0; i<links.length(); i++ ) {
+            JSONObject link = links.getJSONObject(i);
+
+            if( link.has("rel") && "next".equals(link.getString("rel")) && link.has("href") ) {
+                String href = link.getString("href");
+                int idx = href.indexOf('?');
+
+                if( idx < 0 ) {
+                    return null;
+                }
+                for( String param : href.substring(idx + 1).split("&") ) {
+                    if( param.startsWith("marker=") ) {
+                        try {
+                            return URLDecoder.decode(param.substring("marker=".length()), "utf-8");
+                        }
+                        catch( UnsupportedEncodingException e ) {
+                            return param.substring("marker=".length());
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    protected int getPageSize() {
+        ProviderContext ctx = provider.getContext();
+        String value = (ctx == null || ctx.getCustomProperties() == null ? null : ctx.getCustomProperties().getProperty("listPageSize"));
+
+        if( value != null ) {
+            try {
+                int size = Integer.parseInt(value.trim());
+
+                if( size > 0 ) {
+                    return size;
+                }
+            }
+            catch( NumberFormatException ignore ) {
+                // fall through to the default
+            }
+        }
+        return DEFAULT_PAGE_SIZE;
+    }
+
+    /**
+     * Provides the cache of catalog responses for the requests made through this class. The cached paths, such as
+     * <code>images</code> or <code>networks</code>, only name catalogs on the compute, image and network APIs; on
+     * other services they could be anything (a Swift container, for one), so the base class neither reads nor
+     * invalidates the cache and {@link NovaMethod} opts in.
+     * @return the response cache, or <code>null</code> if responses of this class are not cached
+     */
+    protected @Nullable ResponseCache getResponseCache() {
+        return null;
+    }
+
+    /**
+     * Drops any cached responses made stale by a request that writes to the given resource.
+     * @param resource the resource written to
+     */
+    private void invalidateCache(@Nullable String resource) {
+        ResponseCache cache = getResponseCache();
+
+        if( cache != null ) {
+            cache.invalidate(resource);
+        }
+    }
+
     protected @Nullable String getString(@Nonnull String authToken, @Nonnull String endpoint, @Nonnull String resource) throws CloudException, InternalException {
         Logger std = NovaOpenStack.getLogger(NovaOpenStack.class, "std");
-        Logger wire = NovaOpenStack.getLogger(NovaOpenStack.class, "wire");
+        WireLogger.Exchange wire = WireLogger.open(provider);
         
         if( std.isTraceEnabled() ) {
-            std.trace("enter - " + AbstractMethod.class.getName() + ".getString(" + authToken + "," + endpoint + "," + resource + ")");
+            std.trace("enter - " + AbstractMethod.class.getName() + ".getString(" + endpoint + "," + resource + ")");
         }
-        if( wire.isDebugEnabled() ) {
-            wire.debug("--------------------------------------------------------> " + endpoint + resource);
-            wire.debug("");
+        ResponseCache cache = getResponseCache();
+        long generation = -1L;
+
+        if( cache != null && cache.isCacheable(resource) ) {
+            String cached = cache.get(endpoint, resource);
+
+            if( cached != null ) {
+                std.debug("Using cached response for GET " + resource);
+                return cached;
+            }
+            generation = cache.getGeneration();
         }
-        HttpClient client = null;
+        wire.begin(null, endpoint, resource);
+        HttpResponse response = null;
         try {
-            client = getClient();
+            HttpClient client = getClient();
             HttpGet get = new HttpGet(resource == null ? endpoint : endpoint + resource);
             
             get.addHeader("Content-Type", "application/json");
             get.addHeader("X-Auth-Token", authToken);
 
-            if( wire.isDebugEnabled() ) {
-                wire.debug(get.getRequestLine().toString());
-                for( Header header : get.getAllHeaders() ) {
-                    wire.debug(header.getName() + ": " + header.getValue());
-                }
-                wire.debug("");
-            }
-            HttpResponse response;
+            wire.request(get);
 
             try {
                 APITrace.trace(provider, "GET " + toAPIResource(resource));
-                response = client.execute(get);
-                if( wire.isDebugEnabled() ) {
-                    wire.debug(response.getStatusLine().toString());
-                    for( Header header : response.getAllHeaders() ) {
-                        wire.debug(header.getName() + ": " + header.getValue());
-                    }
-                    wire.debug("");
-                }
+                response = send(client, get, null, endpoint, resource);
+                wire.response(response);
             }
             catch( IOException e ) {
                 std.error("I/O error from server communications: " + e.getMessage());
@@ -1152,10 +2022,7 @@ public abstract class AbstractMethod {
 
                     if( entity != null ) {
                         data = EntityUtils.toString(entity);
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(data);
-                            wire.debug("");
-                        }
+                        wire.body(data);
                     }
                 }
                 catch( IOException e ) {
@@ -1174,7 +2041,7 @@ public abstract class AbstractMethod {
                 catch( JSONException e ) {
                     // ignore
                 }
-                NovaException.ExceptionItems items = NovaException.parseException(code, data);
+                NovaException.ExceptionItems items = NovaException.parseException(code, data, response);
 
                 if( items == null ) {
                     return null;
@@ -1194,10 +2061,7 @@ public abstract class AbstractMethod {
 
                     if( entity != null ) {
                         data = EntityUtils.toString(entity);
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(data);
-                            wire.debug("");
-                        }
+                        wire.body(data);
                     }
                 }
                 catch( IOException e ) {
@@ -1205,7 +2069,7 @@ public abstract class AbstractMethod {
                     e.printStackTrace();
                     throw new CloudException(e);
                 }
-                NovaException.ExceptionItems items = NovaException.parseException(code, data);
+                NovaException.ExceptionItems items = NovaException.parseException(code, data, response);
                 
                 if( items == null ) {
                     return null;
@@ -1228,10 +2092,7 @@ public abstract class AbstractMethod {
 
                     if( entity != null ) {
                         data = EntityUtils.toString(entity);
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(data);
-                            wire.debug("");
-                        }
+                        wire.body(data);
                     }
                 }
                 catch( IOException e ) {
@@ -1239,60 +2100,80 @@ public abstract class AbstractMethod {
                     e.printStackTrace();
                     throw new CloudException(e);
                 }
+                if( generation >= 0L ) {
+                    cache.put(endpoint, resource, data, generation);
+                }
                 return data;
             }
         }
         finally {
-            if (client != null) {
-                client.getConnectionManager().shutdown();
+            if( response != null ) {
+                EntityUtils.consumeQuietly(response.getEntity());
             }
             if( std.isTraceEnabled() ) {
                 std.trace("exit - " + AbstractMethod.class.getName() + ".getString()");
             }
-            if( wire.isDebugEnabled() ) {
-                wire.debug("");
-                wire.debug("--------------------------------------------------------> " + endpoint + resource);
-            }               
+            wire.end();               
         }
     }
     
     protected @Nullable InputStream getStream(@Nonnull String authToken, @Nonnull String endpoint, @Nonnull String resource) throws CloudException, InternalException {
+        return getStream(authToken, endpoint, resource, null);
+    }
+
+    /**
+     * Opens the body of a GET request as a stream. The caller must close the stream to hand the connection back.
+     * @param authToken the token to authenticate with
+     * @param endpoint the service endpoint
+     * @param resource the resource to fetch
+     * @param customHeaders any additional request headers, such as <code>Range</code>
+     * @return the response body, or <code>null</code> if there is none
+     * @throws CloudException the cloud returned an error
+     * @throws InternalException an error occurred talking to the cloud
+     */
+    protected @Nullable InputStream getStream(@Nonnull String authToken, @Nonnull String endpoint, @Nonnull String resource, @Nullable Map<String,String> customHeaders) throws CloudException, InternalException {
+        return getStream(authToken, endpoint, resource, customHeaders, null);
+    }
+
+    /**
+     * Opens the body of a GET request as a stream and hands back the headers of the response alongside it. The caller
+     * must close the stream to hand the connection back.
+     * @param authToken the token to authenticate with
+     * @param endpoint the service endpoint
+     * @param resource the resource to fetch
+     * @param customHeaders any additional request headers, such as <code>Range</code>
+     * @param responseHeaders a map to receive the headers of a successful response, or <code>null</code> if they are not needed
+     * @return the response body, or <code>null</code> if there is none
+     * @throws CloudException the cloud returned an error
+     * @throws InternalException an error occurred talking to the cloud
+     */
+    protected @Nullable InputStream getStream(@Nonnull String authToken, @Nonnull String endpoint, @Nonnull String resource, @Nullable Map<String,String> customHeaders, @Nullable Map<String,String> responseHeaders) throws CloudException, InternalException {
         Logger std = NovaOpenStack.getLogger(NovaOpenStack.class, "std");
-        Logger wire = NovaOpenStack.getLogger(NovaOpenStack.class, "wire");
+        WireLogger.Exchange wire = WireLogger.open(provider);
         
         if( std.isTraceEnabled() ) {
-            std.trace("enter - " + AbstractMethod.class.getName() + ".getStream(" + authToken + "," + endpoint + "," + resource + ")");
-        }
-        if( wire.isDebugEnabled() ) {
-            wire.debug("--------------------------------------------------------> " + endpoint + resource);
-            wire.debug("");
+            std.trace("enter - " + AbstractMethod.class.getName() + ".getStream(" + endpoint + "," + resource + ")");
         }
+        wire.begin(null, endpoint, resource);
         try {
             HttpClient client = getClient();
             HttpGet get = new HttpGet(endpoint + resource);
             
             get.addHeader("Content-Type", "application/json");
             get.addHeader("X-Auth-Token", authToken);
-
-            if( wire.isDebugEnabled() ) {
-                wire.debug(get.getRequestLine().toString());
-                for( Header header : get.getAllHeaders() ) {
-                    wire.debug(header.getName() + ": " + header.getValue());
+            if( customHeaders != null ) {
+                for( Map.Entry<String,String> entry : customHeaders.entrySet() ) {
+                    get.addHeader(entry.getKey(), entry.getValue());
                 }
-                wire.debug("");
             }
+
+            wire.request(get);
             HttpResponse response;
 
             try {
                 APITrace.trace(provider, "GET " + toAPIResource(resource));
-                response = client.execute(get);
-                if( wire.isDebugEnabled() ) {
-                    wire.debug(response.getStatusLine().toString());
-                    for( Header header : response.getAllHeaders() ) {
-                        wire.debug(header.getName() + ": " + header.getValue());
-                    }
-                    wire.debug("");
-                }
+                response = send(client, get, null, endpoint, resource);
+                wire.response(response);
             }
             catch( IOException e ) {
                 std.error("I/O error from server communications: " + e.getMessage());
@@ -1302,10 +2183,12 @@ public abstract class AbstractMethod {
             int code = response.getStatusLine().getStatusCode();
 
             std.debug("HTTP STATUS: " + code);
-            if( code == HttpStatus.SC_NOT_FOUND ) {
+            if( code == HttpStatus.SC_NOT_FOUND || code == HttpStatus.SC_NO_CONTENT ) {
+                // the stream is not handed to the caller, so hand the connection back to the pool here
+                EntityUtils.consumeQuietly(response.getEntity());
                 return null;
             }
-            if( code != HttpStatus.SC_OK && code != HttpStatus.SC_NON_AUTHORITATIVE_INFORMATION ) {
+            if( code != HttpStatus.SC_OK && code != HttpStatus.SC_NON_AUTHORITATIVE_INFORMATION && code != HttpStatus.SC_PARTIAL_CONTENT ) {
                 std.error("Expected OK for GET request, got " + code);
                 String data = null;
 
@@ -1314,10 +2197,7 @@ public abstract class AbstractMethod {
 
                     if( entity != null ) {
                         data = EntityUtils.toString(entity);
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(data);
-                            wire.debug("");
-                        }
+                        wire.body(data);
                     }
                 }
                 catch( IOException e ) {
@@ -1325,7 +2205,7 @@ public abstract class AbstractMethod {
                     e.printStackTrace();
                     throw new CloudException(e);
                 }
-                NovaException.ExceptionItems items = NovaException.parseException(code, data);
+                NovaException.ExceptionItems items = NovaException.parseException(code, data, response);
                 
                 if( items == null ) {
                     return null;
@@ -1336,15 +2216,17 @@ public abstract class AbstractMethod {
             else {
                 InputStream input = null;
                 
+                if( responseHeaders != null ) {
+                    for( Header h : response.getAllHeaders() ) {
+                        responseHeaders.put(h.getName().trim(), h.getValue().trim());
+                    }
+                }
                 try {
                     HttpEntity entity = response.getEntity();
 
                     if( entity != null ) {
                         input = entity.getContent();
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(" ---- BINARY DATA ---- ");
-                            wire.debug("");
-                        }
+                        wire.binary();
                     }
                 }
                 catch( IOException e ) {
@@ -1354,10 +2236,6 @@ public abstract class AbstractMethod {
                     }
                     throw new CloudException(e);                    
                 }
-                if( wire.isDebugEnabled() ) {
-                    wire.debug("---> Binary Data <---");
-                }
-                wire.debug("");
                 return input;
             }
         }
@@ -1365,134 +2243,64 @@ public abstract class AbstractMethod {
             if( std.isTraceEnabled() ) {
                 std.trace("exit - " + AbstractMethod.class.getName() + ".getStream()");
             }
-            if( wire.isDebugEnabled() ) {
-                wire.debug("");
-                wire.debug("--------------------------------------------------------> " + endpoint + resource);
-            }               
+            wire.end();               
         }
     }
 
+    /**
+     * Provides the HTTP client for this request. The client is shared through the provider's connection pool, so
+     * callers must release each response (by consuming its entity) rather than shutting the client down.
+     * @return the pooled HTTP client for the current cloud connection
+     * @throws CloudException an error occurred setting up the client
+     * @throws InternalException no context or endpoint is defined for this request
+     */
     protected @Nonnull HttpClient getClient() throws CloudException, InternalException {
-        ProviderContext ctx = provider.getContext();
-
-        if( ctx == null ) {
-            throw new InternalException("No context was defined for this request");
-        }
-        String endpoint = ctx.getCloud().getEndpoint();
-
-        if( endpoint == null ) {
-            throw new InternalException("No cloud endpoint was defined");
-        }
-        boolean ssl = endpoint.startsWith("https");
-
-        HttpParams params = new BasicHttpParams();
-
-        HttpProtocolParams.setVersion(params, HttpVersion.HTTP_1_1);
-        //noinspection deprecation
-        HttpProtocolParams.setContentCharset(params, HTTP.UTF_8);
-        HttpProtocolParams.setUserAgent(params, "");
-
-        Properties p = ctx.getCustomProperties();
-
-        if( p != null ) {
-            String proxyHost = p.getProperty("proxyHost");
-            String proxyPort = p.getProperty("proxyPort");
-
-            if( proxyHost != null ) {
-                int port = 0;
-
-                if( proxyPort != null && proxyPort.length() > 0 ) {
-                    port = Integer.parseInt(proxyPort);
-                }
-                params.setParameter(ConnRoutePNames.DEFAULT_PROXY, new HttpHost(proxyHost, port, ssl ? "https" : "http"));
-            }
-        }
-        DefaultHttpClient client = new DefaultHttpClient(params);
-
-        if( provider.isInsecure() ) {
-            try {
-                client.getConnectionManager().getSchemeRegistry().register(new Scheme("https", 443, new SSLSocketFactory(new TrustStrategy() {
-
-                    public boolean isTrusted(X509Certificate[] x509Certificates, String s) throws CertificateException {
-                        return true;
-                    }
-                }, SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER)));
-            }
-            catch( Throwable t ) {
-                t.printStackTrace();
-            }
-        }
-        return client;
+        return provider.getConnectionPool().getClient();
     }
 
     public @Nullable Map<String,String> headResource(@Nonnull final String service, @Nullable final String resource, @Nullable final String resourceId) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getServiceUrl(service);
+        return execute("HEAD", true, new AuthenticatedCall<Map<String,String>>() {
+            public Map<String,String> call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getServiceUrl(service);
 
-        if( endpoint == null ) {
-            throw new CloudException("No " + service + " URL has been established in " + context.getMyRegion());
-        }
-        String resourceUri = resource;
-        if( resource == null && resourceId == null ) {
-            resourceUri = "/";
-        }
-        else if( resource == null ) {
-            resourceUri = "/" + resourceId;
-        }
-        else if( resourceId != null ) {
-            resourceUri += "/" + resourceId;
-        }
-        try {
-            return head(context.getAuthToken(), endpoint, resourceUri);
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                return headResource(service, resource, resourceId);
-            }
-            else {
-                throw ex;
+                if( endpoint == null ) {
+                    throw new CloudException("No " + service + " URL has been established in " + context.getMyRegion());
+                }
+                String resourceUri = resource;
+                if( resource == null && resourceId == null ) {
+                    resourceUri = "/";
+                }
+                else if( resource == null ) {
+                    resourceUri = "/" + resourceId;
+                }
+                else if( resourceId != null ) {
+                    resourceUri += "/" + resourceId;
+                }
+                return head(context.getAuthToken(), endpoint, resourceUri);
             }
-        }
+        });
     }
 
     protected @Nullable Map<String,String> head(@Nonnull String authToken, @Nonnull String endpoint, @Nonnull String resource) throws CloudException, InternalException {
         Logger std = NovaOpenStack.getLogger(NovaOpenStack.class, "std");
-        Logger wire = NovaOpenStack.getLogger(NovaOpenStack.class, "wire");
+        WireLogger.Exchange wire = WireLogger.open(provider);
         
         if( std.isTraceEnabled() ) {
-            std.trace("enter - " + AbstractMethod.class.getName() + ".head(" + authToken + "," + endpoint + "," + resource + ")");
+            std.trace("enter - " + AbstractMethod.class.getName() + ".head(" + endpoint + "," + resource + ")");
         }
-        if( wire.isDebugEnabled() ) {
-            wire.debug("--------------------------------------------------------> " + endpoint + resource);
-            wire.debug("");
-        }
-        HttpClient client = null;
+        wire.begin(null, endpoint, resource);
+        HttpResponse response = null;
         try {
-            client = getClient();
+            HttpClient client = getClient();
             HttpHead head = new HttpHead(endpoint + resource);
             
             head.addHeader("X-Auth-Token", authToken);
-            if( wire.isDebugEnabled() ) {
-                wire.debug(head.getRequestLine().toString());
-                for( Header header : head.getAllHeaders() ) {
-                    wire.debug(header.getName() + ": " + header.getValue());
-                }
-                wire.debug("");
-            }
-            HttpResponse response;
+            wire.request(head);
 
             try {
                 APITrace.trace(provider, "HEAD " + toAPIResource(resource));
-                response = client.execute(head);
-                if( wire.isDebugEnabled() ) {
-                    wire.debug(response.getStatusLine().toString());
-                    for( Header header : response.getAllHeaders() ) {
-                        wire.debug(header.getName() + ": " + header.getValue());
-                    }
-                    wire.debug("");
-                }
+                response = send(client, head, null, endpoint, resource);
+                wire.response(response);
             }
             catch( IOException e ) {
                 std.error("I/O error from server communications: " + e.getMessage());
@@ -1514,10 +2322,7 @@ public abstract class AbstractMethod {
 
                     if( entity != null ) {
                         data = EntityUtils.toString(entity);
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(data);
-                            wire.debug("");
-                        }
+                        wire.body(data);
                     }
                 }
                 catch( IOException e ) {
@@ -1525,7 +2330,7 @@ public abstract class AbstractMethod {
                     e.printStackTrace();
                     throw new CloudException(e);
                 }
-                NovaException.ExceptionItems items = NovaException.parseException(code, data);
+                NovaException.ExceptionItems items = NovaException.parseException(code, data, response);
                 
                 if( items == null ) {
                     return null;
@@ -1541,59 +2346,45 @@ public abstract class AbstractMethod {
             return map;
         }
         finally {
-            if (client != null) {
-                client.getConnectionManager().shutdown();
+            if( response != null ) {
+                EntityUtils.consumeQuietly(response.getEntity());
             }
             if( std.isTraceEnabled() ) {
                 std.trace("exit - " + AbstractMethod.class.getName() + ".head()");
             }
-            if( wire.isDebugEnabled() ) {
-                wire.debug("");
-                wire.debug("--------------------------------------------------------> " + endpoint + resource);
-            }               
+            wire.end();               
         }
     }
 
     public void postResourceHeaders(final String service, final String resource, final String resourceId, final Map<String,String> headers) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getServiceUrl(service);
+        execute("POST", true, new AuthenticatedCall<Void>() {
+            public Void call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getServiceUrl(service);
 
-        if( endpoint == null ) {
-            throw new CloudException("No " + service + " has been established in " + context.getMyRegion());
-        }
-        if( resourceId == null ) {
-            throw new InternalException("No container was specified");
-        }
-        try {
-            postHeaders(context.getAuthToken(), endpoint, resource + "/" + resourceId, headers);
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                postResourceHeaders(service, resource, resourceId, headers);
-            }
-            else {
-                throw ex;
+                if( endpoint == null ) {
+                    throw new CloudException("No " + service + " has been established in " + context.getMyRegion());
+                }
+                if( resourceId == null ) {
+                    throw new InternalException("No container was specified");
+                }
+                postHeaders(context.getAuthToken(), endpoint, resource + "/" + resourceId, headers);
+                return null;
             }
-        }
+        });
     }
     
     @SuppressWarnings("unused")
     protected @Nullable String postHeaders(@Nonnull String authToken, @Nonnull String endpoint, @Nonnull String resource, @Nonnull Map<String,String> customHeaders) throws CloudException, InternalException {
         Logger std = NovaOpenStack.getLogger(NovaOpenStack.class, "std");
-        Logger wire = NovaOpenStack.getLogger(NovaOpenStack.class, "wire");
+        WireLogger.Exchange wire = WireLogger.open(provider);
         
         if( std.isTraceEnabled() ) {
-            std.trace("enter - " + AbstractMethod.class.getName() + ".postString(" + authToken + "," + endpoint + "," + resource + "," + customHeaders + ")");
-        }
-        if( wire.isDebugEnabled() ) {
-            wire.debug("---------------------------------------------------------------------------------" + endpoint + resource);
-            wire.debug("");
+            std.trace("enter - " + AbstractMethod.class.getName() + ".postString(" + endpoint + "," + resource + "," + customHeaders + ")");
         }
-        HttpClient client = null;
+        wire.begin(null, endpoint, resource);
+        HttpResponse response = null;
         try {
-            client = getClient();
+            HttpClient client = getClient();
             HttpPost post = new HttpPost(endpoint + resource);
             
             post.addHeader("Content-Type", "application/json");
@@ -1605,26 +2396,13 @@ public abstract class AbstractMethod {
                     post.addHeader(entry.getKey(), val);
                 }
             }
-            if( wire.isDebugEnabled() ) {
-                wire.debug(post.getRequestLine().toString());
-                for( Header header : post.getAllHeaders() ) {
-                    wire.debug(header.getName() + ": " + header.getValue());
-                }
-                wire.debug("");
-            }
+            wire.request(post);
 
-            HttpResponse response;
 
             try {
                 APITrace.trace(provider, "POST " + toAPIResource(resource));
-                response = client.execute(post);
-                if( wire.isDebugEnabled() ) {
-                    wire.debug(response.getStatusLine().toString());
-                    for( Header header : response.getAllHeaders() ) {
-                        wire.debug(header.getName() + ": " + header.getValue());
-                    }
-                    wire.debug("");
-                }
+                response = send(client, post, null, endpoint, resource);
+                wire.response(response);
             }
             catch( IOException e ) {
                 std.error("I/O error from server communications: " + e.getMessage());
@@ -1635,49 +2413,6 @@ public abstract class AbstractMethod {
 
             std.debug("HTTP STATUS: " + code);
 
-            if( code == HttpStatus.SC_REQUEST_TOO_LONG || code == HttpStatus.SC_REQUEST_URI_TOO_LONG ) {
-                String data = null;
-
-                try {
-                    HttpEntity entity = response.getEntity();
-
-                    if( entity != null ) {
-                        data = EntityUtils.toString(entity);
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(data);
-                            wire.debug("");
-                        }
-                    }
-                }
-                catch( IOException e ) {
-                    std.error("Failed to read response error due to a cloud I/O error: " + e.getMessage());
-                    e.printStackTrace();
-                    throw new CloudException(e);
-                }
-                try {
-                    if( data != null ) {
-                        JSONObject ob = new JSONObject(data);
-
-                        if( ob.has("overLimit") ) {
-                            ob = ob.getJSONObject("overLimit");
-                            if( ob.has("retryAfter") ) {
-                                int min = ob.getInt("retryAfter");
-
-                                if( min < 1 ) {
-                                    throw new CloudException(CloudErrorType.CAPACITY, 413, "Over Limit", ob.has("message") ? ob.getString("message") : "Over Limit");
-                                }
-                                try { Thread.sleep(CalendarWrapper.MINUTE * min); }
-                                catch( InterruptedException ignore ) { }
-                                return postHeaders(authToken, endpoint, resource, customHeaders);
-                            }
-                        }
-                    }
-                }
-                catch( JSONException e ) {
-                    throw new CloudException(e);
-                }
-            }
-
             if( code != HttpStatus.SC_ACCEPTED && code != HttpStatus.SC_NO_CONTENT ) {
                 std.error("postString(): Expected ACCEPTED for POST request, got " + code);
                 String data = null;
@@ -1687,10 +2422,7 @@ public abstract class AbstractMethod {
 
                     if( entity != null ) {
                         data = EntityUtils.toString(entity);
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(data);
-                            wire.debug("");
-                        }
+                        wire.body(data);
                     }
                 }
                 catch( IOException e ) {
@@ -1698,7 +2430,7 @@ public abstract class AbstractMethod {
                     e.printStackTrace();
                     throw new CloudException(e);
                 }
-                NovaException.ExceptionItems items = NovaException.parseException(code, data);
+                NovaException.ExceptionItems items = NovaException.parseException(code, data, response);
                 
                 if( items == null ) {
                     items = new NovaException.ExceptionItems();
@@ -1719,10 +2451,7 @@ public abstract class AbstractMethod {
 
                         if( entity != null ) {
                             data = EntityUtils.toString(entity);
-                            if( wire.isDebugEnabled() ) {
-                                wire.debug(data);
-                                wire.debug("");
-                            }
+                            wire.body(data);
                         }
                     }
                     catch( IOException e ) {
@@ -1738,112 +2467,82 @@ public abstract class AbstractMethod {
             }
         }
         finally {
-            if (client != null) {
-                client.getConnectionManager().shutdown();
+            if( response != null ) {
+                EntityUtils.consumeQuietly(response.getEntity());
             }
+            invalidateCache(resource);
             if( std.isTraceEnabled() ) {
                 std.trace("exit - " + AbstractMethod.class.getName() + ".postString()");
             }
-            if( wire.isDebugEnabled() ) {
-                wire.debug("");
-                wire.debug("---------------------------------------------------------------------------------" + endpoint + resource);
-            }               
+            wire.end();               
         }
     }
 
     public @Nullable JSONObject postString(@Nonnull final String service, @Nonnull final String resource, @Nullable final String resourceId, @Nonnull final String extra, @Nonnull final JSONObject body) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getServiceUrl(service);
-        
-        if( endpoint == null ) {
-            throw new CloudException("No " + service + " endpoint exists");
-        }
-        try {
-            String response = postString(context.getAuthToken(), endpoint, resource + "/" + resourceId + "/" + extra, body.toString());
+        return execute("POST", true, new AuthenticatedCall<JSONObject>() {
+            public JSONObject call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getServiceUrl(service);
 
-            if( response == null ) {
-                return null;
-            }
-            try {
-                return new JSONObject(response);
-            }
-            catch( JSONException e ) {
-                throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
-            }
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                return postString(service, resource, resourceId, extra, body);
-            }
-            else {
-                throw ex;
+                if( endpoint == null ) {
+                    throw new CloudException("No " + service + " endpoint exists");
+                }
+                String response = postString(context.getAuthToken(), endpoint, resource + "/" + resourceId + "/" + extra, body.toString());
+
+                if( response == null ) {
+                    return null;
+                }
+                try {
+                    return new JSONObject(response);
+                }
+                catch( JSONException e ) {
+                    throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
+                }
             }
-        }
+        });
     }
     
     public @Nullable JSONObject postString(@Nonnull final String service, @Nonnull final String resource, @Nullable final String resourceId, @Nonnull final JSONObject body, final boolean suffix) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-
-        String resourceUri = resource;
-        if( resourceId != null ) {
-            resourceUri += "/" + (suffix ? (resourceId + "/action") : resourceId);
-        }
-        String endpoint = context.getServiceUrl(service);
+        return execute("POST", true, new AuthenticatedCall<JSONObject>() {
+            public JSONObject call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String resourceUri = resource;
+                if( resourceId != null ) {
+                    resourceUri += "/" + (suffix ? (resourceId + "/action") : resourceId);
+                }
+                String endpoint = context.getServiceUrl(service);
 
-        if( endpoint == null ) {
-            throw new CloudException("No " + service + " endpoint exists");
-        }
-        try {
-            String response = postString(context.getAuthToken(), endpoint, resourceUri, body.toString());
-            if( response == null ) {
-                return null;
-            }
-            try {
-                return new JSONObject(response);
-            }
-            catch( JSONException e ) {
-                throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
-            }
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                return postString(service, resource, resourceId, body, suffix);
-            }
-            else {
-                throw ex;
+                if( endpoint == null ) {
+                    throw new CloudException("No " + service + " endpoint exists");
+                }
+                String response = postString(context.getAuthToken(), endpoint, resourceUri, body.toString());
+                if( response == null ) {
+                    return null;
+                }
+                try {
+                    return new JSONObject(response);
+                }
+                catch( JSONException e ) {
+                    throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
+                }
             }
-        }
+        });
     }
     
     protected @Nullable String postString(@Nonnull String authToken, @Nonnull String endpoint, @Nonnull String resource, @Nonnull String payload) throws CloudException, InternalException {
         Logger std = NovaOpenStack.getLogger(NovaOpenStack.class, "std");
-        Logger wire = NovaOpenStack.getLogger(NovaOpenStack.class, "wire");
+        WireLogger.Exchange wire = WireLogger.open(provider);
         
         if( std.isTraceEnabled() ) {
-            std.trace("enter - " + AbstractMethod.class.getName() + ".postString(" + authToken + "," + endpoint + "," + resource + "," + payload + ")");
-        }
-        if( wire.isDebugEnabled() ) {
-            wire.debug("---------------------------------------------------------------------------------" + endpoint + resource);
-            wire.debug("");
+            std.trace("enter - " + AbstractMethod.class.getName() + ".postString(" + endpoint + "," + resource + ")");
         }
-        HttpClient client = null;
+        wire.begin(null, endpoint, resource);
+        HttpResponse response = null;
         try {
-            client = getClient();
+            HttpClient client = getClient();
             HttpPost post = new HttpPost(endpoint + resource);
             
             post.addHeader("Content-Type", "application/json");
             post.addHeader("X-Auth-Token", authToken);
-            if( wire.isDebugEnabled() ) {
-                wire.debug(post.getRequestLine().toString());
-                for( Header header : post.getAllHeaders() ) {
-                    wire.debug(header.getName() + ": " + header.getValue());
-                }
-                wire.debug("");
-            }
+            wire.request(post);
             if( payload != null ) {
                 try {
                     //noinspection deprecation
@@ -1852,23 +2551,13 @@ public abstract class AbstractMethod {
                 catch( UnsupportedEncodingException e ) {
                     throw new InternalException(e);
                 }
-                try { wire.debug(EntityUtils.toString(post.getEntity())); }
-                catch( IOException ignore ) { }
-
-                wire.debug("");
+                wire.body(payload);
             }
-            HttpResponse response;
 
             try {
                 std.debug("POST " + toAPIResource(resource));
-                response = client.execute(post);
-                if( wire.isDebugEnabled() ) {
-                    wire.debug(response.getStatusLine().toString());
-                    for( Header header : response.getAllHeaders() ) {
-                        wire.debug(header.getName() + ": " + header.getValue());
-                    }
-                    wire.debug("");
-                }
+                response = send(client, post, null, endpoint, resource);
+                wire.response(response);
             }
             catch( IOException e ) {
                 std.error("I/O error from server communications: " + e.getMessage());
@@ -1878,45 +2567,6 @@ public abstract class AbstractMethod {
             int code = response.getStatusLine().getStatusCode();
 
             std.debug("HTTP STATUS: " + code);
-            if( code == HttpStatus.SC_REQUEST_TOO_LONG || code == HttpStatus.SC_REQUEST_URI_TOO_LONG ) {
-                String data = null;
-
-                try {
-                    HttpEntity entity = response.getEntity();
-
-                    if( entity != null ) {
-                        data = EntityUtils.toString(entity);
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(data);
-                            wire.debug("");
-                        }
-                    }
-                }
-                catch( IOException e ) {
-                    std.error("Failed to read response error due to a cloud I/O error: " + e.getMessage());
-                    e.printStackTrace();
-                    throw new CloudException(e);
-                }
-                try {
-                    if( data != null ) {
-                        JSONObject ob = new JSONObject(data);
-                        if( ob.has("overLimit") ) {
-                            ob = ob.getJSONObject("overLimit");
-                            int min = ob.optInt("retryAfter", 0);
-
-                            if( min < 1 ) {
-                                throw new CloudException(CloudErrorType.CAPACITY, 413, "Over Limit", ob.has("message") ? ob.getString("message") : "Over Limit");
-                            }
-                            try { Thread.sleep(CalendarWrapper.MINUTE * min); }
-                            catch( InterruptedException ignore ) { }
-                            return postString(authToken, endpoint, resource, payload);
-                        }
-                    }
-                }
-                catch( JSONException e ) {
-                    throw new CloudException(e);
-                }
-            }
             if( code != HttpStatus.SC_OK && code != HttpStatus.SC_ACCEPTED && code != HttpStatus.SC_NO_CONTENT && code != HttpStatus.SC_CREATED ) {
                 std.error("postString(): Expected OK, ACCEPTED, or NO CONTENT for POST request, got " + code);
                 String data = null;
@@ -1926,10 +2576,7 @@ public abstract class AbstractMethod {
 
                     if( entity != null ) {
                         data = EntityUtils.toString(entity);
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(data);
-                            wire.debug("");
-                        }
+                        wire.body(data);
                     }
                 }
                 catch( IOException e ) {
@@ -1937,7 +2584,7 @@ public abstract class AbstractMethod {
                     e.printStackTrace();
                     throw new CloudException(e);
                 }
-                NovaException.ExceptionItems items = NovaException.parseException(code, data);
+                NovaException.ExceptionItems items = NovaException.parseException(code, data, response);
 
                 if( items == null ) {
                     items = new NovaException.ExceptionItems();
@@ -1958,10 +2605,7 @@ public abstract class AbstractMethod {
 
                         if( entity != null ) {
                             data = EntityUtils.toString(entity);
-                            if( wire.isDebugEnabled() ) {
-                                wire.debug(data);
-                                wire.debug("");
-                            }
+                            wire.body(data);
                         }
                     }
                     catch( IOException e ) {
@@ -1986,62 +2630,43 @@ public abstract class AbstractMethod {
             }
         }
         finally {
-            if (client != null) {
-                client.getConnectionManager().shutdown();
+            if( response != null ) {
+                EntityUtils.consumeQuietly(response.getEntity());
             }
+            invalidateCache(resource);
             if( std.isTraceEnabled() ) {
                 std.trace("exit - " + AbstractMethod.class.getName() + ".postString()");
             }
-            if( wire.isDebugEnabled() ) {
-                wire.debug("");
-                wire.debug("---------------------------------------------------------------------------------" + endpoint + resource);
-            }               
+            wire.end();               
         }
     }
     
     @SuppressWarnings("unused")
     protected @Nullable String postStream(@Nonnull String authToken, @Nonnull String endpoint, @Nonnull String resource, @Nonnull String md5Hash, @Nonnull InputStream stream) throws CloudException, InternalException {
         Logger std = NovaOpenStack.getLogger(NovaOpenStack.class, "std");
-        Logger wire = NovaOpenStack.getLogger(NovaOpenStack.class, "wire");
+        WireLogger.Exchange wire = WireLogger.open(provider);
         
         if( std.isTraceEnabled() ) {
-            std.trace("enter - " + AbstractMethod.class.getName() + ".postStream(" + authToken + "," + endpoint + "," + resource + "," + md5Hash + ",INPUTSTREAM)");
-        }
-        if( wire.isDebugEnabled() ) {
-            wire.debug("---------------------------------------------------------------------------------" + endpoint + resource);
-            wire.debug("");
+            std.trace("enter - " + AbstractMethod.class.getName() + ".postStream(" + endpoint + "," + resource + "," + md5Hash + ",INPUTSTREAM)");
         }
-        HttpClient client = null;
+        wire.begin(null, endpoint, resource);
+        HttpResponse response = null;
         try {
-            client = getClient();
+            HttpClient client = getClient();
             HttpPost post = new HttpPost(endpoint + resource);
             
             post.addHeader("Content-Type", "application/octet-stream");
             post.addHeader("X-Auth-Token", authToken);
 
-            if( wire.isDebugEnabled() ) {
-                wire.debug(post.getRequestLine().toString());
-                for( Header header : post.getAllHeaders() ) {
-                    wire.debug(header.getName() + ": " + header.getValue());
-                }
-                wire.debug("");
-            }
+            wire.request(post);
             post.setEntity(new InputStreamEntity(stream, -1));
-            wire.debug(" ---- BINARY DATA ---- ");
-            wire.debug("");
+            wire.binary();
 
-            HttpResponse response;
 
             try {
                 APITrace.trace(provider, "POST " + toAPIResource(resource));
-                response = client.execute(post);
-                if( wire.isDebugEnabled() ) {
-                    wire.debug(response.getStatusLine().toString());
-                    for( Header header : response.getAllHeaders() ) {
-                        wire.debug(header.getName() + ": " + header.getValue());
-                    }
-                    wire.debug("");
-                }
+                response = send(client, post, null, endpoint, resource);
+                wire.response(response);
             }
             catch( IOException e ) {
                 std.error("I/O error from server communications: " + e.getMessage());
@@ -2071,10 +2696,7 @@ public abstract class AbstractMethod {
 
                     if( entity != null ) {
                         data = EntityUtils.toString(entity);
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(data);
-                            wire.debug("");
-                        }
+                        wire.body(data);
                     }
                 }
                 catch( IOException e ) {
@@ -2082,7 +2704,7 @@ public abstract class AbstractMethod {
                     e.printStackTrace();
                     throw new CloudException(e);
                 }
-                NovaException.ExceptionItems items = NovaException.parseException(code, data);
+                NovaException.ExceptionItems items = NovaException.parseException(code, data, response);
 
                 if( items == null ) {
                     items = new NovaException.ExceptionItems();
@@ -2095,7 +2717,6 @@ public abstract class AbstractMethod {
                 throw new NovaException(items);
             }
             else {
-                wire.debug("");
                 if( code == HttpStatus.SC_ACCEPTED ) {
                     String data = null;
 
@@ -2104,10 +2725,7 @@ public abstract class AbstractMethod {
 
                         if( entity != null ) {
                             data = EntityUtils.toString(entity);
-                            if( wire.isDebugEnabled() ) {
-                                wire.debug(data);
-                                wire.debug("");
-                            }
+                            wire.body(data);
                         }
                     }
                     catch( IOException e ) {
@@ -2123,66 +2741,53 @@ public abstract class AbstractMethod {
             }
         }
         finally {
-            if (client != null) {
-                client.getConnectionManager().shutdown();
+            if( response != null ) {
+                EntityUtils.consumeQuietly(response.getEntity());
             }
+            invalidateCache(resource);
             if( std.isTraceEnabled() ) {
                 std.trace("exit - " + NovaOpenStack.class.getName() + ".postStream()");
             }
-            if( wire.isDebugEnabled() ) {
-                wire.debug("");
-                wire.debug("---------------------------------------------------------------------------------" + endpoint + resource);
-            }               
+            wire.end();               
         }
     }
 
     public void putResourceHeaders(@Nonnull final String service, @Nullable final String resource, @Nullable final String resourceId, @Nonnull final Map<String,String> headers) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getServiceUrl(service);
+        execute("PUT", true, new AuthenticatedCall<Void>() {
+            public Void call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getServiceUrl(service);
 
-        if( endpoint == null ) {
-            throw new CloudException("No " + service + " has been established in " + context.getMyRegion());
-        }
-        String resourceUri = resource;
-        if( resource == null && resourceId == null ) {
-            resourceUri = "/";
-        }
-        else if( resource == null ) {
-            resourceUri = "/" + resourceId;
-        }
-        else if( resourceId != null ) {
-            resourceUri += "/" + resourceId;
-        }
-        try {
-            putHeaders(context.getAuthToken(), endpoint, resourceUri, headers);
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                putResourceHeaders(service, resource, resourceId, headers);
-            }
-            else {
-                throw ex;
+                if( endpoint == null ) {
+                    throw new CloudException("No " + service + " has been established in " + context.getMyRegion());
+                }
+                String resourceUri = resource;
+                if( resource == null && resourceId == null ) {
+                    resourceUri = "/";
+                }
+                else if( resource == null ) {
+                    resourceUri = "/" + resourceId;
+                }
+                else if( resourceId != null ) {
+                    resourceUri += "/" + resourceId;
+                }
+                putHeaders(context.getAuthToken(), endpoint, resourceUri, headers);
+                return null;
             }
-        }
+        });
     }
 
     @SuppressWarnings("unused")
     protected @Nonnull String putHeaders(@Nonnull String authToken, @Nonnull String endpoint, @Nonnull String resource, @Nonnull Map<String,String> customHeaders) throws CloudException, InternalException {
         Logger std = NovaOpenStack.getLogger(NovaOpenStack.class, "std");
-        Logger wire = NovaOpenStack.getLogger(NovaOpenStack.class, "wire");
+        WireLogger.Exchange wire = WireLogger.open(provider);
         
         if( std.isTraceEnabled() ) {
-            std.trace("enter - " + AbstractMethod.class.getName() + ".putHeaders(" + authToken + "," + endpoint + "," + resource + "," + customHeaders + ")");
-        }
-        if( wire.isDebugEnabled() ) {
-            wire.debug("---------------------------------------------------------------------------------" + endpoint + resource);
-            wire.debug("");
+            std.trace("enter - " + AbstractMethod.class.getName() + ".putHeaders(" + endpoint + "," + resource + "," + customHeaders + ")");
         }
-        HttpClient client = null;
+        wire.begin(null, endpoint, resource);
+        HttpResponse response = null;
         try {
-            client = getClient();
+            HttpClient client = getClient();
             HttpPut put = new HttpPut(endpoint + resource);
             
             put.addHeader("Content-Type", "application/json");
@@ -2195,25 +2800,12 @@ public abstract class AbstractMethod {
                 }
             }
 
-            if( wire.isDebugEnabled() ) {
-                wire.debug(put.getRequestLine().toString());
-                for( Header header : put.getAllHeaders() ) {
-                    wire.debug(header.getName() + ": " + header.getValue());
-                }
-                wire.debug("");
-            }
-            HttpResponse response;
+            wire.request(put);
 
             try {
                 APITrace.trace(provider, "PUT " + toAPIResource(resource));
-                response = client.execute(put);
-                if( wire.isDebugEnabled() ) {
-                    wire.debug(response.getStatusLine().toString());
-                    for( Header header : response.getAllHeaders() ) {
-                        wire.debug(header.getName() + ": " + header.getValue());
-                    }
-                    wire.debug("");
-                }
+                response = send(client, put, null, endpoint, resource);
+                wire.response(response);
             }
             catch( IOException e ) {
                 std.error("I/O error from server communications: " + e.getMessage());
@@ -2233,10 +2825,7 @@ public abstract class AbstractMethod {
 
                     if( entity != null ) {
                         data = EntityUtils.toString(entity);
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(data);
-                            wire.debug("");
-                        }
+                        wire.body(data);
                     }
                 }
                 catch( IOException e ) {
@@ -2244,7 +2833,7 @@ public abstract class AbstractMethod {
                     e.printStackTrace();
                     throw new CloudException(e);
                 }
-                NovaException.ExceptionItems items = NovaException.parseException(code, data);
+                NovaException.ExceptionItems items = NovaException.parseException(code, data, response);
                 
                 if( items == null ) {
                     items = new NovaException.ExceptionItems();
@@ -2265,10 +2854,7 @@ public abstract class AbstractMethod {
 
                         if( entity != null ) {
                             data = EntityUtils.toString(entity);
-                            if( wire.isDebugEnabled() ) {
-                                wire.debug(data);
-                                wire.debug("");
-                            }
+                            wire.body(data);
                         }
                     }
                     catch( IOException e ) {
@@ -2284,79 +2870,59 @@ public abstract class AbstractMethod {
             }
         }
         finally {
-            if (client != null) {
-                client.getConnectionManager().shutdown();
+            if( response != null ) {
+                EntityUtils.consumeQuietly(response.getEntity());
             }
+            invalidateCache(resource);
             if( std.isTraceEnabled() ) {
                 std.trace("exit - " + AbstractMethod.class.getName() + ".putString()");
             }
-            if( wire.isDebugEnabled() ) {
-                wire.debug("");
-                wire.debug("---------------------------------------------------------------------------------" + endpoint + resource);
-            }               
+            wire.end();               
         }
     }
     
     public @Nullable JSONObject putString(@Nonnull final String service, @Nonnull final String resource, @Nullable final String resourceId, @Nonnull final JSONObject body , final String suffix) throws CloudException, InternalException {
-    	AuthenticationContext context = provider.getAuthenticationContext();
-        String resourceUri = resource;
-    	if( resourceId != null ) {
-    		resourceUri += "/" + (suffix != null ? (resourceId + "/" + suffix) : resourceId);
-    	}
-    	String endpoint = context.getServiceUrl(service);
-    	if( endpoint == null ) {
-    		throw new CloudException("No " + service + " endpoint exists");
-    	}
-    	try {
-    		String response = putString(context.getAuthToken(), endpoint, resourceUri, body.toString());
-    		if( response == null ) {
-    			return null;
-    		}
-    		try {
-    			return new JSONObject(response);
-    		}
-    		catch( JSONException e ) {
-    			throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
-    		}
-    	}
-    	catch (NovaException ex) {
-    		if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-    			Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-    			cache.clear();
-    			return putString(service, resource, resourceId, body, suffix);
-    		}
-    		else {
-    			throw ex;
-    		}
-    	}
+        return execute("PUT", true, new AuthenticatedCall<JSONObject>() {
+            public JSONObject call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String resourceUri = resource;
+                if( resourceId != null ) {
+                    resourceUri += "/" + (suffix != null ? (resourceId + "/" + suffix) : resourceId);
+                }
+                String endpoint = context.getServiceUrl(service);
+                if( endpoint == null ) {
+                    throw new CloudException("No " + service + " endpoint exists");
+                }
+                String response = putString(context.getAuthToken(), endpoint, resourceUri, body.toString());
+                if( response == null ) {
+                    return null;
+                }
+                try {
+                    return new JSONObject(response);
+                }
+                catch( JSONException e ) {
+                    throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
+                }
+            }
+        });
     }
 
     protected @Nullable String putString(@Nonnull String authToken, @Nonnull String endpoint, @Nonnull String resource, @Nullable String payload) throws CloudException, InternalException {
         Logger std = NovaOpenStack.getLogger(NovaOpenStack.class, "std");
-        Logger wire = NovaOpenStack.getLogger(NovaOpenStack.class, "wire");
+        WireLogger.Exchange wire = WireLogger.open(provider);
         
         if( std.isTraceEnabled() ) {
-            std.trace("enter - " + AbstractMethod.class.getName() + ".putString(" + authToken + "," + endpoint + "," + resource + "," + payload + ")");
+            std.trace("enter - " + AbstractMethod.class.getName() + ".putString(" + endpoint + "," + resource + ")");
         }
-        if( wire.isDebugEnabled() ) {
-            wire.debug("---------------------------------------------------------------------------------" + endpoint + resource);
-            wire.debug("");
-        }
-        HttpClient client = null;
+        wire.begin(null, endpoint, resource);
+        HttpResponse response = null;
         try {
-            client = getClient();
+            HttpClient client = getClient();
             HttpPut put = new HttpPut(endpoint + resource);
             
             put.addHeader("Content-Type", "application/json");
             put.addHeader("X-Auth-Token", authToken);
 
-            if( wire.isDebugEnabled() ) {
-                wire.debug(put.getRequestLine().toString());
-                for( Header header : put.getAllHeaders() ) {
-                    wire.debug(header.getName() + ": " + header.getValue());
-                }
-                wire.debug("");
-            }
+            wire.request(put);
             if( payload != null ) {
                 try {
                     //noinspection deprecation
@@ -2365,23 +2931,13 @@ public abstract class AbstractMethod {
                 catch( UnsupportedEncodingException e ) {
                     throw new InternalException(e);
                 }
-                try { wire.debug(EntityUtils.toString(put.getEntity())); }
-                catch( IOException ignore ) { }
-
-                wire.debug("");
+                wire.body(payload);
             }
-            HttpResponse response;
 
             try {
                 APITrace.trace(provider, "PUT " + toAPIResource(resource));
-                response = client.execute(put);
-                if( wire.isDebugEnabled() ) {
-                    wire.debug(response.getStatusLine().toString());
-                    for( Header header : response.getAllHeaders() ) {
-                        wire.debug(header.getName() + ": " + header.getValue());
-                    }
-                    wire.debug("");
-                }
+                response = send(client, put, null, endpoint, resource);
+                wire.response(response);
             }
             catch( IOException e ) {
                 std.error("I/O error from server communications: " + e.getMessage());
@@ -2401,10 +2957,7 @@ public abstract class AbstractMethod {
 
                     if( entity != null ) {
                         data = EntityUtils.toString(entity);
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(data);
-                            wire.debug("");
-                        }
+                        wire.body(data);
                     }
                 }
                 catch( IOException e ) {
@@ -2412,7 +2965,7 @@ public abstract class AbstractMethod {
                     e.printStackTrace();
                     throw new CloudException(e);
                 }
-                NovaException.ExceptionItems items = NovaException.parseException(code, data);
+                NovaException.ExceptionItems items = NovaException.parseException(code, data, response);
                 
                 if( items == null ) {
                     items = new NovaException.ExceptionItems();
@@ -2433,10 +2986,7 @@ public abstract class AbstractMethod {
 
                         if( entity != null ) {
                             data = EntityUtils.toString(entity);
-                            if( wire.isDebugEnabled() ) {
-                                wire.debug(data);
-                                wire.debug("");
-                            }
+                            wire.body(data);
                         }
                     }
                     catch( IOException e ) {
@@ -2452,33 +3002,28 @@ public abstract class AbstractMethod {
             }
         }
         finally {
-            if (client != null) {
-                client.getConnectionManager().shutdown();
+            if( response != null ) {
+                EntityUtils.consumeQuietly(response.getEntity());
             }
+            invalidateCache(resource);
             if( std.isTraceEnabled() ) {
                 std.trace("exit - " + AbstractMethod.class.getName() + ".putString()");
             }
-            if( wire.isDebugEnabled() ) {
-                wire.debug("");
-                wire.debug("---------------------------------------------------------------------------------" + endpoint + resource);
-            }               
+            wire.end();               
         }
     }
     
     protected @Nullable String putStream(@Nonnull String authToken, @Nonnull String endpoint, @Nonnull String resource, @Nullable String md5Hash, @Nonnull InputStream stream) throws CloudException, InternalException {
         Logger std = NovaOpenStack.getLogger(NovaOpenStack.class, "std");
-        Logger wire = NovaOpenStack.getLogger(NovaOpenStack.class, "wire");
+        WireLogger.Exchange wire = WireLogger.open(provider);
         
         if( std.isTraceEnabled() ) {
-            std.trace("enter - " + AbstractMethod.class.getName() + ".putStream(" + authToken + "," + endpoint + "," + resource + "," + md5Hash + ",INPUTSTREAM)");
-        }
-        if( wire.isDebugEnabled() ) {
-            wire.debug("---------------------------------------------------------------------------------" + endpoint + resource);
-            wire.debug("");
+            std.trace("enter - " + AbstractMethod.class.getName() + ".putStream(" + endpoint + "," + resource + "," + md5Hash + ",INPUTSTREAM)");
         }
-        HttpClient client = null;
+        wire.begin(null, endpoint, resource);
+        HttpResponse response = null;
         try {
-            client = getClient();
+            HttpClient client = getClient();
             HttpPut put = new HttpPut(endpoint + resource);
             
             put.addHeader("Content-Type", "application/octet-stream");
@@ -2487,29 +3032,15 @@ public abstract class AbstractMethod {
                 put.addHeader("ETag", md5Hash);
             }
 
-            if( wire.isDebugEnabled() ) {
-                wire.debug(put.getRequestLine().toString());
-                for( Header header : put.getAllHeaders() ) {
-                    wire.debug(header.getName() + ": " + header.getValue());
-                }
-                wire.debug("");
-            }
+            wire.request(put);
             put.setEntity(new InputStreamEntity(stream, -1, ContentType.APPLICATION_OCTET_STREAM));
-            wire.debug(" ---- BINARY DATA ---- ");
-            wire.debug("");
+            wire.binary();
 
-            HttpResponse response;
 
             try {
                 APITrace.trace(provider, "PUT " + toAPIResource(resource));
-                response = client.execute(put);
-                if( wire.isDebugEnabled() ) {
-                    wire.debug(response.getStatusLine().toString());
-                    for( Header header : response.getAllHeaders() ) {
-                        wire.debug(header.getName() + ": " + header.getValue());
-                    }
-                    wire.debug("");
-                }
+                response = send(client, put, null, endpoint, resource);
+                wire.response(response);
             }
             catch( IOException e ) {
                 std.error("I/O error from server communications: " + e.getMessage());
@@ -2520,14 +3051,10 @@ public abstract class AbstractMethod {
 
             std.debug("HTTP STATUS: " + code);
 
-            String responseHash = null;
-            
-            for( Header h : put.getAllHeaders() ) {
-                if( h.getName().equalsIgnoreCase("ETag") ) {
-                    responseHash = h.getValue(); 
-                }
-            }
-            if( responseHash != null && md5Hash != null && !responseHash.equals(md5Hash) ) {
+            Header etag = response.getFirstHeader("ETag");
+            String responseHash = (etag == null ? null : etag.getValue().replace("\"", ""));
+
+            if( responseHash != null && md5Hash != null && !responseHash.equalsIgnoreCase(md5Hash) ) {
                 throw new CloudException("MD5 hash values do not match, probably data corruption");
             }
             if( code != HttpStatus.SC_CREATED && code != HttpStatus.SC_ACCEPTED && code != HttpStatus.SC_NO_CONTENT ) {
@@ -2539,10 +3066,7 @@ public abstract class AbstractMethod {
 
                     if( entity != null ) {
                         data = EntityUtils.toString(entity);
-                        if( wire.isDebugEnabled() ) {
-                            wire.debug(data);
-                            wire.debug("");
-                        }
+                        wire.body(data);
                     }
                 }
                 catch( IOException e ) {
@@ -2550,7 +3074,7 @@ public abstract class AbstractMethod {
                     e.printStackTrace();
                     throw new CloudException(e);
                 }
-                NovaException.ExceptionItems items = NovaException.parseException(code, data);
+                NovaException.ExceptionItems items = NovaException.parseException(code, data, response);
 
                 if( items == null ) {
                     items = new NovaException.ExceptionItems();
@@ -2571,10 +3095,7 @@ public abstract class AbstractMethod {
 
                         if( entity != null ) {
                             data = EntityUtils.toString(entity);
-                            if( wire.isDebugEnabled() ) {
-                                wire.debug(data);
-                                wire.debug("");
-                            }
+                            wire.body(data);
                         }
                     }
                     catch( IOException e ) {
@@ -2590,16 +3111,14 @@ public abstract class AbstractMethod {
             }
         }
         finally {
-            if (client != null) {
-                client.getConnectionManager().shutdown();
+            if( response != null ) {
+                EntityUtils.consumeQuietly(response.getEntity());
             }
+            invalidateCache(resource);
             if( std.isTraceEnabled() ) {
                 std.trace("exit - " + NovaOpenStack.class.getName() + ".putStream()");
             }
-            if( wire.isDebugEnabled() ) {
-                wire.debug("");
-                wire.debug("---------------------------------------------------------------------------------" + endpoint + resource);
-            }               
+            wire.end();               
         }
     }
     
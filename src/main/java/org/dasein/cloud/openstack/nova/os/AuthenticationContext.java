@@ -22,33 +22,126 @@ package org.dasein.cloud.openstack.nova.os;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 import org.dasein.cloud.dc.Jurisdiction;
 import org.dasein.cloud.dc.Region;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+/**
+ * The result of authenticating against the identity service: the token, the tenant, and the service catalog for the
+ * current region. Everything derived from the catalog (the per-service endpoint URLs and the API version of the compute
+ * endpoint) is resolved once when the context is built so that model conversions can consult it freely.
+ */
 public class AuthenticationContext { 
-    private String                         authToken;
-    private Map<String,Map<String,String>> endpoints;
-    private String                         myRegion;
-    private String                         storageToken;
-    private String                         tenantId;
+    private final String                         authToken;
+    private final OpenStackProvider              cloudProvider;
+    private final Map<String,Map<String,String>> endpoints;
+    private final long                           expiration;
+    private final int                            majorVersion;
+    private final int                            minorVersion;
+    private String                               myRegion;
+    private final Map<String,String>             serviceUrls;
+    private final String                         storageToken;
+    private final String                         tenantId;
 
     public AuthenticationContext(@Nonnull String regionId, @Nonnull String token, @Nonnull String tenantId, @Nonnull Map<String,Map<String,String>> services, @Nullable String storageToken) {
+        this(regionId, token, tenantId, services, storageToken, OpenStackProvider.OTHER, -1L);
+    }
+
+    /**
+     * @param expiration when the token expires, in milliseconds since the epoch, or -1 if the service did not say
+     */
+    public AuthenticationContext(@Nonnull String regionId, @Nonnull String token, @Nonnull String tenantId, @Nonnull Map<String,Map<String,String>> services, @Nullable String storageToken, @Nonnull OpenStackProvider cloudProvider, long expiration) {
         myRegion = regionId;
         authToken = token;
         endpoints = services;
         this.tenantId = tenantId;
         this.storageToken = storageToken;
+        this.cloudProvider = cloudProvider;
+        this.expiration = expiration;
+
+        HashMap<String,String> urls = new HashMap<String,String>();
+
+        // resolve compute first: with no region specified, the first region it lists becomes ours
+        if( services.containsKey("compute") ) {
+            urls.put("compute", resolveServiceUrl("compute"));
+        }
+        for( String service : services.keySet() ) {
+            if( !urls.containsKey(service) ) {
+                urls.put(service, resolveServiceUrl(service));
+            }
+        }
+        serviceUrls = Collections.unmodifiableMap(urls);
+
+        Map<String,String> compute = services.get("compute");
+        String endpoint = (compute == null ? null : compute.get(myRegion));
+
+        if( endpoint == null ) {
+            endpoint = getStorageUrl();
+        }
+        majorVersion = parseVersion(endpoint, 0);
+        minorVersion = parseVersion(endpoint, 1);
+    }
+
+    /**
+     * Parses one component of the API version embedded in an endpoint URL, such as <code>https://host/v1.1/tenant</code>.
+     * @param endpoint the endpoint URL
+     * @param part 0 for the major version, 1 for the minor version
+     * @return the version component, or 1 if the URL carries no recognizable version
+     */
+    static private @Nonnegative int parseVersion(@Nullable String endpoint, int part) {
+        if( endpoint == null ) {
+            return 1;
+        }
+        while( endpoint.endsWith("/") && endpoint.length() > 1 ) {
+            endpoint = endpoint.substring(0,endpoint.length()-1);
+        }
+        String[] parts = endpoint.split("/");
+        int idx = parts.length-1;
+
+        do {
+            endpoint = parts[idx];
+            if( endpoint.length() < 1 ) {
+                continue;
+            }
+            while( !Character.isDigit(endpoint.charAt(0)) && endpoint.length() > 1 ) {
+                endpoint = endpoint.substring(1);
+            }
+            if( Character.isDigit(endpoint.charAt(0)) ) {
+                int i = endpoint.indexOf('.');
+
+                try {
+                    if( i == -1 ) {
+                        return Integer.parseInt(endpoint);
+                    }
+                    String[] d = endpoint.split("\\.");
+
+                    return Integer.parseInt(d[part]);
+                }
+                catch( NumberFormatException ignore ) {
+                    // ignore
+                }
+                catch( ArrayIndexOutOfBoundsException ignore ) {
+                    // ignore
+                }
+            }
+        } while( (idx--) > 0 );
+        return 1;
     }
 
     public @Nonnull String getAuthToken() {
         return authToken;
     }
-    
+
+    public @Nonnull OpenStackProvider getCloudProvider() {
+        return cloudProvider;
+    }
+
     public @Nullable String getComputeUrl() {
         Map<String,String> map = endpoints.get("compute");
         
@@ -58,6 +151,27 @@ public class AuthenticationContext {
         return map.get(myRegion);
     }
 
+    /**
+     * @return when the token expires, in milliseconds since the epoch, or -1 if the identity service did not say
+     */
+    public long getExpiration() {
+        return expiration;
+    }
+
+    /**
+     * @return the major API version of the compute endpoint (or of the storage endpoint when there is no compute service)
+     */
+    public @Nonnegative int getMajorVersion() {
+        return majorVersion;
+    }
+
+    /**
+     * @return the minor API version of the compute endpoint (or of the storage endpoint when there is no compute service)
+     */
+    public @Nonnegative int getMinorVersion() {
+        return minorVersion;
+    }
+
     public @Nullable String getNetworkUrl() {
         return getServiceUrl("network");
     }
@@ -83,6 +197,22 @@ public class AuthenticationContext {
     }
 
     public @Nullable String getServiceUrl(String service) {
+        return serviceUrls.get(service);
+    }
+
+    /**
+     * @return the URL of each service in the catalog for this context's region, by service type; a URL is
+     * <code>null</code> if the service has no endpoint in the region
+     */
+    public @Nonnull Map<String,String> getServiceUrls() {
+        return serviceUrls;
+    }
+
+    public boolean isPostCactus() {
+        return (majorVersion > 1 || minorVersion > 0);
+    }
+
+    private @Nullable String resolveServiceUrl(String service) {
         Map<String,String> map = endpoints.get(service);
 
         if( map == null ) {
@@ -108,26 +238,50 @@ public class AuthenticationContext {
     }
     
     public @Nonnull Collection<Region> listRegions() {
-        Map<String,String> map = endpoints.get("compute");
-        
-        if( map == null ) {
-            map = endpoints.get("object-store");
-        }
+        Map<String,String> map = getRegionEndpoints();
+
         if( map == null ) {
             return Collections.emptyList();
         }
         ArrayList<Region> regions = new ArrayList<Region>();
         
         for( String regionId : map.keySet() ) {
-            Region region = new Region();
-        
-            region.setActive(true);
-            region.setAvailable(true);
-            region.setJurisdiction(Jurisdiction.US.name());
-            region.setName(regionId);
-            region.setProviderRegionId(regionId);
-            regions.add(region);
+            regions.add(toRegion(regionId));
         }
         return regions;
     }
+
+    /**
+     * Looks up a single region directly in the service catalog rather than scanning {@link #listRegions()}.
+     * @param regionId the region to look up
+     * @return the region, or <code>null</code> if the catalog has no endpoint in it
+     */
+    public @Nullable Region getRegion(@Nonnull String regionId) {
+        Map<String,String> map = getRegionEndpoints();
+
+        if( map == null || !map.containsKey(regionId) ) {
+            return null;
+        }
+        return toRegion(regionId);
+    }
+
+    private @Nullable Map<String,String> getRegionEndpoints() {
+        Map<String,String> map = endpoints.get("compute");
+
+        if( map == null ) {
+            map = endpoints.get("object-store");
+        }
+        return map;
+    }
+
+    private @Nonnull Region toRegion(@Nonnull String regionId) {
+        Region region = new Region();
+
+        region.setActive(true);
+        region.setAvailable(true);
+        region.setJurisdiction(Jurisdiction.US.name());
+        region.setName(regionId);
+        region.setProviderRegionId(regionId);
+        return region;
+    }
 }
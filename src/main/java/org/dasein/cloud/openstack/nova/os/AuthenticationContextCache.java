@@ -0,0 +1,236 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.http.HttpStatus;
+import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudErrorType;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.ProviderContext;
+import org.dasein.util.CalendarWrapper;
+
+/**
+ * Holds authentication contexts per endpoint, account and region (the scope of the old
+ * <code>CacheLevel.REGION_ACCOUNT</code> cache). Reads of a valid token never lock. When a token is missing or has
+ * expired, exactly one caller authenticates against Keystone while every other caller for the same scope waits for
+ * that result. Tokens carrying an <code>expires</code> time are refreshed ahead of expiry by a single caller while
+ * the others keep using the current token; tokens without one are kept for a day, as before.
+ * @since 2016.02
+ */
+final class AuthenticationContextCache {
+    static private final Logger logger = NovaOpenStack.getLogger(AuthenticationContextCache.class, "std");
+
+    /**
+     * How long before a token's stated expiry it becomes eligible for a proactive refresh.
+     */
+    static public final long REFRESH_MARGIN = CalendarWrapper.MINUTE * 5L;
+
+    /**
+     * How long a token without a stated expiry is used before re-authenticating.
+     */
+    static public final long DEFAULT_LIFETIME = CalendarWrapper.DAY;
+
+    static private final AuthenticationContextCache instance = new AuthenticationContextCache();
+
+    static @Nonnull AuthenticationContextCache getInstance() {
+        return instance;
+    }
+
+    static private final class Token {
+        private final AuthenticationContext context;
+        private final long                  expiresAt;
+        private final long                  refreshAt;
+
+        private Token(@Nonnull AuthenticationContext context, long now) {
+            long expires = context.getExpiration();
+
+            // ignore expiry times we cannot honour, such as tokens that already look expired because of clock skew
+            if( expires <= now || expires > now + DEFAULT_LIFETIME ) {
+                expires = now + DEFAULT_LIFETIME;
+            }
+            this.context = context;
+            this.expiresAt = expires;
+            this.refreshAt = Math.max(now, expires - REFRESH_MARGIN);
+        }
+    }
+
+    static private final class Entry {
+        private final AtomicReference<Token>                              current = new AtomicReference<Token>();
+        private final AtomicReference<FutureTask<AuthenticationContext>> refresh = new AtomicReference<FutureTask<AuthenticationContext>>();
+    }
+
+    private final ConcurrentMap<String,Entry> entries = new ConcurrentHashMap<String,Entry>();
+
+    private AuthenticationContextCache() { }
+
+    private @Nonnull String getKey(@Nonnull ProviderContext ctx) {
+        return ctx.getEndpoint() + "|" + ctx.getAccountNumber() + "|" + ctx.getRegionId();
+    }
+
+    private @Nonnull Entry getEntry(@Nonnull ProviderContext ctx) {
+        String key = getKey(ctx);
+        Entry entry = entries.get(key);
+
+        if( entry == null ) {
+            Entry e = new Entry();
+
+            entry = entries.putIfAbsent(key, e);
+            if( entry == null ) {
+                entry = e;
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Provides a valid authentication context for the provider's current context, authenticating if necessary.
+     * @param provider the provider to authenticate with if no valid token is held
+     * @param ctx the provider's current context
+     * @return a valid authentication context
+     * @throws CloudException authentication failed
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    @Nonnull AuthenticationContext get(@Nonnull NovaOpenStack provider, @Nonnull ProviderContext ctx) throws CloudException, InternalException {
+        Entry entry = getEntry(ctx);
+        Token token = entry.current.get();
+        long now = System.currentTimeMillis();
+
+        if( token != null && now < token.refreshAt ) {
+            return token.context;
+        }
+        if( token != null && now < token.expiresAt ) {
+            // still valid: whoever gets here first refreshes, everyone else carries on with the current token
+            FutureTask<AuthenticationContext> task = newRefresh(entry, provider);
+
+            if( entry.refresh.compareAndSet(null, task) ) {
+                try {
+                    return run(entry, task);
+                }
+                catch( CloudException | InternalException e ) {
+                    logger.warn("Proactive token refresh failed, continuing with the current token: " + e.getMessage());
+                    return token.context;
+                }
+            }
+            return token.context;
+        }
+        while( true ) {
+            FutureTask<AuthenticationContext> task = entry.refresh.get();
+
+            if( task != null ) {
+                return await(task);
+            }
+            token = entry.current.get();
+            if( token != null && System.currentTimeMillis() < token.expiresAt ) {
+                return token.context;
+            }
+            task = newRefresh(entry, provider);
+            if( entry.refresh.compareAndSet(null, task) ) {
+                return run(entry, task);
+            }
+        }
+    }
+
+    /**
+     * Discards the held token for the provider's current context if it is still the one that was rejected, so the
+     * next call re-authenticates. A token that has already been replaced by a concurrent refresh is left alone.
+     * @param ctx the provider's current context
+     * @param stale the authentication context whose token was rejected, or <code>null</code> to discard unconditionally
+     */
+    void invalidate(@Nonnull ProviderContext ctx, @Nullable AuthenticationContext stale) {
+        Entry entry = entries.get(getKey(ctx));
+
+        if( entry == null ) {
+            return;
+        }
+        Token token = entry.current.get();
+
+        if( token == null ) {
+            return;
+        }
+        if( stale == null || token.context == stale || token.context.getAuthToken().equals(stale.getAuthToken()) ) {
+            entry.current.compareAndSet(token, null);
+        }
+    }
+
+    private @Nonnull FutureTask<AuthenticationContext> newRefresh(@Nonnull final Entry entry, @Nonnull final NovaOpenStack provider) {
+        return new FutureTask<AuthenticationContext>(new Callable<AuthenticationContext>() {
+            public AuthenticationContext call() throws Exception {
+                AuthenticationContext context = new NovaMethod(provider).authenticate();
+
+                if( context == null ) {
+                    NovaException.ExceptionItems items = new NovaException.ExceptionItems();
+
+                    items.code = HttpStatus.SC_UNAUTHORIZED;
+                    items.type = CloudErrorType.AUTHENTICATION;
+                    items.message = "unauthorized";
+                    items.details = "The API keys failed to authenticate with the specified endpoint.";
+                    throw new NovaException(items);
+                }
+                entry.current.set(new Token(context, System.currentTimeMillis()));
+                return context;
+            }
+        });
+    }
+
+    private @Nonnull AuthenticationContext run(@Nonnull Entry entry, @Nonnull FutureTask<AuthenticationContext> task) throws CloudException, InternalException {
+        try {
+            task.run();
+        }
+        finally {
+            entry.refresh.compareAndSet(task, null);
+        }
+        return await(task);
+    }
+
+    private @Nonnull AuthenticationContext await(@Nonnull FutureTask<AuthenticationContext> task) throws CloudException, InternalException {
+        try {
+            return task.get();
+        }
+        catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new InternalException(e);
+        }
+        catch( ExecutionException e ) {
+            Throwable cause = e.getCause();
+
+            if( cause instanceof CloudException ) {
+                throw (CloudException)cause;
+            }
+            if( cause instanceof InternalException ) {
+                throw (InternalException)cause;
+            }
+            if( cause instanceof RuntimeException ) {
+                throw (RuntimeException)cause;
+            }
+            throw new InternalException(cause);
+        }
+    }
+}
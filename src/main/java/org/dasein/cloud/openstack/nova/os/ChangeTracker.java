@@ -0,0 +1,328 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TimeZone;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.ProviderContext;
+import org.dasein.util.CalendarWrapper;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Keeps an in-memory snapshot of an OpenStack collection up to date with <code>changes-since</code> queries. The first
+ * sync lists the whole collection; later syncs ask only for the items updated since the newest <code>updated</code>
+ * time seen so far (the server's own clock, so client clock skew does not matter) and merge them into the snapshot,
+ * with deleted items removed. Items whose update time has not moved keep their existing value instead of being
+ * converted again. Every <code>changesSinceFullSync</code> milliseconds (15 minutes by default) a full listing
+ * reconverts everything to catch anything a delta could miss. Collections without <code>changes-since</code> support,
+ * or all of them when the <code>changesSince</code> custom property is <code>false</code>, are listed in full on
+ * every sync.
+ * <p>Trackers are shared per cloud connection through {@link NovaOpenStack#getChangeTracker(String, ChangeTracker)},
+ * so the snapshot belongs to one account and region. Syncs are serialized. Setting the <code>deltaSync</code> custom
+ * property to <code>true</code> makes the server, image and volume listings answer from their trackers' snapshots;
+ * see {@link #isDeltaSyncEnabled(NovaOpenStack)}.</p>
+ * @param <T> the type of value held for each item
+ * @since 2016.02
+ */
+public class ChangeTracker<T> {
+    static private final Logger logger = NovaOpenStack.getLogger(ChangeTracker.class, "std");
+
+    static public final long DEFAULT_FULL_SYNC_INTERVAL = CalendarWrapper.MINUTE * 15L;
+
+    /**
+     * Turns the items of the collection into the values kept in the snapshot.
+     * @param <T> the type of value held for each item
+     */
+    public interface Mapper<T> {
+        /**
+         * @param item an item of the collection that has not been deleted
+         * @return the value to keep for the item, or <code>null</code> to leave the item out of the snapshot
+         * @throws CloudException the item could not be converted
+         * @throws InternalException an internal error occurred converting the item
+         * @throws JSONException the item did not have the expected structure
+         */
+        @Nullable T toValue(@Nonnull JSONObject item) throws CloudException, InternalException, JSONException;
+
+        /**
+         * @param item an item of the collection
+         * @return true if the item only records that the resource was deleted
+         * @throws JSONException the item did not have the expected structure
+         */
+        boolean isDeleted(@Nonnull JSONObject item) throws JSONException;
+
+        /**
+         * @param item an item of the collection
+         * @return the time the item was last updated, or -1 if it does not say
+         * @throws CloudException the timestamp could not be parsed
+         * @throws JSONException the item did not have the expected structure
+         */
+        long getUpdated(@Nonnull JSONObject item) throws CloudException, JSONException;
+    }
+
+    /**
+     * The outcome of one sync.
+     * @param <T> the type of value held for each item
+     */
+    static public class Delta<T> {
+        private final Map<String,T> changed;
+        private final boolean       full;
+        private final Set<String>   removed;
+
+        private Delta(@Nonnull Map<String,T> changed, @Nonnull Set<String> removed, boolean full) {
+            this.changed = Collections.unmodifiableMap(changed);
+            this.removed = Collections.unmodifiableSet(removed);
+            this.full = full;
+        }
+
+        /**
+         * @return the items that were added or updated by this sync
+         */
+        public @Nonnull Map<String,T> getChanged() {
+            return changed;
+        }
+
+        /**
+         * @return the IDs of the items removed from the snapshot by this sync
+         */
+        public @Nonnull Set<String> getRemoved() {
+            return removed;
+        }
+
+        /**
+         * @return true if this sync listed the whole collection rather than only the changes
+         */
+        public boolean isFull() {
+            return full;
+        }
+    }
+
+    /**
+     * @param provider the cloud connection
+     * @return true if inventory listings should be served from change tracker snapshots
+     */
+    static public boolean isDeltaSyncEnabled(@Nonnull NovaOpenStack provider) {
+        ProviderContext ctx = provider.getContext();
+        String value = (ctx == null || ctx.getCustomProperties() == null ? null : ctx.getCustomProperties().getProperty("deltaSync"));
+
+        return (value != null && value.trim().equalsIgnoreCase("true"));
+    }
+
+    private final String        collection;
+    private final boolean       deltas;
+    private final long          fullSyncInterval;
+    private final boolean       paged;
+    private final NovaOpenStack provider;
+    private final String        resource;
+    private final String        service;
+    private final boolean       suffix;
+
+    private long                    lastFull  = -1L;
+    private long                    since     = -1L;
+    private Map<String,T>           snapshot  = new LinkedHashMap<String,T>();
+    private Map<String,Long>        updated   = new HashMap<String,Long>();
+
+    /**
+     * @param provider the cloud connection
+     * @param service the service catalog type hosting the collection
+     * @param resource the collection resource, e.g. <code>/servers</code>
+     * @param collection the name of the JSON array holding the items, e.g. <code>servers</code>
+     * @param suffix true to list the <code>/detail</code> view of the collection
+     * @param paged true if the service supports <code>limit</code>/<code>marker</code> paging for this collection
+     * @param changesSince true if the service supports <code>changes-since</code> for this collection; if not, every
+     * sync is a full listing and only the comparison with the snapshot is incremental
+     */
+    public ChangeTracker(@Nonnull NovaOpenStack provider, @Nonnull String service, @Nonnull String resource, @Nonnull String collection, boolean suffix, boolean paged, boolean changesSince) {
+        ProviderContext ctx = provider.getContext();
+        Properties p = (ctx == null ? null : ctx.getCustomProperties());
+        String value = (p == null ? null : p.getProperty("changesSince"));
+        long interval = DEFAULT_FULL_SYNC_INTERVAL;
+
+        if( p != null && p.getProperty("changesSinceFullSync") != null ) {
+            try {
+                interval = Long.parseLong(p.getProperty("changesSinceFullSync").trim());
+            }
+            catch( NumberFormatException e ) {
+                logger.warn("Ignoring invalid value for changesSinceFullSync: " + p.getProperty("changesSinceFullSync"));
+            }
+        }
+        this.provider = provider;
+        this.service = service;
+        this.resource = resource;
+        this.collection = collection;
+        this.suffix = suffix;
+        this.paged = paged;
+        this.deltas = (changesSince && (value == null || !value.trim().equalsIgnoreCase("false")));
+        this.fullSyncInterval = interval;
+    }
+
+    /**
+     * Brings the snapshot up to date.
+     * @param mapper converts the items listed by this sync into snapshot values
+     * @return what changed since the last sync
+     * @throws CloudException an error occurred listing the collection
+     * @throws InternalException an internal error occurred listing the collection
+     */
+    public synchronized @Nonnull Delta<T> sync(@Nonnull final Mapper<T> mapper) throws CloudException, InternalException {
+        long now = System.currentTimeMillis();
+        // a refresh reconverts every item; other syncs reuse the values of items whose update time has not moved
+        final boolean refresh = (lastFull < 0L || now - lastFull >= fullSyncInterval);
+        final boolean full = (refresh || !deltas || since < 0L);
+        final Map<String,T> values = new LinkedHashMap<String,T>();
+        final Map<String,Long> times = new HashMap<String,Long>();
+        final Set<String> deleted = new HashSet<String>();
+        final long[] latest = new long[] { since };
+
+        getMethod().getStreamedResource(service, resource, collection, suffix, (full ? null : getQuery(since)), paged, new AbstractMethod.ItemHandler() {
+            @Override
+            public boolean handle(@Nonnull JSONObject item) throws CloudException, InternalException, JSONException {
+                String id = (item.has("id") && !item.isNull("id") ? item.getString("id") : null);
+
+                if( id == null ) {
+                    return true;
+                }
+                long time = mapper.getUpdated(item);
+
+                if( time > latest[0] ) {
+                    latest[0] = time;
+                }
+                if( mapper.isDeleted(item) ) {
+                    deleted.add(id);
+                    return true;
+                }
+                T value = null;
+
+                if( !refresh && time >= 0L && Long.valueOf(time).equals(updated.get(id)) ) {
+                    value = snapshot.get(id);
+                }
+                if( value == null ) {
+                    value = mapper.toValue(item);
+                }
+                if( value == null ) {
+                    deleted.add(id);
+                }
+                else {
+                    values.put(id, value);
+                    times.put(id, time);
+                }
+                return true;
+            }
+        });
+        Map<String,T> changed = new LinkedHashMap<String,T>();
+        Set<String> removed = new HashSet<String>();
+
+        if( full ) {
+            for( String id : snapshot.keySet() ) {
+                if( !values.containsKey(id) ) {
+                    removed.add(id);
+                }
+            }
+            for( Map.Entry<String,T> entry : values.entrySet() ) {
+                if( isChanged(entry.getKey(), times.get(entry.getKey())) ) {
+                    changed.put(entry.getKey(), entry.getValue());
+                }
+            }
+            snapshot = values;
+            updated = times;
+            if( refresh ) {
+                lastFull = now;
+            }
+        }
+        else {
+            for( String id : deleted ) {
+                if( snapshot.remove(id) != null ) {
+                    removed.add(id);
+                }
+                updated.remove(id);
+            }
+            for( Map.Entry<String,T> entry : values.entrySet() ) {
+                String id = entry.getKey();
+
+                // changes-since is inclusive, so items updated at exactly the previous mark come back again
+                if( isChanged(id, times.get(id)) ) {
+                    changed.put(id, entry.getValue());
+                }
+                snapshot.put(id, entry.getValue());
+                updated.put(id, times.get(id));
+            }
+        }
+        since = latest[0];
+        if( logger.isDebugEnabled() ) {
+            logger.debug("Synced " + resource + (full ? " (full)" : " (delta)") + ": " + changed.size() + " changed, " + removed.size() + " removed, " + snapshot.size() + " held");
+        }
+        return new Delta<T>(changed, removed, full);
+    }
+
+    protected @Nonnull NovaMethod getMethod() {
+        return new NovaMethod(provider);
+    }
+
+    private boolean isChanged(@Nonnull String id, @Nullable Long time) {
+        Long previous = updated.get(id);
+
+        return (previous == null || time == null || time < 0L || !previous.equals(time));
+    }
+
+    private @Nonnull String getQuery(long since) throws InternalException {
+        SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+
+        fmt.setTimeZone(TimeZone.getTimeZone("UTC"));
+        try {
+            return "changes-since=" + URLEncoder.encode(fmt.format(new Date(since)), "utf-8");
+        }
+        catch( UnsupportedEncodingException e ) {
+            throw new InternalException(e);
+        }
+    }
+
+    /**
+     * @return a copy of the snapshot as of the last sync
+     */
+    public synchronized @Nonnull Map<String,T> getSnapshot() {
+        return new LinkedHashMap<String,T>(snapshot);
+    }
+
+    /**
+     * Forgets the snapshot so the next sync lists the whole collection again.
+     */
+    public synchronized void reset() {
+        snapshot = new LinkedHashMap<String,T>();
+        updated = new HashMap<String,Long>();
+        since = -1L;
+        lastFull = -1L;
+    }
+}
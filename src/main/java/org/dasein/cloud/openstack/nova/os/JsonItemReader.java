@@ -0,0 +1,224 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.log4j.Logger;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/**
+ * Pull parser for OpenStack list responses of the form <code>{"servers": [ {...}, {...} ], "servers_links": [...]}</code>,
+ * or for bare arrays such as Swift listings when no collection name is given. The elements of the collection are read
+ * from the stream one at a time, so only the element being converted is held in memory rather than the whole response
+ * body and its JSON tree. Every other top-level member (such as the pagination links) is collected and made available
+ * through {@link #getRemainder()} once the collection has been read. An empty response is treated as an empty list.
+ * <p>Instances are not thread safe and must be closed to hand the underlying connection back.</p>
+ * @since 2016.02
+ */
+public class JsonItemReader implements Closeable {
+    static private final Logger logger = NovaOpenStack.getLogger(JsonItemReader.class, "std");
+
+    private final String      collection;
+    private final Reader      reader;
+    private final JSONObject  remainder = new JSONObject();
+    private final JSONTokener tokener;
+
+    private boolean started;
+    private boolean firstMember  = true;
+    private boolean firstElement = true;
+    private boolean inCollection;
+    private boolean collectionRead;
+    private boolean done;
+
+    /**
+     * @param input the response body
+     * @param collection the name of the array holding the items, or <code>null</code> if the response is the array
+     */
+    public JsonItemReader(@Nonnull InputStream input, @Nullable String collection) {
+        this.collection = collection;
+        this.reader = new BufferedReader(new InputStreamReader(input, Charset.forName("utf-8")));
+        this.tokener = new JSONTokener(reader);
+    }
+
+    /**
+     * Reads the next object in the collection.
+     * @return the next object, or <code>null</code> once the collection is exhausted or if the response has none
+     * @throws JSONException the response is not valid JSON or could not be read
+     */
+    public @Nullable JSONObject next() throws JSONException {
+        if( collectionRead || done ) {
+            return null;
+        }
+        if( !inCollection ) {
+            if( !findCollection() ) {
+                collectionRead = true;
+                return null;
+            }
+            inCollection = true;
+        }
+        while( true ) {
+            Object value = nextElement();
+
+            if( value == null ) {
+                inCollection = false;
+                collectionRead = true;
+                if( collection == null ) {
+                    done = true;
+                }
+                return null;
+            }
+            if( value instanceof JSONObject ) {
+                return (JSONObject)value;
+            }
+        }
+    }
+
+    /**
+     * Reads whatever is left of the response, skipping any unread elements of the collection.
+     * @return the top-level members of the response other than the collection
+     * @throws JSONException the response is not valid JSON or could not be read
+     */
+    public @Nonnull JSONObject getRemainder() throws JSONException {
+        while( next() != null ) {
+            // skip
+        }
+        while( !done ) {
+            String key = nextKey();
+
+            if( key == null ) {
+                break;
+            }
+            remainder.put(key, tokener.nextValue());
+        }
+        return remainder;
+    }
+
+    private boolean findCollection() throws JSONException {
+        if( !started ) {
+            char c = tokener.nextClean();
+
+            started = true;
+            if( c == 0 ) {
+                done = true;
+                return false;
+            }
+            if( collection == null ) {
+                if( c != '[' ) {
+                    throw tokener.syntaxError("A JSONArray text must begin with '['");
+                }
+                return true;
+            }
+            if( c != '{' ) {
+                throw tokener.syntaxError("A JSONObject text must begin with '{'");
+            }
+        }
+        while( true ) {
+            String key = nextKey();
+
+            if( key == null ) {
+                return false;
+            }
+            if( key.equals(collection) ) {
+                if( tokener.nextClean() == '[' ) {
+                    return true;
+                }
+                tokener.back();
+            }
+            remainder.put(key, tokener.nextValue());
+        }
+    }
+
+    private @Nullable String nextKey() throws JSONException {
+        char c = tokener.nextClean();
+
+        if( !firstMember ) {
+            if( c == '}' ) {
+                done = true;
+                return null;
+            }
+            if( c != ',' && c != ';' ) {
+                throw tokener.syntaxError("Expected a ',' or '}'");
+            }
+            c = tokener.nextClean();
+        }
+        firstMember = false;
+        if( c == '}' ) {
+            done = true;
+            return null;
+        }
+        if( c == 0 ) {
+            throw tokener.syntaxError("A JSONObject text must end with '}'");
+        }
+        tokener.back();
+        String key = tokener.nextValue().toString();
+
+        if( tokener.nextClean() != ':' ) {
+            throw tokener.syntaxError("Expected a ':' after a key");
+        }
+        return key;
+    }
+
+    private @Nullable Object nextElement() throws JSONException {
+        char c = tokener.nextClean();
+
+        if( firstElement ) {
+            firstElement = false;
+        }
+        else if( c != ']' ) {
+            if( c != ',' ) {
+                throw tokener.syntaxError("Expected a ',' or ']'");
+            }
+            c = tokener.nextClean();
+        }
+        if( c == ']' ) {
+            return null;
+        }
+        if( c == 0 ) {
+            throw tokener.syntaxError("A JSONArray text must end with ']'");
+        }
+        tokener.back();
+        return tokener.nextValue();
+    }
+
+    /**
+     * Closes the response stream. Any unread content is discarded.
+     */
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        }
+        catch( IOException e ) {
+            logger.warn("Error closing response stream: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.ssl.SSLContexts;
+import org.apache.http.ssl.TrustStrategy;
+import org.apache.log4j.Logger;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.ProviderContext;
+
+/**
+ * Non-blocking HTTP client shared by the asynchronous calls of every {@link AbstractMethod} created against a single
+ * {@link NovaOpenStack} instance. Requests are multiplexed over a small number of I/O dispatcher threads, set by the
+ * <code>asyncIoThreads</code> custom property (one per processor by default), so the number of requests in flight is
+ * bounded by the <code>asyncMaxConnections</code> and <code>asyncMaxConnectionsPerRoute</code> properties rather than
+ * by the number of threads. The <code>insecure</code>, <code>proxyHost</code>, <code>proxyPort</code> and
+ * <code>idleConnectionTimeout</code> settings are honoured as in {@link NovaConnectionPool}.
+ * <p>Callbacks run on the dispatcher threads and must not block. Work that may block, such as reauthenticating or
+ * waiting out a retry delay, is handed to a single scheduler thread through {@link #schedule(Runnable, long)}.
+ * Turning responses into Dasein objects can itself call the cloud, so that work goes to a pool of worker threads
+ * through {@link #submit(Runnable)}; its size is set by the <code>asyncWorkerThreads</code> custom property.</p>
+ * @since 2016.02
+ */
+public class NovaAsyncClient {
+    static private final Logger logger = NovaOpenStack.getLogger(NovaAsyncClient.class, "std");
+
+    static public final int  DEFAULT_MAX_CONNECTIONS           = 500;
+    static public final int  DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 200;
+    static public final int  DEFAULT_WORKER_THREADS            = 8;
+
+    private final CloseableHttpAsyncClient            client;
+    private final PoolingNHttpClientConnectionManager connectionManager;
+    private final ScheduledExecutorService            scheduler;
+    private final ExecutorService                     workers;
+
+    public NovaAsyncClient(@Nonnull NovaOpenStack provider) throws InternalException {
+        ProviderContext ctx = provider.getContext();
+
+        if( ctx == null ) {
+            throw new InternalException("No context was defined for this request");
+        }
+        String endpoint = ctx.getCloud().getEndpoint();
+
+        if( endpoint == null ) {
+            throw new InternalException("No cloud endpoint was defined");
+        }
+        boolean ssl = endpoint.startsWith("https");
+        Properties p = ctx.getCustomProperties();
+        IOReactorConfig reactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(getIntProperty(p, "asyncIoThreads", Runtime.getRuntime().availableProcessors()))
+                .setSoKeepAlive(true)
+                .build();
+
+        try {
+            connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(reactorConfig), getSessionStrategyRegistry(provider.isInsecure()));
+        }
+        catch( IOReactorException e ) {
+            throw new InternalException(e);
+        }
+        connectionManager.setMaxTotal(getIntProperty(p, "asyncMaxConnections", DEFAULT_MAX_CONNECTIONS));
+        connectionManager.setDefaultMaxPerRoute(getIntProperty(p, "asyncMaxConnectionsPerRoute", DEFAULT_MAX_CONNECTIONS_PER_ROUTE));
+
+        final long idleTimeout = getIntProperty(p, "idleConnectionTimeout", (int)NovaConnectionPool.DEFAULT_IDLE_TIMEOUT);
+        HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setUserAgent("")
+                .setKeepAliveStrategy(new ConnectionKeepAliveStrategy() {
+                    public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                        long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+
+                        return (duration > 0 ? duration : TimeUnit.SECONDS.toMillis(idleTimeout));
+                    }
+                });
+
+        if( p != null ) {
+            String proxyHost = p.getProperty("proxyHost");
+            String proxyPort = p.getProperty("proxyPort");
+
+            if( proxyHost != null ) {
+                int port = 0;
+
+                if( proxyPort != null && proxyPort.length() > 0 ) {
+                    port = Integer.parseInt(proxyPort);
+                }
+                builder.setProxy(new HttpHost(proxyHost, port, ssl ? "https" : "http"));
+            }
+        }
+        client = builder.build();
+        client.start();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(@Nonnull Runnable r) {
+                Thread t = new Thread(r, "Dasein OpenStack async scheduler");
+
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        workers = Executors.newFixedThreadPool(getIntProperty(p, "asyncWorkerThreads", DEFAULT_WORKER_THREADS), new ThreadFactory() {
+            public Thread newThread(@Nonnull Runnable r) {
+                Thread t = new Thread(r, "Dasein OpenStack async worker");
+
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    private @Nonnull Registry<SchemeIOSessionStrategy> getSessionStrategyRegistry(boolean insecure) {
+        SchemeIOSessionStrategy https = SSLIOSessionStrategy.getDefaultStrategy();
+
+        if( insecure ) {
+            try {
+                SSLContext sslContext = SSLContexts.custom().loadTrustMaterial(null, new TrustStrategy() {
+                    public boolean isTrusted(X509Certificate[] x509Certificates, String s) throws CertificateException {
+                        return true;
+                    }
+                }).build();
+
+                https = new SSLIOSessionStrategy(sslContext, NoopHostnameVerifier.INSTANCE);
+            }
+            catch( GeneralSecurityException e ) {
+                logger.error("Unable to configure insecure SSL, falling back to default trust: " + e.getMessage());
+            }
+        }
+        return RegistryBuilder.<SchemeIOSessionStrategy>create()
+                .register("http", NoopIOSessionStrategy.INSTANCE)
+                .register("https", https)
+                .build();
+    }
+
+    private int getIntProperty(@Nullable Properties p, @Nonnull String name, int defaultValue) {
+        String value = (p == null ? null : p.getProperty(name));
+
+        if( value == null || value.trim().length() < 1 ) {
+            return defaultValue;
+        }
+        try {
+            int i = Integer.parseInt(value.trim());
+
+            return (i > 0 ? i : defaultValue);
+        }
+        catch( NumberFormatException e ) {
+            logger.warn("Ignoring invalid value for " + name + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Sends a request without waiting for the response. The response body is buffered in memory before the callback
+     * is told of it, so reading it from the callback does not block.
+     * @param request the request to send
+     * @param callback told of the response, or of the failure to get one
+     * @return the pending response
+     */
+    public @Nonnull Future<HttpResponse> execute(@Nonnull HttpUriRequest request, @Nonnull FutureCallback<HttpResponse> callback) {
+        return client.execute(request, callback);
+    }
+
+    /**
+     * Runs a task on the scheduler thread, off the I/O dispatcher threads.
+     * @param task the task to run
+     * @param delay how long to wait before running it, in milliseconds
+     */
+    public void schedule(@Nonnull Runnable task, long delay) {
+        scheduler.schedule(task, Math.max(0L, delay), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs a task on one of the worker threads, off the I/O dispatcher threads. Unlike the scheduler, the workers may
+     * block on further calls to the cloud.
+     * @param task the task to run
+     */
+    public void submit(@Nonnull Runnable task) {
+        workers.execute(task);
+    }
+
+    public @Nonnull PoolingNHttpClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    /**
+     * Stops the scheduler, the workers and the I/O reactor, abandoning every call still in flight.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+        try {
+            client.close();
+        }
+        catch( IOException e ) {
+            logger.warn("Error closing asynchronous HTTP client: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.Consts;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.ssl.SSLContexts;
+import org.apache.http.ssl.TrustStrategy;
+import org.apache.log4j.Logger;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.ProviderContext;
+
+/**
+ * Pooled, keep-alive HTTP client shared by every {@link AbstractMethod} created against a single
+ * {@link NovaOpenStack} instance. The pool is sized from the provider context custom properties
+ * <code>maxConnections</code>, <code>maxConnectionsPerRoute</code> and <code>idleConnectionTimeout</code>
+ * (in seconds) and honours the existing <code>insecure</code>, <code>proxyHost</code> and <code>proxyPort</code>
+ * settings. The number of connections opened over the life of the pool is kept as a measure of how well connections
+ * are being reused.
+ * @since 2016.02
+ */
+public class NovaConnectionPool {
+    static private final Logger logger = NovaOpenStack.getLogger(NovaConnectionPool.class, "std");
+
+    static public final int  DEFAULT_MAX_CONNECTIONS           = 50;
+    static public final int  DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+    static public final long DEFAULT_IDLE_TIMEOUT              = 60L;
+
+    private final CloseableHttpClient                client;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final AtomicLong                         connectionsOpened = new AtomicLong();
+
+    public NovaConnectionPool(@Nonnull NovaOpenStack provider) throws InternalException {
+        ProviderContext ctx = provider.getContext();
+
+        if( ctx == null ) {
+            throw new InternalException("No context was defined for this request");
+        }
+        String endpoint = ctx.getCloud().getEndpoint();
+
+        if( endpoint == null ) {
+            throw new InternalException("No cloud endpoint was defined");
+        }
+        boolean ssl = endpoint.startsWith("https");
+        Properties p = ctx.getCustomProperties();
+
+        connectionManager = new PoolingHttpClientConnectionManager(getSocketFactoryRegistry(provider.isInsecure()), new HttpConnectionFactory<HttpRoute,ManagedHttpClientConnection>() {
+            public ManagedHttpClientConnection create(HttpRoute route, ConnectionConfig config) {
+                connectionsOpened.incrementAndGet();
+                return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+            }
+        });
+        connectionManager.setMaxTotal(getIntProperty(p, "maxConnections", DEFAULT_MAX_CONNECTIONS));
+        connectionManager.setDefaultMaxPerRoute(getIntProperty(p, "maxConnectionsPerRoute", DEFAULT_MAX_CONNECTIONS_PER_ROUTE));
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom().setCharset(Consts.UTF_8).build());
+
+        final long idleTimeout = getIntProperty(p, "idleConnectionTimeout", (int)DEFAULT_IDLE_TIMEOUT);
+        HttpClientBuilder builder = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setUserAgent("")
+                .setKeepAliveStrategy(new ConnectionKeepAliveStrategy() {
+                    public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                        long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+
+                        // servers that do not announce a keep-alive are held no longer than the idle timeout
+                        return (duration > 0 ? duration : TimeUnit.SECONDS.toMillis(idleTimeout));
+                    }
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout, TimeUnit.SECONDS);
+
+        if( p != null ) {
+            String proxyHost = p.getProperty("proxyHost");
+            String proxyPort = p.getProperty("proxyPort");
+
+            if( proxyHost != null ) {
+                int port = 0;
+
+                if( proxyPort != null && proxyPort.length() > 0 ) {
+                    port = Integer.parseInt(proxyPort);
+                }
+                builder.setProxy(new HttpHost(proxyHost, port, ssl ? "https" : "http"));
+            }
+        }
+        client = builder.build();
+    }
+
+    private @Nonnull Registry<ConnectionSocketFactory> getSocketFactoryRegistry(boolean insecure) {
+        ConnectionSocketFactory https = SSLConnectionSocketFactory.getSocketFactory();
+
+        if( insecure ) {
+            try {
+                SSLContext sslContext = SSLContexts.custom().loadTrustMaterial(null, new TrustStrategy() {
+                    public boolean isTrusted(X509Certificate[] x509Certificates, String s) throws CertificateException {
+                        return true;
+                    }
+                }).build();
+
+                https = new SSLConnectionSocketFactory(sslContext, NoopHostnameVerifier.INSTANCE);
+            }
+            catch( GeneralSecurityException e ) {
+                logger.error("Unable to configure insecure SSL, falling back to default trust: " + e.getMessage());
+            }
+        }
+        return RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", https)
+                .build();
+    }
+
+    private int getIntProperty(@Nullable Properties p, @Nonnull String name, int defaultValue) {
+        String value = (p == null ? null : p.getProperty(name));
+
+        if( value == null || value.trim().length() < 1 ) {
+            return defaultValue;
+        }
+        try {
+            int i = Integer.parseInt(value.trim());
+
+            return (i > 0 ? i : defaultValue);
+        }
+        catch( NumberFormatException e ) {
+            logger.warn("Ignoring invalid value for " + name + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    public @Nonnull CloseableHttpClient getClient() {
+        return client;
+    }
+
+    public @Nonnull PoolingHttpClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    /**
+     * @return the number of connections the pool has opened since it was created
+     */
+    public long getConnectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    /**
+     * Closes the client, stopping the idle connection evictor and releasing every pooled connection.
+     */
+    public void shutdown() {
+        try {
+            client.close();
+        }
+        catch( IOException e ) {
+            logger.warn("Error closing HTTP connection pool: " + e.getMessage());
+        }
+    }
+}
@@ -19,7 +19,14 @@
 
 package org.dasein.cloud.openstack.nova.os;
 
+import java.util.Date;
+
+import javax.annotation.Nullable;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
+import org.apache.http.client.utils.DateUtils;
 import org.dasein.cloud.CloudErrorType;
 import org.dasein.cloud.CloudException;
 import org.json.JSONException;
@@ -33,6 +40,47 @@ public class NovaException extends CloudException {
         public int code;
         public String message;
         public String details;
+        /**
+         * How long the server asked us to wait before retrying (from <code>Retry-After</code>, or failing that the
+         * <code>retryAfter</code> of an <code>overLimit</code> body), in milliseconds, or -1
+         */
+        public long retryAfter = -1L;
+    }
+
+    /**
+     * Parses an error response, capturing any <code>Retry-After</code> header so throttled calls can be retried.
+     * @param code the HTTP status code
+     * @param json the response body
+     * @param response the response carrying the headers
+     * @return the error details, or <code>null</code> if the error means the item was not found
+     */
+    static public ExceptionItems parseException(int code, String json, @Nullable HttpResponse response) {
+        ExceptionItems items = parseException(code, json);
+
+        if( items != null && response != null ) {
+            Header header = response.getFirstHeader("Retry-After");
+            long retryAfter = parseRetryAfter(header == null ? null : header.getValue());
+
+            if( retryAfter >= 0 ) {
+                items.retryAfter = retryAfter;
+            }
+        }
+        return items;
+    }
+
+    static private long parseRetryAfter(@Nullable String value) {
+        if( value == null || value.trim().length() < 1 ) {
+            return -1L;
+        }
+        value = value.trim();
+        try {
+            return Math.max(0L, Long.parseLong(value) * 1000L);
+        }
+        catch( NumberFormatException e ) {
+            Date when = DateUtils.parseDate(value);
+
+            return (when == null ? -1L : Math.max(0L, when.getTime() - System.currentTimeMillis()));
+        }
     }
 
     //    //{"badRequest": {"message": "AddressLimitExceeded: Address quota exceeded. You cannot allocate any more addresses", "code": 400}}
@@ -55,6 +103,7 @@ public class NovaException extends CloudException {
                 }
                 if( code == 413 && ob.has("overLimit") ) {
                     ob = ob.getJSONObject("overLimit");
+                    items.retryAfter = parseRetryAfter(ob.optString("retryAfter", null));
                 }
                 if( ob.has("message") ) {
                     items.message = ob.getString("message");
@@ -120,11 +169,21 @@ public class NovaException extends CloudException {
         return items;
     }
     
+    private long retryAfter = -1L;
+
     public NovaException(ExceptionItems items) {
         super(items.type, items.code, items.message, items.details);
+        retryAfter = items.retryAfter;
     }
     
     public NovaException(CloudErrorType type, int code, String message, String details) {
         super(type, code, message, details);
     }
+
+    /**
+     * @return how long the server asked us to wait before retrying, in milliseconds, or -1 if it did not say
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
 }
@@ -88,12 +88,9 @@ public class NovaLocationServices extends AbstractDataCenterServices<NovaOpenSta
     public @Nullable Region getRegion(String providerRegionId) throws InternalException, CloudException {
         APITrace.begin(getProvider(), "DC.getRegion");
         try {
-            for( Region region : listRegions() ) {
-                if( region.getProviderRegionId().equals(providerRegionId) ) {
-                    return region;
-                }
-            }
-            return null;
+            AuthenticationContext ctx = getProvider().getAuthenticationContext();
+
+            return ctx.getRegion(providerRegionId);
         }
         finally {
             APITrace.end();
@@ -19,15 +19,10 @@
 
 package org.dasein.cloud.openstack.nova.os;
 
-import org.apache.http.HttpStatus;
 import org.dasein.cloud.CloudErrorType;
 import org.dasein.cloud.CloudException;
 import org.dasein.cloud.InternalException;
 import org.dasein.cloud.openstack.nova.os.ext.hp.cdn.HPCDN;
-import org.dasein.cloud.util.Cache;
-import org.dasein.cloud.util.CacheLevel;
-import org.dasein.util.uom.time.Day;
-import org.dasein.util.uom.time.TimePeriod;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -38,128 +33,99 @@ import java.util.Map;
 
 public class NovaMethod extends AbstractMethod {
     public NovaMethod(NovaOpenStack provider) { super(provider); }
+
+    @Override
+    protected @Nullable ResponseCache getResponseCache() {
+        return (provider == null ? null : provider.getResponseCache());
+    }
     
     public void deleteServers(@Nonnull final String resource, @Nonnull final String resourceId) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getComputeUrl();
-        
-        if( endpoint == null ) {
-            throw new CloudException("No compute endpoint exists");
-        }
-        try {
-            delete(context.getAuthToken(), endpoint, resource + "/" + resourceId);
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                deleteServers(resource, resourceId);
-            }
-            else {
-                throw ex;
+        execute("DELETE", true, new AuthenticatedCall<Void>() {
+            public Void call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getComputeUrl();
+
+                if( endpoint == null ) {
+                    throw new CloudException("No compute endpoint exists");
+                }
+                delete(context.getAuthToken(), endpoint, resource + "/" + resourceId);
+                return null;
             }
-        }
+        });
     }
 
     public void deleteNetworks(@Nonnull final String resource, @Nonnull final String resourceId) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getNetworkUrl();
-
-        if( endpoint == null ) {
-            throw new CloudException("No network endpoint exists");
-        }
-        if (resource != null && (!endpoint.endsWith("/") && !resource.startsWith("/"))) {
-            endpoint = endpoint+"/";
-        }
-        try {
-            delete(context.getAuthToken(), endpoint, resource + "/" + resourceId);
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                deleteNetworks(resource, resourceId);
-            }
-            else {
-                throw ex;
+        execute("DELETE", true, new AuthenticatedCall<Void>() {
+            public Void call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getNetworkUrl();
+
+                if( endpoint == null ) {
+                    throw new CloudException("No network endpoint exists");
+                }
+                if (resource != null && (!endpoint.endsWith("/") && !resource.startsWith("/"))) {
+                    endpoint = endpoint+"/";
+                }
+                delete(context.getAuthToken(), endpoint, resource + "/" + resourceId);
+                return null;
             }
-        }
+        });
     }
 
     public @Nullable JSONObject getPorts(@Nonnull final String resource, @Nonnull final String resourceId) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getComputeUrl();
-
-        if( endpoint == null ) {
-            throw new CloudException("No compute URL has been established in " + context.getMyRegion());
-        }
-        String resourceUri = resource;
-        if( resourceId != null ) {
-            resourceUri += "/" + resourceId;
-        }
-
-        try {
-            String response = getString(context.getAuthToken(), endpoint, resourceUri);
-
-            if( response == null ) {
-                return null;
-            }
-            try {
-                return new JSONObject(response);
-            }
-            catch( JSONException e ) {
-                throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
-            }
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                return getPorts(resource, resourceId);
-            }
-            else {
-                throw ex;
-            }
-        }
+        return execute("GET", true, new AuthenticatedCall<JSONObject>() {
+            public JSONObject call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getComputeUrl();
+
+                if( endpoint == null ) {
+                    throw new CloudException("No compute URL has been established in " + context.getMyRegion());
+                }
+                String resourceUri = resource;
+                if( resourceId != null ) {
+                    resourceUri += "/" + resourceId;
+                }
+
+                String response = getString(context.getAuthToken(), endpoint, resourceUri);
+
+                if( response == null ) {
+                    return null;
+                }
+                try {
+                    return new JSONObject(response);
+                }
+                catch( JSONException e ) {
+                    throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
+                }
+            }
+        });
     }
     
     public @Nullable JSONObject getServers(@Nonnull final String resource, @Nullable final String resourceId, final boolean suffix) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getComputeUrl();
-        
-        if( endpoint == null ) {
-            throw new CloudException("No compute URL has been established in " + context.getMyRegion());
-        }
-        String resourceUri = resource; // make a copy in case we need to retry with the original resource
-        if( resourceId != null ) {
-            resourceUri += "/" + resourceId;
-        }
-        else if( suffix ) {
-            resourceUri += "/detail";
-        }
-        try {
-            String response = getString(context.getAuthToken(), endpoint, resourceUri);
-
-            if( response == null ) {
-                return null;
-            }
-            try {
-                return new JSONObject(response);
-            }
-            catch( JSONException e ) {
-                throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
-            }
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                return getServers(resource, resourceId, suffix);
-            }
-            else {
-                throw ex;
-            }
-        }
+        return execute("GET", true, new AuthenticatedCall<JSONObject>() {
+            public JSONObject call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getComputeUrl();
+
+                if( endpoint == null ) {
+                    throw new CloudException("No compute URL has been established in " + context.getMyRegion());
+                }
+                String resourceUri = resource; // make a copy in case we need to retry with the original resource
+                if( resourceId != null ) {
+                    resourceUri += "/" + resourceId;
+                }
+                else if( suffix ) {
+                    resourceUri += "/detail";
+                }
+                String response = getString(context.getAuthToken(), endpoint, resourceUri);
+
+                if( response == null ) {
+                    return null;
+                }
+                try {
+                    return new JSONObject(response);
+                }
+                catch( JSONException e ) {
+                    throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
+                }
+            }
+        });
     }
 
     public @Nullable JSONObject getNetworks(@Nonnull final String resource, @Nullable final String resourceId, final boolean suffix) throws CloudException, InternalException {
@@ -167,194 +133,145 @@ public class NovaMethod extends AbstractMethod {
     }
 
     public @Nullable JSONObject getNetworks(@Nonnull final String resource, @Nullable final String resourceId, final boolean suffix, final String query) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getNetworkUrl();
-
-        if( endpoint == null ) {
-            throw new CloudException("No network URL has been established in " + context.getMyRegion());
-        }
-        String resourceUri = resource; // make a copy in case we need to retry with the original resource
-        if( resourceId != null ) {
-            resourceUri += "/" + resourceId;
-        }
-        else if( suffix ) {
-            resourceUri += "/detail";
-        }
-        if( query != null ) {
-            resourceUri += query;
-        }
-        if (resourceUri != null && (!endpoint.endsWith("/") && !resourceUri.startsWith("/"))) {
-            endpoint = endpoint+"/";
-        }
-        try {
-            String response = getString(context.getAuthToken(), endpoint, resourceUri);
-
-            if( response == null ) {
-                return null;
-            }
-            try {
-                return new JSONObject(response);
-            }
-            catch( JSONException e ) {
-                throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
-            }
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                return getNetworks(resource, resourceId, suffix, query);
-            }
-            else {
-                throw ex;
-            }
-        }
+        return execute("GET", true, new AuthenticatedCall<JSONObject>() {
+            public JSONObject call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getNetworkUrl();
+
+                if( endpoint == null ) {
+                    throw new CloudException("No network URL has been established in " + context.getMyRegion());
+                }
+                String resourceUri = resource; // make a copy in case we need to retry with the original resource
+                if( resourceId != null ) {
+                    resourceUri += "/" + resourceId;
+                }
+                else if( suffix ) {
+                    resourceUri += "/detail";
+                }
+                if( query != null ) {
+                    resourceUri += query;
+                }
+                if (resourceUri != null && (!endpoint.endsWith("/") && !resourceUri.startsWith("/"))) {
+                    endpoint = endpoint+"/";
+                }
+                String response = getString(context.getAuthToken(), endpoint, resourceUri);
+
+                if( response == null ) {
+                    return null;
+                }
+                try {
+                    return new JSONObject(response);
+                }
+                catch( JSONException e ) {
+                    throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
+                }
+            }
+        });
     }
 
     public @Nullable String postServersForString(@Nonnull final String resource, @Nullable final String resourceId, @Nonnull final JSONObject body, final boolean suffix) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-
-        String resourceUri = resource;
-        if( resourceId != null ) {
-            resourceUri += "/" + (suffix ? (resourceId + "/action") : resourceId);
-        }
-        String computeEndpoint = context.getComputeUrl();
-
-        if( computeEndpoint == null ) {
-            throw new CloudException("No compute endpoint exists");
-        }
-        try {
-            return postString(context.getAuthToken(), computeEndpoint, resourceUri, body.toString());
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                return postServersForString(resource, resourceId, body, suffix);
-            }
-            else {
-                throw ex;
-            }
-        }
+        return execute("POST", true, new AuthenticatedCall<String>() {
+            public String call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String resourceUri = resource;
+                if( resourceId != null ) {
+                    resourceUri += "/" + (suffix ? (resourceId + "/action") : resourceId);
+                }
+                String computeEndpoint = context.getComputeUrl();
+
+                if( computeEndpoint == null ) {
+                    throw new CloudException("No compute endpoint exists");
+                }
+                return postString(context.getAuthToken(), computeEndpoint, resourceUri, body.toString());
+            }
+        });
     }
 
     public @Nullable JSONObject postServers(@Nonnull final String resource, @Nullable final String resourceId, @Nonnull final JSONObject body, final boolean suffix) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-
-        String resourceUri = resource;
-        if( resourceId != null ) {
-            resourceUri += "/" + (suffix ? (resourceId + "/action") : resourceId);
-        }
-        String computeEndpoint = context.getComputeUrl();
-        
-        if( computeEndpoint == null ) {
-            throw new CloudException("No compute endpoint exists");
-        }
-        try {
-            String response = postString(context.getAuthToken(), computeEndpoint, resourceUri, body.toString());
-        
-            if( response == null ) {
-                return null;
-            }
-            try {
-                return new JSONObject(response);
-            }
-            catch( JSONException e ) {
-                throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
-            }
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                return postServers(resource, resourceId, body, suffix);
-            }
-            else {
-                throw ex;
-            }
-        }
+        return execute("POST", true, new AuthenticatedCall<JSONObject>() {
+            public JSONObject call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String resourceUri = resource;
+                if( resourceId != null ) {
+                    resourceUri += "/" + (suffix ? (resourceId + "/action") : resourceId);
+                }
+                String computeEndpoint = context.getComputeUrl();
+
+                if( computeEndpoint == null ) {
+                    throw new CloudException("No compute endpoint exists");
+                }
+                String response = postString(context.getAuthToken(), computeEndpoint, resourceUri, body.toString());
+
+                if( response == null ) {
+                    return null;
+                }
+                try {
+                    return new JSONObject(response);
+                }
+                catch( JSONException e ) {
+                    throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
+                }
+            }
+        });
     }
 
     public @Nullable JSONObject postNetworks(@Nonnull final String resource, @Nullable final String resourceId, @Nonnull final JSONObject body, @Nullable final String action) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-
-        String resourceUri = resource;
-        if( resourceId != null ) {
-            resourceUri = resource + "/" + (action != null ? (resourceId + "/" + action) : resourceId);
-        }
-        String endpoint = context.getNetworkUrl();
-
-        if( endpoint == null ) {
-            throw new CloudException("No network endpoint exists");
-        }
-
-        if (resourceUri != null && (!endpoint.endsWith("/") && !resourceUri.startsWith("/"))) {
-            endpoint = endpoint+"/";
-        }
-        try {
-            String response = postString(context.getAuthToken(), endpoint, resourceUri, body.toString());
-
-            if( response == null ) {
-                return null;
-            }
-            try {
-                return new JSONObject(response);
-            }
-            catch( JSONException e ) {
-                throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
-            }
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                return postNetworks(resource, resourceId, body, action);
-            }
-            else {
-                throw ex;
-            }
-        }
+        return execute("POST", true, new AuthenticatedCall<JSONObject>() {
+            public JSONObject call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String resourceUri = resource;
+                if( resourceId != null ) {
+                    resourceUri = resource + "/" + (action != null ? (resourceId + "/" + action) : resourceId);
+                }
+                String endpoint = context.getNetworkUrl();
+
+                if( endpoint == null ) {
+                    throw new CloudException("No network endpoint exists");
+                }
+
+                if (resourceUri != null && (!endpoint.endsWith("/") && !resourceUri.startsWith("/"))) {
+                    endpoint = endpoint+"/";
+                }
+                String response = postString(context.getAuthToken(), endpoint, resourceUri, body.toString());
+
+                if( response == null ) {
+                    return null;
+                }
+                try {
+                    return new JSONObject(response);
+                }
+                catch( JSONException e ) {
+                    throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
+                }
+            }
+        });
     }
 
     public @Nullable JSONObject putNetworks(@Nonnull final String resource, @Nullable final String resourceId, @Nonnull final JSONObject body, final String action) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-
-        String resourceUri = resource;
-        if( resourceId != null ) {
-            resourceUri = resource + "/" + (action != null ? (resourceId + "/" + action) : resourceId);
-        }
-        String endpoint = context.getNetworkUrl();
-
-        if( endpoint == null ) {
-            throw new CloudException("No network endpoint exists");
-        }
-
-        if (resourceUri != null && (!endpoint.endsWith("/") && !resourceUri.startsWith("/"))) {
-            endpoint = endpoint+"/";
-        }
-        try {
-            String response = putString(context.getAuthToken(), endpoint, resourceUri, body.toString());
-
-            if( response == null ) {
-                return null;
-            }
-            try {
-                return new JSONObject(response);
-            }
-            catch( JSONException e ) {
-                throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
-            }
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                return putNetworks(resource, resourceId, body, action);
-            }
-            else {
-                throw ex;
-            }
-        }
+        return execute("PUT", true, new AuthenticatedCall<JSONObject>() {
+            public JSONObject call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String resourceUri = resource;
+                if( resourceId != null ) {
+                    resourceUri = resource + "/" + (action != null ? (resourceId + "/" + action) : resourceId);
+                }
+                String endpoint = context.getNetworkUrl();
+
+                if( endpoint == null ) {
+                    throw new CloudException("No network endpoint exists");
+                }
+
+                if (resourceUri != null && (!endpoint.endsWith("/") && !resourceUri.startsWith("/"))) {
+                    endpoint = endpoint+"/";
+                }
+                String response = putString(context.getAuthToken(), endpoint, resourceUri, body.toString());
+
+                if( response == null ) {
+                    return null;
+                }
+                try {
+                    return new JSONObject(response);
+                }
+                catch( JSONException e ) {
+                    throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
+                }
+            }
+        });
     }
 
     public @Nullable JSONObject postNetworks(@Nonnull final String resource, @Nullable final String resourceId, @Nonnull final JSONObject body, final boolean suffix) throws CloudException, InternalException {
@@ -362,104 +279,71 @@ public class NovaMethod extends AbstractMethod {
     }
 
     public @Nullable String getHPCDN(@Nullable final String resourceId) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getServiceUrl(HPCDN.SERVICE);
-
-        if( endpoint == null ) {
-            throw new CloudException("No CDN URL has been established in " + context.getMyRegion());
-        }
-        try {
-            return getString(context.getAuthToken(), endpoint, resourceId == null ? "" : ("/" + resourceId));
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                return getHPCDN(resourceId);
-            }
-            else {
-                throw ex;
+        return execute("GET", true, new AuthenticatedCall<String>() {
+            public String call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getServiceUrl(HPCDN.SERVICE);
+
+                if( endpoint == null ) {
+                    throw new CloudException("No CDN URL has been established in " + context.getMyRegion());
+                }
+                return getString(context.getAuthToken(), endpoint, resourceId == null ? "" : ("/" + resourceId));
             }
-        }
+        });
     }
     
     public void putHPCDN(final String container) throws CloudException, InternalException {
-        Map<String,String> headers = new HashMap<String, String>();
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getServiceUrl(HPCDN.SERVICE);
-
-        if( endpoint == null ) {
-            throw new CloudException("No CDN URL has been established in " + context.getMyRegion());
-        }
-        if( container == null ) {
-            throw new InternalException("No container was specified");
-        }
-        headers.put("X-TTL", "86400");
-        try {
-            putHeaders(context.getAuthToken(), endpoint, "/" + container, headers);
-        
-            headers = headResource(HPCDN.SERVICE, HPCDN.RESOURCE, container);
-            if( headers == null ) {
-                throw new CloudException("No container enabled");
-            }
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                putHPCDN(container);
-            }
-            else {
-                throw ex;
+        execute("PUT", true, new AuthenticatedCall<Void>() {
+            public Void call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                Map<String,String> headers = new HashMap<String, String>();
+                String endpoint = context.getServiceUrl(HPCDN.SERVICE);
+
+                if( endpoint == null ) {
+                    throw new CloudException("No CDN URL has been established in " + context.getMyRegion());
+                }
+                if( container == null ) {
+                    throw new InternalException("No container was specified");
+                }
+                headers.put("X-TTL", "86400");
+                putHeaders(context.getAuthToken(), endpoint, "/" + container, headers);
+
+                headers = headResource(HPCDN.SERVICE, HPCDN.RESOURCE, container);
+                if( headers == null ) {
+                    throw new CloudException("No container enabled");
+                }
+                return null;
             }
-        }
+        });
     }
 
     public void postHPCDN(@Nonnull final String container, @Nonnull final Map<String,String> headers) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getServiceUrl(HPCDN.SERVICE);
-
-        if( endpoint == null ) {
-            throw new CloudException("No CDN URL has been established in " + context.getMyRegion());
-        }
-        if( container == null ) {
-            throw new InternalException("No container was specified");
-        }
-        try {
-            postHeaders(context.getAuthToken(), endpoint, "/" + container, headers);
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                postHPCDN(container, headers);
-            }
-            else {
-                throw ex;
+        execute("POST", true, new AuthenticatedCall<Void>() {
+            public Void call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getServiceUrl(HPCDN.SERVICE);
+
+                if( endpoint == null ) {
+                    throw new CloudException("No CDN URL has been established in " + context.getMyRegion());
+                }
+                if( container == null ) {
+                    throw new InternalException("No container was specified");
+                }
+                postHeaders(context.getAuthToken(), endpoint, "/" + container, headers);
+                return null;
             }
-        }
+        });
     }
     
     public void deleteHPCDN(@Nonnull final String container) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getServiceUrl(HPCDN.SERVICE);
-
-        if( endpoint == null ) {
-            throw new CloudException("No CDN URL has been established in " + context.getMyRegion());
-        }
-        try {
-            delete(context.getAuthToken(), endpoint, "/" + container);
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                deleteHPCDN(container);
-            }
-            else {
-                throw ex;
+        execute("DELETE", true, new AuthenticatedCall<Void>() {
+            public Void call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getServiceUrl(HPCDN.SERVICE);
+
+                if( endpoint == null ) {
+                    throw new CloudException("No CDN URL has been established in " + context.getMyRegion());
+                }
+                delete(context.getAuthToken(), endpoint, "/" + container);
+                return null;
             }
-        }
+        });
     }
 }
 
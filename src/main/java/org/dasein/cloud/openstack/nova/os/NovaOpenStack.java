@@ -19,22 +19,22 @@
 
 package org.dasein.cloud.openstack.nova.os;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.management.ObjectName;
 
-import org.apache.http.HttpStatus;
 import org.apache.log4j.Logger;
 import org.dasein.cloud.AbstractCloud;
-import org.dasein.cloud.CloudErrorType;
 import org.dasein.cloud.CloudException;
 import org.dasein.cloud.ContextRequirements;
 import org.dasein.cloud.InternalException;
@@ -45,14 +45,11 @@ import org.dasein.cloud.openstack.nova.os.ext.hp.HPPlatformServices;
 import org.dasein.cloud.openstack.nova.os.ext.rackspace.RackspacePlatformServices;
 import org.dasein.cloud.openstack.nova.os.identity.NovaIdentityServices;
 import org.dasein.cloud.openstack.nova.os.network.NovaNetworkServices;
+import org.dasein.cloud.openstack.nova.os.network.SecurityGroupRuleIndex;
 import org.dasein.cloud.openstack.nova.os.storage.SwiftStorageServices;
 import org.dasein.cloud.platform.PlatformServices;
 import org.dasein.cloud.storage.StorageServices;
 import org.dasein.cloud.util.APITrace;
-import org.dasein.cloud.util.Cache;
-import org.dasein.cloud.util.CacheLevel;
-import org.dasein.util.uom.time.Day;
-import org.dasein.util.uom.time.TimePeriod;
 import org.json.JSONObject;
 
 public class NovaOpenStack extends AbstractCloud {
@@ -99,49 +96,301 @@ public class NovaOpenStack extends AbstractCloud {
         return (major <= 2 && minor < 10);
     }
     
+    private transient volatile NovaAsyncClient    asyncClient;
+    private transient volatile NovaConnectionPool connectionPool;
+    private transient volatile ObjectName         metricsName;
+    private transient volatile RequestMetrics     requestMetrics;
+    private transient volatile ResponseCache      responseCache;
+    private transient volatile RetryPolicy        retryPolicy;
+    private transient volatile StateWaiter        stateWaiter;
+
+    private final ConcurrentHashMap<String,ChangeTracker<?>>       changeTrackers = new ConcurrentHashMap<String,ChangeTracker<?>>();
+    private final ConcurrentHashMap<String,RateLimiter>            rateLimiters   = new ConcurrentHashMap<String,RateLimiter>();
+    private final ConcurrentHashMap<String,SecurityGroupRuleIndex> ruleIndexes    = new ConcurrentHashMap<String,SecurityGroupRuleIndex>();
+
     public NovaOpenStack() { }
-    
-    public synchronized @Nonnull AuthenticationContext getAuthenticationContext() throws CloudException, InternalException {
-        APITrace.begin(this, "Cloud.getAuthenticationContext");
+
+    /**
+     * Provides the non-blocking HTTP client shared by the asynchronous API calls made through this cloud connection.
+     * The client and its I/O threads are started on first use and stopped in {@link #close()}.
+     * @return the asynchronous client for this cloud connection
+     * @throws InternalException no context or endpoint is set for this connection, or the I/O reactor could not start
+     */
+    public @Nonnull NovaAsyncClient getAsyncClient() throws InternalException {
+        NovaAsyncClient client = asyncClient;
+
+        if( client == null ) {
+            synchronized( this ) {
+                client = asyncClient;
+                if( client == null ) {
+                    client = new NovaAsyncClient(this);
+                    asyncClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Provides the pooled HTTP client shared by all API calls made through this cloud connection. The pool is created
+     * on first use and torn down in {@link #close()}.
+     * @return the connection pool for this cloud connection
+     * @throws InternalException no context or endpoint is set for this connection
+     */
+    public @Nonnull NovaConnectionPool getConnectionPool() throws InternalException {
+        NovaConnectionPool pool = connectionPool;
+
+        if( pool == null ) {
+            synchronized( this ) {
+                pool = connectionPool;
+                if( pool == null ) {
+                    pool = new NovaConnectionPool(this);
+                    connectionPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * @return the connection pool of this cloud connection if one is open, without creating one
+     */
+    @Nullable NovaConnectionPool getOpenConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Provides the policy governing how failed API calls through this cloud connection are retried, along with the
+     * counters it keeps. The policy is built from the context custom properties on first use.
+     * @return the retry policy for this cloud connection
+     */
+    public @Nonnull RetryPolicy getRetryPolicy() {
+        RetryPolicy policy = retryPolicy;
+
+        if( policy == null ) {
+            synchronized( this ) {
+                policy = retryPolicy;
+                if( policy == null ) {
+                    ProviderContext ctx = getContext();
+
+                    policy = new RetryPolicy(ctx == null ? null : ctx.getCustomProperties());
+                    retryPolicy = policy;
+                }
+            }
+        }
+        return policy;
+    }
+
+    /**
+     * Provides the request metrics of this cloud connection. If the <code>metricsJmx</code> custom property is
+     * <code>true</code>, the metrics are also registered as an MXBean with the platform MBean server on first use and
+     * unregistered in {@link #close()}. Registration is off by default because a connection that is never closed
+     * would stay registered for the life of the JVM.
+     * @return the request metrics for this cloud connection
+     */
+    public @Nonnull RequestMetrics getRequestMetrics() {
+        RequestMetrics metrics = requestMetrics;
+
+        if( metrics == null ) {
+            synchronized( this ) {
+                metrics = requestMetrics;
+                if( metrics == null ) {
+                    ProviderContext ctx = getContext();
+                    Properties p = (ctx == null ? null : ctx.getCustomProperties());
+
+                    metrics = new RequestMetrics(this, p);
+                    requestMetrics = metrics;
+                    if( p != null && "true".equalsIgnoreCase(p.getProperty("metricsJmx")) ) {
+                        registerMetrics(metrics, ctx);
+                    }
+                }
+            }
+        }
+        return metrics;
+    }
+
+    private void registerMetrics(@Nonnull RequestMetrics metrics, @Nullable ProviderContext ctx) {
+        String name = (ctx == null ? "" : ctx.getAccountNumber() + "@" + ctx.getRegionId() + ":") + Integer.toHexString(System.identityHashCode(this));
+
         try {
-            Cache<AuthenticationContext> cache = Cache.getInstance(this, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
+            ObjectName objectName = new ObjectName("org.dasein.cloud.openstack.nova:type=RequestMetrics,name=" + ObjectName.quote(name));
+
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName);
+            metricsName = objectName;
+        }
+        catch( Exception e ) {
+            logger.warn("Unable to register request metrics with JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Provides the cache of catalog responses read through this cloud connection, along with its hit and miss counters.
+     * The cache is built from the context custom properties on first use.
+     * @return the response cache for this cloud connection
+     */
+    public @Nonnull ResponseCache getResponseCache() {
+        ResponseCache cache = responseCache;
+
+        if( cache == null ) {
+            synchronized( this ) {
+                cache = responseCache;
+                if( cache == null ) {
+                    ProviderContext ctx = getContext();
+
+                    cache = new ResponseCache(ctx == null ? null : ctx.getCustomProperties());
+                    responseCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Provides the waiter that tracks resources of this cloud connection until they reach a state, batching the status
+     * checks of all resources of a type into one call per tick. The waiter is built from the context custom properties
+     * on first use.
+     * @return the state waiter for this cloud connection
+     */
+    public @Nonnull StateWaiter getStateWaiter() {
+        StateWaiter waiter = stateWaiter;
+
+        if( waiter == null ) {
+            synchronized( this ) {
+                waiter = stateWaiter;
+                if( waiter == null ) {
+                    ProviderContext ctx = getContext();
+
+                    waiter = new StateWaiter(ctx == null ? null : ctx.getCustomProperties());
+                    stateWaiter = waiter;
+                }
+            }
+        }
+        return waiter;
+    }
+
+    /**
+     * Provides the change tracker registered under the given name for this cloud connection, registering the one
+     * supplied if there is none yet. Callers of the same name must track the same collection with the same value type.
+     * @param name the name of the tracked collection
+     * @param tracker the tracker to register if none is registered yet
+     * @param <T> the type of value held by the tracker
+     * @return the tracker registered under the name
+     */
+    @SuppressWarnings("unchecked")
+    public @Nonnull <T> ChangeTracker<T> getChangeTracker(@Nonnull String name, @Nonnull ChangeTracker<T> tracker) {
+        ChangeTracker<?> existing = changeTrackers.putIfAbsent(name, tracker);
+
+        return (existing == null ? tracker : (ChangeTracker<T>)existing);
+    }
+
+    /**
+     * Provides the limiter that spaces out bulk requests to a service through this cloud connection, creating it from
+     * the context custom properties on first use.
+     * @param service the service catalog type
+     * @return the rate limiter for the service
+     */
+    public @Nonnull RateLimiter getRateLimiter(@Nonnull String service) {
+        RateLimiter limiter = rateLimiters.get(service);
+
+        if( limiter == null ) {
             ProviderContext ctx = getContext();
+            RateLimiter existing = rateLimiters.putIfAbsent(service, limiter = new RateLimiter(service, ctx == null ? null : ctx.getCustomProperties()));
 
-            if( ctx == null ) {
-                throw new CloudException("No context was set for this request");
+            if( existing != null ) {
+                limiter = existing;
+            }
+        }
+        return limiter;
+    }
+
+    /**
+     * Provides the rule index of a security group for this cloud connection, creating an empty one if there is none yet.
+     * @param firewallId the security group
+     * @return the rule index of the security group
+     */
+    public @Nonnull SecurityGroupRuleIndex getRuleIndex(@Nonnull String firewallId) {
+        SecurityGroupRuleIndex index = ruleIndexes.get(firewallId);
+
+        if( index == null ) {
+            SecurityGroupRuleIndex existing = ruleIndexes.putIfAbsent(firewallId, index = new SecurityGroupRuleIndex(firewallId));
+
+            if( existing != null ) {
+                index = existing;
             }
-            Iterable<AuthenticationContext> current = cache.get(ctx);
-            AuthenticationContext authenticationContext = null;
+        }
+        return index;
+    }
 
-            NovaMethod method = new NovaMethod(this);
+    /**
+     * @return the rule indexes of every security group looked at through this cloud connection
+     */
+    public @Nonnull Collection<SecurityGroupRuleIndex> getRuleIndexes() {
+        return Collections.unmodifiableCollection(ruleIndexes.values());
+    }
 
-            if( current != null ) {
-                authenticationContext = current.iterator().next();
+    @Override
+    public void close() {
+        try {
+            NovaConnectionPool pool;
+            NovaAsyncClient async;
+            ObjectName name;
+
+            synchronized( this ) {
+                pool = connectionPool;
+                connectionPool = null;
+                async = asyncClient;
+                asyncClient = null;
+                name = metricsName;
+                metricsName = null;
             }
-            else {
+            if( pool != null ) {
+                pool.shutdown();
+            }
+            if( async != null ) {
+                async.shutdown();
+            }
+            if( name != null ) {
                 try {
-                    authenticationContext = method.authenticate();
+                    ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
                 }
-                finally {
-                    if( authenticationContext == null ) {
-                        NovaException.ExceptionItems items = new NovaException.ExceptionItems();
-
-                        items.code = HttpStatus.SC_UNAUTHORIZED;
-                        items.type = CloudErrorType.AUTHENTICATION;
-                        items.message = "unauthorized";
-                        items.details = "The API keys failed to authenticate with the specified endpoint.";
-                        throw new NovaException(items);
-                    }
-                    cache.put(ctx, Collections.singletonList(authenticationContext));
-                    return authenticationContext;
+                catch( Exception e ) {
+                    logger.warn("Unable to unregister request metrics from JMX: " + e.getMessage());
                 }
             }
-            return authenticationContext;
+        }
+        finally {
+            super.close();
+        }
+    }
+    
+    public @Nonnull AuthenticationContext getAuthenticationContext() throws CloudException, InternalException {
+        APITrace.begin(this, "Cloud.getAuthenticationContext");
+        try {
+            ProviderContext ctx = getContext();
+
+            if( ctx == null ) {
+                throw new CloudException("No context was set for this request");
+            }
+            return AuthenticationContextCache.getInstance().get(this, ctx);
         }
         finally {
             APITrace.end();
         }
     }
+
+    /**
+     * Discards the cached authentication context after its token was rejected, so that the next call to
+     * {@link #getAuthenticationContext()} re-authenticates. If another thread has already replaced the rejected token,
+     * the fresh one is kept.
+     * @param stale the authentication context whose token was rejected
+     */
+    public void invalidateAuthenticationContext(@Nullable AuthenticationContext stale) {
+        ProviderContext ctx = getContext();
+
+        if( ctx != null ) {
+            AuthenticationContextCache.getInstance().invalidate(ctx, stale);
+        }
+    }
     
     @Override
     public @Nonnull String getCloudName() {
@@ -223,83 +472,11 @@ public class NovaOpenStack extends AbstractCloud {
     }
     
     public @Nonnegative int getMajorVersion() throws CloudException, InternalException {
-        AuthenticationContext ctx = getAuthenticationContext();
-        String endpoint = ctx.getComputeUrl();
-        
-        if( endpoint == null ) {
-            endpoint = ctx.getStorageUrl();
-            if( endpoint == null ) {
-                return 1;
-            }
-        }
-        while( endpoint.endsWith("/") && endpoint.length() > 1 ) {
-            endpoint = endpoint.substring(0,endpoint.length()-1);
-        }
-        String[] parts = endpoint.split("/");
-        int idx = parts.length-1;
-        
-        do {
-            endpoint = parts[idx];
-            while( !Character.isDigit(endpoint.charAt(0)) && endpoint.length() > 1 ) {
-                endpoint = endpoint.substring(1);
-            }
-            if( Character.isDigit(endpoint.charAt(0)) ) {
-                int i = endpoint.indexOf('.');
-                
-                try {
-                    if( i == -1 ) {
-                        return Integer.parseInt(endpoint);
-                    }
-                    String[] d = endpoint.split("\\.");
-
-                    return Integer.parseInt(d[0]);
-                }
-                catch( NumberFormatException ignore ) {
-                    // ignore
-                }
-            }
-        } while( (idx--) > 0 );
-        return 1;
+        return getAuthenticationContext().getMajorVersion();
     }
     
     public @Nonnegative int getMinorVersion() throws CloudException, InternalException {
-        AuthenticationContext ctx = getAuthenticationContext();
-        String endpoint = ctx.getComputeUrl();
-        
-        if( endpoint == null ) {
-            endpoint = ctx.getStorageUrl();
-            if( endpoint == null ) {
-                return 1;
-            }
-        }
-        while( endpoint.endsWith("/") && endpoint.length() > 1 ) {
-            endpoint = endpoint.substring(0,endpoint.length()-1);
-        }
-        String[] parts = endpoint.split("/");
-        int idx = parts.length-1;
-        
-        do {
-            endpoint = parts[idx];
-            while( !Character.isDigit(endpoint.charAt(0)) && endpoint.length() > 1 ) {
-                endpoint = endpoint.substring(1);
-            }
-            if( Character.isDigit(endpoint.charAt(0)) ) {
-                int i = endpoint.indexOf('.');
-                
-                try {
-                    if( i == -1 ) {
-                        return Integer.parseInt(endpoint);
-                    }
-                    String[] d = endpoint.split("\\.");
-
-                    return Integer.parseInt(d[1]);
-                }
-                catch( NumberFormatException ignore ) {
-                    // ignore
-                }
-            }
-        } while( (idx--) > 0 );
-        return 1;
+        return getAuthenticationContext().getMinorVersion();
     }
 
     @Override
@@ -338,57 +515,174 @@ public class NovaOpenStack extends AbstractCloud {
         return getCloudProvider().equals(OpenStackProvider.RACKSPACE);
     }
 
-    static private OpenStackProvider provider;
+    private transient volatile OpenStackProvider cloudProvider;
+    private transient volatile String            cloudProviderName;
 
     public @Nonnull OpenStackProvider getCloudProvider() {
-        provider = OpenStackProvider.getProvider(getProviderName());
-        return provider;
+        String name = getProviderName();
+        OpenStackProvider p = cloudProvider;
+
+        // the provider name only changes when the context does, so resolve it once per name
+        if( p == null || !name.equals(cloudProviderName) ) {
+            p = OpenStackProvider.getProvider(name);
+            cloudProvider = p;
+            cloudProviderName = name;
+        }
+        return p;
     }
 
     public boolean isPostCactus() throws CloudException, InternalException {
-        return (getMajorVersion() > 1 || getMinorVersion() > 0);
+        return getAuthenticationContext().isPostCactus();
     }
     
+    static private final int[] DAYS_BEFORE_MONTH = { 0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334 };
+    static private final long  INVALID_TIMESTAMP = Long.MIN_VALUE;
+
+    /**
+     * Parses the timestamps OpenStack services emit: <code>yyyy-MM-ddTHH:mm:ss</code> or <code>yyyy-MM-dd HH:mm:ss</code>,
+     * optionally followed by a fraction of a second of any precision and by <code>Z</code> or a UTC offset such as
+     * <code>+02:00</code>, <code>-0500</code> or <code>+01</code>. Timestamps without an offset are in UTC, as OpenStack
+     * always reports them, and fractions are truncated to milliseconds.
+     * <p>The fields are read in place by position, so parsing allocates nothing and is safe from any thread.</p>
+     * @param time the timestamp
+     * @return the timestamp in milliseconds since the epoch, or 0 for a <code>null</code> or empty timestamp
+     * @throws CloudException the timestamp is in none of the supported formats
+     */
     static public long parseTimestamp(String time) throws CloudException {
-        if( time == null ) {
+        if( time == null || time.length() < 1 ) {
             return 0L;
         }
-        SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-            
-        if( time.length() > 0 ) {
-            try {
-                return fmt.parse(time).getTime();
-            } 
-            catch( ParseException e ) {
-                fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-                //2012-06-18T14:47:02
-                try {
-                    return fmt.parse(time).getTime();
+        long millis = toEpochMillis(time);
+
+        if( millis == INVALID_TIMESTAMP ) {
+            throw new CloudException("Could not parse date: " + time);
+        }
+        return millis;
+    }
+
+    static private long toEpochMillis(@Nonnull String time) {
+        int len = time.length();
+
+        // yyyy-MM-dd?HH:mm:ss is the shortest supported form
+        if( len < 19 || time.charAt(4) != '-' || time.charAt(7) != '-' || time.charAt(13) != ':' || time.charAt(16) != ':' ) {
+            return INVALID_TIMESTAMP;
+        }
+        char separator = time.charAt(10);
+
+        if( separator != 'T' && separator != ' ' ) {
+            return INVALID_TIMESTAMP;
+        }
+        int year = toInt(time, 0, 4);
+        int month = toInt(time, 5, 2);
+        int day = toInt(time, 8, 2);
+        int hour = toInt(time, 11, 2);
+        int minute = toInt(time, 14, 2);
+        int second = toInt(time, 17, 2);
+
+        if( year < 1 || month < 1 || month > 12 || day < 1 || day > getDaysInMonth(year, month) || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60 ) {
+            return INVALID_TIMESTAMP;
+        }
+        int i = 19;
+        int millis = 0;
+
+        if( i < len && time.charAt(i) == '.' ) {
+            int start = ++i;
+
+            while( i < len && isDigit(time.charAt(i)) ) {
+                if( i - start < 3 ) {
+                    millis = millis * 10 + (time.charAt(i) - '0');
                 }
-                catch( ParseException encore ) {
-                    fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
-                    try {
-                        return fmt.parse(time).getTime();
-                    }
-                    catch( ParseException again ) {
-                        try {
-                            return fmt.parse(time).getTime();
-                        }
-                        catch( ParseException whynot ) {
-                            //2012-06-16 19:41:29
-                            fmt = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                            try {
-                                return fmt.parse(time).getTime();
-                            }
-                            catch( ParseException because ) {
-                                throw new CloudException("Could not parse date: " + time);
-                            }
-                        }
+                i++;
+            }
+            if( i == start ) {
+                return INVALID_TIMESTAMP;
+            }
+            for( int digits = i - start; digits < 3; digits++ ) {
+                millis *= 10;
+            }
+        }
+        int offset = 0;
+
+        if( i < len ) {
+            char zone = time.charAt(i++);
+
+            if( zone == '+' || zone == '-' ) {
+                int hours = toInt(time, i, 2);
+                int minutes = 0;
+
+                i += 2;
+                if( i < len ) {
+                    if( time.charAt(i) == ':' ) {
+                        i++;
                     }
+                    minutes = toInt(time, i, 2);
+                    i += 2;
                 }
+                if( hours < 0 || hours > 23 || minutes < 0 || minutes > 59 ) {
+                    return INVALID_TIMESTAMP;
+                }
+                offset = (zone == '-' ? -1 : 1) * (hours * 60 + minutes) * 60000;
+            }
+            else if( zone != 'Z' ) {
+                return INVALID_TIMESTAMP;
             }
+            if( i != len ) {
+                return INVALID_TIMESTAMP;
+            }
+        }
+        long days = getEpochDay(year, month, day);
+
+        return (((days * 24L + hour) * 60L + minute) * 60L + second) * 1000L + millis - offset;
+    }
+
+    static private boolean isDigit(char c) {
+        return (c >= '0' && c <= '9');
+    }
+
+    /**
+     * @return the number in the given characters, or -1 if they are not all digits
+     */
+    static private int toInt(@Nonnull String time, int start, int count) {
+        if( start + count > time.length() ) {
+            return -1;
+        }
+        int value = 0;
+
+        for( int i=start; i<start + count; i++ ) {
+            char c = time.charAt(i);
+
+            if( !isDigit(c) ) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    static private boolean isLeapYear(int year) {
+        return ((year % 4 == 0 && year % 100 != 0) || year % 400 == 0);
+    }
+
+    static private int getDaysInMonth(int year, int month) {
+        if( month == 2 ) {
+            return (isLeapYear(year) ? 29 : 28);
+        }
+        return (month == 12 ? 31 : DAYS_BEFORE_MONTH[month] - DAYS_BEFORE_MONTH[month - 1]);
+    }
+
+    /**
+     * @return the number of days between 1970-01-01 and the given date in the proleptic Gregorian calendar
+     */
+    static private long getEpochDay(int year, int month, int day) {
+        int y = year - 1;
+        // leap days before the year, less the 477 leap days before 1970
+        long leapDays = y / 4 - y / 100 + y / 400 - 477;
+        long days = 365L * (year - 1970) + leapDays + DAYS_BEFORE_MONTH[month - 1] + day - 1;
+
+        if( month > 2 && isLeapYear(year) ) {
+            days++;
         }
-        return 0L;
+        return days;
     }
     
     @Override
@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os;
+
+import java.util.Properties;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.log4j.Logger;
+import org.dasein.cloud.InternalException;
+
+/**
+ * Spaces out the requests that bulk operations send to one service so that they stay under the service's rate limit.
+ * The limit is read from the <code>rateLimit.&lt;service&gt;</code> custom property in requests per second; without it
+ * requests are not held back. Each caller is given the next free slot, so concurrent workers share the limit rather
+ * than each getting their own.
+ * <p>Limiters are shared per cloud connection through {@link NovaOpenStack#getRateLimiter(String)}.</p>
+ * @since 2016.02
+ */
+public class RateLimiter {
+    static private final Logger logger = NovaOpenStack.getLogger(RateLimiter.class, "std");
+
+    private final long   interval;
+    private final String service;
+
+    private long next = 0L;
+
+    /**
+     * @param service the service catalog type whose requests are limited
+     * @param p the custom properties of the cloud connection
+     */
+    public RateLimiter(@Nonnull String service, @Nullable Properties p) {
+        String value = (p == null ? null : p.getProperty("rateLimit." + service));
+        double rate = 0.0;
+
+        if( value != null && value.trim().length() > 0 ) {
+            try {
+                rate = Double.parseDouble(value.trim());
+            }
+            catch( NumberFormatException e ) {
+                logger.warn("Ignoring invalid value for rateLimit." + service + ": " + value);
+            }
+        }
+        this.service = service;
+        this.interval = (rate > 0.0 ? (long)Math.ceil(1000.0 / rate) : 0L);
+    }
+
+    /**
+     * Blocks until the caller may send its next request.
+     * @throws InternalException the calling thread was interrupted while waiting
+     */
+    public void acquire() throws InternalException {
+        if( interval < 1L ) {
+            return;
+        }
+        long wait;
+
+        synchronized( this ) {
+            long now = System.currentTimeMillis();
+            long slot = Math.max(now, next);
+
+            next = slot + interval;
+            wait = slot - now;
+        }
+        if( wait > 0L ) {
+            try {
+                Thread.sleep(wait);
+            }
+            catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new InternalException(e);
+            }
+        }
+    }
+
+    /**
+     * @return the minimum time between requests in milliseconds, or 0 if requests are not limited
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    public @Nonnull String getService() {
+        return service;
+    }
+}
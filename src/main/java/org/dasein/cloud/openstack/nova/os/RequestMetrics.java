@@ -0,0 +1,622 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.dasein.cloud.CloudErrorType;
+
+/**
+ * Counts the HTTP requests made through one cloud connection, per endpoint. An endpoint is a service, a verb and a
+ * resource template in which ids are replaced by <code>{id}</code>, e.g. <code>compute GET /servers/{id}</code>; Swift
+ * container and object names become <code>{container}</code> and <code>{object}</code>. For each endpoint the registry
+ * keeps a latency histogram, the bytes sent and received, the response status codes, the I/O failures and the requests
+ * in flight. Failed attempts are also counted by {@link CloudErrorType}, and the retry and re-authentication counts
+ * of the {@link RetryPolicy} are reported alongside.
+ * <p>Latency runs from sending the request to receiving the response headers; bytes are counted as bodies are
+ * actually written and read. Recording uses only atomic counters, so the registry can stay on in production. Once
+ * <code>metricsMaxEndpoints</code> endpoints (500 by default) are known, further resources are counted under the
+ * template <code>(other)</code>.</p>
+ * <p>Snapshots are available from {@link NovaOpenStack#getRequestMetrics()} and, if the <code>metricsJmx</code>
+ * custom property is <code>true</code>, through JMX as a {@link RequestMetricsMXBean}. The registry holds its cloud
+ * connection only weakly, so a registered MXBean does not keep an abandoned connection alive.</p>
+ * @since 2016.02
+ */
+public class RequestMetrics implements RequestMetricsMXBean {
+    static public final int DEFAULT_MAX_ENDPOINTS = 500;
+
+    /**
+     * The upper bounds in milliseconds of the latency histogram buckets; a last bucket counts anything slower.
+     */
+    static public final long[] LATENCY_BOUNDS = { 1, 2, 3, 5, 7, 10, 15, 20, 30, 50, 75, 100, 150, 200, 300, 500, 750, 1000, 1500, 2000, 3000, 5000, 7500, 10000, 15000, 30000, 60000 };
+
+    static private final String OTHER = "(other)";
+    static private final String UNKNOWN = "unknown";
+
+    /**
+     * Reduces a resource path to its template.
+     * @param service the service type of the endpoint
+     * @param resource the resource path, possibly with a query
+     * @return the template
+     */
+    static public @Nonnull String toTemplate(@Nonnull String service, @Nullable String resource) {
+        if( resource == null || resource.length() < 1 ) {
+            return "/";
+        }
+        int idx = resource.indexOf('?');
+
+        if( idx > -1 ) {
+            resource = resource.substring(0, idx);
+        }
+        StringBuilder template = new StringBuilder(resource.length());
+        boolean storage = service.equals("object-store");
+        int segment = 0;
+        int start = 0;
+
+        while( start < resource.length() ) {
+            int end = resource.indexOf('/', start);
+
+            if( end < 0 ) {
+                end = resource.length();
+            }
+            if( end > start ) {
+                String part = resource.substring(start, end);
+
+                template.append('/');
+                if( storage ) {
+                    template.append(segment == 0 ? "{container}" : "{object}");
+                    if( segment > 0 ) {
+                        break;
+                    }
+                }
+                else if( part.endsWith(".json") && isId(part.substring(0, part.length() - 5)) ) {
+                    template.append("{id}.json");
+                }
+                else {
+                    template.append(isId(part) ? "{id}" : part);
+                }
+                segment++;
+            }
+            start = end + 1;
+        }
+        return (template.length() < 1 ? "/" : template.toString());
+    }
+
+    /**
+     * @return true for numbers, UUIDs and other long hexadecimal or mixed letter and digit tokens
+     */
+    static private boolean isId(@Nonnull String part) {
+        if( part.length() < 1 ) {
+            return false;
+        }
+        int digits = 0;
+
+        for( int i=0; i<part.length(); i++ ) {
+            char c = part.charAt(i);
+
+            if( c >= '0' && c <= '9' ) {
+                digits++;
+            }
+            else if( c != '-' && !(c >= 'a' && c <= 'f') && !(c >= 'A' && c <= 'F') ) {
+                // a word, or a name with digits such as an image or key pair name
+                return (digits > 0 && part.length() >= 16 && !part.contains("."));
+            }
+        }
+        return (digits == part.length() || part.length() >= 8);
+    }
+
+    /**
+     * Latencies in buckets bounded by {@link #LATENCY_BOUNDS}.
+     */
+    static private class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(LATENCY_BOUNDS.length + 1);
+        private final AtomicLong      count   = new AtomicLong();
+        private final AtomicLong      max     = new AtomicLong();
+        private final AtomicLong      total   = new AtomicLong();
+
+        void record(long nanos) {
+            long millis = nanos / 1000000L;
+            int bucket = 0;
+
+            while( bucket < LATENCY_BOUNDS.length && millis > LATENCY_BOUNDS[bucket] ) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+            count.incrementAndGet();
+            total.addAndGet(nanos);
+            long current = max.get();
+
+            while( nanos > current && !max.compareAndSet(current, nanos) ) {
+                current = max.get();
+            }
+        }
+
+        /**
+         * @return the upper bound in milliseconds of the bucket holding the percentile, or the maximum for the last bucket
+         */
+        double getPercentile(double percentile) {
+            long n = count.get();
+
+            if( n < 1 ) {
+                return 0.0;
+            }
+            long rank = (long)Math.ceil(percentile / 100.0 * n);
+            long seen = 0L;
+
+            for( int i=0; i<LATENCY_BOUNDS.length; i++ ) {
+                seen += buckets.get(i);
+                if( seen >= rank ) {
+                    return Math.min(LATENCY_BOUNDS[i], max.get() / 1000000.0);
+                }
+            }
+            return max.get() / 1000000.0;
+        }
+    }
+
+    /**
+     * The live counters of one endpoint.
+     */
+    static private class Endpoint {
+        private final AtomicLong                       bytesIn  = new AtomicLong();
+        private final AtomicLong                       bytesOut = new AtomicLong();
+        private final AtomicInteger                    inFlight = new AtomicInteger();
+        private final AtomicLong                       ioErrors = new AtomicLong();
+        private final Histogram                        latency  = new Histogram();
+        private final String                           resource;
+        private final String                           service;
+        private final ConcurrentHashMap<Integer,AtomicLong> statuses = new ConcurrentHashMap<Integer,AtomicLong>();
+        private final String                           verb;
+
+        Endpoint(@Nonnull String service, @Nonnull String verb, @Nonnull String resource) {
+            this.service = service;
+            this.verb = verb;
+            this.resource = resource;
+        }
+
+        void recordStatus(int code) {
+            AtomicLong counter = statuses.get(code);
+
+            if( counter == null ) {
+                AtomicLong existing = statuses.putIfAbsent(code, counter = new AtomicLong());
+
+                if( existing != null ) {
+                    counter = existing;
+                }
+            }
+            counter.incrementAndGet();
+        }
+    }
+
+    /**
+     * The statistics of one endpoint at the time of the snapshot. Latencies are in milliseconds.
+     */
+    static public class EndpointSnapshot {
+        private final long              bytesIn;
+        private final long              bytesOut;
+        private final int               inFlight;
+        private final long              ioErrors;
+        private final double            maxLatency;
+        private final double            meanLatency;
+        private final double            p50;
+        private final double            p90;
+        private final double            p99;
+        private final long              requests;
+        private final String            resource;
+        private final String            service;
+        private final Map<Integer,Long> statusCodes;
+        private final String            verb;
+
+        private EndpointSnapshot(@Nonnull Endpoint endpoint) {
+            Map<Integer,Long> codes = new TreeMap<Integer,Long>();
+
+            for( Map.Entry<Integer,AtomicLong> entry : endpoint.statuses.entrySet() ) {
+                codes.put(entry.getKey(), entry.getValue().get());
+            }
+            service = endpoint.service;
+            verb = endpoint.verb;
+            resource = endpoint.resource;
+            requests = endpoint.latency.count.get();
+            inFlight = endpoint.inFlight.get();
+            ioErrors = endpoint.ioErrors.get();
+            bytesIn = endpoint.bytesIn.get();
+            bytesOut = endpoint.bytesOut.get();
+            statusCodes = Collections.unmodifiableMap(codes);
+            meanLatency = (requests < 1 ? 0.0 : endpoint.latency.total.get() / 1000000.0 / requests);
+            maxLatency = endpoint.latency.max.get() / 1000000.0;
+            p50 = endpoint.latency.getPercentile(50.0);
+            p90 = endpoint.latency.getPercentile(90.0);
+            p99 = endpoint.latency.getPercentile(99.0);
+        }
+
+        public long getBytesIn() {
+            return bytesIn;
+        }
+
+        public long getBytesOut() {
+            return bytesOut;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        /**
+         * @return the requests that failed without a response
+         */
+        public long getIoErrors() {
+            return ioErrors;
+        }
+
+        public double getLatencyMax() {
+            return maxLatency;
+        }
+
+        public double getLatencyMean() {
+            return meanLatency;
+        }
+
+        public double getLatencyP50() {
+            return p50;
+        }
+
+        public double getLatencyP90() {
+            return p90;
+        }
+
+        public double getLatencyP99() {
+            return p99;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public @Nonnull String getResource() {
+            return resource;
+        }
+
+        public @Nonnull String getService() {
+            return service;
+        }
+
+        /**
+         * @return the number of responses by HTTP status code
+         */
+        public @Nonnull Map<Integer,Long> getStatusCodes() {
+            return statusCodes;
+        }
+
+        public @Nonnull String getVerb() {
+            return verb;
+        }
+
+        @Override
+        public @Nonnull String toString() {
+            return service + " " + verb + " " + resource;
+        }
+    }
+
+    /**
+     * One request between {@link RequestMetrics#start(String, HttpRequest, String)} and its response.
+     */
+    public class Request {
+        private final long     begin = System.nanoTime();
+        private final Endpoint endpoint;
+
+        private Request(@Nonnull Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        /**
+         * Records the response and counts the bytes of its body as they are read.
+         * @param response the response
+         */
+        public void complete(@Nonnull HttpResponse response) {
+            end();
+            if( response.getStatusLine() != null ) {
+                endpoint.recordStatus(response.getStatusLine().getStatusCode());
+            }
+            HttpEntity entity = response.getEntity();
+
+            if( entity != null ) {
+                response.setEntity(new CountingEntity(entity, endpoint.bytesIn));
+            }
+        }
+
+        /**
+         * Records a request that failed without a response.
+         */
+        public void fail() {
+            end();
+            endpoint.ioErrors.incrementAndGet();
+        }
+
+        private void end() {
+            endpoint.latency.record(System.nanoTime() - begin);
+            endpoint.inFlight.decrementAndGet();
+            inFlight.decrementAndGet();
+            requests.incrementAndGet();
+        }
+    }
+
+    /**
+     * Counts the bytes of an entity as they are read or written.
+     */
+    static private class CountingEntity extends HttpEntityWrapper {
+        private final AtomicLong counter;
+
+        CountingEntity(@Nonnull HttpEntity entity, @Nonnull AtomicLong counter) {
+            super(entity);
+            this.counter = counter;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            InputStream in = super.getContent();
+
+            if( in == null ) {
+                return null;
+            }
+            return new FilterInputStream(in) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+
+                    if( b >= 0 ) {
+                        counter.incrementAndGet();
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+                    int n = super.read(b, off, len);
+
+                    if( n > 0 ) {
+                        counter.addAndGet(n);
+                    }
+                    return n;
+                }
+            };
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            super.writeTo(new FilterOutputStream(out) {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    counter.incrementAndGet();
+                }
+
+                @Override
+                public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                    counter.addAndGet(len);
+                }
+            });
+        }
+    }
+
+    private final ConcurrentHashMap<String,Endpoint> endpoints = new ConcurrentHashMap<String,Endpoint>();
+    private final AtomicLongArray                    errors    = new AtomicLongArray(CloudErrorType.values().length);
+    private final AtomicInteger                      inFlight  = new AtomicInteger();
+    private final int                                maxEndpoints;
+    private final WeakReference<NovaOpenStack>       provider;
+    private final AtomicLong                         requests  = new AtomicLong();
+    private final ConcurrentHashMap<String,String>   services  = new ConcurrentHashMap<String,String>();
+
+    private volatile AuthenticationContext catalog;
+
+    /**
+     * @param provider the cloud connection whose retry and connection counts are reported
+     * @param p the custom properties of the connection
+     */
+    public RequestMetrics(@Nonnull NovaOpenStack provider, @Nullable Properties p) {
+        String value = (p == null ? null : p.getProperty("metricsMaxEndpoints"));
+        int max = DEFAULT_MAX_ENDPOINTS;
+
+        if( value != null ) {
+            try {
+                max = Integer.parseInt(value.trim());
+            }
+            catch( NumberFormatException e ) {
+                NovaOpenStack.getLogger(RequestMetrics.class, "std").warn("Ignoring invalid value for metricsMaxEndpoints: " + value);
+            }
+        }
+        this.provider = new WeakReference<NovaOpenStack>(provider);
+        this.maxEndpoints = max;
+    }
+
+    /**
+     * Tells the registry which service each endpoint URL of the catalog belongs to.
+     * @param context the authentication context requests are made with
+     */
+    public void setCatalog(@Nonnull AuthenticationContext context) {
+        if( context != catalog ) {
+            catalog = context;
+            services.clear();
+        }
+    }
+
+    private @Nonnull String getService(@Nonnull String endpoint) {
+        String service = services.get(endpoint);
+
+        if( service == null ) {
+            AuthenticationContext context = catalog;
+            int longest = -1;
+
+            service = UNKNOWN;
+            if( context != null ) {
+                for( Map.Entry<String,String> entry : context.getServiceUrls().entrySet() ) {
+                    String url = entry.getValue();
+
+                    while( url != null && url.endsWith("/") ) {
+                        url = url.substring(0, url.length() - 1);
+                    }
+                    if( url != null && url.length() > longest && endpoint.startsWith(url) ) {
+                        service = entry.getKey();
+                        longest = url.length();
+                    }
+                }
+            }
+            services.put(endpoint, service);
+        }
+        return service;
+    }
+
+    private @Nonnull Endpoint getEndpoint(@Nonnull String service, @Nonnull String verb, @Nonnull String resource) {
+        String key = service + " " + verb + " " + resource;
+        Endpoint endpoint = endpoints.get(key);
+
+        if( endpoint == null ) {
+            if( endpoints.size() >= maxEndpoints && !resource.equals(OTHER) ) {
+                return getEndpoint(service, verb, OTHER);
+            }
+            Endpoint existing = endpoints.putIfAbsent(key, endpoint = new Endpoint(service, verb, resource));
+
+            if( existing != null ) {
+                endpoint = existing;
+            }
+        }
+        return endpoint;
+    }
+
+    /**
+     * Starts recording a request about to be sent, counting the bytes of its body as they are written.
+     * @param service the service type, or <code>null</code> to look it up from the endpoint URL
+     * @param request the request, with its entity if it has one
+     * @param endpoint the URL of the service the resource belongs to
+     * @param resource the resource path relative to the endpoint
+     * @return the request to complete or fail once the call returns
+     */
+    public @Nonnull Request start(@Nullable String service, @Nonnull HttpRequest request, @Nonnull String endpoint, @Nullable String resource) {
+        if( service == null ) {
+            service = getService(endpoint);
+        }
+        Endpoint e = getEndpoint(service, request.getRequestLine().getMethod(), toTemplate(service, resource));
+
+        if( request instanceof HttpEntityEnclosingRequest ) {
+            HttpEntityEnclosingRequest enclosing = (HttpEntityEnclosingRequest)request;
+
+            if( enclosing.getEntity() != null ) {
+                enclosing.setEntity(new CountingEntity(enclosing.getEntity(), e.bytesOut));
+            }
+        }
+        e.inFlight.incrementAndGet();
+        inFlight.incrementAndGet();
+        return new Request(e);
+    }
+
+    /**
+     * Counts a failed attempt at an API call.
+     * @param type the kind of failure
+     */
+    public void recordError(@Nonnull CloudErrorType type) {
+        errors.incrementAndGet(type.ordinal());
+    }
+
+    @Override
+    public long getConnectionsOpened() {
+        NovaOpenStack cloud = provider.get();
+        NovaConnectionPool pool = (cloud == null ? null : cloud.getOpenConnectionPool());
+
+        return (pool == null ? 0L : pool.getConnectionsOpened());
+    }
+
+    @Override
+    public @Nonnull List<EndpointSnapshot> getEndpoints() {
+        List<EndpointSnapshot> snapshots = new ArrayList<EndpointSnapshot>();
+
+        for( Endpoint endpoint : new TreeMap<String,Endpoint>(endpoints).values() ) {
+            snapshots.add(new EndpointSnapshot(endpoint));
+        }
+        return snapshots;
+    }
+
+    @Override
+    public @Nonnull Map<String,Long> getErrors() {
+        Map<String,Long> counts = new TreeMap<String,Long>();
+
+        for( CloudErrorType type : CloudErrorType.values() ) {
+            long count = errors.get(type.ordinal());
+
+            if( count > 0 ) {
+                counts.put(type.name(), count);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public long getReauthentications() {
+        NovaOpenStack cloud = provider.get();
+
+        return (cloud == null ? 0L : cloud.getRetryPolicy().getReauthenticationCount());
+    }
+
+    @Override
+    public long getRequests() {
+        return requests.get();
+    }
+
+    @Override
+    public long getRetries() {
+        NovaOpenStack cloud = provider.get();
+
+        return (cloud == null ? 0L : cloud.getRetryPolicy().getRetryCount());
+    }
+
+    @Override
+    public void reset() {
+        endpoints.clear();
+        for( int i=0; i<errors.length(); i++ ) {
+            errors.set(i, 0L);
+        }
+    }
+}
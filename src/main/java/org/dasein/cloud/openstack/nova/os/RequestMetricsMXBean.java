@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The management interface of {@link RequestMetrics}, registered with the platform MBean server under
+ * <code>org.dasein.cloud.openstack.nova:type=RequestMetrics</code> for each cloud connection whose
+ * <code>metricsJmx</code> custom property is <code>true</code>.
+ * @since 2016.02
+ */
+public interface RequestMetricsMXBean {
+    /**
+     * @return the connections the connection pool has opened
+     */
+    long getConnectionsOpened();
+
+    /**
+     * @return the statistics of each endpoint called so far
+     */
+    List<RequestMetrics.EndpointSnapshot> getEndpoints();
+
+    /**
+     * @return the failed attempts at API calls by {@link org.dasein.cloud.CloudErrorType} name
+     */
+    Map<String,Long> getErrors();
+
+    /**
+     * @return the requests sent that have not been answered yet
+     */
+    int getInFlight();
+
+    /**
+     * @return the times a rejected token was replaced and the call repeated
+     */
+    long getReauthentications();
+
+    /**
+     * @return the requests sent
+     */
+    long getRequests();
+
+    /**
+     * @return the API calls repeated after a throttled or transient failure
+     */
+    long getRetries();
+
+    /**
+     * Clears the endpoint statistics and error counts.
+     */
+    void reset();
+}
@@ -0,0 +1,433 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.log4j.Logger;
+import org.dasein.util.CalendarWrapper;
+
+/**
+ * Caches the raw responses of GET requests for read-mostly catalogs such as images, keypairs, security groups,
+ * networks, subnets and floating IP pools. Only resources matching a {@link Policy} are cached; each policy has its own
+ * time to live and names the resource paths whose mutation invalidates it, so a create, delete or rule change made
+ * through this connection is visible to the next read. Paths are compared without their leading slash, query string or
+ * API version segment (<code>/os-keypairs</code>, <code>v2.0/networks/abc?x=y</code> and <code>networks</code> all
+ * name the same collection). Only a collection and its items are cached, never their sub-resources, and for catalogs
+ * whose items change state on the server, such as images, only the summary listing is cached. Responses are
+ * kept as strings, so every hit is parsed into a new object and callers never share one. Since the paths only name these
+ * catalogs on the compute, image and network APIs, only requests made through {@link NovaMethod} read or invalidate
+ * the cache; a Swift container called <code>images</code> is neither cached nor able to flush the image catalog.
+ * <p>The cache is bounded to <code>responseCacheSize</code> entries (least recently used first out) and can be turned
+ * off with the <code>responseCache</code> custom property set to <code>false</code>. The TTL of a policy can be
+ * overridden with the <code>cacheTtl.&lt;policy name&gt;</code> custom property in milliseconds, where 0 disables
+ * caching for that policy. Extensions may register further policies with {@link #addPolicy(Policy)}. This response
+ * tier sits below the object caches kept for flavors and volume types.</p>
+ * @since 2016.02
+ */
+public class ResponseCache {
+    static private final Logger logger = NovaOpenStack.getLogger(ResponseCache.class, "std");
+
+    static public final int DEFAULT_MAX_ENTRIES = 256;
+
+    /**
+     * Describes one cached catalog.
+     */
+    static public class Policy {
+        private final String       name;
+        private final String       prefix;
+        private final List<String> invalidatedBy;
+        private final boolean      items;
+        private final long         ttl;
+
+        private final AtomicLong hits          = new AtomicLong();
+        private final AtomicLong invalidations = new AtomicLong();
+        private final AtomicLong misses        = new AtomicLong();
+
+        /**
+         * @param name the name of the policy, used for its <code>cacheTtl.&lt;name&gt;</code> custom property
+         * @param prefix the path of the collection whose responses are cached, e.g. <code>os-keypairs</code>
+         * @param ttl how long a response stays valid in milliseconds
+         * @param invalidatedBy the paths whose mutation invalidates the cached responses; the collection itself is
+         * always included
+         */
+        public Policy(@Nonnull String name, @Nonnull String prefix, long ttl, @Nonnull String ... invalidatedBy) {
+            this(name, prefix, ttl, true, invalidatedBy);
+        }
+
+        /**
+         * @param name the name of the policy, used for its <code>cacheTtl.&lt;name&gt;</code> custom property
+         * @param prefix the path of the collection whose responses are cached, e.g. <code>os-keypairs</code>
+         * @param ttl how long a response stays valid in milliseconds
+         * @param items true to cache the items of the collection and its <code>detail</code> listing, false to cache
+         * only the collection itself, for catalogs whose items carry a status the server changes on its own
+         * @param invalidatedBy the paths whose mutation invalidates the cached responses; the collection itself is
+         * always included
+         */
+        public Policy(@Nonnull String name, @Nonnull String prefix, long ttl, boolean items, @Nonnull String ... invalidatedBy) {
+            List<String> paths = new ArrayList<String>();
+
+            paths.add(normalize(prefix));
+            for( String path : invalidatedBy ) {
+                paths.add(normalize(path));
+            }
+            this.name = name;
+            this.prefix = normalize(prefix);
+            this.items = items;
+            this.ttl = ttl;
+            this.invalidatedBy = Collections.unmodifiableList(paths);
+        }
+
+        private boolean matches(@Nonnull String path) {
+            if( !items ) {
+                return path.equals(prefix);
+            }
+            // the collection and its items, but not sub-resources such as the ports of a network
+            return (isUnder(path, prefix) && path.indexOf('/', prefix.length() + 1) < 0);
+        }
+
+        private boolean isInvalidatedBy(@Nonnull String path) {
+            for( String p : invalidatedBy ) {
+                if( isUnder(path, p) ) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public @Nonnull String getName() {
+            return name;
+        }
+
+        public long getTtl() {
+            return ttl;
+        }
+
+        public long getHits() {
+            return hits.get();
+        }
+
+        public long getMisses() {
+            return misses.get();
+        }
+
+        public long getInvalidations() {
+            return invalidations.get();
+        }
+
+        @Override
+        public @Nonnull String toString() {
+            return name + " [hits=" + hits.get() + ", misses=" + misses.get() + ", invalidations=" + invalidations.get() + "]";
+        }
+    }
+
+    static private class Entry {
+        private final long   expires;
+        private final Policy policy;
+        private final String value;
+
+        private Entry(@Nonnull Policy policy, @Nonnull String value, long expires) {
+            this.policy = policy;
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+
+    static private boolean isUnder(@Nonnull String path, @Nonnull String prefix) {
+        return (path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/'));
+    }
+
+    /**
+     * Strips the leading slash, query string and API version segment from a resource path.
+     * @param resource the resource path as passed to the HTTP layer
+     * @return the normalized path
+     */
+    static @Nonnull String normalize(@Nonnull String resource) {
+        int idx = resource.indexOf('?');
+        String path = (idx < 0 ? resource : resource.substring(0, idx));
+
+        while( path.startsWith("/") ) {
+            path = path.substring(1);
+        }
+        if( path.length() > 1 && path.charAt(0) == 'v' && Character.isDigit(path.charAt(1)) ) {
+            idx = path.indexOf('/');
+            path = (idx < 0 ? "" : path.substring(idx + 1));
+        }
+        while( path.endsWith("/") ) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return path;
+    }
+
+    private final LinkedHashMap<String,Entry> entries;
+    private final boolean                     enabled;
+    private final int                         maxEntries;
+    private final Properties                  properties;
+    private final List<Policy>                policies = new CopyOnWriteArrayList<Policy>();
+
+    private final AtomicLong evictions  = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong();
+
+    public ResponseCache(@Nullable Properties p) {
+        String value = (p == null ? null : p.getProperty("responseCache"));
+        int max = DEFAULT_MAX_ENTRIES;
+
+        if( p != null && p.getProperty("responseCacheSize") != null ) {
+            try {
+                max = Integer.parseInt(p.getProperty("responseCacheSize").trim());
+            }
+            catch( NumberFormatException e ) {
+                logger.warn("Ignoring invalid value for responseCacheSize: " + p.getProperty("responseCacheSize"));
+            }
+        }
+        properties = p;
+        maxEntries = Math.max(1, max);
+        enabled = (max > 0 && (value == null || !value.trim().equalsIgnoreCase("false")));
+        entries = new LinkedHashMap<String,Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String,Entry> eldest) {
+                if( size() > maxEntries ) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        // server actions can create images; image details carry a status that moves while a capture runs
+        addPolicy(new Policy("images", "images", CalendarWrapper.MINUTE * 5L, false, "servers"));
+        addPolicy(new Policy("keypairs", "os-keypairs", CalendarWrapper.MINUTE * 5L));
+        addPolicy(new Policy("securityGroups", "os-security-groups", CalendarWrapper.MINUTE, "os-security-group-rules"));
+        addPolicy(new Policy("networks", "networks", CalendarWrapper.MINUTE * 5L, "subnets"));
+        addPolicy(new Policy("novaNetworks", "os-networks", CalendarWrapper.MINUTE * 5L));
+        addPolicy(new Policy("rackspaceNetworks", "os-networksv2", CalendarWrapper.MINUTE * 5L));
+        addPolicy(new Policy("subnets", "subnets", CalendarWrapper.MINUTE * 5L));
+        addPolicy(new Policy("floatingIpPools", "os-floating-ip-pools", CalendarWrapper.HOUR));
+    }
+
+    /**
+     * Registers a catalog to cache. The <code>cacheTtl.&lt;name&gt;</code> custom property, if set, overrides the TTL of
+     * the policy; a TTL of 0 leaves the catalog uncached.
+     * @param policy the policy for the catalog
+     */
+    public void addPolicy(@Nonnull Policy policy) {
+        String value = (properties == null ? null : properties.getProperty("cacheTtl." + policy.getName()));
+
+        if( value != null ) {
+            try {
+                policy = new Policy(policy.name, policy.prefix, Long.parseLong(value.trim()), policy.items, policy.invalidatedBy.toArray(new String[policy.invalidatedBy.size()]));
+            }
+            catch( NumberFormatException e ) {
+                logger.warn("Ignoring invalid value for cacheTtl." + policy.getName() + ": " + value);
+            }
+        }
+        if( policy.getTtl() > 0L ) {
+            policies.add(policy);
+        }
+    }
+
+    private @Nullable Policy getPolicy(@Nonnull String path) {
+        for( Policy policy : policies ) {
+            if( policy.matches(path) ) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param resource the resource path being read
+     * @return true if responses for the resource are cached
+     */
+    public boolean isCacheable(@Nullable String resource) {
+        return (enabled && resource != null && getPolicy(normalize(resource)) != null);
+    }
+
+    /**
+     * Looks up a cached response.
+     * @param endpoint the endpoint the resource is read from
+     * @param resource the resource path, including any query string
+     * @return the cached response body, or <code>null</code> if nothing valid is cached for the request
+     */
+    public @Nullable String get(@Nonnull String endpoint, @Nullable String resource) {
+        if( !enabled || resource == null ) {
+            return null;
+        }
+        Policy policy = getPolicy(normalize(resource));
+
+        if( policy == null ) {
+            return null;
+        }
+        String key = endpoint + resource;
+        Entry entry;
+
+        synchronized( entries ) {
+            entry = entries.get(key);
+            if( entry != null && entry.expires <= System.currentTimeMillis() ) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        if( entry == null ) {
+            policy.misses.incrementAndGet();
+            return null;
+        }
+        policy.hits.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * @return a counter that moves whenever cached responses are invalidated; read it before sending a request and pass
+     * it to {@link #put(String, String, String, long)} so that a response racing a change is not cached
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Caches a response if the resource is covered by a policy and nothing was invalidated since it was requested.
+     * @param endpoint the endpoint the resource was read from
+     * @param resource the resource path, including any query string
+     * @param value the response body
+     * @param generation the value of {@link #getGeneration()} when the request was sent
+     */
+    public void put(@Nonnull String endpoint, @Nullable String resource, @Nullable String value, long generation) {
+        if( !enabled || resource == null || value == null ) {
+            return;
+        }
+        Policy policy = getPolicy(normalize(resource));
+
+        if( policy == null ) {
+            return;
+        }
+        synchronized( entries ) {
+            if( this.generation.get() == generation ) {
+                entries.put(endpoint + resource, new Entry(policy, value, System.currentTimeMillis() + policy.getTtl()));
+            }
+        }
+    }
+
+    /**
+     * Drops the cached responses of every catalog affected by a change to the given resource. Called for every
+     * mutating request, whether or not it succeeded.
+     * @param resource the resource path that was written to
+     */
+    public void invalidate(@Nullable String resource) {
+        if( !enabled || resource == null ) {
+            return;
+        }
+        String path = normalize(resource);
+        List<Policy> affected = new ArrayList<Policy>();
+
+        for( Policy policy : policies ) {
+            if( policy.isInvalidatedBy(path) ) {
+                affected.add(policy);
+            }
+        }
+        if( affected.isEmpty() ) {
+            return;
+        }
+        int count = 0;
+
+        synchronized( entries ) {
+            generation.incrementAndGet();
+            Iterator<Entry> it = entries.values().iterator();
+
+            while( it.hasNext() ) {
+                if( affected.contains(it.next().policy) ) {
+                    it.remove();
+                    count++;
+                }
+            }
+        }
+        for( Policy policy : affected ) {
+            policy.invalidations.incrementAndGet();
+        }
+        if( count > 0 && logger.isDebugEnabled() ) {
+            logger.debug("Invalidated " + count + " cached responses after a change to " + resource);
+        }
+    }
+
+    /**
+     * Drops every cached response.
+     */
+    public void clear() {
+        synchronized( entries ) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return the registered policies along with their hit, miss and invalidation counters
+     */
+    public @Nonnull Collection<Policy> getPolicies() {
+        return Collections.unmodifiableList(policies);
+    }
+
+    public long getHits() {
+        long count = 0L;
+
+        for( Policy policy : policies ) {
+            count += policy.getHits();
+        }
+        return count;
+    }
+
+    public long getMisses() {
+        long count = 0L;
+
+        for( Policy policy : policies ) {
+            count += policy.getMisses();
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of responses dropped to keep the cache within its size limit
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return the number of responses currently cached
+     */
+    public int getSize() {
+        synchronized( entries ) {
+            return entries.size();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
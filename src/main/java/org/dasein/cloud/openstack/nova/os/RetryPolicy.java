@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.http.HttpStatus;
+import org.apache.log4j.Logger;
+import org.dasein.cloud.InternalException;
+
+/**
+ * Decides whether a failed API call is worth repeating and how long to wait first. Rejected tokens are handled by
+ * {@link AbstractMethod} itself (one re-authentication per call); this policy covers throttling and transient failures:
+ * <ul>
+ *     <li>413, 429 and 503 responses carrying <code>Retry-After</code> are retried after the advertised delay</li>
+ *     <li>other 413/429 and 5xx responses, and I/O failures, are retried with exponential backoff and full jitter,
+ *     but only for idempotent verbs</li>
+ * </ul>
+ * Limits come from the <code>maxRetries</code>, <code>retryBaseDelay</code> and <code>retryMaxDelay</code> (milliseconds)
+ * custom properties. The counters are cumulative for the provider instance.
+ * @since 2016.02
+ */
+public class RetryPolicy {
+    static private final Logger logger = NovaOpenStack.getLogger(RetryPolicy.class, "std");
+
+    static public final int  DEFAULT_MAX_RETRIES = 3;
+    static public final long DEFAULT_BASE_DELAY  = 500L;
+    static public final long DEFAULT_MAX_DELAY   = 30000L;
+
+    static public boolean isIdempotent(@Nonnull String verb) {
+        return (verb.equals("GET") || verb.equals("HEAD") || verb.equals("PUT") || verb.equals("DELETE"));
+    }
+
+    private final int  maxRetries;
+    private final long baseDelay;
+    private final long maxDelay;
+
+    private final AtomicLong exhausted         = new AtomicLong();
+    private final AtomicLong reauthentications = new AtomicLong();
+    private final AtomicLong retries           = new AtomicLong();
+    private final AtomicLong throttled         = new AtomicLong();
+
+    public RetryPolicy(@Nullable Properties p) {
+        maxRetries = (int)getProperty(p, "maxRetries", DEFAULT_MAX_RETRIES);
+        baseDelay = getProperty(p, "retryBaseDelay", DEFAULT_BASE_DELAY);
+        maxDelay = getProperty(p, "retryMaxDelay", DEFAULT_MAX_DELAY);
+    }
+
+    private long getProperty(@Nullable Properties p, @Nonnull String name, long defaultValue) {
+        String value = (p == null ? null : p.getProperty(name));
+
+        if( value == null || value.trim().length() < 1 ) {
+            return defaultValue;
+        }
+        try {
+            long l = Long.parseLong(value.trim());
+
+            return (l >= 0 ? l : defaultValue);
+        }
+        catch( NumberFormatException e ) {
+            logger.warn("Ignoring invalid value for " + name + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Determines how long to wait before repeating a failed call.
+     * @param verb the HTTP verb of the call
+     * @param error the failure
+     * @param attempt the number of retries already made for this call
+     * @return the delay in milliseconds, or -1 if the call should not be repeated
+     */
+    public long getRetryDelay(@Nonnull String verb, @Nonnull Exception error, @Nonnegative int attempt) {
+        boolean throttle = false;
+        long delay = -1L;
+
+        if( error instanceof NovaException ) {
+            NovaException e = (NovaException)error;
+            int code = e.getHttpCode();
+
+            throttle = (code == HttpStatus.SC_REQUEST_TOO_LONG || code == 429 || code == HttpStatus.SC_SERVICE_UNAVAILABLE);
+            if( throttle && e.getRetryAfter() >= 0 ) {
+                // the server has told us it did not act on the request, so even non-idempotent calls may be repeated
+                delay = Math.min(e.getRetryAfter(), maxDelay);
+            }
+            else if( isIdempotent(verb) && (throttle || (code >= 500 && code != HttpStatus.SC_NOT_IMPLEMENTED)) ) {
+                delay = getBackoff(attempt);
+            }
+        }
+        else if( error instanceof InternalException && error.getCause() instanceof IOException && isIdempotent(verb) ) {
+            delay = getBackoff(attempt);
+        }
+        if( delay < 0 ) {
+            return -1L;
+        }
+        if( attempt >= maxRetries ) {
+            exhausted.incrementAndGet();
+            return -1L;
+        }
+        if( throttle ) {
+            throttled.incrementAndGet();
+        }
+        retries.incrementAndGet();
+        return delay;
+    }
+
+    private long getBackoff(@Nonnegative int attempt) {
+        long ceiling = Math.min(maxDelay, baseDelay << Math.min(attempt, 20));
+
+        return (ceiling < 1 ? 0L : ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    /**
+     * Waits out a retry delay.
+     * @param delay the delay in milliseconds
+     * @throws InternalException the thread was interrupted while waiting
+     */
+    public void pause(long delay) throws InternalException {
+        if( delay < 1 ) {
+            return;
+        }
+        try {
+            Thread.sleep(delay);
+        }
+        catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new InternalException(e);
+        }
+    }
+
+    void recordReauthentication() {
+        reauthentications.incrementAndGet();
+    }
+
+    /**
+     * @return the number of calls abandoned because they ran out of retries
+     */
+    public long getExhaustedCount() {
+        return exhausted.get();
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * @return the number of times a rejected token was discarded and the call repeated with a fresh one
+     */
+    public long getReauthenticationCount() {
+        return reauthentications.get();
+    }
+
+    /**
+     * @return the number of calls repeated after a throttling or transient failure
+     */
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    /**
+     * @return the number of throttling responses (413, 429, 503) that were waited out
+     */
+    public long getThrottledCount() {
+        return throttled.get();
+    }
+}
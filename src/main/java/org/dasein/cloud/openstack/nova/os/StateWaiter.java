@@ -0,0 +1,396 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.ResourceStatus;
+
+/**
+ * Waits for resources to reach a state without holding a polling thread per resource. Pending waits are grouped by
+ * resource type and every group is polled by a single shared scheduler thread with one {@link StatusSource} call per
+ * tick, however many resources of that type are being waited on. The polling interval starts at the
+ * <code>waitMinInterval</code> custom property and grows by half on every tick that sees no change, up to
+ * <code>waitMaxInterval</code> (both milliseconds); any change, or a new wait joining the group, resets it.
+ * <p>Each wait is handed back as a {@link Wait}, a {@link Future} that completes once its condition holds or its
+ * timeout passes. Failed status calls are logged and retried on the next tick.</p>
+ * @since 2016.02
+ */
+public class StateWaiter {
+    static private final Logger logger = NovaOpenStack.getLogger(StateWaiter.class, "std");
+
+    static public final long DEFAULT_MIN_INTERVAL = 2000L;
+    static public final long DEFAULT_MAX_INTERVAL = 30000L;
+
+    static private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(@Nonnull Runnable r) {
+            Thread t = new Thread(r, "OpenStack state waiter");
+
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    /**
+     * Looks up the current state of a batch of resources of one type, ideally with a single API call.
+     */
+    public interface StatusSource {
+        /**
+         * @param ids the resources being waited on
+         * @return the current state of each resource that still exists; resources left out are treated as gone
+         * @throws CloudException an error occurred in the cloud provider looking up the states
+         * @throws InternalException an error occurred within Dasein Cloud looking up the states
+         */
+        @Nonnull Map<String,Object> getStatus(@Nonnull Collection<String> ids) throws CloudException, InternalException;
+    }
+
+    /**
+     * Decides whether a resource has reached the state being waited for.
+     */
+    public interface Condition {
+        /**
+         * @param state the current state, or <code>null</code> if the resource no longer exists
+         * @return true if the wait is over
+         */
+        boolean isReached(@Nullable Object state);
+    }
+
+    /**
+     * @param states the states to wait for
+     * @return a condition that holds once the resource is in one of the given states or no longer exists
+     */
+    static public @Nonnull Condition reaching(@Nonnull final Object ... states) {
+        return new Condition() {
+            @Override
+            public boolean isReached(@Nullable Object state) {
+                return (state == null || contains(states, state));
+            }
+        };
+    }
+
+    /**
+     * @param states the states to wait out
+     * @return a condition that holds once the resource is in none of the given states or no longer exists
+     */
+    static public @Nonnull Condition leaving(@Nonnull final Object ... states) {
+        return new Condition() {
+            @Override
+            public boolean isReached(@Nullable Object state) {
+                return (state == null || !contains(states, state));
+            }
+        };
+    }
+
+    static private boolean contains(@Nonnull Object[] states, @Nonnull Object state) {
+        for( Object s : states ) {
+            if( s.equals(state) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Picks the resources being waited on out of a status listing.
+     * @param statuses the status listing of every resource of the type
+     * @param ids the resources being waited on
+     * @return the states of the resources in <code>ids</code> that appear in the listing
+     */
+    static public @Nonnull Map<String,Object> toStates(@Nonnull Iterable<ResourceStatus> statuses, @Nonnull Collection<String> ids) {
+        Map<String,Object> states = new HashMap<String,Object>();
+
+        for( ResourceStatus status : statuses ) {
+            if( ids.contains(status.getProviderResourceId()) ) {
+                states.put(status.getProviderResourceId(), status.getResourceStatus());
+            }
+        }
+        return states;
+    }
+
+    /**
+     * A pending wait for one resource.
+     */
+    public class Wait implements Future<Object> {
+        private final Condition      condition;
+        private final long           deadline;
+        private final Group          group;
+        private final String         id;
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        private volatile boolean cancelled;
+        private volatile boolean polled;
+        private volatile boolean reached;
+        private volatile Object  state;
+
+        private Wait(@Nonnull Group group, @Nonnull String id, @Nonnull Condition condition, long deadline) {
+            this.group = group;
+            this.id = id;
+            this.condition = condition;
+            this.deadline = deadline;
+        }
+
+        private void complete(boolean reached) {
+            this.reached = reached;
+            latch.countDown();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if( isDone() ) {
+                return false;
+            }
+            cancelled = true;
+            latch.countDown();
+            return true;
+        }
+
+        @Override
+        public Object get() throws InterruptedException {
+            latch.await();
+            return state;
+        }
+
+        @Override
+        public Object get(long timeout, @Nonnull TimeUnit unit) throws InterruptedException, TimeoutException {
+            if( !latch.await(timeout, unit) ) {
+                throw new TimeoutException("Still waiting for " + group.type + " " + id);
+            }
+            return state;
+        }
+
+        /**
+         * @return the last state seen, or <code>null</code> if the resource no longer exists or has not been polled yet
+         */
+        public @Nullable Object getState() {
+            return state;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return (latch.getCount() == 0);
+        }
+
+        /**
+         * @return true if the wait ended because its condition held, false if it timed out, was cancelled or is still pending
+         */
+        public boolean isReached() {
+            return reached;
+        }
+
+        /**
+         * Blocks until the wait is over.
+         * @return the last state seen, or <code>null</code> if the resource no longer exists
+         * @throws InternalException the calling thread was interrupted; the wait is cancelled
+         */
+        public @Nullable Object join() throws InternalException {
+            try {
+                return get();
+            }
+            catch( InterruptedException e ) {
+                cancel(false);
+                Thread.currentThread().interrupt();
+                throw new InternalException(e);
+            }
+        }
+    }
+
+    private class Group implements Runnable {
+        private final StatusSource source;
+        private final String       type;
+        private final List<Wait>   waits = new ArrayList<Wait>();
+
+        private long                interval = minInterval;
+        private boolean             joined;
+        private ScheduledFuture<?>  next;
+
+        private Group(@Nonnull String type, @Nonnull StatusSource source) {
+            this.type = type;
+            this.source = source;
+        }
+
+        @Override
+        public void run() {
+            List<Wait> pending;
+
+            synchronized( StateWaiter.this ) {
+                pending = new ArrayList<Wait>(waits);
+            }
+            LinkedHashSet<String> ids = new LinkedHashSet<String>();
+
+            for( Wait wait : pending ) {
+                if( !wait.isDone() ) {
+                    ids.add(wait.id);
+                }
+            }
+            Map<String,Object> states = null;
+
+            if( !ids.isEmpty() ) {
+                try {
+                    states = source.getStatus(ids);
+                }
+                catch( Throwable t ) {
+                    logger.warn("Unable to poll the state of " + ids.size() + " " + type + " resources: " + t.getMessage());
+                }
+            }
+            long now = System.currentTimeMillis();
+            boolean changed = false;
+
+            for( Wait wait : pending ) {
+                if( wait.isDone() ) {
+                    continue;
+                }
+                if( states != null ) {
+                    Object state = states.get(wait.id);
+
+                    if( wait.polled && (state == null ? wait.state != null : !state.equals(wait.state)) ) {
+                        changed = true;
+                    }
+                    wait.state = state;
+                    wait.polled = true;
+                    try {
+                        if( wait.condition.isReached(state) ) {
+                            wait.complete(true);
+                            continue;
+                        }
+                    }
+                    catch( RuntimeException e ) {
+                        logger.error("Error checking the state of " + type + " " + wait.id + ": " + e.getMessage());
+                        wait.complete(false);
+                        continue;
+                    }
+                }
+                if( now >= wait.deadline ) {
+                    wait.complete(false);
+                }
+            }
+            synchronized( StateWaiter.this ) {
+                for( Wait wait : pending ) {
+                    if( wait.isDone() ) {
+                        waits.remove(wait);
+                    }
+                }
+                if( waits.isEmpty() ) {
+                    groups.remove(type);
+                    next = null;
+                    return;
+                }
+                interval = (changed || joined ? minInterval : Math.min(maxInterval, interval + interval / 2));
+                joined = false;
+                next = scheduler.schedule(this, interval, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private final Map<String,Group> groups = new HashMap<String,Group>();
+    private final long              maxInterval;
+    private final long              minInterval;
+
+    public StateWaiter(@Nullable Properties p) {
+        minInterval = Math.max(100L, getProperty(p, "waitMinInterval", DEFAULT_MIN_INTERVAL));
+        maxInterval = Math.max(minInterval, getProperty(p, "waitMaxInterval", DEFAULT_MAX_INTERVAL));
+    }
+
+    private long getProperty(@Nullable Properties p, @Nonnull String name, long defaultValue) {
+        String value = (p == null ? null : p.getProperty(name));
+
+        if( value == null || value.trim().length() < 1 ) {
+            return defaultValue;
+        }
+        try {
+            long l = Long.parseLong(value.trim());
+
+            return (l > 0 ? l : defaultValue);
+        }
+        catch( NumberFormatException e ) {
+            logger.warn("Ignoring invalid value for " + name + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Starts waiting for a resource to reach a state.
+     * @param type the resource type; waits of the same type share one status call per tick
+     * @param source looks up the states of resources of this type, used only if no other wait of the type is pending
+     * @param id the resource to wait on
+     * @param condition the state to wait for
+     * @param timeout how long to wait in milliseconds
+     * @return the pending wait
+     */
+    public @Nonnull Wait await(@Nonnull String type, @Nonnull StatusSource source, @Nonnull String id, @Nonnull Condition condition, long timeout) {
+        synchronized( this ) {
+            Group group = groups.get(type);
+
+            if( group == null ) {
+                group = new Group(type, source);
+                groups.put(type, group);
+                group.next = scheduler.schedule(group, 0L, TimeUnit.MILLISECONDS);
+            }
+            else {
+                group.interval = minInterval;
+                group.joined = true;
+                if( group.next != null && group.next.getDelay(TimeUnit.MILLISECONDS) > minInterval && group.next.cancel(false) ) {
+                    group.next = scheduler.schedule(group, minInterval, TimeUnit.MILLISECONDS);
+                }
+            }
+            Wait wait = new Wait(group, id, condition, System.currentTimeMillis() + timeout);
+
+            group.waits.add(wait);
+            return wait;
+        }
+    }
+
+    /**
+     * @return the number of waits currently pending across all resource types
+     */
+    public synchronized int getPendingCount() {
+        int count = 0;
+
+        for( Group group : groups.values() ) {
+            count += group.waits.size();
+        }
+        return count;
+    }
+}
@@ -20,20 +20,22 @@
 package org.dasein.cloud.openstack.nova.os;
 
 import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.http.HttpStatus;
 import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudErrorType;
 import org.dasein.cloud.CloudException;
 import org.dasein.cloud.InternalException;
 import org.dasein.cloud.Tag;
-import org.dasein.cloud.util.Cache;
-import org.dasein.cloud.util.CacheLevel;
-import org.dasein.util.uom.time.Day;
-import org.dasein.util.uom.time.TimePeriod;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -42,226 +44,333 @@ public class SwiftMethod extends AbstractMethod {
 	static private final Logger logger = NovaOpenStack.getLogger(SwiftMethod.class, "std");
     public SwiftMethod(NovaOpenStack provider) { super(provider); }
         
-    public void delete(@Nonnull String bucket) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getStorageUrl();
-        
-        if( endpoint == null ) {
-            throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
-        }
-        try {
-            delete(context.getAuthToken(), endpoint, "/" + bucket);
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                delete(bucket);
-            }
-            else {
-                throw ex;
+    public void delete(@Nonnull final String bucket) throws CloudException, InternalException {
+        execute("DELETE", true, new AuthenticatedCall<Void>() {
+            public Void call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getStorageUrl();
+
+                if( endpoint == null ) {
+                    throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
+                }
+                delete(context.getAuthToken(), endpoint, "/" + bucket);
+                return null;
             }
-        }
+        });
     }
     
-    public void delete(@Nonnull String bucket, @Nonnull String object) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-
-        String endpoint = context.getStorageUrl();
+    public void delete(@Nonnull final String bucket, @Nonnull final String object) throws CloudException, InternalException {
+        execute("DELETE", true, new AuthenticatedCall<Void>() {
+            public Void call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getStorageUrl();
 
-        if( endpoint == null ) {
-            throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
-        }
-        try {
-            delete(context.getAuthToken(), endpoint, "/" + bucket + "/" + object);
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                delete(bucket, object);
-            }
-            else {
-                throw ex;
+                if( endpoint == null ) {
+                    throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
+                }
+                delete(context.getAuthToken(), endpoint, "/" + bucket + "/" + object);
+                return null;
             }
-        }
+        });
     }
     
-    public @Nonnull List<String> get(@Nullable String bucket) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getStorageUrl();
+    public @Nonnull List<String> get(@Nullable final String bucket) throws CloudException, InternalException {
+        return execute("GET", true, new AuthenticatedCall<List<String>>() {
+            public List<String> call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getStorageUrl();
 
-        if( endpoint == null ) {
-            throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
-        }
-        try {
-            String response = getString(context.getAuthToken(), endpoint, bucket == null ? "/" : "/" + bucket);
+                if( endpoint == null ) {
+                    throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
+                }
+                String response = getString(context.getAuthToken(), endpoint, bucket == null ? "/" : "/" + bucket);
 
-            ArrayList<String> entries = new ArrayList<String>();
+                ArrayList<String> entries = new ArrayList<String>();
 
-            if( response != null ) {
-                response = response.trim();
-                if( response.length() > 0 ) {
-                    String[] lines = response.split("\n");
+                if( response != null ) {
+                    response = response.trim();
+                    if( response.length() > 0 ) {
+                        String[] lines = response.split("\n");
 
-                    if( lines.length < 1 ) {
-                        entries.add(response);
-                    }
-                    else {
-                        for( String line : lines ) {
-                            entries.add(line.trim());
+                        if( lines.length < 1 ) {
+                            entries.add(response);
                         }
+                        else {
+                            for( String line : lines ) {
+                                entries.add(line.trim());
+                            }
+                        }
+
                     }
+                }
+                return entries;
+            }
+        });
+    }
+
+    /**
+     * Lists the containers of the account, or the objects of a container, using the JSON listing format so the size,
+     * ETag, modification time and content type of each entry arrive with the listing. Entries are read a page at a
+     * time using <code>marker</code>/<code>limit</code> and handed to the handler as each is parsed.
+     * @param bucket the container to list, or <code>null</code> to list the containers of the account
+     * @param prefix only list entries whose names start with this prefix
+     * @param delimiter roll up names containing this character past the prefix into <code>subdir</code> entries
+     * @param handler the consumer receiving each entry
+     * @throws CloudException an error occurred talking to the cloud or parsing its response
+     * @throws InternalException an internal error occurred building or processing the request
+     */
+    public void list(@Nullable String bucket, @Nullable String prefix, @Nullable String delimiter, @Nonnull ItemHandler handler) throws CloudException, InternalException {
+        int limit = getPageSize();
+        String marker = null;
 
+        while( true ) {
+            StringBuilder params = new StringBuilder();
+
+            params.append("?format=json&limit=").append(limit);
+            try {
+                if( marker != null ) {
+                    params.append("&marker=").append(URLEncoder.encode(marker, "utf-8"));
+                }
+                if( prefix != null ) {
+                    params.append("&prefix=").append(URLEncoder.encode(prefix, "utf-8"));
+                }
+                if( delimiter != null ) {
+                    params.append("&delimiter=").append(URLEncoder.encode(delimiter, "utf-8"));
                 }
             }
-            return entries;
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                return get(bucket);
+            catch( UnsupportedEncodingException e ) {
+                throw new InternalException(e);
             }
-            else {
-                throw ex;
+            final String resource = (bucket == null ? "/" : "/" + bucket) + params.toString();
+            InputStream input = execute("GET", true, new AuthenticatedCall<InputStream>() {
+                public InputStream call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                    String endpoint = context.getStorageUrl();
+
+                    if( endpoint == null ) {
+                        throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
+                    }
+                    return getStream(context.getAuthToken(), endpoint, resource);
+                }
+            });
+
+            if( input == null ) {
+                return;
             }
-        }
-    }
+            JsonItemReader reader = new JsonItemReader(input, null);
+            String last = null;
+            int count = 0;
 
-    public @Nullable InputStream get(@Nonnull String bucket, @Nonnull String object) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getStorageUrl();
+            try {
+                JSONObject item;
 
-        if( endpoint == null ) {
-            throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
-        }
-        try {
-            return getStream(context.getAuthToken(), endpoint, "/" + bucket + "/" + object);
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                return get(bucket, object);
+                while( (item = reader.next()) != null ) {
+                    count++;
+                    if( item.has("name") ) {
+                        last = item.getString("name");
+                    }
+                    else if( item.has("subdir") ) {
+                        last = item.getString("subdir");
+                    }
+                    if( !handler.handle(item) ) {
+                        return;
+                    }
+                }
+            }
+            catch( JSONException e ) {
+                throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", "Unable to read listing of " + (bucket == null ? "containers" : bucket) + ": " + e.getMessage());
+            }
+            finally {
+                reader.close();
             }
-            else {
-                throw ex;
+            if( count < limit || last == null || last.equals(marker) ) {
+                return;
             }
+            marker = last;
         }
     }
+
+    public @Nullable InputStream get(@Nonnull final String bucket, @Nonnull final String object) throws CloudException, InternalException {
+        return get(bucket, object, null);
+    }
+
+    /**
+     * Opens an object, handing back its metadata (<code>Content-Length</code>, <code>ETag</code> and so on) from the
+     * same response so that no separate HEAD is needed.
+     * @param bucket the container of the object
+     * @param object the name of the object
+     * @param responseHeaders a map to receive the response headers, or <code>null</code> if they are not needed
+     * @return the content of the object, or <code>null</code> if the object does not exist
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public @Nullable InputStream get(@Nonnull final String bucket, @Nonnull final String object, @Nullable final Map<String,String> responseHeaders) throws CloudException, InternalException {
+        return execute("GET", true, new AuthenticatedCall<InputStream>() {
+            public InputStream call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getStorageUrl();
+
+                if( endpoint == null ) {
+                    throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
+                }
+                if( responseHeaders != null ) {
+                    responseHeaders.clear();
+                }
+                return getStream(context.getAuthToken(), endpoint, "/" + bucket + "/" + object, null, responseHeaders);
+            }
+        });
+    }
     
-    @SuppressWarnings("unused")
-    public @Nullable Map<String,String> head(@Nonnull String bucket) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getStorageUrl();
+    /**
+     * Opens a byte range of an object. A server that ignores the <code>Range</code> header answers with the whole
+     * object and no <code>Content-Range</code>, so callers should check the returned headers before trusting the bytes.
+     * @param bucket the container of the object
+     * @param object the name of the object
+     * @param first the offset of the first byte to read
+     * @param last the offset of the last byte to read (inclusive)
+     * @param responseHeaders a map to receive the response headers, or <code>null</code> if they are not needed
+     * @return the requested bytes, or <code>null</code> if the object does not exist
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public @Nullable InputStream get(@Nonnull final String bucket, @Nonnull final String object, final long first, final long last, @Nullable final Map<String,String> responseHeaders) throws CloudException, InternalException {
+        return execute("GET", true, new AuthenticatedCall<InputStream>() {
+            public InputStream call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getStorageUrl();
 
-        if( endpoint == null ) {
-            throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
-        }
-        try {
-            return head(context.getAuthToken(), endpoint, "/" + bucket);
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                return head(bucket);
+                if( endpoint == null ) {
+                    throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
+                }
+                if( responseHeaders != null ) {
+                    responseHeaders.clear();
+                }
+                return getStream(context.getAuthToken(), endpoint, "/" + bucket + "/" + object, Collections.singletonMap("Range", "bytes=" + first + "-" + last), responseHeaders);
             }
-            else {
-                throw ex;
+        });
+    }
+
+    /**
+     * Fetches the manifest of a Static Large Object.
+     * @param bucket the container of the object
+     * @param object the name of the object
+     * @return the segments of the object in order, each with its <code>name</code>, <code>hash</code> and <code>bytes</code>
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public @Nullable JSONArray getManifest(@Nonnull final String bucket, @Nonnull final String object) throws CloudException, InternalException {
+        return execute("GET", true, new AuthenticatedCall<JSONArray>() {
+            public JSONArray call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getStorageUrl();
+
+                if( endpoint == null ) {
+                    throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
+                }
+                String response = getString(context.getAuthToken(), endpoint, "/" + bucket + "/" + object + "?multipart-manifest=get");
+
+                if( response == null ) {
+                    return null;
+                }
+                try {
+                    return new JSONArray(response);
+                }
+                catch( JSONException e ) {
+                    throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", response);
+                }
             }
-        }
+        });
     }
-    
-    public @Nullable Map<String,String> head(@Nonnull String bucket, @Nonnull String object) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getStorageUrl();
 
-        if( endpoint == null ) {
-            throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
-        }
-        try {
-            return head(context.getAuthToken(), endpoint, "/" + bucket + "/" + object);
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                return head(bucket, object);
+    @SuppressWarnings("unused")
+    public @Nullable Map<String,String> head(@Nonnull final String bucket) throws CloudException, InternalException {
+        return execute("HEAD", true, new AuthenticatedCall<Map<String,String>>() {
+            public Map<String,String> call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getStorageUrl();
+
+                if( endpoint == null ) {
+                    throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
+                }
+                return head(context.getAuthToken(), endpoint, "/" + bucket);
             }
-            else {
-                throw ex;
+        });
+    }
+    
+    public @Nullable Map<String,String> head(@Nonnull final String bucket, @Nonnull final String object) throws CloudException, InternalException {
+        return execute("HEAD", true, new AuthenticatedCall<Map<String,String>>() {
+            public Map<String,String> call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getStorageUrl();
+
+                if( endpoint == null ) {
+                    throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
+                }
+                return head(context.getAuthToken(), endpoint, "/" + bucket + "/" + object);
             }
-        }
+        });
     }
     
-    public void put(@Nonnull String bucket) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getStorageUrl();
+    public void put(@Nonnull final String bucket) throws CloudException, InternalException {
+        execute("PUT", true, new AuthenticatedCall<Void>() {
+            public Void call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getStorageUrl();
 
-        if( endpoint == null ) {
-            throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
-        }
-        try {
-            putString(context.getAuthToken(), endpoint, "/" + bucket, null);
-        }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                put(bucket);
+                if( endpoint == null ) {
+                    throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
+                }
+                putString(context.getAuthToken(), endpoint, "/" + bucket, null);
+                return null;
             }
-            else {
-                throw ex;
+        });
+    }
+    
+    public void put(@Nonnull final String bucket, @Nonnull final String object, @Nullable final String md5Hash, @Nonnull final InputStream payload) throws CloudException, InternalException {
+        execute("PUT", false, new AuthenticatedCall<Void>() {
+            public Void call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getStorageUrl();
+
+                if( endpoint == null ) {
+                    throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
+                }
+                putStream(context.getAuthToken(), endpoint, "/" + bucket + "/" + object, md5Hash, payload);
+                return null;
             }
-        }
+        });
     }
     
-    public void put(@Nonnull String bucket, @Nonnull String object, @Nullable String md5Hash, @Nonnull InputStream payload) throws CloudException, InternalException {
-        AuthenticationContext context = provider.getAuthenticationContext();
-        String endpoint = context.getStorageUrl();
+    /**
+     * Writes a Static Large Object manifest, joining previously uploaded segments into a single object.
+     * @param bucket the container of the object
+     * @param object the name of the object
+     * @param segments the segments in order, each with its <code>path</code>, <code>etag</code> and <code>size_bytes</code>
+     * @throws CloudException the cloud rejected the manifest, for example because a segment did not match its ETag
+     * @throws InternalException an internal error occurred building or processing the request
+     */
+    public void putManifest(@Nonnull final String bucket, @Nonnull final String object, @Nonnull final JSONArray segments) throws CloudException, InternalException {
+        execute("PUT", true, new AuthenticatedCall<Void>() {
+            public Void call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                String endpoint = context.getStorageUrl();
 
-        if( endpoint == null ) {
-            throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
-        }
+                if( endpoint == null ) {
+                    throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
+                }
+                putString(context.getAuthToken(), endpoint, "/" + bucket + "/" + object + "?multipart-manifest=put", segments.toString());
+                return null;
+            }
+        });
+    }
+
+    public void put(@Nonnull final String bucket, @Nonnull final String prefix, @Nonnull final Tag ... tags) throws CloudException, InternalException {
         try {
-            putStream(context.getAuthToken(), endpoint, "/" + bucket + "/" + object, md5Hash, payload);
+            execute("PUT", true, new AuthenticatedCall<Void>() {
+                public Void call(@Nonnull AuthenticationContext context) throws CloudException, InternalException {
+                    String endpoint = context.getStorageUrl();
+                    if( endpoint == null ) {
+                        throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
+                    }
+                    HashMap<String,String> customHeaders = new HashMap<String,String>();
+                    for (int i = 0; i < tags.length ; i++ ) {
+                        customHeaders.put(prefix + tags[i].getKey(), tags[i].getValue() != null ? tags[i].getValue() : "");
+                    }
+                    putHeaders(context.getAuthToken(), endpoint, "/" + bucket, customHeaders);
+                    return null;
+                }
+            });
         }
-        catch (NovaException ex) {
-            if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-                Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-                cache.clear();
-                put(bucket, object, md5Hash, payload);
-            }
-            else {
-                throw ex;
-            }
+        catch( NovaException ex ) {
+            logger.error("Error while updating the tags for bucket - " + bucket + ": " + ex.getMessage());
         }
     }
-    
-    public void put(@Nonnull String bucket, @Nonnull String prefix, @Nonnull Tag ... tags) throws CloudException, InternalException {
-    	AuthenticationContext context = provider.getAuthenticationContext();
-    	String endpoint = context.getStorageUrl();
-    	if( endpoint == null ) {
-    		throw new CloudException("No storage endpoint exists for " + context.getMyRegion());
-    	}
-    	try {
-    		HashMap<String,String> customHeaders = new HashMap<String,String>();
-    		for (int i = 0; i < tags.length ; i++ ) {
-    			customHeaders.put(prefix + tags[i].getKey(), tags[i].getValue() != null ? tags[i].getValue() : "");
-    		}
-    		putHeaders(context.getAuthToken(), endpoint, "/" + bucket, customHeaders);
-    	}
-    	catch (NovaException ex) {
-    		if (ex.getHttpCode() == HttpStatus.SC_UNAUTHORIZED) {
-    			Cache<AuthenticationContext> cache = Cache.getInstance(provider, "authenticationContext", AuthenticationContext.class, CacheLevel.REGION_ACCOUNT, new TimePeriod<Day>(1, TimePeriod.DAY));
-    			cache.clear();
-    			put(bucket, prefix, tags);
-    		}
-    		else {
-    			logger.error("Error while updating the tags for bucket - " + bucket + ": " + ex.getMessage());
-    		}
-    	}
-    }
 }
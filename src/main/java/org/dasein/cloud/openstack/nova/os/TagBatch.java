@@ -0,0 +1,377 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.ProviderContext;
+import org.dasein.cloud.Tag;
+import org.json.JSONObject;
+
+/**
+ * Applies tag changes to many resources of one type at once. Every change queued for the same resource is merged into a
+ * single edit before anything is sent: a {@link #set(String, Tag...) set} becomes one <code>PUT .../metadata</code>
+ * carrying the final tags, and updates become one <code>POST .../metadata</code>; only removals that survive the merge
+ * are sent one key at a time, as the metadata API has no bulk delete. Different resources are written concurrently by
+ * up to <code>tagThreads</code> workers (8 by default), with every request paced by the service's
+ * {@link RateLimiter}.
+ * <p>A failure only affects its own resource; {@link #execute()} reports the outcome of each resource.</p>
+ * @since 2016.02
+ */
+public class TagBatch {
+    static private final Logger logger = NovaOpenStack.getLogger(TagBatch.class, "std");
+
+    static public final int DEFAULT_THREADS = 8;
+
+    /**
+     * The merged changes for one resource.
+     */
+    static public class Edit {
+        private final Set<String>        removed = new LinkedHashSet<String>();
+        private final Map<String,String> tags    = new LinkedHashMap<String,String>();
+
+        private boolean replace;
+
+        /**
+         * @return the keys to delete; always empty for a replacing edit
+         */
+        public @Nonnull Set<String> getRemoved() {
+            return Collections.unmodifiableSet(removed);
+        }
+
+        /**
+         * @return the tags to write, or for a replacing edit the complete set of tags the resource ends up with
+         */
+        public @Nonnull Map<String,String> getTags() {
+            return Collections.unmodifiableMap(tags);
+        }
+
+        /**
+         * @return true if the edit replaces all existing tags of the resource
+         */
+        public boolean isReplace() {
+            return replace;
+        }
+    }
+
+    /**
+     * Writes a merged edit to one resource.
+     */
+    public interface Writer {
+        /**
+         * @param limiter paces the requests; acquire it once before each request
+         * @param resourceId the resource to change
+         * @param edit the merged changes
+         * @return the number of requests sent
+         * @throws CloudException the cloud rejected a request
+         * @throws InternalException an internal error occurred sending a request
+         */
+        int write(@Nonnull RateLimiter limiter, @Nonnull String resourceId, @Nonnull Edit edit) throws CloudException, InternalException;
+    }
+
+    /**
+     * The outcome for one resource.
+     */
+    static public class Result {
+        private final Throwable error;
+        private final int       requests;
+
+        private Result(int requests, @Nullable Throwable error) {
+            this.requests = requests;
+            this.error = error;
+        }
+
+        /**
+         * @return the reason the resource could not be tagged, or <code>null</code> if it was
+         */
+        public @Nullable Throwable getError() {
+            return error;
+        }
+
+        /**
+         * @return the number of requests sent for the resource, 0 if it failed
+         */
+        public int getRequests() {
+            return requests;
+        }
+
+        public boolean isSuccess() {
+            return (error == null);
+        }
+    }
+
+    /**
+     * Writes edits to the <code>/metadata</code> sub-resource of Nova, Cinder and Glance resources. Keys are lower-cased,
+     * as in {@link NovaOpenStack#createTags(String, String, String, Tag...)}.
+     * @param provider the cloud connection
+     * @param service the service catalog type hosting the resources
+     * @param resource the collection of the resources, e.g. <code>/servers</code>
+     * @return a batch writing to the metadata of the collection's resources
+     */
+    static public @Nonnull TagBatch forMetadata(@Nonnull final NovaOpenStack provider, @Nonnull final String service, @Nonnull final String resource) {
+        return new TagBatch(provider, service, true, new Writer() {
+            @Override
+            public int write(@Nonnull RateLimiter limiter, @Nonnull String resourceId, @Nonnull Edit edit) throws CloudException, InternalException {
+                NovaMethod method = new NovaMethod(provider);
+                int requests = 0;
+
+                if( edit.isReplace() || !edit.getTags().isEmpty() ) {
+                    HashMap<String,Object> json = new HashMap<String,Object>();
+
+                    json.put("metadata", new HashMap<String,Object>(edit.getTags()));
+                    limiter.acquire();
+                    if( edit.isReplace() ) {
+                        method.putString(service, resource, resourceId, new JSONObject(json), "metadata");
+                    }
+                    else {
+                        method.postString(service, resource, resourceId, "metadata", new JSONObject(json));
+                    }
+                    requests++;
+                }
+                for( String key : edit.getRemoved() ) {
+                    limiter.acquire();
+                    method.deleteResource(service, resource + "/" + resourceId + "/metadata", key, null);
+                    requests++;
+                }
+                return requests;
+            }
+        });
+    }
+
+    private final boolean          lowerCase;
+    private final Map<String,Edit> edits = new LinkedHashMap<String,Edit>();
+    private final NovaOpenStack    provider;
+    private final String           service;
+    private final Writer           writer;
+
+    /**
+     * @param provider the cloud connection
+     * @param service the service catalog type hosting the resources, used to pick the rate limiter
+     * @param lowerCase true if the cloud treats tag keys case-insensitively, so keys should be merged in lower case
+     * @param writer sends the merged edits
+     */
+    public TagBatch(@Nonnull NovaOpenStack provider, @Nonnull String service, boolean lowerCase, @Nonnull Writer writer) {
+        this.provider = provider;
+        this.service = service;
+        this.lowerCase = lowerCase;
+        this.writer = writer;
+    }
+
+    private @Nonnull Edit getEdit(@Nonnull String resourceId) {
+        Edit edit = edits.get(resourceId);
+
+        if( edit == null ) {
+            edit = new Edit();
+            edits.put(resourceId, edit);
+        }
+        return edit;
+    }
+
+    private @Nonnull String toKey(@Nonnull Tag tag) {
+        return (lowerCase ? tag.getKey().toLowerCase(Locale.ENGLISH) : tag.getKey());
+    }
+
+    /**
+     * Queues replacing all tags of a resource.
+     * @param resourceId the resource
+     * @param tags the tags the resource should end up with
+     * @return this batch
+     */
+    public synchronized @Nonnull TagBatch set(@Nonnull String resourceId, @Nonnull Tag ... tags) {
+        Edit edit = getEdit(resourceId);
+
+        edit.replace = true;
+        edit.tags.clear();
+        edit.removed.clear();
+        for( Tag tag : tags ) {
+            edit.tags.put(toKey(tag), tag.getValue() == null ? "" : tag.getValue());
+        }
+        return this;
+    }
+
+    /**
+     * Queues adding or changing tags on a resource, leaving its other tags alone.
+     * @param resourceId the resource
+     * @param tags the tags to write
+     * @return this batch
+     */
+    public synchronized @Nonnull TagBatch update(@Nonnull String resourceId, @Nonnull Tag ... tags) {
+        Edit edit = getEdit(resourceId);
+
+        for( Tag tag : tags ) {
+            String key = toKey(tag);
+
+            edit.removed.remove(key);
+            edit.tags.put(key, tag.getValue() == null ? "" : tag.getValue());
+        }
+        return this;
+    }
+
+    /**
+     * Queues removing tags from a resource.
+     * @param resourceId the resource
+     * @param tags the tags to remove; only their keys matter
+     * @return this batch
+     */
+    public synchronized @Nonnull TagBatch remove(@Nonnull String resourceId, @Nonnull Tag ... tags) {
+        Edit edit = getEdit(resourceId);
+
+        for( Tag tag : tags ) {
+            String key = toKey(tag);
+
+            edit.tags.remove(key);
+            if( !edit.replace ) {
+                edit.removed.add(key);
+            }
+        }
+        return this;
+    }
+
+    public synchronized @Nonnull TagBatch set(@Nonnull String[] resourceIds, @Nonnull Tag ... tags) {
+        for( String id : resourceIds ) {
+            set(id, tags);
+        }
+        return this;
+    }
+
+    public synchronized @Nonnull TagBatch update(@Nonnull String[] resourceIds, @Nonnull Tag ... tags) {
+        for( String id : resourceIds ) {
+            update(id, tags);
+        }
+        return this;
+    }
+
+    public synchronized @Nonnull TagBatch remove(@Nonnull String[] resourceIds, @Nonnull Tag ... tags) {
+        for( String id : resourceIds ) {
+            remove(id, tags);
+        }
+        return this;
+    }
+
+    /**
+     * @return the number of resources with queued changes
+     */
+    public synchronized int size() {
+        return edits.size();
+    }
+
+    private int getThreads() {
+        ProviderContext ctx = provider.getContext();
+        Properties p = (ctx == null ? null : ctx.getCustomProperties());
+        String value = (p == null ? null : p.getProperty("tagThreads"));
+
+        if( value != null ) {
+            try {
+                int threads = Integer.parseInt(value.trim());
+
+                if( threads > 0 ) {
+                    return threads;
+                }
+            }
+            catch( NumberFormatException e ) {
+                logger.warn("Ignoring invalid value for tagThreads: " + value);
+            }
+        }
+        return DEFAULT_THREADS;
+    }
+
+    /**
+     * Sends the queued changes and empties the batch.
+     * @return the outcome for each resource, in the order the resources were first queued
+     * @throws InternalException the calling thread was interrupted; changes not yet sent are abandoned
+     */
+    public @Nonnull Map<String,Result> execute() throws InternalException {
+        final Map<String,Edit> pending;
+
+        synchronized( this ) {
+            pending = new LinkedHashMap<String,Edit>(edits);
+            edits.clear();
+        }
+        Map<String,Result> results = new LinkedHashMap<String,Result>();
+
+        if( pending.isEmpty() ) {
+            return results;
+        }
+        final RateLimiter limiter = provider.getRateLimiter(service);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(getThreads(), pending.size()));
+
+        try {
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+
+            for( final Map.Entry<String,Edit> entry : pending.entrySet() ) {
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws CloudException, InternalException {
+                        return writer.write(limiter, entry.getKey(), entry.getValue());
+                    }
+                }));
+            }
+            int i = 0;
+            int failed = 0;
+
+            for( String resourceId : pending.keySet() ) {
+                Result result;
+
+                try {
+                    result = new Result(futures.get(i++).get(), null);
+                }
+                catch( ExecutionException e ) {
+                    Throwable cause = (e.getCause() == null ? e : e.getCause());
+
+                    logger.warn("Unable to tag " + resourceId + ": " + cause.getMessage());
+                    result = new Result(0, cause);
+                    failed++;
+                }
+                results.put(resourceId, result);
+            }
+            if( logger.isDebugEnabled() ) {
+                logger.debug("Tagged " + (pending.size() - failed) + " of " + pending.size() + " " + service + " resources");
+            }
+            return results;
+        }
+        catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new InternalException(e);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
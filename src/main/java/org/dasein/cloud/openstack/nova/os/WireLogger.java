@@ -0,0 +1,425 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os;
+
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.log4j.Logger;
+import org.dasein.cloud.ProviderContext;
+
+/**
+ * Logs HTTP exchanges to the <code>dasein.cloud.nova.wire</code> log at debug level. When that level is disabled,
+ * {@link #open(NovaOpenStack)} hands out a shared exchange that ignores every call, so wire logging costs one level
+ * check per request and nothing else. When it is enabled, request threads only capture references (the request line,
+ * the header array, the body string) into a bounded ring buffer; a single daemon thread formats and writes them. If the
+ * buffer is full, records are dropped and counted rather than blocking the caller.
+ * <p>Tokens and credentials are redacted before anything is written: the values of the <code>X-Auth-Token</code>,
+ * <code>X-Subject-Token</code>, <code>X-Storage-Token</code>, <code>X-Auth-Key</code>, <code>X-Storage-Pass</code> and
+ * <code>Authorization</code> headers, and JSON values of passwords, API keys, secret keys, admin passwords and token
+ * ids. Bodies are cut to the <code>wireMaxBody</code> custom property (8192 characters by default).</p>
+ * <p>Each exchange is numbered, and every line it writes starts with that number so that concurrent exchanges can be
+ * told apart.</p>
+ * @since 2016.02
+ */
+public class WireLogger {
+    static private final Logger wire = NovaOpenStack.getLogger(NovaOpenStack.class, "wire");
+
+    static public final int DEFAULT_MAX_BODY = 8192;
+    static public final int CAPACITY         = 8192;
+
+    static private final String   BANNER   = "--------------------------------------------------------> ";
+    static private final String   REDACTED = "<redacted>";
+    static private final String[] SECRET_HEADERS = { "x-auth-token", "x-subject-token", "x-storage-token", "x-auth-key", "x-storage-pass", "authorization" };
+    static private final Pattern  SECRET_VALUES  = Pattern.compile("(\"(?:password|apiKey|secretKey|adminPass|token)\"\\s*:\\s*\")(?:[^\"\\\\]|\\\\.)*(\")");
+    static private final Pattern  TOKEN_OBJECTS  = Pattern.compile("\"token\"\\s*:\\s*\\{");
+
+    static private final int BEGIN    = 0;
+    static private final int REQUEST  = 1;
+    static private final int RESPONSE = 2;
+    static private final int BODY     = 3;
+    static private final int BINARY   = 4;
+    static private final int END      = 5;
+
+    /**
+     * One thing to log, formatted later by the writer thread.
+     */
+    static private class Record {
+        private final long     exchange;
+        private final int      kind;
+        private final int      maxBody;
+        private final Object   first;
+        private final Object[] rest;
+
+        Record(long exchange, int kind, int maxBody, @Nullable Object first, @Nullable Object[] rest) {
+            this.exchange = exchange;
+            this.kind = kind;
+            this.maxBody = maxBody;
+            this.first = first;
+            this.rest = rest;
+        }
+    }
+
+    static private final BlockingQueue<Record> buffer    = new ArrayBlockingQueue<Record>(CAPACITY);
+    static private final AtomicLong            dropped   = new AtomicLong();
+    static private final AtomicLong            exchanges = new AtomicLong();
+
+    static private volatile Thread writer;
+
+    /**
+     * The exchange handed out while wire logging is disabled.
+     */
+    static private final Exchange DISABLED = new Exchange(0L, 0);
+
+    /**
+     * Logs one HTTP exchange, or several attempts at one. Every method returns at once if wire logging was disabled
+     * when the exchange was opened.
+     */
+    static public class Exchange {
+        private final long id;
+        private final int  maxBody;
+
+        private Exchange(long id, int maxBody) {
+            this.id = id;
+            this.maxBody = maxBody;
+        }
+
+        private void log(int kind, @Nullable Object first, @Nullable Object ... rest) {
+            if( id == 0L ) {
+                return;
+            }
+            if( !buffer.offer(new Record(id, kind, maxBody, first, rest)) ) {
+                dropped.incrementAndGet();
+            }
+        }
+
+        /**
+         * Marks the start of a call.
+         * @param label what the call is, such as <code>KEYSTONE</code>, or <code>null</code>
+         * @param endpoint the endpoint called
+         * @param resource the resource called, or <code>null</code>
+         */
+        public void begin(@Nullable String label, @Nonnull String endpoint, @Nullable String resource) {
+            if( id != 0L ) {
+                log(BEGIN, label, endpoint, resource);
+            }
+        }
+
+        /**
+         * Logs the request line and headers of a request.
+         * @param request the request
+         */
+        public void request(@Nonnull HttpRequest request) {
+            if( id != 0L ) {
+                log(REQUEST, request.getRequestLine(), (Object[])request.getAllHeaders());
+            }
+        }
+
+        /**
+         * Logs the status line and headers of a response.
+         * @param response the response
+         */
+        public void response(@Nonnull HttpResponse response) {
+            if( id != 0L ) {
+                log(RESPONSE, response.getStatusLine(), (Object[])response.getAllHeaders());
+            }
+        }
+
+        /**
+         * Logs a request or response body.
+         * @param body the body
+         */
+        public void body(@Nullable Object body) {
+            if( id != 0L && body != null ) {
+                log(BODY, body);
+            }
+        }
+
+        /**
+         * Notes a binary body that is not logged.
+         */
+        public void binary() {
+            if( id != 0L ) {
+                log(BINARY, null);
+            }
+        }
+
+        /**
+         * Marks the end of a call.
+         */
+        public void end() {
+            if( id != 0L ) {
+                log(END, null);
+            }
+        }
+
+        /**
+         * @return true if the exchange logs anything
+         */
+        public boolean isEnabled() {
+            return (id != 0L);
+        }
+    }
+
+    /**
+     * Opens an exchange to log a call through a cloud connection.
+     * @param provider the cloud connection, whose context sets the body size limit, or <code>null</code>
+     * @return the exchange; a shared one that ignores every call when wire logging is disabled
+     */
+    static public @Nonnull Exchange open(@Nullable NovaOpenStack provider) {
+        if( !wire.isDebugEnabled() ) {
+            return DISABLED;
+        }
+        startWriter();
+        return new Exchange(exchanges.incrementAndGet(), getMaxBody(provider));
+    }
+
+    /**
+     * @return the records dropped because the ring buffer was full
+     */
+    static public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    static private int getMaxBody(@Nullable NovaOpenStack provider) {
+        ProviderContext ctx = (provider == null ? null : provider.getContext());
+        Properties p = (ctx == null ? null : ctx.getCustomProperties());
+        String value = (p == null ? null : p.getProperty("wireMaxBody"));
+
+        if( value != null ) {
+            try {
+                return Math.max(0, Integer.parseInt(value.trim()));
+            }
+            catch( NumberFormatException ignore ) {
+                // fall through to the default
+            }
+        }
+        return DEFAULT_MAX_BODY;
+    }
+
+    static private void startWriter() {
+        if( writer == null ) {
+            synchronized( WireLogger.class ) {
+                if( writer == null ) {
+                    Thread t = new Thread("Dasein OpenStack wire logger") {
+                        @Override
+                        public void run() {
+                            drain();
+                        }
+                    };
+
+                    t.setDaemon(true);
+                    t.start();
+                    writer = t;
+                }
+            }
+        }
+    }
+
+    static private void drain() {
+        long reported = 0L;
+
+        while( true ) {
+            Record record;
+
+            try {
+                record = buffer.take();
+            }
+            catch( InterruptedException e ) {
+                return;
+            }
+            long lost = dropped.get();
+
+            if( lost > reported ) {
+                wire.debug("[wire] " + (lost - reported) + " records dropped, the wire log buffer was full");
+                reported = lost;
+            }
+            try {
+                write(record);
+            }
+            catch( Throwable t ) {
+                wire.debug("[" + record.exchange + "] unable to log: " + t.getMessage());
+            }
+        }
+    }
+
+    static private void write(@Nonnull Record record) {
+        String prefix = "[" + record.exchange + "] ";
+
+        switch( record.kind ) {
+            case BEGIN:
+                String resource = (record.rest[1] == null ? "" : (String)record.rest[1]);
+
+                wire.debug(prefix + (record.first == null ? "" : record.first + " ") + BANNER + record.rest[0] + resource);
+                break;
+            case REQUEST: case RESPONSE:
+                wire.debug(prefix + record.first);
+                if( record.rest != null ) {
+                    for( Object header : record.rest ) {
+                        Header h = (Header)header;
+
+                        wire.debug(prefix + h.getName() + ": " + redactHeader(h.getName(), h.getValue()));
+                    }
+                }
+                wire.debug(prefix);
+                break;
+            case BODY:
+                wire.debug(prefix + truncate(redact(record.first.toString()), record.maxBody));
+                wire.debug(prefix);
+                break;
+            case BINARY:
+                wire.debug(prefix + " ---- BINARY DATA ---- ");
+                wire.debug(prefix);
+                break;
+            case END:
+                wire.debug(prefix + BANNER + "end");
+                break;
+            default:
+                break;
+        }
+    }
+
+    static private @Nonnull String redactHeader(@Nonnull String name, @Nullable String value) {
+        String lower = name.toLowerCase(Locale.ENGLISH);
+
+        for( String secret : SECRET_HEADERS ) {
+            if( secret.equals(lower) ) {
+                return REDACTED;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Replaces the values of credentials and token ids in a JSON document with a placeholder.
+     * @param body the document
+     * @return the document without secrets
+     */
+    static public @Nonnull String redact(@Nonnull String body) {
+        if( body.indexOf('"') < 0 ) {
+            return body;
+        }
+        Matcher m = SECRET_VALUES.matcher(body);
+
+        if( m.find() ) {
+            body = m.replaceAll("$1" + REDACTED + "$2");
+        }
+        m = TOKEN_OBJECTS.matcher(body);
+        if( m.find() ) {
+            body = redactTokenIds(body, m);
+        }
+        return body;
+    }
+
+    /**
+     * Replaces the <code>id</code> of each <code>token</code> object. The object is walked rather than matched so that
+     * the id is found wherever it sits among the other members, including after nested objects such as the tenant.
+     * @param body the document
+     * @param m a matcher positioned on the opening of the first token object
+     * @return the document without token ids
+     */
+    static private @Nonnull String redactTokenIds(@Nonnull String body, @Nonnull Matcher m) {
+        StringBuilder out = new StringBuilder(body.length());
+        int copied = 0;
+        int i;
+
+        do {
+            int depth = 1;
+
+            i = m.end();
+            while( i < body.length() && depth > 0 ) {
+                char c = body.charAt(i);
+
+                if( c == '"' ) {
+                    int end = Math.min(findClosingQuote(body, i) + 1, body.length());
+
+                    if( depth == 1 && body.startsWith("\"id\"", i) && end == i + 4 ) {
+                        int value = skipSpace(body, end);
+
+                        if( value < body.length() && body.charAt(value) == ':' ) {
+                            value = skipSpace(body, value + 1);
+                            if( value < body.length() && body.charAt(value) == '"' ) {
+                                int close = findClosingQuote(body, value);
+
+                                out.append(body, copied, value + 1).append(REDACTED);
+                                copied = close;
+                                end = Math.min(close + 1, body.length());
+                            }
+                        }
+                    }
+                    i = end;
+                    continue;
+                }
+                if( c == '{' || c == '[' ) {
+                    depth++;
+                }
+                else if( c == '}' || c == ']' ) {
+                    depth--;
+                }
+                i++;
+            }
+        } while( i < body.length() && m.find(i) );
+        return out.append(body, copied, body.length()).toString();
+    }
+
+    /**
+     * @param body the document
+     * @param start the index of the opening quote of a string
+     * @return the index of the closing quote, or the length of the document if the string is not terminated
+     */
+    static private int findClosingQuote(@Nonnull String body, int start) {
+        for( int i=start+1; i<body.length(); i++ ) {
+            char c = body.charAt(i);
+
+            if( c == '\\' ) {
+                i++;
+            }
+            else if( c == '"' ) {
+                return i;
+            }
+        }
+        return body.length();
+    }
+
+    static private int skipSpace(@Nonnull String body, int start) {
+        while( start < body.length() && Character.isWhitespace(body.charAt(start)) ) {
+            start++;
+        }
+        return start;
+    }
+
+    static private @Nonnull String truncate(@Nonnull String body, int maxBody) {
+        if( body.length() <= maxBody ) {
+            return body;
+        }
+        return body.substring(0, maxBody) + "... (" + (body.length() - maxBody) + " more characters)";
+    }
+}
@@ -33,10 +33,16 @@ import org.dasein.cloud.compute.SnapshotCreateOptions;
 import org.dasein.cloud.compute.SnapshotFilterOptions;
 import org.dasein.cloud.compute.SnapshotState;
 import org.dasein.cloud.identity.ServiceAction;
+import org.dasein.cloud.openstack.nova.os.AbstractMethod;
 import org.dasein.cloud.openstack.nova.os.NovaMethod;
 import org.dasein.cloud.openstack.nova.os.NovaOpenStack;
+import org.dasein.cloud.openstack.nova.os.TagBatch;
+import org.dasein.cloud.openstack.nova.os.StateWaiter;
 import org.dasein.cloud.util.APITrace;
 import org.dasein.util.CalendarWrapper;
+import org.dasein.util.Jiterator;
+import org.dasein.util.JiteratorPopulator;
+import org.dasein.util.PopulatorThread;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -44,8 +50,11 @@ import org.json.JSONObject;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * Implements support for snapshots from the OpenStack Cinder API.
@@ -207,79 +216,55 @@ public class CinderSnapshot extends AbstractSnapshotSupport<NovaOpenStack> {
 
     @Override
     public @Nonnull Iterable<Snapshot> listSnapshots() throws InternalException, CloudException {
-        APITrace.begin(getProvider(), "Snapshot.listSnapshots");
-        try {
-            NovaMethod method = new NovaMethod((NovaOpenStack)getProvider());
-            ArrayList<Snapshot> snapshots = new ArrayList<Snapshot>();
-
-            JSONObject json = method.getResource(SERVICE, getResource(), null, false);
-
-            if( json != null && json.has("snapshots") ) {
+        getProvider().hold();
+        PopulatorThread<Snapshot> populator = new PopulatorThread<Snapshot>(new JiteratorPopulator<Snapshot>() {
+            public void populate(@Nonnull final Jiterator<Snapshot> iterator) throws CloudException, InternalException {
                 try {
-                    JSONArray list = json.getJSONArray("snapshots");
-
-                    for( int i=0; i<list.length(); i++ ) {
-                        Snapshot snapshot = toSnapshot(list.getJSONObject(i));
-
-                        if( snapshot != null ) {
-                            snapshots.add(snapshot);
-                        }
+                    APITrace.begin(getProvider(), "Snapshot.listSnapshots");
+                    try {
+                        NovaMethod method = new NovaMethod((NovaOpenStack)getProvider());
+
+                        method.getPagedResource(SERVICE, getResource(), "snapshots", false, null, new AbstractMethod.PageHandler() {
+                            public boolean handle(@Nonnull JSONArray page) throws CloudException, InternalException, JSONException {
+                                for( int i=0; i<page.length(); i++ ) {
+                                    Snapshot snapshot = toSnapshot(page.getJSONObject(i));
+
+                                    if( snapshot != null ) {
+                                        iterator.push(snapshot);
+                                    }
+                                }
+                                return true;
+                            }
+                        });
+                    }
+                    finally {
+                        APITrace.end();
                     }
                 }
-                catch( JSONException e ) {
-                    logger.error("listSnapshots(): Unable to identify expected values in JSON: " + e.getMessage());
-                    e.printStackTrace();
-                    throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", "Missing JSON element for snapshots in " + json.toString());
+                finally {
+                    getProvider().release();
                 }
             }
-            return snapshots;
-        }
-        finally {
-            APITrace.end();
-        }
+        });
+        populator.populate();
+        return populator.getResult();
     }
 
     @Override
     public void remove(@Nonnull String snapshotId) throws InternalException, CloudException {
         APITrace.begin(getProvider(), "Snapshot.remove");
         try {
-            long timeout = System.currentTimeMillis() + (CalendarWrapper.MINUTE * 15L);
+            StateWaiter waiter = ((NovaOpenStack)getProvider()).getStateWaiter();
+            StateWaiter.Wait wait = waiter.await("snapshot", getStatusSource(), snapshotId, StateWaiter.reaching(SnapshotState.AVAILABLE, SnapshotState.DELETED), CalendarWrapper.MINUTE * 15L);
 
-            while( System.currentTimeMillis() < timeout ) {
-                try {
-                    Snapshot s = getSnapshot(snapshotId);
-
-                    if( s == null || s.getCurrentState().equals(SnapshotState.DELETED) ) {
-                        return;
-                    }
-                    if( s.getCurrentState().equals(SnapshotState.AVAILABLE) ) {
-                        break;
-                    }
-                }
-                catch( Throwable ignore ) {
-                    // ignore
-                }
-                try { Thread.sleep(15000L); }
-                catch( InterruptedException ignore ) { }
+            wait.join();
+            if( wait.isReached() && (wait.getState() == null || SnapshotState.DELETED.equals(wait.getState())) ) {
+                return;
             }
             NovaMethod method = new NovaMethod((NovaOpenStack)getProvider());
 
             method.deleteResource(SERVICE, getResource(), snapshotId, null);
-            timeout = System.currentTimeMillis() + (CalendarWrapper.MINUTE * 5L);
-            while( System.currentTimeMillis() < timeout ) {
-                try {
-                    Snapshot s = getSnapshot(snapshotId);
-
-                    if( s == null || s.getCurrentState().equals(SnapshotState.DELETED) ) {
-                        return;
-                    }
-                }
-                catch( Throwable ignore ) {
-                    // ignore
-                }
-                try { Thread.sleep(15000L); }
-                catch( InterruptedException ignore ) { }
-            }
+            waiter.await("snapshot", getStatusSource(), snapshotId, StateWaiter.reaching(SnapshotState.DELETED), CalendarWrapper.MINUTE * 5L).join();
         }
         finally {
             APITrace.end();
@@ -404,6 +389,29 @@ public class CinderSnapshot extends AbstractSnapshotSupport<NovaOpenStack> {
         }
     }
 
+    /**
+     * Looks up snapshot states for the {@link StateWaiter}, with a single snapshot GET when only one snapshot is
+     * pending and a single status listing otherwise.
+     * @return the snapshot status source
+     */
+    private @Nonnull StateWaiter.StatusSource getStatusSource() {
+        return new StateWaiter.StatusSource() {
+            @Override
+            public @Nonnull Map<String,Object> getStatus(@Nonnull Collection<String> ids) throws CloudException, InternalException {
+                if( ids.size() == 1 ) {
+                    String snapshotId = ids.iterator().next();
+                    Snapshot s = getSnapshot(snapshotId);
+
+                    if( s == null ) {
+                        return Collections.emptyMap();
+                    }
+                    return Collections.<String,Object>singletonMap(snapshotId, s.getCurrentState());
+                }
+                return StateWaiter.toStates(listSnapshotStatus(), ids);
+            }
+        };
+    }
+
     private @Nullable ResourceStatus toStatus(@Nullable JSONObject json) throws CloudException, InternalException {
         if( json == null ) {
             return null;
@@ -453,9 +461,7 @@ public class CinderSnapshot extends AbstractSnapshotSupport<NovaOpenStack> {
     
     @Override
     public void setTags(@Nonnull String[] snapshotIds, @Nonnull Tag... tags) throws CloudException, InternalException {
-    	for( String id : snapshotIds ) {
-    		setTags(id, tags);
-    	}
+    	TagBatch.forMetadata((NovaOpenStack)getProvider(), SERVICE, "/snapshots").set(snapshotIds, tags).execute();
     }
     
     @Override
@@ -471,9 +477,7 @@ public class CinderSnapshot extends AbstractSnapshotSupport<NovaOpenStack> {
     
     @Override
     public void updateTags(@Nonnull String[] snapshotIds, @Nonnull Tag... tags) throws CloudException, InternalException {
-    	for( String id : snapshotIds ) {
-    		updateTags(id, tags);
-    	}
+    	TagBatch.forMetadata((NovaOpenStack)getProvider(), SERVICE, "/snapshots").update(snapshotIds, tags).execute();
     }
     
     @Override
@@ -489,8 +493,6 @@ public class CinderSnapshot extends AbstractSnapshotSupport<NovaOpenStack> {
     
     @Override
     public void removeTags(@Nonnull String[] snapshotIds, @Nonnull Tag... tags) throws CloudException, InternalException {
-    	for( String id : snapshotIds ) {
-    		removeTags(id, tags);
-    	}
+    	TagBatch.forMetadata((NovaOpenStack)getProvider(), SERVICE, "/snapshots").remove(snapshotIds, tags).execute();
     }
 }
@@ -36,12 +36,19 @@ import org.dasein.cloud.compute.VolumeFormat;
 import org.dasein.cloud.compute.VolumeProduct;
 import org.dasein.cloud.compute.VolumeState;
 import org.dasein.cloud.compute.VolumeType;
+import org.dasein.cloud.openstack.nova.os.AbstractMethod;
+import org.dasein.cloud.openstack.nova.os.ChangeTracker;
 import org.dasein.cloud.openstack.nova.os.NovaMethod;
 import org.dasein.cloud.openstack.nova.os.NovaOpenStack;
+import org.dasein.cloud.openstack.nova.os.TagBatch;
+import org.dasein.cloud.openstack.nova.os.StateWaiter;
 import org.dasein.cloud.util.APITrace;
 import org.dasein.cloud.util.Cache;
 import org.dasein.cloud.util.CacheLevel;
 import org.dasein.util.CalendarWrapper;
+import org.dasein.util.Jiterator;
+import org.dasein.util.JiteratorPopulator;
+import org.dasein.util.PopulatorThread;
 import org.dasein.util.uom.storage.Gigabyte;
 import org.dasein.util.uom.storage.Storage;
 import org.json.JSONArray;
@@ -51,6 +58,7 @@ import org.json.JSONObject;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
@@ -72,6 +80,10 @@ public class CinderVolume extends AbstractVolumeSupport {
         super(provider);
     }
 
+    protected String getRegionId() throws CloudException, InternalException {
+        return getContext().getRegionId();
+    }
+
     private @Nonnull String getAttachmentsResource() {
         return "os-volume_attachments";
     }
@@ -397,40 +409,84 @@ public class CinderVolume extends AbstractVolumeSupport {
         }
     }
 
-    @Override
-    public @Nonnull Iterable<Volume> listVolumes() throws InternalException, CloudException {
-        APITrace.begin(getProvider(), "Volume.listVolumes");
+    /**
+     * Brings the shared snapshot of volumes for this cloud connection up to date. Cinder has no
+     * <code>changes-since</code> filter, so every sync lists all volumes, but between periodic refreshes only the
+     * volumes whose <code>updated_at</code> moved are converted again, and only those are reported as changed.
+     * @return the volumes added, updated and removed by this sync
+     * @throws CloudException an error occurred listing the volumes
+     * @throws InternalException an internal error occurred listing the volumes
+     */
+    public @Nonnull ChangeTracker.Delta<Volume> syncVolumes() throws InternalException, CloudException {
+        APITrace.begin(getProvider(), "Volume.syncVolumes");
         try {
-            Iterable<VolumeProduct> products = listVolumeProducts();
-            NovaMethod method = new NovaMethod(((NovaOpenStack)getProvider()));
-            ArrayList<Volume> volumes = new ArrayList<Volume>();
+            final Iterable<VolumeProduct> products = listVolumeProducts();
 
-            JSONObject json = method.getResource(SERVICE, getResource(), null, false);
+            return getInventoryTracker().sync(new ChangeTracker.Mapper<Volume>() {
+                @Override
+                public @Nullable Volume toValue(@Nonnull JSONObject item) throws CloudException, InternalException {
+                    return toVolume(item, products);
+                }
 
-            if( json != null && json.has("volumes") ) {
+                @Override
+                public boolean isDeleted(@Nonnull JSONObject item) {
+                    return "deleted".equalsIgnoreCase(item.optString("status"));
+                }
+
+                @Override
+                public long getUpdated(@Nonnull JSONObject item) throws CloudException, JSONException {
+                    return (item.has("updated_at") && !item.isNull("updated_at") ? NovaOpenStack.parseTimestamp(item.getString("updated_at")) : -1L);
+                }
+            });
+        }
+        finally {
+            APITrace.end();
+        }
+    }
+
+    private @Nonnull ChangeTracker<Volume> getInventoryTracker() {
+        NovaOpenStack provider = (NovaOpenStack)getProvider();
+
+        return provider.getChangeTracker("volumes", new ChangeTracker<Volume>(provider, SERVICE, getResource(), "volumes", false, true, false));
+    }
+
+    @Override
+    public @Nonnull Iterable<Volume> listVolumes() throws InternalException, CloudException {
+        if( ChangeTracker.isDeltaSyncEnabled((NovaOpenStack)getProvider()) ) {
+            syncVolumes();
+            return getInventoryTracker().getSnapshot().values();
+        }
+        getProvider().hold();
+        PopulatorThread<Volume> populator = new PopulatorThread<Volume>(new JiteratorPopulator<Volume>() {
+            public void populate(@Nonnull final Jiterator<Volume> iterator) throws CloudException, InternalException {
                 try {
-                    JSONArray list = json.getJSONArray("volumes");
+                    APITrace.begin(getProvider(), "Volume.listVolumes");
+                    try {
+                        final Iterable<VolumeProduct> products = listVolumeProducts();
+                        NovaMethod method = new NovaMethod(((NovaOpenStack)getProvider()));
 
-                    for( int i=0; i<list.length(); i++ ) {
-                        JSONObject v = list.getJSONObject(i);
-                        Volume volume = toVolume(v, products);
+                        method.getStreamedResource(SERVICE, getResource(), "volumes", false, null, true, new AbstractMethod.ItemHandler() {
+                            public boolean handle(@Nonnull JSONObject item) throws CloudException, InternalException, JSONException {
+                                Volume volume = toVolume(item, products);
 
-                        if( volume != null ) {
-                            volumes.add(volume);
-                        }
+                                if( volume != null ) {
+                                    iterator.push(volume);
+                                }
+                                return true;
+                            }
+                        });
+                    }
+                    finally {
+                        APITrace.end();
                     }
                 }
-                catch( JSONException e ) {
-                    logger.error("listVolumes(): Unable to identify expected values in JSON: " + e.getMessage());
-                    e.printStackTrace();
-                    throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", "Missing JSON element for volumes in " + json.toString());
+                finally {
+                    getProvider().release();
                 }
             }
-            return volumes;
-        }
-        finally {
-            APITrace.end();
-        }
+        });
+        populator.populate();
+        return populator.getResult();
     }
 
     @Override
@@ -448,51 +504,51 @@ public class CinderVolume extends AbstractVolumeSupport {
     public void remove(@Nonnull String volumeId) throws InternalException, CloudException {
         APITrace.begin(getProvider(), "Volume.remove");
         try {
-            long timeout = System.currentTimeMillis() + (CalendarWrapper.MINUTE * 10L);
-            Volume v = getVolume(volumeId);
+            StateWaiter waiter = ((NovaOpenStack)getProvider()).getStateWaiter();
+            StateWaiter.Wait wait = waiter.await("volume", getStatusSource(), volumeId, StateWaiter.leaving(VolumeState.PENDING), CalendarWrapper.MINUTE * 10L);
 
-            while( timeout > System.currentTimeMillis() ) {
-                if( v == null ) {
-                    return;
-                }
-                if( !VolumeState.PENDING.equals(v.getCurrentState()) ) {
-                    break;
-                }
-                try { Thread.sleep(15000L); }
-                catch( InterruptedException ignore ) { }
-                try {
-                    v = getVolume(volumeId);
-                }
-                catch( Throwable ignore ) {
-                    // ignore
-                }
+            wait.join();
+            if( wait.isReached() && wait.getState() == null ) {
+                return;
             }
             NovaMethod method = new NovaMethod(((NovaOpenStack)getProvider()));
 
             method.deleteResource(SERVICE, getResource(), volumeId, null);
 
-            v = getVolume(volumeId);
-            timeout = System.currentTimeMillis() + (CalendarWrapper.MINUTE * 10L);
-            while( timeout > System.currentTimeMillis() ) {
-                if( v == null || v.getCurrentState().equals(VolumeState.DELETED)) {
-                    return;
-                }
-                try { Thread.sleep(15000L); }
-                catch( InterruptedException ignore ) { }
-                try {
-                    v = getVolume(volumeId);
-                }
-                catch( Throwable ignore ) {
-                    // ignore
-                }
+            wait = waiter.await("volume", getStatusSource(), volumeId, StateWaiter.reaching(VolumeState.DELETED), CalendarWrapper.MINUTE * 10L);
+            wait.join();
+            if( !wait.isReached() ) {
+                logger.warn("Volume remove op accepted but still available: current state - " + wait.getState());
             }
-            logger.warn("Volume remove op accepted but still available: current state - "+v.getCurrentState());
         }
         finally {
             APITrace.end();
         }
     }
 
+    /**
+     * Looks up volume states for the {@link StateWaiter}, with a single volume GET when only one volume is pending and
+     * a single status listing otherwise.
+     * @return the volume status source
+     */
+    private @Nonnull StateWaiter.StatusSource getStatusSource() {
+        return new StateWaiter.StatusSource() {
+            @Override
+            public @Nonnull Map<String,Object> getStatus(@Nonnull Collection<String> ids) throws CloudException, InternalException {
+                if( ids.size() == 1 ) {
+                    String volumeId = ids.iterator().next();
+                    Volume v = getVolume(volumeId);
+
+                    if( v == null ) {
+                        return Collections.emptyMap();
+                    }
+                    return Collections.<String,Object>singletonMap(volumeId, v.getCurrentState());
+                }
+                return StateWaiter.toStates(listVolumeStatus(), ids);
+            }
+        };
+    }
+
     private @Nullable ResourceStatus toStatus(@Nullable JSONObject json) throws CloudException, InternalException {
         if( json == null ) {
             return null;
@@ -538,7 +594,7 @@ public class CinderVolume extends AbstractVolumeSupport {
         }
     }
 
-    private @Nullable Volume toVolume(@Nullable JSONObject json, @Nonnull Iterable<VolumeProduct> types) throws CloudException, InternalException {
+    protected @Nullable Volume toVolume(@Nullable JSONObject json, @Nonnull Iterable<VolumeProduct> types) throws CloudException, InternalException {
         if( json == null ) {
             return null;
         }
@@ -551,7 +607,7 @@ public class CinderVolume extends AbstractVolumeSupport {
                 return null;
             }
 
-            String region = getContext().getRegionId();
+            String region = getRegionId();
             /*String dataCenter;
             if( json.has("availability_zone") && json.getString("availability_zone") != null && !json.getString("availability_zone").isEmpty() ) {
                 dataCenter = json.getString("availability_zone");
@@ -711,9 +767,7 @@ public class CinderVolume extends AbstractVolumeSupport {
     
     @Override
     public void setTags(@Nonnull String[] volumeIds, @Nonnull Tag... tags) throws CloudException, InternalException {
-    	for( String id : volumeIds ) {
-    		setTags(id, tags);
-    	}
+    	TagBatch.forMetadata((NovaOpenStack)getProvider(), SERVICE, "/volumes").set(volumeIds, tags).execute();
     }
     
     @Override
@@ -729,9 +783,7 @@ public class CinderVolume extends AbstractVolumeSupport {
     
     @Override
     public void updateTags(@Nonnull String[] volumeIds, @Nonnull Tag... tags) throws CloudException, InternalException {
-    	for( String id : volumeIds ) {
-    		updateTags(id, tags);
-    	}
+    	TagBatch.forMetadata((NovaOpenStack)getProvider(), SERVICE, "/volumes").update(volumeIds, tags).execute();
     }
     
     @Override
@@ -747,8 +799,6 @@ public class CinderVolume extends AbstractVolumeSupport {
     
     @Override
     public void removeTags(@Nonnull String[] volumeIds, @Nonnull Tag... tags) throws CloudException, InternalException {
-    	for( String id : volumeIds ) {
-    		removeTags(id, tags);
-    	}
+    	TagBatch.forMetadata((NovaOpenStack)getProvider(), SERVICE, "/volumes").remove(volumeIds, tags).execute();
     }
 }
@@ -20,9 +20,11 @@
 package org.dasein.cloud.openstack.nova.os.compute;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -38,7 +40,6 @@ import org.dasein.cloud.ResourceStatus;
 import org.dasein.cloud.Tag;
 import org.dasein.cloud.compute.AbstractImageSupport;
 import org.dasein.cloud.compute.Architecture;
-import org.dasein.cloud.compute.ComputeServices;
 import org.dasein.cloud.compute.ImageCapabilities;
 import org.dasein.cloud.compute.ImageClass;
 import org.dasein.cloud.compute.ImageCreateOptions;
@@ -48,13 +49,19 @@ import org.dasein.cloud.compute.MachineImageState;
 import org.dasein.cloud.compute.MachineImageType;
 import org.dasein.cloud.compute.Platform;
 import org.dasein.cloud.compute.VirtualMachine;
-import org.dasein.cloud.compute.VirtualMachineSupport;
 import org.dasein.cloud.compute.VmState;
+import org.dasein.cloud.openstack.nova.os.AbstractMethod;
+import org.dasein.cloud.openstack.nova.os.ChangeTracker;
 import org.dasein.cloud.openstack.nova.os.NovaException;
 import org.dasein.cloud.openstack.nova.os.NovaMethod;
 import org.dasein.cloud.openstack.nova.os.NovaOpenStack;
+import org.dasein.cloud.openstack.nova.os.TagBatch;
+import org.dasein.cloud.openstack.nova.os.StateWaiter;
 import org.dasein.cloud.util.APITrace;
 import org.dasein.util.CalendarWrapper;
+import org.dasein.util.Jiterator;
+import org.dasein.util.JiteratorPopulator;
+import org.dasein.util.PopulatorThread;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -67,10 +74,14 @@ public class NovaImage extends AbstractImageSupport<NovaOpenStack> {
         super(provider);
     }
 
-    private @Nonnull String getTenantId() throws CloudException, InternalException {
+    @Nonnull protected String getTenantId() throws CloudException, InternalException {
         return ((NovaOpenStack)getProvider()).getContext().getAccountNumber();
     }
 
+    protected String getRegionId() throws InternalException {
+        return getContext().getRegionId();
+    }
+
     public @Nullable String getImageRef(@Nonnull String machineImageId) throws CloudException, InternalException {
         APITrace.begin(getProvider(), "Image.getImageRef");
         try {
@@ -125,38 +136,25 @@ public class NovaImage extends AbstractImageSupport<NovaOpenStack> {
             Platform platform = null;
 
             if( vmId != null ) {
-                long timeout = (System.currentTimeMillis() + CalendarWrapper.MINUTE*10L);
-
-                while( timeout > System.currentTimeMillis() ) {
-                    try {
-                        ComputeServices services = getProvider().getComputeServices();
-                        VirtualMachine vm = null;
+                NovaServer servers = ((NovaOpenStack)getProvider()).getComputeServices().getVirtualMachineSupport();
+                VirtualMachine vm = servers.getVirtualMachine(vmId);
 
-                        if( services != null ) {
-                            VirtualMachineSupport support = services.getVirtualMachineSupport();
-
-                            if( support != null ) {
-                                vm = support.getVirtualMachine(vmId);
-                            }
-                        }
-                        if( vm == null ) {
-                            throw new CloudException("No such virtual machine: " + vmId);
+                if( vm == null ) {
+                    throw new CloudException("No such virtual machine: " + vmId);
+                }
+                platform = vm.getPlatform();
+                // wait out a build or an earlier snapshot of the same server before asking for another image
+                ((NovaOpenStack)getProvider()).getStateWaiter().await("server", servers.getStatusSource(), vmId, new StateWaiter.Condition() {
+                    @Override
+                    public boolean isReached(@Nullable Object state) {
+                        if( state == null ) {
+                            return true;
                         }
-                        platform = vm.getPlatform();
-                        if( !VmState.PENDING.equals(vm.getCurrentState()) ) {
-                            String tag = (String)vm.getTag("OS-EXT-STS:task_state");
+                        NovaServer.ServerStatus s = (NovaServer.ServerStatus)state;
 
-                            if( tag == null || !tag.equalsIgnoreCase("image_snapshot") ) {
-                                break;
-                            }
-                        }
-                    }
-                    catch( Throwable ignore ) {
-                        // ignore
+                        return (!VmState.PENDING.equals(s.getVmState()) && !"image_snapshot".equalsIgnoreCase(s.getTaskState()));
                     }
-                    try { Thread.sleep(15000L); }
-                    catch( InterruptedException ignore ) { }
-                }
+                }, CalendarWrapper.MINUTE * 10L).join();
             }
             JSONObject result;
 
@@ -198,15 +196,21 @@ public class NovaImage extends AbstractImageSupport<NovaOpenStack> {
             }
             else if( result != null && result.has("location") ) {
                 try {
-                    long timeout = System.currentTimeMillis() + CalendarWrapper.MINUTE * 20L;
                     String location = result.getString("location");
                     int idx = location.lastIndexOf('/');
 
                     if( idx > 0 ) {
                         location = location.substring(idx+1);
                     }
+                    StateWaiter.Wait wait = ((NovaOpenStack)getProvider()).getStateWaiter().await("image", getStatusSource(), location, new StateWaiter.Condition() {
+                        @Override
+                        public boolean isReached(@Nullable Object state) {
+                            return (state != null);
+                        }
+                    }, CalendarWrapper.MINUTE * 20L);
 
-                    while( timeout > System.currentTimeMillis() ) {
+                    wait.join();
+                    if( wait.isReached() ) {
                         MachineImage image = getImage(location);
 
                         if( image != null ) {
@@ -215,8 +219,6 @@ public class NovaImage extends AbstractImageSupport<NovaOpenStack> {
                             }
                             return image;
                         }
-                        try { Thread.sleep(15000L); }
-                        catch( InterruptedException ignore ) { }
                     }
                 }
                 catch( JSONException e ) {
@@ -231,6 +233,29 @@ public class NovaImage extends AbstractImageSupport<NovaOpenStack> {
         }
     }
 
+    /**
+     * Looks up image states for the {@link StateWaiter}, with a single image GET when only one image is pending and a
+     * single status listing otherwise.
+     * @return the image status source
+     */
+    private @Nonnull StateWaiter.StatusSource getStatusSource() {
+        return new StateWaiter.StatusSource() {
+            @Override
+            public @Nonnull Map<String,Object> getStatus(@Nonnull Collection<String> ids) throws CloudException, InternalException {
+                if( ids.size() == 1 ) {
+                    String imageId = ids.iterator().next();
+                    MachineImage image = getImage(imageId);
+
+                    if( image == null ) {
+                        return Collections.emptyMap();
+                    }
+                    return Collections.<String,Object>singletonMap(imageId, image.getCurrentState());
+                }
+                return StateWaiter.toStates(listImageStatus(ImageClass.MACHINE), ids);
+            }
+        };
+    }
+
     private transient volatile NovaImageCapabilities capabilities;
     @Override
     public ImageCapabilities getCapabilities() throws CloudException, InternalException {
@@ -349,46 +374,101 @@ public class NovaImage extends AbstractImageSupport<NovaOpenStack> {
 
     @Override
     public @Nonnull Iterable<MachineImage> listImages(@Nullable ImageFilterOptions options) throws CloudException, InternalException {
-        APITrace.begin(getProvider(), "Image.listImages");
-        try {
-            String account = (options == null ? null : options.getAccountNumber());
+        String account = (options == null ? null : options.getAccountNumber());
+
+        if( account == null ) {
+            if( options == null ) {
+                options = ImageFilterOptions.getInstance().withAccountNumber(getTenantId());
+            }
+            else {
+                options.withAccountNumber(getTenantId());
+            }
+        }
+        final ImageFilterOptions filter = options;
+
+        if( ChangeTracker.isDeltaSyncEnabled((NovaOpenStack)getProvider()) ) {
+            syncImages();
+            ArrayList<MachineImage> images = new ArrayList<MachineImage>();
 
-            if( account == null ) {
-                if( options == null ) {
-                    options = ImageFilterOptions.getInstance().withAccountNumber(getTenantId());
+            for( MachineImage img : getInventoryTracker().getSnapshot().values() ) {
+                if( filter.matches(img) ) {
+                    images.add(img);
                 }
-                else {
-                    options.withAccountNumber(getTenantId());
+            }
+            return images;
+        }
+        getProvider().hold();
+        PopulatorThread<MachineImage> populator = new PopulatorThread<MachineImage>(new JiteratorPopulator<MachineImage>() {
+            public void populate(@Nonnull final Jiterator<MachineImage> iterator) throws CloudException, InternalException {
+                try {
+                    APITrace.begin(getProvider(), "Image.listImages");
+                    try {
+                        NovaMethod method = new NovaMethod((NovaOpenStack)getProvider());
+
+                        method.getPagedResource(NovaServer.SERVICE, "/images", "images", true, null, new AbstractMethod.PageHandler() {
+                            public boolean handle(@Nonnull JSONArray page) throws CloudException, InternalException, JSONException {
+                                for( int i=0; i<page.length(); i++ ) {
+                                    MachineImage img = toImage(page.getJSONObject(i));
+
+                                    if( img != null && filter.matches(img) ) {
+                                        iterator.push(img);
+                                    }
+                                }
+                                return true;
+                            }
+                        });
+                    }
+                    finally {
+                        APITrace.end();
+                    }
+                }
+                finally {
+                    getProvider().release();
                 }
             }
-            NovaMethod method = new NovaMethod((NovaOpenStack)getProvider());
-            JSONObject ob = method.getServers("/images", null, true);
-            ArrayList<MachineImage> images = new ArrayList<MachineImage>();
+        });
+        populator.populate();
+        return populator.getResult();
+    }
 
-            try {
-                if( ob != null && ob.has("images") ) {
-                    JSONArray list = ob.getJSONArray("images");
+    /**
+     * Brings the shared snapshot of machine images for this cloud connection up to date, fetching only the images
+     * changed since the previous sync.
+     * @return the images added, updated and removed by this sync
+     * @throws CloudException an error occurred listing the images
+     * @throws InternalException an internal error occurred listing the images
+     */
+    public @Nonnull ChangeTracker.Delta<MachineImage> syncImages() throws CloudException, InternalException {
+        APITrace.begin(getProvider(), "Image.syncImages");
+        try {
+            return getInventoryTracker().sync(new ChangeTracker.Mapper<MachineImage>() {
+                @Override
+                public @Nullable MachineImage toValue(@Nonnull JSONObject item) throws CloudException, InternalException {
+                    return toImage(item);
+                }
 
-                    for( int i=0; i<list.length(); i++ ) {
-                        JSONObject image = list.getJSONObject(i);
-                        MachineImage img = toImage(image);
+                @Override
+                public boolean isDeleted(@Nonnull JSONObject item) {
+                    return "deleted".equalsIgnoreCase(item.optString("status"));
+                }
 
-                        if( img != null && options.matches(img) ) {
-                            images.add(img);
-                        }
-                    }
+                @Override
+                public long getUpdated(@Nonnull JSONObject item) throws CloudException, JSONException {
+                    return (item.has("updated") && !item.isNull("updated") ? NovaOpenStack.parseTimestamp(item.getString("updated")) : -1L);
                 }
-            }
-            catch( JSONException e ) {
-                throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", "Missing JSON element for images: " + e.getMessage());
-            }
-            return images;
+            });
         }
         finally {
             APITrace.end();
         }
     }
 
+    private @Nonnull ChangeTracker<MachineImage> getInventoryTracker() {
+        NovaOpenStack provider = (NovaOpenStack)getProvider();
+
+        return provider.getChangeTracker("images", new ChangeTracker<MachineImage>(provider, NovaServer.SERVICE, "/images", "images", true, true, true));
+    }
+
     @Override
     public void remove(@Nonnull String providerImageId, boolean checkState) throws CloudException, InternalException {
         APITrace.begin(getProvider(), "Image.remove");
@@ -574,7 +654,7 @@ public class NovaImage extends AbstractImageSupport<NovaOpenStack> {
                         platform = p;
                     }
                 }
-                MachineImage image = MachineImage.getMachineImageInstance(owner, getContext().getRegionId(), imageId, currentState, name, description, architecture, platform).createdAt(created);
+                MachineImage image = MachineImage.getMachineImageInstance(owner, getRegionId(), imageId, currentState, name, description, architecture, platform).createdAt(created);
 
                 if( md != null ) {
                     String[] names = JSONObject.getNames(md);
@@ -678,9 +758,7 @@ public class NovaImage extends AbstractImageSupport<NovaOpenStack> {
     
     @Override
     public void setTags(@Nonnull String[] imageIds, @Nonnull Tag... tags) throws CloudException, InternalException {
-    	for( String id : imageIds ) {
-    		setTags(id, tags);
-    	}
+    	TagBatch.forMetadata(getProvider(), SERVICE, "/images").set(imageIds, tags).execute();
     }
     
     @Override
@@ -696,9 +774,7 @@ public class NovaImage extends AbstractImageSupport<NovaOpenStack> {
     
     @Override
     public void updateTags(@Nonnull String[] imageIds, @Nonnull Tag... tags) throws CloudException, InternalException {
-    	for( String id : imageIds ) {
-    		updateTags(id, tags);
-    	}
+    	TagBatch.forMetadata(getProvider(), SERVICE, "/images").update(imageIds, tags).execute();
     }
     
     @Override
@@ -714,8 +790,6 @@ public class NovaImage extends AbstractImageSupport<NovaOpenStack> {
     
     @Override
     public void removeTags(@Nonnull String[] imageIds, @Nonnull Tag... tags) throws CloudException, InternalException {
-    	for( String id : imageIds ) {
-    		removeTags(id, tags);
-    	}
+    	TagBatch.forMetadata(getProvider(), SERVICE, "/images").remove(imageIds, tags).execute();
     }
 }
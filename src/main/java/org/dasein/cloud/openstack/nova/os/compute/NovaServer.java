@@ -20,8 +20,9 @@
 package org.dasein.cloud.openstack.nova.os.compute;
 
 import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.net.util.SubnetUtils;
 import org.apache.http.HttpStatus;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.log4j.Logger;
 import org.dasein.cloud.*;
 import org.dasein.cloud.compute.*;
@@ -29,16 +30,18 @@ import org.dasein.cloud.network.Firewall;
 import org.dasein.cloud.network.FirewallSupport;
 import org.dasein.cloud.network.IPVersion;
 import org.dasein.cloud.network.IpAddress;
-import org.dasein.cloud.network.IpAddressSupport;
-import org.dasein.cloud.network.NetworkServices;
 import org.dasein.cloud.network.RawAddress;
 import org.dasein.cloud.network.Subnet;
 import org.dasein.cloud.network.VLAN;
-import org.dasein.cloud.network.VLANSupport;
+import org.dasein.cloud.openstack.nova.os.AbstractMethod;
+import org.dasein.cloud.openstack.nova.os.ChangeTracker;
 import org.dasein.cloud.openstack.nova.os.NovaException;
 import org.dasein.cloud.openstack.nova.os.NovaMethod;
 import org.dasein.cloud.openstack.nova.os.NovaOpenStack;
+import org.dasein.cloud.openstack.nova.os.TagBatch;
 import org.dasein.cloud.openstack.nova.os.OpenStackProvider;
+import org.dasein.cloud.openstack.nova.os.RateLimiter;
+import org.dasein.cloud.openstack.nova.os.StateWaiter;
 import org.dasein.cloud.openstack.nova.os.network.NovaFloatingIP;
 import org.dasein.cloud.openstack.nova.os.network.NovaNetworkServices;
 import org.dasein.cloud.openstack.nova.os.network.NovaSecurityGroup;
@@ -47,6 +50,9 @@ import org.dasein.cloud.util.APITrace;
 import org.dasein.cloud.util.Cache;
 import org.dasein.cloud.util.CacheLevel;
 import org.dasein.util.CalendarWrapper;
+import org.dasein.util.Jiterator;
+import org.dasein.util.JiteratorPopulator;
+import org.dasein.util.PopulatorThread;
 import org.dasein.util.uom.storage.Gigabyte;
 import org.dasein.util.uom.storage.Megabyte;
 import org.dasein.util.uom.storage.Storage;
@@ -60,6 +66,11 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.UnsupportedEncodingException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Implements services supporting interaction with cloud virtual machines.
@@ -76,6 +87,65 @@ public class NovaServer extends AbstractVMSupport<NovaOpenStack> {
     static public final String SERVICE = "compute";
     public static final String ORG_DASEIN_PORT_ID = "org.dasein.portId";
 
+    static public final int DEFAULT_LAUNCH_THREADS = 8;
+
+    /**
+     * How long {@link #launchMany(VMLaunchOptions, int)} waits for its servers to leave <code>BUILD</code>.
+     */
+    static public final long LAUNCH_TIMEOUT = 20 * CalendarWrapper.MINUTE;
+
+    /**
+     * The raw Nova status of a server together with its task state, as tracked by the {@link StateWaiter}.
+     * @since 2016.02
+     */
+    static public class ServerStatus {
+        private final String status;
+        private final String taskState;
+
+        public ServerStatus(@Nonnull String status, @Nullable String taskState) {
+            this.status = status;
+            this.taskState = taskState;
+        }
+
+        /**
+         * @return the Nova status, such as <code>ACTIVE</code> or <code>VERIFY_RESIZE</code>
+         */
+        public @Nonnull String getStatus() {
+            return status;
+        }
+
+        /**
+         * @return the <code>OS-EXT-STS:task_state</code> of the server, or <code>null</code> if it has none
+         */
+        public @Nullable String getTaskState() {
+            return taskState;
+        }
+
+        public @Nonnull VmState getVmState() {
+            return toState(status);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if( !(other instanceof ServerStatus) ) {
+                return false;
+            }
+            ServerStatus s = (ServerStatus)other;
+
+            return (status.equals(s.status) && (taskState == null ? s.taskState == null : taskState.equals(s.taskState)));
+        }
+
+        @Override
+        public int hashCode() {
+            return status.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return (taskState == null ? status : status + " (" + taskState + ")");
+        }
+    }
+
     NovaServer(NovaOpenStack provider) {
         super(provider);
     }
@@ -200,6 +270,18 @@ public class NovaServer extends AbstractVMSupport<NovaOpenStack> {
 
     @Override
     public @Nullable VirtualMachine getVirtualMachine(@Nonnull String vmId) throws InternalException, CloudException {
+        return getVirtualMachine(vmId, null);
+    }
+
+    /**
+     * Fetches a single virtual machine, resolving its addresses and subnet against the supplied network context.
+     * @param vmId the virtual machine to fetch
+     * @param context the network context to reuse, or <code>null</code> to fetch a fresh one
+     * @return the matching virtual machine, or <code>null</code> if it does not exist
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     * @throws CloudException an error occurred with the cloud provider
+     */
+    protected @Nullable VirtualMachine getVirtualMachine(@Nonnull String vmId, @Nullable ServerNetworkContext context) throws InternalException, CloudException {
         APITrace.begin(getProvider(), "VM.getVirtualMachine");
         try {
             JSONObject ob = getMethod().getServers("/servers", vmId, true);
@@ -207,38 +289,13 @@ public class NovaServer extends AbstractVMSupport<NovaOpenStack> {
             if( ob == null ) {
                 return null;
             }
-            Iterable<IpAddress> ipv4, ipv6;
-            Iterable<VLAN> networks;
-
-            NetworkServices services = getNetworkServices();
-            if( services != null ) {
-                IpAddressSupport support = services.getIpAddressSupport();
-
-                if( support != null ) {
-                    ipv4 = support.listIpPool(IPVersion.IPV4, false);
-                    ipv6 = support.listIpPool(IPVersion.IPV6, false);
-                }
-                else {
-                    ipv4 = ipv6 = Collections.emptyList();
-                }
-
-                VLANSupport vs = services.getVlanSupport();
-
-                if( vs != null ) {
-                    networks = vs.listVlans();
-                }
-                else {
-                    networks = Collections.emptyList();
-                }
-            }
-            else {
-                ipv4 = ipv6 = Collections.emptyList();
-                networks = Collections.emptyList();
+            if( context == null ) {
+                context = ServerNetworkContext.load(getNetworkServices());
             }
             try {
                 if( ob.has("server") ) {
                     JSONObject server = ob.getJSONObject("server");
-                    VirtualMachine vm = toVirtualMachine(server, ipv4, ipv6, networks);
+                    VirtualMachine vm = toVirtualMachine(server, context.getIpv4(), context.getIpv6(), context);
 
                     if( vm != null ) {
                         return vm;
@@ -256,6 +313,197 @@ public class NovaServer extends AbstractVMSupport<NovaOpenStack> {
         }
     }
 
+    /**
+     * Looks up server states for the {@link StateWaiter} as {@link ServerStatus} values, with a single server GET when
+     * only one server is pending and a single <code>changes-since</code> sync of the server status snapshot otherwise.
+     * @return the server status source
+     */
+    public @Nonnull StateWaiter.StatusSource getStatusSource() {
+        return new StateWaiter.StatusSource() {
+            @Override
+            public @Nonnull Map<String,Object> getStatus(@Nonnull Collection<String> ids) throws CloudException, InternalException {
+                Map<String,Object> states = new HashMap<String,Object>();
+
+                try {
+                    if( ids.size() == 1 ) {
+                        String id = ids.iterator().next();
+                        JSONObject ob = getMethod().getServers("/servers", id, true);
+
+                        if( ob != null && ob.has("server") ) {
+                            putStatus(states, ob.getJSONObject("server"));
+                        }
+                    }
+                    else {
+                        ChangeTracker<ServerStatus> tracker = getStatusTracker();
+
+                        tracker.sync(STATUS_MAPPER);
+                        for( Map.Entry<String,ServerStatus> entry : tracker.getSnapshot().entrySet() ) {
+                            if( ids.contains(entry.getKey()) ) {
+                                states.put(entry.getKey(), entry.getValue());
+                            }
+                        }
+                    }
+                }
+                catch( JSONException e ) {
+                    throw new CloudException(e);
+                }
+                return states;
+            }
+        };
+    }
+
+    private void putStatus(@Nonnull Map<String,Object> states, @Nonnull JSONObject server) throws JSONException {
+        ServerStatus status = toServerStatus(server);
+
+        if( status != null ) {
+            states.put(server.getString("id"), status);
+        }
+    }
+
+    static private @Nullable ServerStatus toServerStatus(@Nonnull JSONObject server) throws JSONException {
+        if( !server.has("id") || !server.has("status") ) {
+            return null;
+        }
+        String taskState = (server.isNull("OS-EXT-STS:task_state") ? null : server.optString("OS-EXT-STS:task_state", null));
+
+        return new ServerStatus(server.getString("status"), taskState);
+    }
+
+    /**
+     * Provides the snapshot of server states for this cloud connection, kept current with <code>changes-since</code>
+     * listings of <code>/servers/detail</code>.
+     * @return the shared server status tracker
+     */
+    protected @Nonnull ChangeTracker<ServerStatus> getStatusTracker() {
+        return getProvider().getChangeTracker("servers.status", new ChangeTracker<ServerStatus>(getProvider(), SERVICE, "/servers", "servers", true, true, true));
+    }
+
+    static private final ChangeTracker.Mapper<ServerStatus> STATUS_MAPPER = new ServerMapper<ServerStatus>() {
+        @Override
+        public @Nullable ServerStatus toValue(@Nonnull JSONObject item) throws JSONException {
+            return toServerStatus(item);
+        }
+    };
+
+    static private abstract class ServerMapper<T> implements ChangeTracker.Mapper<T> {
+        @Override
+        public boolean isDeleted(@Nonnull JSONObject item) throws JSONException {
+            return "deleted".equalsIgnoreCase(item.optString("status"));
+        }
+
+        @Override
+        public long getUpdated(@Nonnull JSONObject item) throws CloudException, JSONException {
+            return (item.has("updated") && !item.isNull("updated") ? NovaOpenStack.parseTimestamp(item.getString("updated")) : -1L);
+        }
+    }
+
+    /**
+     * Brings the shared snapshot of virtual machines for this cloud connection up to date, fetching only the servers
+     * changed since the previous sync. Addresses are resolved when a server is fetched, so a change that does not
+     * touch the server record itself (such as a floating IP association) shows up at the next full listing.
+     * @return the virtual machines added, updated and removed by this sync
+     * @throws CloudException an error occurred listing the servers
+     * @throws InternalException an internal error occurred listing the servers
+     */
+    public @Nonnull ChangeTracker.Delta<VirtualMachine> syncVirtualMachines() throws InternalException, CloudException {
+        APITrace.begin(getProvider(), "VM.syncVirtualMachines");
+        try {
+            final ServerNetworkContext context = ServerNetworkContext.load(getNetworkServices());
+
+            return getInventoryTracker().sync(new ServerMapper<VirtualMachine>() {
+                @Override
+                public @Nullable VirtualMachine toValue(@Nonnull JSONObject item) throws CloudException, InternalException, JSONException {
+                    return toVirtualMachine(item, context.getIpv4(), context.getIpv6(), context);
+                }
+            });
+        }
+        finally {
+            APITrace.end();
+        }
+    }
+
+    private @Nonnull ChangeTracker<VirtualMachine> getInventoryTracker() {
+        return getProvider().getChangeTracker("servers", new ChangeTracker<VirtualMachine>(getProvider(), SERVICE, "/servers", "servers", true, true, true));
+    }
+
+    /**
+     * Receives the state transitions of watched virtual machines.
+     * @since 2016.02
+     */
+    public interface StateListener {
+        /**
+         * @param virtualMachineId the virtual machine that changed
+         * @param previous the state before the change, or <code>null</code> on the first observation
+         * @param current the new state, or <code>null</code> if the virtual machine no longer exists
+         */
+        void stateChanged(@Nonnull String virtualMachineId, @Nullable VmState previous, @Nullable VmState current);
+    }
+
+    /**
+     * Fetches the states of many virtual machines with a single <code>changes-since</code> sync of the server status
+     * snapshot rather than one GET per virtual machine.
+     * @param virtualMachineIds the virtual machines of interest
+     * @return the status of each of the virtual machines that still exists
+     * @throws CloudException an error occurred listing the servers
+     * @throws InternalException an internal error occurred listing the servers
+     */
+    public @Nonnull Iterable<ResourceStatus> listVirtualMachineStatus(@Nonnull Collection<String> virtualMachineIds) throws InternalException, CloudException {
+        APITrace.begin(getProvider(), "VM.listVirtualMachineStatus");
+        try {
+            ChangeTracker<ServerStatus> tracker = getStatusTracker();
+            List<ResourceStatus> statuses = new ArrayList<ResourceStatus>();
+
+            tracker.sync(STATUS_MAPPER);
+            Map<String,ServerStatus> snapshot = tracker.getSnapshot();
+
+            for( String id : virtualMachineIds ) {
+                ServerStatus status = snapshot.get(id);
+
+                if( status != null ) {
+                    statuses.add(new ResourceStatus(id, status.getVmState()));
+                }
+            }
+            return statuses;
+        }
+        finally {
+            APITrace.end();
+        }
+    }
+
+    /**
+     * Watches virtual machines for state transitions through the shared {@link StateWaiter}, so the states of all
+     * watched virtual machines are fetched with one call per polling interval. The listener is called from the
+     * waiter's thread. Watching a virtual machine ends when it terminates or disappears, when its wait is cancelled,
+     * or when the timeout passes.
+     * @param virtualMachineIds the virtual machines to watch
+     * @param listener the listener to notify of transitions
+     * @param timeout how long to watch in milliseconds
+     * @return the waits backing the watch, one per virtual machine
+     */
+    public @Nonnull List<StateWaiter.Wait> watchVirtualMachines(@Nonnull Collection<String> virtualMachineIds, @Nonnull final StateListener listener, long timeout) {
+        List<StateWaiter.Wait> waits = new ArrayList<StateWaiter.Wait>();
+
+        for( final String id : virtualMachineIds ) {
+            waits.add(getProvider().getStateWaiter().await("server", getStatusSource(), id, new StateWaiter.Condition() {
+                private boolean observed;
+                private VmState last;
+
+                @Override
+                public boolean isReached(@Nullable Object state) {
+                    VmState current = (state == null ? null : ((ServerStatus)state).getVmState());
+
+                    if( !observed || current != last ) {
+                        listener.stateChanged(id, last, current);
+                        observed = true;
+                        last = current;
+                    }
+                    return (current == null || VmState.TERMINATED.equals(current));
+                }
+            }, timeout));
+        }
+        return waits;
+    }
+
     protected @Nonnull String getServerStatus(@Nonnull String virtualMachineId) throws InternalException, CloudException {
         APITrace.begin(getProvider(), "VM.getVmStatus");
         try {
@@ -281,14 +529,21 @@ public class NovaServer extends AbstractVMSupport<NovaOpenStack> {
             json.put("resize", action);
 
             getMethod().postServers("/servers", virtualMachineId, new JSONObject(json), true);
-            String status;
-            while( "resize".equalsIgnoreCase(status = getServerStatus(virtualMachineId)) ) {
-                try {
-                    Thread.sleep(5000L);
-                }
-                catch( InterruptedException e ) {
+            StateWaiter.Wait wait = getProvider().getStateWaiter().await("server", getStatusSource(), virtualMachineId, new StateWaiter.Condition() {
+                @Override
+                public boolean isReached(@Nullable Object state) {
+                    return (state == null || !"resize".equalsIgnoreCase(((ServerStatus)state).getStatus()));
                 }
+            }, CalendarWrapper.HOUR);
+            ServerStatus current = (ServerStatus)wait.join();
+
+            if( !wait.isReached() ) {
+                throw new CloudException("Timed out waiting for virtual machine " + virtualMachineId + " to finish resizing");
             }
+            if( current == null ) {
+                throw new CloudException("Virtual machine " + virtualMachineId + " disappeared while being resized");
+            }
+            String status = current.getStatus();
             if( "verify_resize".equalsIgnoreCase(status) ) {
                 json.clear();
                 json.put("confirmResize", null);
@@ -320,26 +575,6 @@ public class NovaServer extends AbstractVMSupport<NovaOpenStack> {
         return getProvider().getComputeServices().getImageSupport().getImage(providerImageId);
     }
 
-    protected void prepareFirewallsForLaunch(VMLaunchOptions options, Map<String, Object> json) throws CloudException, InternalException {
-        if( options.getFirewallIds().length == 0 ) {
-            return;
-        }
-        List<Map<String,Object>> firewalls = new ArrayList<>();
-
-        FirewallSupport support = getNovaSecurityGroup();
-        if( support != null ) {
-            for( String id : options.getFirewallIds() ) {
-                Firewall firewall = support.getFirewall(id);
-                if( firewall != null ) {
-                    Map<String,Object> fw = new HashMap<>();
-
-                    fw.put("name", firewall.getName());
-                    firewalls.add(fw);
-                }
-            }
-        }
-    }
-
     protected void prepareVlanForLaunch(VMLaunchOptions options, Map<String, Object> json) throws CloudException, InternalException {
         List<Map<String,Object>> vlans = new ArrayList<>();
         Map<String,Object> vlan = new HashMap<>();
@@ -391,74 +626,21 @@ public class NovaServer extends AbstractVMSupport<NovaOpenStack> {
             boolean isBareMetal = isBareMetal(options.getMachineImageId());
 
             Map<String,Object> wrapper = new HashMap<>();
-            Map<String,Object> json = new HashMap<>();
+            Map<String,Object> networks = new HashMap<>();
 
-            json.put("name", options.getHostName());
-            if( options.getBootstrapPassword() != null ) {
-                json.put("adminPass", options.getBootstrapPassword());
-            }
-            if( options.getUserData() != null ) {
-                try {
-                    json.put("user_data", Base64.encodeBase64String(options.getUserData().getBytes("utf-8")));
-                }
-                catch( UnsupportedEncodingException e ) {
-                    throw new InternalException(e);
-                }
-            }
-            if( getMinorVersion() == 0 && getMajorVersion() == 1 ) {
-                json.put("imageId", String.valueOf(options.getMachineImageId()));
-                json.put("flavorId", options.getStandardProductId());
-            }
-            else {
-                if( getCloudProvider().equals(OpenStackProvider.HP) ) {
-                    json.put("imageRef", options.getMachineImageId());
-                }
-                else {
-                    json.put("imageRef", getImageRef(options));
-                }
-                json.put("flavorRef", getFlavorRef(options.getStandardProductId()));
-            }
-
-            prepareVlanForLaunch(options, json);
-            prepareFirewallsForLaunch(options, json);
+            // any new port is created first so that its id lands in the server metadata
+            prepareVlanForLaunch(options, networks);
+            Map<String,Object> json = toLaunchJson(options, targetImage, isBareMetal);
 
-            if( options.getBootstrapKey() != null ) {
-                json.put("key_name", options.getBootstrapKey());
-            }
+            json.putAll(networks);
+            if( !options.getMetaData().containsKey(ORG_DASEIN_PORT_ID) ) {
+                // a new port already carries the firewalls
+                List<Map<String,Object>> firewalls = getFirewallNames(options);
 
-            if( isBareMetal ) {
-                Map<String, String> blockDeviceMapping = new HashMap<String, String>();
-                //blockDeviceMapping.put("device_name", "/dev/sdb1");
-                blockDeviceMapping.put("boot_index", "0");
-                blockDeviceMapping.put("uuid", getImageRef(options));
-                //blockDeviceMapping.put("guest_format", "ephemeral");
-                String volumeSize = "";
-                if( targetImage.getTag("minDisk") != null ) {
-                    volumeSize = (String)targetImage.getTag("minDisk");
-                }
-                else {
-                    String minSize = (String)targetImage.getTag("minSize");
-                    volumeSize = roundUpToGB(Long.valueOf(minSize)) + "";
-                }
-                blockDeviceMapping.put("volume_size", volumeSize);
-                blockDeviceMapping.put("source_type", "image");
-                blockDeviceMapping.put("destination_type", "volume");
-                blockDeviceMapping.put("delete_on_termination", "True");
-                json.put("block_device_mapping_v2", blockDeviceMapping);
-            }
-
-            if( !targetImage.getPlatform().equals(Platform.UNKNOWN) ) {
-                options.withMetaData("org.dasein.platform", targetImage.getPlatform().name());
-            }
-            options.withMetaData("org.dasein.description", options.getDescription());
-            Map<String, Object> tmpMeta = options.getMetaData();
-            Map<String, Object> newMeta = new HashMap<>();
-            for (Map.Entry entry : tmpMeta.entrySet()) {
-                if (entry.getValue() != null) { //null values not supported by openstack
-                    newMeta.put(entry.getKey().toString(), entry.getValue());
+                if( !firewalls.isEmpty() ) {
+                    json.put("security_groups", firewalls);
                 }
             }
-            json.put("metadata", newMeta);
             wrapper.put("server", new JSONObject(json));
             JSONObject result = getMethod().postServers(isBareMetal ? "/os-volumes_boot" : "/servers", null, new JSONObject(wrapper), true);
 
@@ -471,13 +653,18 @@ public class NovaServer extends AbstractVMSupport<NovaOpenStack> {
                     vm = toVirtualMachine(server, ips, ips, nets);
 
                     if( vm != null ) {
-                        String vmId = vm.getProviderVirtualMachineId();
-                        long timeout = System.currentTimeMillis() + 5 * 60 * 1000;
-                        while(( vm == null || vm.getCurrentState() == null ) && System.currentTimeMillis() < timeout ) {
-                            try {
-                                Thread.sleep(5000);
-                            } catch (InterruptedException ignore) {}
-                            vm = getVirtualMachine(vmId);
+                        if( vm.getCurrentState() == null ) {
+                            // the create response carries no status; wait for the server to show up with one
+                            String vmId = vm.getProviderVirtualMachineId();
+                            StateWaiter.Wait wait = getProvider().getStateWaiter().await("server", getStatusSource(), vmId, new StateWaiter.Condition() {
+                                @Override
+                                public boolean isReached(@Nullable Object state) {
+                                    return (state != null);
+                                }
+                            }, 5 * CalendarWrapper.MINUTE);
+
+                            wait.join();
+                            vm = (wait.isReached() ? getVirtualMachine(vmId) : null);
                         }
                         if( vm == null || vm.getCurrentState() == null ) {
                             throw new CloudException("VM failed to launch with a meaningful status");
@@ -513,6 +700,374 @@ public class NovaServer extends AbstractVMSupport<NovaOpenStack> {
         }
     }
 
+    /**
+     * Launches several virtual machines from the same options. The image, flavor, firewalls and subnet are looked up
+     * once for the whole batch rather than once per virtual machine. Unless a port has to be created for each virtual
+     * machine, all of them are requested with a single <code>POST /servers</code> carrying <code>min_count</code> and
+     * <code>max_count</code>, and found again through the reservation id Nova returns. Otherwise the ports are created
+     * and the servers posted concurrently by up to <code>launchThreads</code> workers (8 by default), paced by the
+     * network and compute {@link RateLimiter}s. Servers are named after the host name
+     * with a <code>-1</code>, <code>-2</code>... suffix.
+     * <p>The call then waits until every server has left <code>BUILD</code>, through the shared {@link StateWaiter} so
+     * that the whole batch costs one status request per polling interval. Ports of servers that could not be launched or
+     * ended up in error are removed.</p>
+     * @param options the options for every virtual machine
+     * @param count the number of virtual machines to launch
+     * @return the ids of the virtual machines launched, which are fewer than requested if some failed to launch
+     * @throws CloudException no virtual machine could be launched
+     * @throws InternalException an internal error occurred launching the virtual machines
+     * @since 2016.02
+     */
+    @Override
+    public @Nonnull Iterable<String> launchMany(@Nonnull VMLaunchOptions options, int count) throws CloudException, InternalException {
+        if( count < 1 ) {
+            throw new InternalException("Invalid attempt to launch less than 1 virtual machine (requested " + count + ")");
+        }
+        if( count == 1 ) {
+            return Collections.singletonList(launch(options).getProviderVirtualMachineId());
+        }
+        APITrace.begin(getProvider(), "VM.launchMany");
+        try {
+            MachineImage targetImage = getImage(options.getMachineImageId());
+            if( targetImage == null ) {
+                throw new CloudException("No such machine image: " + options.getMachineImageId());
+            }
+            boolean isBareMetal = isBareMetal(options.getMachineImageId());
+            Map<String,Object> json = toLaunchJson(options, targetImage, isBareMetal);
+            String resource = (isBareMetal ? "/os-volumes_boot" : "/servers");
+            Subnet subnet = null;
+
+            if( options.getVlanId() != null ) {
+                Map<String,Object> vlan = new HashMap<>();
+
+                vlan.put("uuid", options.getVlanId());
+                json.put("networks", Collections.singletonList(vlan));
+            }
+            else if( options.getSubnetId() != null && !getProvider().isRackspace() && getQuantum() != null ) {
+                subnet = getQuantum().getSubnet(options.getSubnetId());
+                if( subnet == null ) {
+                    throw new CloudException("No such subnet: " + options.getSubnetId());
+                }
+            }
+            Map<String,String> ports = new HashMap<>();
+            List<String> ids;
+
+            if( subnet == null ) {
+                List<Map<String,Object>> firewalls = getFirewallNames(options);
+
+                if( !firewalls.isEmpty() ) {
+                    json.put("security_groups", firewalls);
+                }
+                ids = launchReservation(resource, json, count);
+            }
+            else {
+                ids = launchWithPorts(resource, json, options, subnet, count, ports);
+            }
+            return awaitLaunch(ids, ports);
+        }
+        finally {
+            APITrace.end();
+        }
+    }
+
+    /**
+     * Builds the server definition used by {@link #launch(VMLaunchOptions)} and shared by every virtual machine of
+     * {@link #launchMany(VMLaunchOptions, int)}, without its networks and security groups.
+     */
+    private @Nonnull Map<String,Object> toLaunchJson(@Nonnull VMLaunchOptions options, @Nonnull MachineImage targetImage, boolean isBareMetal) throws CloudException, InternalException {
+        Map<String,Object> json = new HashMap<>();
+
+        json.put("name", options.getHostName());
+        if( options.getBootstrapPassword() != null ) {
+            json.put("adminPass", options.getBootstrapPassword());
+        }
+        if( options.getUserData() != null ) {
+            try {
+                json.put("user_data", Base64.encodeBase64String(options.getUserData().getBytes("utf-8")));
+            }
+            catch( UnsupportedEncodingException e ) {
+                throw new InternalException(e);
+            }
+        }
+        if( getMinorVersion() == 0 && getMajorVersion() == 1 ) {
+            json.put("imageId", String.valueOf(options.getMachineImageId()));
+            json.put("flavorId", options.getStandardProductId());
+        }
+        else {
+            String imageRef = (getCloudProvider().equals(OpenStackProvider.HP) ? options.getMachineImageId() : getImageRef(options));
+
+            json.put("imageRef", imageRef);
+            json.put("flavorRef", getFlavorRef(options.getStandardProductId()));
+        }
+        if( options.getBootstrapKey() != null ) {
+            json.put("key_name", options.getBootstrapKey());
+        }
+        if( isBareMetal ) {
+            Map<String, String> blockDeviceMapping = new HashMap<String, String>();
+            String volumeSize;
+
+            if( targetImage.getTag("minDisk") != null ) {
+                volumeSize = (String)targetImage.getTag("minDisk");
+            }
+            else {
+                volumeSize = roundUpToGB(Long.valueOf((String)targetImage.getTag("minSize"))) + "";
+            }
+            blockDeviceMapping.put("boot_index", "0");
+            blockDeviceMapping.put("uuid", getImageRef(options));
+            blockDeviceMapping.put("volume_size", volumeSize);
+            blockDeviceMapping.put("source_type", "image");
+            blockDeviceMapping.put("destination_type", "volume");
+            blockDeviceMapping.put("delete_on_termination", "True");
+            json.put("block_device_mapping_v2", blockDeviceMapping);
+        }
+        if( !targetImage.getPlatform().equals(Platform.UNKNOWN) ) {
+            options.withMetaData("org.dasein.platform", targetImage.getPlatform().name());
+        }
+        options.withMetaData("org.dasein.description", options.getDescription());
+        Map<String, Object> metadata = new HashMap<>();
+        for( Map.Entry<String, Object> entry : options.getMetaData().entrySet() ) {
+            if( entry.getValue() != null ) { //null values not supported by openstack
+                metadata.put(entry.getKey(), entry.getValue());
+            }
+        }
+        json.put("metadata", metadata);
+        return json;
+    }
+
+    private @Nonnull List<Map<String,Object>> getFirewallNames(@Nonnull VMLaunchOptions options) throws CloudException, InternalException {
+        List<Map<String,Object>> firewalls = new ArrayList<>();
+        FirewallSupport support = getNovaSecurityGroup();
+
+        if( support != null ) {
+            for( String id : options.getFirewallIds() ) {
+                Firewall firewall = support.getFirewall(id);
+
+                if( firewall != null ) {
+                    Map<String,Object> fw = new HashMap<>();
+
+                    fw.put("name", firewall.getName());
+                    firewalls.add(fw);
+                }
+            }
+        }
+        return firewalls;
+    }
+
+    /**
+     * Requests all servers in one call and lists them by the reservation id of the request.
+     */
+    private @Nonnull List<String> launchReservation(@Nonnull String resource, @Nonnull Map<String,Object> json, int count) throws CloudException, InternalException {
+        Map<String,Object> wrapper = new HashMap<>();
+
+        json.put("min_count", count);
+        json.put("max_count", count);
+        json.put("return_reservation_id", true);
+        wrapper.put("server", new JSONObject(json));
+        getProvider().getRateLimiter(SERVICE).acquire();
+        JSONObject result = getMethod().postServers(resource, null, new JSONObject(wrapper), true);
+        List<String> ids = new ArrayList<>();
+
+        try {
+            if( result != null && result.has("reservation_id") ) {
+                final List<String> reserved = ids;
+
+                getProvider().getRateLimiter(SERVICE).acquire();
+                // a large batch spans several pages of the listing
+                getMethod().getPagedResource(SERVICE, "/servers", "servers", false, "reservation_id=" + result.getString("reservation_id"), new AbstractMethod.PageHandler() {
+                    @Override
+                    public boolean handle(@Nonnull JSONArray page) throws CloudException, InternalException, JSONException {
+                        for( int i=0; i<page.length(); i++ ) {
+                            reserved.add(page.getJSONObject(i).getString("id"));
+                        }
+                        return true;
+                    }
+                });
+            }
+            else if( result != null && result.has("server") ) {
+                // clouds ignoring return_reservation_id only report the first server
+                ids.add(result.getJSONObject("server").getString("id"));
+            }
+        }
+        catch( JSONException e ) {
+            logger.error("launchMany(): Unable to understand launch response: " + e.getMessage());
+            throw new CloudException(e);
+        }
+        if( ids.isEmpty() ) {
+            logger.error("launchMany(): No server was created by the launch attempt, and no error was returned");
+            throw new CloudException("No virtual machine was launched");
+        }
+        if( ids.size() < count ) {
+            logger.warn("launchMany(): Only " + ids.size() + " of " + count + " virtual machines were launched");
+        }
+        return ids;
+    }
+
+    private int getLaunchThreads() {
+        ProviderContext ctx = getProvider().getContext();
+        Properties p = (ctx == null ? null : ctx.getCustomProperties());
+        String value = (p == null ? null : p.getProperty("launchThreads"));
+
+        if( value != null ) {
+            try {
+                int threads = Integer.parseInt(value.trim());
+
+                if( threads > 0 ) {
+                    return threads;
+                }
+            }
+            catch( NumberFormatException e ) {
+                logger.warn("Ignoring invalid value for launchThreads: " + value);
+            }
+        }
+        return DEFAULT_LAUNCH_THREADS;
+    }
+
+    /**
+     * Creates a port and posts a server for each virtual machine concurrently.
+     */
+    private @Nonnull List<String> launchWithPorts(@Nonnull final String resource, @Nonnull final Map<String,Object> json, @Nonnull final VMLaunchOptions options, @Nonnull final Subnet subnet, int count, @Nonnull Map<String,String> ports) throws CloudException, InternalException {
+        final Quantum support = getQuantum();
+        final RateLimiter networkLimiter = getProvider().getRateLimiter("network");
+        final RateLimiter computeLimiter = getProvider().getRateLimiter(SERVICE);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(getLaunchThreads(), count));
+
+        try {
+            List<Future<String[]>> futures = new ArrayList<>();
+
+            for( int i=1; i<=count; i++ ) {
+                final String name = options.getHostName() + "-" + i;
+
+                futures.add(executor.submit(new Callable<String[]>() {
+                    @Override
+                    public String[] call() throws CloudException, InternalException {
+                        Map<String,Object> server = new HashMap<>(json);
+                        Map<String,Object> vlan = new HashMap<>();
+                        String portId = null;
+
+                        try {
+                            networkLimiter.acquire();
+                            portId = support.createPort(subnet, name, options.getFirewallIds());
+                            vlan.put("port", portId);
+                            @SuppressWarnings("unchecked") Map<String,Object> metadata = new HashMap<>((Map<String,Object>)json.get("metadata"));
+
+                            metadata.put(ORG_DASEIN_PORT_ID, portId);
+                            server.put("metadata", metadata);
+                        }
+                        catch( CloudException e ) {
+                            if( e.getHttpCode() != 403 ) {
+                                throw e;
+                            }
+                            logger.warn("Unable to create port - trying to launch into general network");
+                            vlan.put("uuid", subnet.getProviderVlanId());
+                        }
+                        server.put("name", name);
+                        server.put("networks", Collections.singletonList(vlan));
+                        Map<String,Object> wrapper = new HashMap<>();
+
+                        wrapper.put("server", new JSONObject(server));
+                        try {
+                            computeLimiter.acquire();
+                            JSONObject result = getMethod().postServers(resource, null, new JSONObject(wrapper), true);
+
+                            if( result == null || !result.has("server") ) {
+                                throw new CloudException("No virtual machine was launched");
+                            }
+                            return new String[] { result.getJSONObject("server").getString("id"), portId };
+                        }
+                        catch( JSONException e ) {
+                            if( portId != null ) {
+                                support.removePort(portId);
+                            }
+                            throw new CloudException(e);
+                        }
+                        catch( CloudException | InternalException | RuntimeException e ) {
+                            if( portId != null ) {
+                                support.removePort(portId);
+                            }
+                            throw e;
+                        }
+                    }
+                }));
+            }
+            List<String> ids = new ArrayList<>();
+            Throwable error = null;
+
+            for( Future<String[]> future : futures ) {
+                try {
+                    String[] launched = future.get();
+
+                    ids.add(launched[0]);
+                    if( launched[1] != null ) {
+                        ports.put(launched[0], launched[1]);
+                    }
+                }
+                catch( ExecutionException e ) {
+                    Throwable cause = (e.getCause() == null ? e : e.getCause());
+
+                    logger.warn("launchMany(): Unable to launch a virtual machine: " + cause.getMessage());
+                    if( error == null ) {
+                        error = cause;
+                    }
+                }
+            }
+            if( ids.isEmpty() ) {
+                if( error instanceof CloudException ) {
+                    throw (CloudException)error;
+                }
+                if( error instanceof InternalException ) {
+                    throw (InternalException)error;
+                }
+                throw new CloudException(error);
+            }
+            if( ids.size() < count ) {
+                logger.warn("launchMany(): Only " + ids.size() + " of " + count + " virtual machines were launched");
+            }
+            return ids;
+        }
+        catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new InternalException(e);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for the launched servers to leave <code>BUILD</code> and removes the ports of those that failed.
+     */
+    private @Nonnull List<String> awaitLaunch(@Nonnull List<String> ids, @Nonnull Map<String,String> ports) throws CloudException, InternalException {
+        Map<String,StateWaiter.Wait> waits = new LinkedHashMap<>();
+        StateWaiter.Condition built = new StateWaiter.Condition() {
+            @Override
+            public boolean isReached(@Nullable Object state) {
+                return (state == null || !"BUILD".equalsIgnoreCase(((ServerStatus)state).getStatus()));
+            }
+        };
+
+        for( String id : ids ) {
+            waits.put(id, getProvider().getStateWaiter().await("server", getStatusSource(), id, built, LAUNCH_TIMEOUT));
+        }
+        List<String> launched = new ArrayList<>();
+
+        for( Map.Entry<String,StateWaiter.Wait> entry : waits.entrySet() ) {
+            String id = entry.getKey();
+            ServerStatus status = (ServerStatus)entry.getValue().join();
+            String portId = ports.get(id);
+
+            if( entry.getValue().isReached() && status == null ) {
+                logger.warn("launchMany(): Virtual machine " + id + " disappeared while launching");
+            }
+            else {
+                launched.add(id);
+            }
+            if( portId != null && entry.getValue().isReached() && (status == null || VmState.ERROR.equals(status.getVmState())) ) {
+                getQuantum().removePort(portId);
+            }
+        }
+        return launched;
+    }
+
     protected boolean isBareMetal(String machineImageId) {
         try{
             String lparMetadataKey = "hypervisor_type";
@@ -796,48 +1351,166 @@ public class NovaServer extends AbstractVMSupport<NovaOpenStack> {
 
     @Override
     public @Nonnull Iterable<VirtualMachine> listVirtualMachines() throws InternalException, CloudException {
-        APITrace.begin(getProvider(), "VM.listVirtualMachines");
-        try {
-            JSONObject ob = getMethod().getServers("/servers", null, true);
-            List<VirtualMachine> servers = new ArrayList<VirtualMachine>();
+        if( ChangeTracker.isDeltaSyncEnabled(getProvider()) ) {
+            syncVirtualMachines();
+            return getInventoryTracker().getSnapshot().values();
+        }
+        getProvider().hold();
+        PopulatorThread<VirtualMachine> populator = new PopulatorThread<VirtualMachine>(new JiteratorPopulator<VirtualMachine>() {
+            public void populate(@Nonnull final Jiterator<VirtualMachine> iterator) throws CloudException, InternalException {
+                try {
+                    APITrace.begin(getProvider(), "VM.listVirtualMachines");
+                    try {
+                        final ServerNetworkContext context = ServerNetworkContext.load(getNetworkServices());
 
-            Iterable<IpAddress> ipv4 = Collections.emptyList(), ipv6 = Collections.emptyList();
-            Iterable<VLAN> nets = Collections.emptyList();
+                        getMethod().getStreamedResource(SERVICE, "/servers", "servers", true, null, true, new AbstractMethod.ItemHandler() {
+                            public boolean handle(@Nonnull JSONObject item) throws CloudException, InternalException, JSONException {
+                                VirtualMachine vm = toVirtualMachine(item, context.getIpv4(), context.getIpv6(), context);
 
-            IpAddressSupport support = getNovaFloatingIp();
-            if( support != null ) {
-                ipv4 = support.listIpPool(IPVersion.IPV4, false);
-                ipv6 = support.listIpPool(IPVersion.IPV6, false);
+                                if( vm != null ) {
+                                    iterator.push(vm);
+                                }
+                                return true;
+                            }
+                        });
+                    }
+                    finally {
+                        APITrace.end();
+                    }
+                }
+                finally {
+                    getProvider().release();
+                }
             }
+        });
+        populator.populate();
+        return populator.getResult();
+    }
 
-            VLANSupport vs = getQuantum();
-            if( vs != null ) {
-                nets = vs.listVlans();
-            }
+    /**
+     * Lists the virtual machines without blocking the calling thread. The network context used to resolve addresses is
+     * loaded up front; the pages of servers are then fetched through the cloud connection's asynchronous client, so
+     * no thread is held while a request is in flight. Converting a server may itself call the cloud for its firewalls,
+     * platform or subnet, so the servers are converted on one of the client's worker threads once every page is in.
+     * @param callback told of the virtual machines once they have all been listed, or of the failure, or <code>null</code>
+     * @return the pending virtual machines
+     * @throws CloudException an error occurred loading the network context
+     * @throws InternalException an internal error occurred loading the network context
+     * @since 2016.02
+     */
+    public @Nonnull Future<Iterable<VirtualMachine>> listVirtualMachinesAsync(@Nullable FutureCallback<Iterable<VirtualMachine>> callback) throws InternalException, CloudException {
+        APITrace.begin(getProvider(), "VM.listVirtualMachinesAsync");
+        try {
+            final ServerNetworkContext context = ServerNetworkContext.load(getNetworkServices());
+            final BasicFuture<Iterable<VirtualMachine>> future = new BasicFuture<Iterable<VirtualMachine>>(callback);
+            final List<JSONObject> servers = new ArrayList<JSONObject>();
+
+            getMethod().getPagedResourceAsync(SERVICE, "/servers", "servers", true, null, true, new AbstractMethod.ItemHandler() {
+                public boolean handle(@Nonnull JSONObject item) {
+                    servers.add(item);
+                    return !future.isCancelled();
+                }
+            }, new FutureCallback<Void>() {
+                public void completed(Void result) {
+                    convertAsync(future, new Callable<Iterable<VirtualMachine>>() {
+                        public Iterable<VirtualMachine> call() throws CloudException, InternalException, JSONException {
+                            List<VirtualMachine> vms = new ArrayList<VirtualMachine>();
+
+                            for( JSONObject item : servers ) {
+                                if( future.isCancelled() ) {
+                                    break;
+                                }
+                                VirtualMachine vm = toVirtualMachine(item, context.getIpv4(), context.getIpv6(), context);
 
-            try {
-                if( ob != null && ob.has("servers") ) {
-                    JSONArray list = ob.getJSONArray("servers");
+                                if( vm != null ) {
+                                    vms.add(vm);
+                                }
+                            }
+                            return vms;
+                        }
+                    });
+                }
 
-                    for( int i=0; i<list.length(); i++ ) {
-                        JSONObject server = list.getJSONObject(i);
-                        VirtualMachine vm = toVirtualMachine(server, ipv4, ipv6, nets);
+                public void failed(Exception e) {
+                    future.failed(e);
+                }
 
-                        if( vm != null ) {
-                            servers.add(vm);
-                        }
+                public void cancelled() {
+                    future.cancel(true);
+                }
+            });
+            return future;
+        }
+        finally {
+            APITrace.end();
+        }
+    }
 
-                    }
+    /**
+     * Fetches a single virtual machine without blocking the calling thread. Callers fetching many virtual machines at
+     * once should load one {@link ServerNetworkContext} and pass it to every call. As with
+     * {@link #listVirtualMachinesAsync(FutureCallback)}, the server is converted on a worker thread.
+     * @param vmId the virtual machine to fetch
+     * @param context the network context to resolve addresses against, or <code>null</code> to load a fresh one first
+     * @param callback told of the virtual machine, or of the failure, or <code>null</code>
+     * @return the pending virtual machine, <code>null</code> if it does not exist
+     * @throws CloudException an error occurred loading the network context
+     * @throws InternalException an internal error occurred loading the network context
+     * @since 2016.02
+     */
+    public @Nonnull Future<VirtualMachine> getVirtualMachineAsync(@Nonnull String vmId, @Nullable ServerNetworkContext context, @Nullable FutureCallback<VirtualMachine> callback) throws InternalException, CloudException {
+        final ServerNetworkContext networks = (context == null ? ServerNetworkContext.load(getNetworkServices()) : context);
+        final BasicFuture<VirtualMachine> future = new BasicFuture<VirtualMachine>(callback);
+
+        getMethod().getResourceAsync(SERVICE, "/servers", vmId, true, new FutureCallback<JSONObject>() {
+            public void completed(final JSONObject ob) {
+                if( ob == null || !ob.has("server") ) {
+                    future.completed(null);
+                    return;
                 }
+                convertAsync(future, new Callable<VirtualMachine>() {
+                    public VirtualMachine call() throws CloudException, InternalException, JSONException {
+                        return toVirtualMachine(ob.getJSONObject("server"), networks.getIpv4(), networks.getIpv6(), networks);
+                    }
+                });
             }
-            catch( JSONException e ) {
-                logger.error("listVirtualMachines(): Unable to identify expected values in JSON: " + e.getMessage());                e.printStackTrace();
-                throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", "Missing JSON element for servers in " + ob.toString());
+
+            public void failed(Exception e) {
+                future.failed(e);
             }
-            return servers;
+
+            public void cancelled() {
+                future.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Runs a conversion on one of the asynchronous client's worker threads and completes the future with its result.
+     * Called from the I/O dispatcher threads, which must never wait on the synchronous calls a conversion can make.
+     * @param future the future to complete
+     * @param conversion the conversion to run
+     */
+    private <T> void convertAsync(@Nonnull final BasicFuture<T> future, @Nonnull final Callable<T> conversion) {
+        try {
+            getProvider().getAsyncClient().submit(new Runnable() {
+                public void run() {
+                    try {
+                        future.completed(conversion.call());
+                    }
+                    catch( JSONException e ) {
+                        logger.error("convertAsync(): Unable to identify expected values in JSON: " + e.getMessage());
+                        future.failed(new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", "Missing JSON element for servers"));
+                    }
+                    catch( Exception e ) {
+                        future.failed(e);
+                    }
+                }
+            });
         }
-        finally {
-            APITrace.end();
+        catch( InternalException | RuntimeException e ) {
+            future.failed(e);
         }
     }
 
@@ -1076,6 +1749,46 @@ public class NovaServer extends AbstractVMSupport<NovaOpenStack> {
         return product;
     }
 
+    static private @Nonnull VmState toState(@Nonnull String status) {
+        String s = status.toLowerCase();
+
+        if( s.equals("active") ) {
+            return VmState.RUNNING;
+        }
+        else if( s.equals("build") ) {
+            return VmState.PENDING;
+        }
+        else if( s.equals("deleted") ) {
+            return VmState.TERMINATED;
+        }
+        else if( s.equals("suspended") ) {
+            return VmState.SUSPENDED;
+        }
+        else if( s.equalsIgnoreCase("paused") ) {
+            return VmState.PAUSED;
+        }
+        else if( s.equalsIgnoreCase("stopped") || s.equalsIgnoreCase("shutoff")) {
+            return VmState.STOPPED;
+        }
+        else if( s.equalsIgnoreCase("stopping") ) {
+            return VmState.STOPPING;
+        }
+        else if( s.equalsIgnoreCase("pausing") ) {
+            return VmState.PAUSING;
+        }
+        else if( s.equalsIgnoreCase("suspending") ) {
+            return VmState.SUSPENDING;
+        }
+        else if( s.equals("error") ) {
+            return VmState.ERROR;
+        }
+        else if( s.equals("reboot") || s.equals("hard_reboot") ) {
+            return VmState.REBOOTING;
+        }
+        logger.warn("toVirtualMachine(): Unknown server state: " + s);
+        return VmState.PENDING;
+    }
+
     protected  @Nullable ResourceStatus toStatus(@Nullable JSONObject server) throws JSONException, InternalException, CloudException {
         if( server == null ) {
             return null;
@@ -1092,45 +1805,7 @@ public class NovaServer extends AbstractVMSupport<NovaOpenStack> {
         VmState state = VmState.PENDING;
 
         if( server.has("status") ) {
-            String s = server.getString("status").toLowerCase();
-
-            if( s.equals("active") ) {
-                state = VmState.RUNNING;
-            }
-            else if( s.equals("build") ) {
-                state = VmState.PENDING;
-            }
-            else if( s.equals("deleted") ) {
-                state = VmState.TERMINATED;
-            }
-            else if( s.equals("suspended") ) {
-                state = VmState.SUSPENDED;
-            }
-            else if( s.equalsIgnoreCase("paused") ) {
-                state = VmState.PAUSED;
-            }
-            else if( s.equalsIgnoreCase("stopped") || s.equalsIgnoreCase("shutoff")) {
-                state = VmState.STOPPED;
-            }
-            else if( s.equalsIgnoreCase("stopping") ) {
-                state = VmState.STOPPING;
-            }
-            else if( s.equalsIgnoreCase("pausing") ) {
-                state = VmState.PAUSING;
-            }
-            else if( s.equalsIgnoreCase("suspending") ) {
-                state = VmState.SUSPENDING;
-            }
-            else if( s.equals("error") ) {
-                state = VmState.ERROR;
-            }
-            else if( s.equals("reboot") || s.equals("hard_reboot") ) {
-                state = VmState.REBOOTING;
-            }
-            else {
-                logger.warn("toVirtualMachine(): Unknown server state: " + s);
-                state = VmState.PENDING;
-            }
+            state = toState(server.getString("status"));
         }
         return new ResourceStatus(serverId, state);
     }
@@ -1307,12 +1982,15 @@ public class NovaServer extends AbstractVMSupport<NovaOpenStack> {
             vm.setCreationTimestamp(NovaOpenStack.parseTimestamp(server.getString("created")));
         }
         if( server.has("addresses") ) {
+            // conversions within a listing share a context, so resolving subnets never costs an extra call per server
+            ServerNetworkContext context = (networks instanceof ServerNetworkContext ? (ServerNetworkContext)networks : null);
             JSONObject addrs = server.getJSONObject("addresses");
             String[] names = JSONObject.getNames(addrs);
 
             if( names != null && names.length > 0 ) {
                 List<RawAddress> pub = new ArrayList<RawAddress>();
                 List<RawAddress> priv = new ArrayList<RawAddress>();
+                boolean plainAddresses = (getMinorVersion() == 0 && getMajorVersion() == 1);
 
                 for( String name : names ) {
                     JSONArray arr = addrs.getJSONArray(name);
@@ -1322,7 +2000,7 @@ public class NovaServer extends AbstractVMSupport<NovaOpenStack> {
                         RawAddress addr = null;
                         String type = null;
 
-                        if( getMinorVersion() == 0 && getMajorVersion() == 1 ) {
+                        if( plainAddresses ) {
                             addr = new RawAddress(arr.getString(i).trim(), IPVersion.IPV4);
                         }
                         else {
@@ -1360,24 +2038,12 @@ public class NovaServer extends AbstractVMSupport<NovaOpenStack> {
                         for( VLAN network : networks ) {
                             if( network.getName().equals(name) ) {
                                 vm.setProviderVlanId(network.getProviderVlanId());
-                                //get subnet
-                                NetworkServices services = getProvider().getNetworkServices();
-                                VLANSupport support = services.getVlanSupport();
-                                Iterable<Subnet> subnets = support.listSubnets(network.getProviderVlanId());
-                                for (Subnet sub : subnets) {
-                                    try {
-                                        SubnetUtils utils = new SubnetUtils(sub.getCidr());
-
-                                        if( utils.getInfo().isInRange(subnet) ) {
-                                            vm.setProviderSubnetId(sub.getProviderSubnetId());
-                                            break;
-                                        }
-                                    }
-                                    catch( IllegalArgumentException arg ) {
-                                        logger.warn("Couldn't match against an invalid CIDR: "+sub.getCidr());
-                                        continue;
-                                    }
+                                if( context == null ) {
+                                    NovaNetworkServices services = getNetworkServices();
+
+                                    context = new ServerNetworkContext(ipv4, ipv6, networks, services == null ? null : services.getVlanSupport());
                                 }
+                                vm.setProviderSubnetId(context.getSubnetId(network.getProviderVlanId(), subnet));
                                 break;
                             }
                         }
@@ -1489,9 +2155,7 @@ public class NovaServer extends AbstractVMSupport<NovaOpenStack> {
     
     @Override
     public void setTags(@Nonnull String[] vmIds, @Nonnull Tag... tags) throws CloudException, InternalException {
-    	for( String id : vmIds ) {
-    		setTags(id, tags);
-    	}
+    	TagBatch.forMetadata(getProvider(), SERVICE, "/servers").set(vmIds, tags).execute();
     }
     
     @Override
@@ -1507,9 +2171,7 @@ public class NovaServer extends AbstractVMSupport<NovaOpenStack> {
     
     @Override
     public void updateTags(@Nonnull String[] vmIds, @Nonnull Tag... tags) throws CloudException, InternalException {
-    	for( String id : vmIds ) {
-    		updateTags(id, tags);
-    	}
+    	TagBatch.forMetadata(getProvider(), SERVICE, "/servers").update(vmIds, tags).execute();
     }
     
     @Override
@@ -1525,9 +2187,7 @@ public class NovaServer extends AbstractVMSupport<NovaOpenStack> {
     
     @Override
     public void removeTags(@Nonnull String[] vmIds, @Nonnull Tag... tags) throws CloudException, InternalException {
-    	for( String id : vmIds ) {
-    		removeTags(id, tags);
-    	}
+    	TagBatch.forMetadata(getProvider(), SERVICE, "/servers").remove(vmIds, tags).execute();
     }
 
 }
@@ -0,0 +1,205 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os.compute;
+
+import org.apache.commons.net.util.SubnetUtils;
+import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.network.IPVersion;
+import org.dasein.cloud.network.IpAddress;
+import org.dasein.cloud.network.Subnet;
+import org.dasein.cloud.network.VLAN;
+import org.dasein.cloud.openstack.nova.os.NovaOpenStack;
+import org.dasein.cloud.openstack.nova.os.network.NovaFloatingIP;
+import org.dasein.cloud.openstack.nova.os.network.NovaNetworkServices;
+import org.dasein.cloud.openstack.nova.os.network.Quantum;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The network state needed to turn Nova server JSON into {@link org.dasein.cloud.compute.VirtualMachine} objects: the
+ * IP address pools, the VLANs, and the subnets of those VLANs indexed by VLAN ID with their CIDR ranges already parsed.
+ * One context is fetched per listing (or per launch) and shared by every conversion in it, so resolving the subnet
+ * of a server is an in-memory lookup instead of a Neutron call per server per network.
+ * <p>The subnet index is loaded on first use with a single <code>/subnets</code> call. Instances are safe to share
+ * between threads.</p>
+ * @since 2016.02
+ */
+public class ServerNetworkContext implements Iterable<VLAN> {
+    static private final Logger logger = NovaOpenStack.getLogger(ServerNetworkContext.class, "std");
+
+    static private class SubnetRange {
+        private final String                  subnetId;
+        private final SubnetUtils.SubnetInfo  info;
+
+        private SubnetRange(@Nonnull String subnetId, @Nonnull SubnetUtils.SubnetInfo info) {
+            this.subnetId = subnetId;
+            this.info = info;
+        }
+    }
+
+    /**
+     * Fetches the IP address pools and VLANs for the current region.
+     * @param services the network services of the provider, if any
+     * @return a context ready to be shared by any number of server conversions
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    static public @Nonnull ServerNetworkContext load(@Nullable NovaNetworkServices services) throws CloudException, InternalException {
+        Iterable<IpAddress> ipv4 = Collections.emptyList(), ipv6 = Collections.emptyList();
+        Iterable<VLAN> vlans = Collections.emptyList();
+        Quantum quantum = null;
+
+        if( services != null ) {
+            NovaFloatingIP support = services.getIpAddressSupport();
+
+            if( support != null ) {
+                ipv4 = support.listIpPool(IPVersion.IPV4, false);
+                ipv6 = support.listIpPool(IPVersion.IPV6, false);
+            }
+            quantum = services.getVlanSupport();
+            if( quantum != null ) {
+                vlans = quantum.listVlans();
+            }
+        }
+        return new ServerNetworkContext(ipv4, ipv6, vlans, quantum);
+    }
+
+    private final List<IpAddress> ipv4;
+    private final List<IpAddress> ipv6;
+    private final List<VLAN>      vlans;
+    private final Quantum         quantum;
+
+    private volatile Map<String,List<SubnetRange>> subnetsByVlan;
+
+    public ServerNetworkContext(@Nullable Iterable<IpAddress> ipv4, @Nullable Iterable<IpAddress> ipv6, @Nullable Iterable<VLAN> vlans, @Nullable Quantum quantum) {
+        this.ipv4 = toList(ipv4);
+        this.ipv6 = toList(ipv6);
+        this.vlans = toList(vlans);
+        this.quantum = quantum;
+    }
+
+    static private @Nonnull <T> List<T> toList(@Nullable Iterable<T> items) {
+        if( items == null ) {
+            return Collections.emptyList();
+        }
+        ArrayList<T> list = new ArrayList<T>();
+
+        for( T item : items ) {
+            list.add(item);
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    public @Nonnull List<IpAddress> getIpv4() {
+        return ipv4;
+    }
+
+    public @Nonnull List<IpAddress> getIpv6() {
+        return ipv6;
+    }
+
+    public @Nonnull List<VLAN> getVlans() {
+        return vlans;
+    }
+
+    @Override
+    public @Nonnull Iterator<VLAN> iterator() {
+        return vlans.iterator();
+    }
+
+    /**
+     * Identifies the subnet of the specified VLAN whose CIDR contains the specified address.
+     * @param vlanId the VLAN the address was allocated from
+     * @param address the IPv4 address to match
+     * @return the ID of the matching subnet, or <code>null</code> if no subnet of the VLAN contains the address
+     * @throws CloudException an error occurred loading the subnets from the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public @Nullable String getSubnetId(@Nonnull String vlanId, @Nullable String address) throws CloudException, InternalException {
+        if( address == null ) {
+            return null;
+        }
+        List<SubnetRange> ranges = getSubnetIndex().get(vlanId);
+
+        if( ranges == null ) {
+            return null;
+        }
+        for( SubnetRange range : ranges ) {
+            try {
+                if( range.info.isInRange(address) ) {
+                    return range.subnetId;
+                }
+            }
+            catch( IllegalArgumentException e ) {
+                // an IPv6 address never falls within an IPv4 CIDR
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private @Nonnull Map<String,List<SubnetRange>> getSubnetIndex() throws CloudException, InternalException {
+        Map<String,List<SubnetRange>> index = subnetsByVlan;
+
+        if( index == null ) {
+            synchronized( this ) {
+                index = subnetsByVlan;
+                if( index == null ) {
+                    index = new HashMap<String,List<SubnetRange>>();
+                    Iterable<Subnet> subnets = (quantum == null ? null : quantum.listAllSubnets());
+
+                    if( subnets != null ) {
+                        for( Subnet sub : subnets ) {
+                            String vlanId = sub.getProviderVlanId();
+
+                            if( vlanId == null ) {
+                                continue;
+                            }
+                            try {
+                                SubnetRange range = new SubnetRange(sub.getProviderSubnetId(), new SubnetUtils(sub.getCidr()).getInfo());
+                                List<SubnetRange> ranges = index.get(vlanId);
+
+                                if( ranges == null ) {
+                                    ranges = new ArrayList<SubnetRange>();
+                                    index.put(vlanId, ranges);
+                                }
+                                ranges.add(range);
+                            }
+                            catch( IllegalArgumentException arg ) {
+                                logger.warn("Couldn't match against an invalid CIDR: " + sub.getCidr());
+                            }
+                        }
+                    }
+                    subnetsByVlan = index;
+                }
+            }
+        }
+        return index;
+    }
+}
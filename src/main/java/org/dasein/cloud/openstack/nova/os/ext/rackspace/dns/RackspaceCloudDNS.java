@@ -33,6 +33,7 @@ import org.dasein.cloud.network.DNSZone;
 import org.dasein.cloud.openstack.nova.os.NovaException;
 import org.dasein.cloud.openstack.nova.os.NovaMethod;
 import org.dasein.cloud.openstack.nova.os.NovaOpenStack;
+import org.dasein.cloud.openstack.nova.os.StateWaiter;
 import org.dasein.cloud.util.APITrace;
 import org.dasein.util.CalendarWrapper;
 import org.json.JSONArray;
@@ -43,6 +44,7 @@ import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -698,52 +700,95 @@ public class RackspaceCloudDNS implements DNSSupport {
         }
     }
     
-    private JSONObject waitForJob(String jobId) throws CloudException, InternalException {
-        long timeout = System.currentTimeMillis() + (CalendarWrapper.MINUTE * 20);
+    /**
+     * The state of an asynchronous Cloud DNS job as tracked by the {@link StateWaiter}. Jobs compare by status so
+     * that the waiter backs off while a job sits in the same state.
+     */
+    static private class JobStatus {
+        private final JSONObject job;
+        private final String     status;
 
-        ProviderContext ctx = provider.getContext();
+        private JobStatus(@Nonnull JSONObject job) {
+            this.job = job;
+            this.status = job.optString("status", null);
+        }
 
-        if( ctx == null ) {
-            throw new InternalException("No context exists for this request");
+        private boolean isFinished() {
+            return (status == null || status.equalsIgnoreCase("error") || (status.equalsIgnoreCase("completed") && job.has("response")));
         }
-        while( System.currentTimeMillis() < timeout ) {
-            try {
+
+        @Override
+        public boolean equals(Object other) {
+            return (other instanceof JobStatus && (status == null ? ((JobStatus)other).status == null : status.equals(((JobStatus)other).status)));
+        }
+
+        @Override
+        public int hashCode() {
+            return (status == null ? 0 : status.hashCode());
+        }
+    }
+
+    private @Nonnull StateWaiter.StatusSource getJobStatusSource() {
+        return new StateWaiter.StatusSource() {
+            @Override
+            public @Nonnull Map<String,Object> getStatus(@Nonnull Collection<String> ids) throws CloudException, InternalException {
+                Map<String,Object> states = new HashMap<String,Object>();
                 NovaMethod method = new NovaMethod(provider);
-                JSONObject response = method.getResource(SERVICE, "/status", jobId + "?showDetails=true", false);
-    
-                if( response == null ) {
-                    throw new CloudException("Job disappeared");
-                }
-                String status = (response.has("status")? response.getString("status") : null);
-                
-                if( status == null ) {
-                    throw new CloudException("No job status");
-                }
-                if( status.equalsIgnoreCase("completed") ) {
-                    if( response.has("response") ) {
-                        return response.getJSONObject("response");
+
+                // Cloud DNS has no call for the status of several jobs at once
+                for( String id : ids ) {
+                    JSONObject job = method.getResource(SERVICE, "/status", id + "?showDetails=true", false);
+
+                    if( job != null ) {
+                        states.put(id, new JobStatus(job));
                     }
                 }
-                else if( status.equalsIgnoreCase("error") ) {
-                    if( response.has("error") ) {
-                        JSONObject error = response.getJSONObject("error");
-                        
-                        if( error == null ) {
-                            throw new CloudException("Unknown error");
-                        }
-                        int code = (error.has("code") ? error.getInt("code") : 418);
-                        
-                        throw new NovaException(NovaException.parseException(code, error.toString()));
-                    }
+                return states;
+            }
+        };
+    }
+
+    private JSONObject waitForJob(String jobId) throws CloudException, InternalException {
+        ProviderContext ctx = provider.getContext();
+
+        if( ctx == null ) {
+            throw new InternalException("No context exists for this request");
+        }
+        StateWaiter.Wait wait = provider.getStateWaiter().await("dnsJob", getJobStatusSource(), jobId, new StateWaiter.Condition() {
+            @Override
+            public boolean isReached(@Nullable Object state) {
+                return (state == null || ((JobStatus)state).isFinished());
+            }
+        }, CalendarWrapper.MINUTE * 20);
+        JobStatus current = (JobStatus)wait.join();
+
+        if( !wait.isReached() ) {
+            throw new CloudException("Operation timed out");
+        }
+        if( current == null ) {
+            throw new CloudException("Job disappeared");
+        }
+        if( current.status == null ) {
+            throw new CloudException("No job status");
+        }
+        try {
+            if( current.status.equalsIgnoreCase("completed") ) {
+                return current.job.getJSONObject("response");
+            }
+            if( current.job.has("error") ) {
+                JSONObject error = current.job.getJSONObject("error");
+
+                if( error == null ) {
                     throw new CloudException("Unknown error");
                 }
+                int code = (error.has("code") ? error.getInt("code") : 418);
+
+                throw new NovaException(NovaException.parseException(code, error.toString()));
             }
-            catch( JSONException e ) {
-                throw new CloudException("Invalid JSON from server: " + e.getMessage());
-            }
-            try { Thread.sleep(CalendarWrapper.SECOND * 30); }
-            catch( InterruptedException ignore ) { }
+            throw new CloudException("Unknown error");
+        }
+        catch( JSONException e ) {
+            throw new CloudException("Invalid JSON from server: " + e.getMessage());
         }
-        throw new CloudException("Operation timed out");
     }
 }
\ No newline at end of file
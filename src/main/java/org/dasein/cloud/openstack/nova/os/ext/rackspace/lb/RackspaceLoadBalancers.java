@@ -62,9 +62,15 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 public class RackspaceLoadBalancers extends AbstractLoadBalancerSupport<NovaOpenStack> {
@@ -73,6 +79,8 @@ public class RackspaceLoadBalancers extends AbstractLoadBalancerSupport<NovaOpen
     static public final String RESOURCE = "/loadbalancers";
     static public final String SERVICE  = "rax:load-balancer";
 
+    static private final int DEFAULT_DETAIL_THREADS = 8;
+
     private NovaOpenStack provider;
     
     public RackspaceLoadBalancers(NovaOpenStack provider) {
@@ -459,7 +467,7 @@ public class RackspaceLoadBalancers extends AbstractLoadBalancerSupport<NovaOpen
             if( ob == null ) {
                 return null;
             }
-            Iterable<VirtualMachine> vms = provider.getComputeServices().getVirtualMachineSupport().listVirtualMachines();
+            Map<String,VirtualMachine> vms = indexVirtualMachines();
             
             try {
                 if( ob.has("loadBalancer") ) {
@@ -515,6 +523,7 @@ public class RackspaceLoadBalancers extends AbstractLoadBalancerSupport<NovaOpen
                     if( json.has("nodes") ) {
                         ArrayList<LoadBalancerEndpoint> endpoints = new ArrayList<LoadBalancerEndpoint>();
                         JSONArray arr = json.getJSONArray("nodes");
+                        Map<String,VirtualMachine> vms = null;
 
                         for( int i=0; i<arr.length(); i++ ) {
                             LbEndpointState state = LbEndpointState.ACTIVE;
@@ -525,27 +534,10 @@ public class RackspaceLoadBalancers extends AbstractLoadBalancerSupport<NovaOpen
                             }
                             if( item.has("address") && !item.isNull("address")) {
                                 String addr = item.getString("address");
-                                VirtualMachine node = null;
-
-                                for( VirtualMachine vm : getProvider().getComputeServices().getVirtualMachineSupport().listVirtualMachines() ) {
-                                    RawAddress[] addrs = vm.getPublicAddresses();
-
-                                    for( RawAddress a : addrs ){
-                                        if( addr.equals(a.getIpAddress()) ) {
-                                            node = vm;
-                                            break;
-                                        }
-                                    }
-                                    if( node == null ) {
-                                        addrs = vm.getPrivateAddresses();
-                                        for( RawAddress a : addrs ){
-                                            if( addr.equals(a.getIpAddress()) ) {
-                                                node = vm;
-                                                break;
-                                            }
-                                        }
-                                    }
+                                if( vms == null ) {
+                                    vms = indexVirtualMachines();
                                 }
+                                VirtualMachine node = vms.get(addr);
                                 if( node != null ) {
                                     endpoints.add(LoadBalancerEndpoint.getInstance(LbEndpointType.VM, node.getProviderVirtualMachineId(), state));
                                 }
@@ -593,6 +585,7 @@ public class RackspaceLoadBalancers extends AbstractLoadBalancerSupport<NovaOpen
                     if( json.has("nodes") ) {
                         ArrayList<LoadBalancerEndpoint> endpoints = new ArrayList<LoadBalancerEndpoint>();
                         JSONArray arr = json.getJSONArray("nodes");
+                        Map<String,VirtualMachine> vms = null;
 
                         for( int i=0; i<arr.length(); i++ ) {
                             LbEndpointState state = LbEndpointState.ACTIVE;
@@ -603,27 +596,10 @@ public class RackspaceLoadBalancers extends AbstractLoadBalancerSupport<NovaOpen
                             }
                             if( item.has("address") && !item.isNull("address")) {
                                 String addr = item.getString("address");
-                                VirtualMachine node = null;
-
-                                for( VirtualMachine vm : getProvider().getComputeServices().getVirtualMachineSupport().listVirtualMachines() ) {
-                                    RawAddress[] addrs = vm.getPublicAddresses();
-
-                                    for( RawAddress a : addrs ){
-                                        if( addr.equals(a.getIpAddress()) ) {
-                                            node = vm;
-                                            break;
-                                        }
-                                    }
-                                    if( node == null ) {
-                                        addrs = vm.getPrivateAddresses();
-                                        for( RawAddress a : addrs ){
-                                            if( addr.equals(a.getIpAddress()) ) {
-                                                node = vm;
-                                                break;
-                                            }
-                                        }
-                                    }
+                                if( vms == null ) {
+                                    vms = indexVirtualMachines();
                                 }
+                                VirtualMachine node = vms.get(addr);
                                 if( node != null && type.equals(LbEndpointType.VM) ) {
                                     boolean included = true;
 
@@ -746,22 +722,24 @@ public class RackspaceLoadBalancers extends AbstractLoadBalancerSupport<NovaOpen
                 
                 if( ob.has("loadBalancers") ) {
                     JSONArray lbs = ob.getJSONArray("loadBalancers");
-                    
-                    if( lbs.length() > 0 ) {
-                        Iterable<VirtualMachine> vms = provider.getComputeServices().getVirtualMachineSupport().listVirtualMachines();
+                    ArrayList<String> ids = new ArrayList<String>();
 
-                        for( int i=0; i<lbs.length(); i++ ) {
-                            JSONObject tmp = lbs.getJSONObject(i);
-                            
-                            if( tmp.has("id") ) {
-                                JSONObject actual = method.getResource(SERVICE, RESOURCE, tmp.getString("id"), false);
-                                
-                                if( actual != null && actual.has("loadBalancer") ) {
-                                    LoadBalancer lb = this.toLoadBalancer(actual.getJSONObject("loadBalancer"), vms);
-                                
-                                    if( lb != null ) {
-                                        loadBalancers.add(lb);
-                                    }
+                    for( int i=0; i<lbs.length(); i++ ) {
+                        JSONObject tmp = lbs.getJSONObject(i);
+
+                        if( tmp.has("id") ) {
+                            ids.add(tmp.getString("id"));
+                        }
+                    }
+                    if( !ids.isEmpty() ) {
+                        Map<String,VirtualMachine> vms = indexVirtualMachines();
+
+                        for( JSONObject actual : getDetails(ids) ) {
+                            if( actual != null && actual.has("loadBalancer") ) {
+                                LoadBalancer lb = this.toLoadBalancer(actual.getJSONObject("loadBalancer"), vms);
+
+                                if( lb != null ) {
+                                    loadBalancers.add(lb);
                                 }
                             }
                         }
@@ -1029,7 +1007,115 @@ public class RackspaceLoadBalancers extends AbstractLoadBalancerSupport<NovaOpen
         }
     }
 
-    private @Nullable LoadBalancer toLoadBalancer(@Nullable JSONObject json, @Nullable Iterable<VirtualMachine> possibleNodes) throws InternalException, CloudException {
+    /**
+     * Fetches the details of several load balancers at once on a bounded pool of threads. The number of concurrent
+     * requests is set by the <code>lbDetailThreads</code> custom property.
+     * @param loadBalancerIds the load balancers to fetch
+     * @return the responses in the same order as the IDs, with <code>null</code> for load balancers that no longer exist
+     * @throws CloudException an error occurred fetching one of the load balancers
+     * @throws InternalException an error occurred within Dasein Cloud while fetching the details
+     */
+    private @Nonnull List<JSONObject> getDetails(@Nonnull List<String> loadBalancerIds) throws CloudException, InternalException {
+        ArrayList<JSONObject> details = new ArrayList<JSONObject>();
+        int threads = Math.min(loadBalancerIds.size(), getDetailThreads());
+
+        if( threads < 2 ) {
+            NovaMethod method = new NovaMethod(provider);
+
+            for( String id : loadBalancerIds ) {
+                details.add(method.getResource(SERVICE, RESOURCE, id, false));
+            }
+            return details;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            ArrayList<Future<JSONObject>> results = new ArrayList<Future<JSONObject>>();
+
+            for( final String id : loadBalancerIds ) {
+                results.add(executor.submit(new Callable<JSONObject>() {
+                    @Override
+                    public JSONObject call() throws Exception {
+                        return new NovaMethod(provider).getResource(SERVICE, RESOURCE, id, false);
+                    }
+                }));
+            }
+            for( Future<JSONObject> result : results ) {
+                try {
+                    details.add(result.get());
+                }
+                catch( InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                    throw new InternalException(e);
+                }
+                catch( ExecutionException e ) {
+                    Throwable cause = e.getCause();
+
+                    if( cause instanceof CloudException ) {
+                        throw (CloudException)cause;
+                    }
+                    if( cause instanceof InternalException ) {
+                        throw (InternalException)cause;
+                    }
+                    throw new InternalException(cause);
+                }
+            }
+            return details;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int getDetailThreads() {
+        ProviderContext ctx = provider.getContext();
+        String value = (ctx == null || ctx.getCustomProperties() == null ? null : ctx.getCustomProperties().getProperty("lbDetailThreads"));
+
+        if( value != null ) {
+            try {
+                int threads = Integer.parseInt(value.trim());
+
+                if( threads > 0 ) {
+                    return threads;
+                }
+            }
+            catch( NumberFormatException e ) {
+                logger.warn("Ignoring invalid value for lbDetailThreads: " + value);
+            }
+        }
+        return DEFAULT_DETAIL_THREADS;
+    }
+
+    /**
+     * Indexes the virtual machines in the current region by IP address so load balancer nodes can be matched to
+     * servers without scanning the whole list for every node. Public addresses take precedence over private ones.
+     * @return the virtual machines keyed by each of their addresses
+     * @throws CloudException an error occurred listing the virtual machines
+     * @throws InternalException an error occurred within Dasein Cloud while listing the virtual machines
+     */
+    private @Nonnull Map<String,VirtualMachine> indexVirtualMachines() throws CloudException, InternalException {
+        HashMap<String,VirtualMachine> index = new HashMap<String,VirtualMachine>();
+        ArrayList<VirtualMachine> vms = new ArrayList<VirtualMachine>();
+
+        for( VirtualMachine vm : provider.getComputeServices().getVirtualMachineSupport().listVirtualMachines() ) {
+            vms.add(vm);
+            for( RawAddress a : vm.getPublicAddresses() ) {
+                if( a.getIpAddress() != null ) {
+                    index.put(a.getIpAddress(), vm);
+                }
+            }
+        }
+        for( VirtualMachine vm : vms ) {
+            for( RawAddress a : vm.getPrivateAddresses() ) {
+                if( a.getIpAddress() != null && !index.containsKey(a.getIpAddress()) ) {
+                    index.put(a.getIpAddress(), vm);
+                }
+            }
+        }
+        return index;
+    }
+
+    private @Nullable LoadBalancer toLoadBalancer(@Nullable JSONObject json, @Nullable Map<String,VirtualMachine> possibleNodes) throws InternalException, CloudException {
         if( json == null ) {
             return null;
         }
@@ -1102,29 +1188,7 @@ public class RackspaceLoadBalancers extends AbstractLoadBalancerSupport<NovaOpen
 
                     if( ob.has("address") ) {
                         String addr = ob.getString("address");
-                        VirtualMachine node = null;
-
-                        if( possibleNodes != null ) {
-                            for( VirtualMachine vm : possibleNodes ) {
-                                RawAddress[] addrs = vm.getPublicAddresses();
-
-                                for( RawAddress a : addrs ){
-                                    if( addr.equals(a.getIpAddress()) ) {
-                                        node = vm;
-                                        break;
-                                    }
-                                }
-                                if( node == null ) {
-                                    addrs = vm.getPrivateAddresses();
-                                    for( RawAddress a : addrs ){
-                                        if( addr.equals(a.getIpAddress()) ) {
-                                            node = vm;
-                                            break;
-                                        }
-                                    }
-                                }
-                            }
-                        }
+                        VirtualMachine node = (possibleNodes == null ? null : possibleNodes.get(addr));
                         if( node != null ) {
                             nodes.add(node.getProviderVirtualMachineId());
                         }
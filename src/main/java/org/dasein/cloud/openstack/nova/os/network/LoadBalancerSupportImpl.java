@@ -20,6 +20,11 @@ import org.json.JSONObject;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Created by mariapavlova on 23/04/2015.
@@ -600,7 +605,7 @@ public class LoadBalancerSupportImpl extends AbstractLoadBalancerSupport<NovaOpe
      */
     private List<JSONObject> findAllVips(@Nullable String loadBalancerId) throws CloudException, InternalException {
         NovaMethod method = new NovaMethod(getProvider());
-        JSONObject result = method.getNetworks(getListenersResource(), null, false, "?tenant_id="+getContext().getAccountNumber());
+        JSONObject result = method.getNetworks(getListenersResource(), null, false, getPoolQuery(loadBalancerId));
         List<JSONObject> listeners = new ArrayList<JSONObject>();
         if( result != null && result.has("vips") ) {
             try {
@@ -629,7 +634,7 @@ public class LoadBalancerSupportImpl extends AbstractLoadBalancerSupport<NovaOpe
      */
     private List<JSONObject> findAllMembers(@Nullable String loadBalancerId) throws CloudException, InternalException {
         NovaMethod method = new NovaMethod(getProvider());
-        JSONObject result = method.getNetworks(getMembersResource(), null, false, "?tenant_id="+getContext().getAccountNumber());
+        JSONObject result = method.getNetworks(getMembersResource(), null, false, getPoolQuery(loadBalancerId));
         List<JSONObject> members = new ArrayList<JSONObject>();
         if( result != null && result.has("members") ) {
             try {
@@ -651,20 +656,45 @@ public class LoadBalancerSupportImpl extends AbstractLoadBalancerSupport<NovaOpe
     }
 
     /**
-     * Find all or a single load balancer
+     * Builds the query for VIPs or members of this tenant, restricted to a single pool if one is given. The results
+     * are still filtered locally in case the server ignores the pool filter.
+     * @param loadBalancerId optional pool id
+     * @return the query string
+     */
+    private String getPoolQuery(@Nullable String loadBalancerId) {
+        String query = "?tenant_id=" + getContext().getAccountNumber();
+
+        if( loadBalancerId != null ) {
+            query = query + "&pool_id=" + loadBalancerId;
+        }
+        return query;
+    }
+
+    /**
+     * Find all or a single load balancer. The VIPs and members are fetched concurrently with the pools and joined to
+     * them by pool id.
      * @param loadBalancerId optional load balancer id if looking for just one
      * @return
      * @throws CloudException
      * @throws InternalException
      */
-    private List<LoadBalancer> findLoadBalancers(@Nullable String loadBalancerId) throws CloudException, InternalException {
+    private List<LoadBalancer> findLoadBalancers(@Nullable final String loadBalancerId) throws CloudException, InternalException {
         APITrace.begin(getProvider(), "LB.listLoadBalancers");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
         try {
-            // get all vips, optionally filtered by lbId
-            List<JSONObject> listeners = findAllVips(loadBalancerId);
-
-            // get all members, optionally filtered by lbId
-            List<JSONObject> members = findAllMembers(loadBalancerId);
+            // get all vips and members, optionally filtered by lbId, while the pools are being fetched
+            Future<List<JSONObject>> listeners = executor.submit(new Callable<List<JSONObject>>() {
+                @Override
+                public List<JSONObject> call() throws Exception {
+                    return findAllVips(loadBalancerId);
+                }
+            });
+            Future<List<JSONObject>> members = executor.submit(new Callable<List<JSONObject>>() {
+                @Override
+                public List<JSONObject> call() throws Exception {
+                    return findAllMembers(loadBalancerId);
+                }
+            });
 
             NovaMethod method = new NovaMethod(getProvider());
             // Unlike Horizon the OS LB API returns all tenants' load balancers, so we must filter
@@ -672,10 +702,12 @@ public class LoadBalancerSupportImpl extends AbstractLoadBalancerSupport<NovaOpe
             List<LoadBalancer> results = new ArrayList<LoadBalancer>();
             if( loadBalancerId == null && result != null && result.has("pools") ) {
                 try {
+                    Map<String, JSONObject> vipsByPool = indexVips(await(listeners));
+                    Map<String, List<JSONObject>> membersByPool = indexMembers(await(members));
                     JSONArray loadbalancers = result.getJSONArray("pools");
                     for( int i = 0; i < loadbalancers.length(); i++ ) {
                         JSONObject lb = loadbalancers.getJSONObject(i);
-                        results.add(toLoadBalancer(lb, listeners, members));
+                        results.add(toLoadBalancer(lb, vipsByPool, membersByPool));
                     }
                 }
                 catch( JSONException e ) {
@@ -685,7 +717,7 @@ public class LoadBalancerSupportImpl extends AbstractLoadBalancerSupport<NovaOpe
             }
             else if( result != null && result.has("pool")) {
                 try {
-                    return Collections.singletonList(toLoadBalancer(result.getJSONObject("pool"), listeners, members));
+                    return Collections.singletonList(toLoadBalancer(result.getJSONObject("pool"), indexVips(await(listeners)), indexMembers(await(members))));
                 }
                 catch( JSONException e ) {
                     logger.error("Unable to understand getPool response: " + e.getMessage());
@@ -696,26 +728,75 @@ public class LoadBalancerSupportImpl extends AbstractLoadBalancerSupport<NovaOpe
             return results;
         }
         finally {
+            executor.shutdownNow();
             APITrace.end();
         }
     }
 
+    private <T> T await(@Nonnull Future<T> result) throws CloudException, InternalException {
+        try {
+            return result.get();
+        }
+        catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new InternalException(e);
+        }
+        catch( ExecutionException e ) {
+            Throwable cause = e.getCause();
+            if( cause instanceof CloudException ) {
+                throw (CloudException) cause;
+            }
+            if( cause instanceof InternalException ) {
+                throw (InternalException) cause;
+            }
+            throw new InternalException(cause);
+        }
+    }
+
     @Override
     public @Nonnull Iterable<LoadBalancer> listLoadBalancers() throws CloudException, InternalException {
         return findLoadBalancers(null);
     }
 
-
-    private @Nullable JSONObject findListenerByLbId(@Nonnull List<JSONObject> listeners, @Nonnull String lbId) throws JSONException {
+    /**
+     * Index VIPs by pool id, OS LB 1.0 only supports one VIP per pool
+     * @param listeners VIPs to index
+     * @return the first VIP found for each pool
+     */
+    private @Nonnull Map<String, JSONObject> indexVips(@Nonnull List<JSONObject> listeners) {
+        Map<String, JSONObject> index = new HashMap<String, JSONObject>();
         for( JSONObject listener : listeners ) {
-            if( listener.has("pool_id") && lbId.equals(listener.getString("pool_id")) ) {
-                return listener;
+            String poolId = listener.optString("pool_id", null);
+            if( poolId != null && !index.containsKey(poolId) ) {
+                index.put(poolId, listener);
             }
         }
-        return null;
+        return index;
+    }
+
+    /**
+     * Index members by pool id
+     * @param members members to index
+     * @return the members of each pool, in listing order
+     */
+    private @Nonnull Map<String, List<JSONObject>> indexMembers(@Nonnull List<JSONObject> members) {
+        Map<String, List<JSONObject>> index = new HashMap<String, List<JSONObject>>();
+        for( JSONObject member : members ) {
+            String poolId = member.optString("pool_id", null);
+            if( poolId == null ) {
+                continue;
+            }
+            List<JSONObject> poolMembers = index.get(poolId);
+            if( poolMembers == null ) {
+                poolMembers = new ArrayList<JSONObject>();
+                index.put(poolId, poolMembers);
+            }
+            poolMembers.add(member);
+        }
+        return index;
     }
 
-    private LoadBalancer toLoadBalancer(JSONObject lb, List<JSONObject> listeners, List<JSONObject> members) throws JSONException, InternalException {
+    private LoadBalancer toLoadBalancer(JSONObject lb, Map<String, JSONObject> vipsByPool, Map<String, List<JSONObject>> membersByPool) throws JSONException, InternalException {
         String ownerId = lb.optString("tenant_id");
         String regionId = getContext().getRegionId();
         String lbId = lb.getString("id");
@@ -724,7 +805,7 @@ public class LoadBalancerSupportImpl extends AbstractLoadBalancerSupport<NovaOpe
         String name = lb.getString("name");
         String description = lb.getString("description");
         LoadBalancerAddressType addressType = LoadBalancerAddressType.IP;
-        JSONObject vip = findListenerByLbId(listeners, lbId);
+        JSONObject vip = vipsByPool.get(lbId);
         String address = null;
         int publicPort = -1;
         LbAlgorithm algorithm = LbAlgorithm.ROUND_ROBIN;
@@ -767,16 +848,14 @@ public class LoadBalancerSupportImpl extends AbstractLoadBalancerSupport<NovaOpe
             }
             publicPort = vip.getInt("protocol_port");
             // if we were unable to get the private port from the name, let's see if we can find it from the members
-            if( privatePort < 0 ) {
+            List<JSONObject> members = membersByPool.get(lbId);
+            if( privatePort < 0 && members != null ) {
                 for( JSONObject member : members ) {
-                    if( !member.getString("pool_id").equalsIgnoreCase(lbId) ) {
-                        continue;
-                    }
                     privatePort = member.getInt("protocol_port");
                     lbListeners.add(LbListener.getInstance(algorithm, persistence, protocol, publicPort, privatePort));
                 }
             }
-            else {
+            else if( privatePort >= 0 ) {
                 lbListeners.add(LbListener.getInstance(algorithm, persistence, protocol, publicPort, privatePort));
             }
         }
@@ -20,6 +20,8 @@
 package org.dasein.cloud.openstack.nova.os.network;
 
 import org.apache.http.HttpStatus;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.log4j.Logger;
 import org.dasein.cloud.CloudErrorType;
 import org.dasein.cloud.CloudException;
@@ -37,9 +39,11 @@ import org.dasein.cloud.network.IPAddressCapabilities;
 import org.dasein.cloud.network.IpAddressSupport;
 import org.dasein.cloud.network.IpForwardingRule;
 import org.dasein.cloud.network.Protocol;
+import org.dasein.cloud.openstack.nova.os.AbstractMethod;
 import org.dasein.cloud.openstack.nova.os.NovaException;
 import org.dasein.cloud.openstack.nova.os.NovaMethod;
 import org.dasein.cloud.openstack.nova.os.NovaOpenStack;
+import org.dasein.cloud.openstack.nova.os.compute.NovaServer;
 import org.dasein.cloud.util.APITrace;
 import org.dasein.util.CalendarWrapper;
 import org.json.JSONArray;
@@ -56,8 +60,6 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 /**
@@ -74,12 +76,14 @@ public class NovaFloatingIP extends AbstractIpAddressSupport<NovaOpenStack> {
     static public final String QUANTIUM_TARGET = "/floating-ips";
     static public final String NOVA_TARGET     = "/os-floating-ips";
 
-    static private final ExecutorService threadPool = Executors.newFixedThreadPool(10);
-    
     NovaFloatingIP(NovaOpenStack cloud) {
         super(cloud);
     }
 
+    protected String getRegionId() throws InternalException {
+        return getContext().getRegionId();
+    }
+
     private String getEndpoint() {
         return NOVA_TARGET;
     }
@@ -320,12 +324,52 @@ public class NovaFloatingIP extends AbstractIpAddressSupport<NovaOpenStack> {
     @Nonnull
     @Override
     public Future<Iterable<IpAddress>> listIpPoolConcurrently(@Nonnull IPVersion ipVersion, boolean unassignedOnly) throws InternalException, CloudException {
-        return threadPool.submit(
-            new ListIpPoolCallable(
-                ipVersion,
-                unassignedOnly
-            )
-        );
+        return listIpPoolAsync(ipVersion, unassignedOnly, null);
+    }
+
+    /**
+     * Lists the IP pool without blocking the calling thread. The floating IPs are fetched through the cloud
+     * connection's asynchronous client, so no thread is held while the request is in flight.
+     * @param version the IP version of the addresses to list
+     * @param unassignedOnly true to list only the addresses not assigned to a server
+     * @param callback told of the addresses once they have been listed, or of the failure, or <code>null</code>
+     * @return the pending addresses
+     * @since 2016.02
+     */
+    public @Nonnull Future<Iterable<IpAddress>> listIpPoolAsync(@Nonnull IPVersion version, final boolean unassignedOnly, @Nullable FutureCallback<Iterable<IpAddress>> callback) {
+        final BasicFuture<Iterable<IpAddress>> future = new BasicFuture<Iterable<IpAddress>>(callback);
+        final List<IpAddress> addresses = new ArrayList<IpAddress>();
+
+        if( !getVersions().contains(version) ) {
+            future.completed(Collections.<IpAddress>emptyList());
+            return future;
+        }
+        NovaMethod method = new NovaMethod(getProvider());
+
+        method.getPagedResourceAsync(NovaServer.SERVICE, getEndpoint(), "floating_ips", false, null, false, new AbstractMethod.ItemHandler() {
+            public boolean handle(@Nonnull JSONObject json) throws JSONException, InternalException {
+                // toIP reads nothing but the item, so it is safe to run on the I/O dispatcher thread
+                IpAddress addr = toIP(json);
+
+                if( addr != null && (!unassignedOnly || addr.getServerId() == null) ) {
+                    addresses.add(addr);
+                }
+                return !future.isCancelled();
+            }
+        }, new FutureCallback<Void>() {
+            public void completed(Void result) {
+                future.completed(addresses);
+            }
+
+            public void failed(Exception e) {
+                future.failed(e);
+            }
+
+            public void cancelled() {
+                future.cancel(true);
+            }
+        });
+        return future;
     }
 
     public class ListIpPoolCallable implements Callable {
@@ -342,37 +386,26 @@ public class NovaFloatingIP extends AbstractIpAddressSupport<NovaOpenStack> {
                 return Collections.emptyList();
             }
             NovaMethod method = new NovaMethod(getProvider());
-            JSONObject ob = method.getServers(getEndpoint(), null, false);
-            ArrayList<IpAddress> addresses = new ArrayList<IpAddress>();
-
-            try {
-                if( ob != null && ob.has("floating_ips") ) {
-                    JSONArray list = ob.getJSONArray("floating_ips");
-
-                    for( int i=0; i<list.length(); i++ ) {
-                        JSONObject json = list.getJSONObject(i);
+            final ArrayList<IpAddress> addresses = new ArrayList<IpAddress>();
 
-                        try {
-                            IpAddress addr = toIP(json);
+            method.getStreamedResource(NovaServer.SERVICE, getEndpoint(), "floating_ips", false, null, false, new AbstractMethod.ItemHandler() {
+                public boolean handle(@Nonnull JSONObject json) throws CloudException, InternalException {
+                    try {
+                        IpAddress addr = toIP(json);
 
-                            if( addr != null ) {
-                                if( !unassignedOnly || addr.getServerId() == null ) {
-                                    addresses.add(addr);
-                                }
+                        if( addr != null ) {
+                            if( !unassignedOnly || addr.getServerId() == null ) {
+                                addresses.add(addr);
                             }
                         }
-                        catch( JSONException e ) {
-                            logger.error("Invalid JSON from cloud: " + e.getMessage());
-                            throw new CloudException("Invalid JSON from cloud: " + e.getMessage());
-                        }
                     }
+                    catch( JSONException e ) {
+                        logger.error("Invalid JSON from cloud: " + e.getMessage());
+                        throw new CloudException("Invalid JSON from cloud: " + e.getMessage());
+                    }
+                    return true;
                 }
-            }
-            catch( JSONException e ) {
-                logger.error("list(): Unable to identify expected values in JSON: " + e.getMessage());
-                e.printStackTrace();
-                throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", "Missing JSON element for floating IP in " + ob.toString());
-            }
+            });
             return addresses;
         }
     }
@@ -625,11 +658,11 @@ public class NovaFloatingIP extends AbstractIpAddressSupport<NovaOpenStack> {
         return false;
     }
 
-    private IpAddress toIP(JSONObject json) throws JSONException, InternalException {
+    protected IpAddress toIP(JSONObject json) throws JSONException, InternalException {
         if(json == null ) {
             return null;
         }
-        String regionId = getContext().getRegionId();
+        String regionId = getRegionId();
 
         IpAddress address = new IpAddress();
 
@@ -33,6 +33,7 @@ import org.dasein.cloud.network.Firewall;
 import org.dasein.cloud.network.FirewallCapabilities;
 import org.dasein.cloud.network.FirewallCreateOptions;
 import org.dasein.cloud.network.FirewallRule;
+import org.dasein.cloud.network.FirewallRuleCreateOptions;
 import org.dasein.cloud.network.Permission;
 import org.dasein.cloud.network.Protocol;
 import org.dasein.cloud.network.RuleTarget;
@@ -53,7 +54,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
 
 /**
  * Support for OpenStack security groups.
@@ -66,6 +70,8 @@ import java.util.Locale;
 public class NovaSecurityGroup extends AbstractFirewallSupport {
     static private final Logger logger = NovaOpenStack.getLogger(NovaSecurityGroup.class, "std");
 
+    static public final long DEFAULT_RULE_INDEX_TTL = CalendarWrapper.MINUTE;
+
     NovaSecurityGroup(NovaOpenStack cloud) {
         super(cloud);
     }
@@ -123,7 +129,11 @@ public class NovaSecurityGroup extends AbstractFirewallSupport {
             if( result != null && result.has("security_group_rule") ) {
                 try {
                     JSONObject rule = result.getJSONObject("security_group_rule");
+                    FirewallRule created = toRule(firewallId, rule, new GroupNames());
 
+                    if( created != null ) {
+                        getRuleIndex(firewallId).add(created);
+                    }
                     return rule.getString("id");
                 }
                 catch( JSONException e ) {
@@ -139,6 +149,30 @@ public class NovaSecurityGroup extends AbstractFirewallSupport {
         }
     }
 
+    /**
+     * Authorizes a batch of rules in one security group, indexing each as it is created.
+     * @param firewallId the security group receiving the rules
+     * @param rules the rules to authorize
+     * @return the IDs of the new rules, in the order given
+     * @throws CloudException an error occurred authorizing a rule; the rules before it remain authorized
+     * @throws InternalException an internal error occurred authorizing a rule
+     * @since 2016.02
+     */
+    public @Nonnull List<String> authorize(@Nonnull String firewallId, @Nonnull Collection<FirewallRuleCreateOptions> rules) throws CloudException, InternalException {
+        APITrace.begin(getProvider(), "Firewall.authorizeBatch");
+        try {
+            List<String> ids = new ArrayList<String>();
+
+            for( FirewallRuleCreateOptions options : rules ) {
+                ids.add(authorize(firewallId, options.getDirection(), options.getPermission(), options.getSourceEndpoint(), options.getProtocol(), options.getDestinationEndpoint(), options.getPortRangeStart(), options.getPortRangeEnd(), options.getPrecedence()));
+            }
+            return ids;
+        }
+        finally {
+            APITrace.end();
+        }
+    }
+
     @Override
     public @Nonnull String create(@Nonnull FirewallCreateOptions options) throws InternalException, CloudException {
         APITrace.begin(getProvider(), "Firewall.create");
@@ -193,6 +227,7 @@ public class NovaSecurityGroup extends AbstractFirewallSupport {
             do {
                 try {
                     method.deleteServers("/os-security-groups", firewallId);
+                    getRuleIndex(firewallId).clear();
                     return;
                 }
                 catch( NovaException e ) {
@@ -259,11 +294,11 @@ public class NovaSecurityGroup extends AbstractFirewallSupport {
     public @Nonnull Collection<FirewallRule> getRules(@Nonnull String firewallId) throws InternalException, CloudException {
         APITrace.begin(getProvider(), "Firewall.getRules");
         try {
-
             NovaMethod method = new NovaMethod((NovaOpenStack)getProvider());
             JSONObject ob = method.getServers("/os-security-groups", firewallId, false);
 
             if( ob == null ) {
+                getRuleIndex(firewallId).clear();
                 return Collections.emptyList();
             }
             try {
@@ -271,103 +306,21 @@ public class NovaSecurityGroup extends AbstractFirewallSupport {
                     JSONObject json = ob.getJSONObject("security_group");
 
                     if( !json.has("rules") ) {
+                        getRuleIndex(firewallId).load(Collections.<FirewallRule>emptyList());
                         return Collections.emptyList();
                     }
                     ArrayList<FirewallRule> rules = new ArrayList<FirewallRule>();
                     JSONArray arr = json.getJSONArray("rules");
-                    Iterable<Firewall> myFirewalls = null;
+                    GroupNames names = new GroupNames();
 
                     for( int i=0; i<arr.length(); i++ ) {
-                        JSONObject rule = arr.getJSONObject(i);
-                        int startPort = -1, endPort = -1;
-                        Protocol protocol = null;
-                        String ruleId = null;
+                        FirewallRule rule = toRule(firewallId, arr.getJSONObject(i), names);
 
-                        if( rule.has("id") && !rule.isNull("id")) {
-                            ruleId = rule.getString("id");
+                        if( rule != null ) {
+                            rules.add(rule);
                         }
-                        if( ruleId == null ) {
-                            continue;
-                        }
-                        RuleTarget sourceEndpoint = null;
-
-                        if( rule.has("ip_range") && !rule.isNull("ip_range")) {
-                            JSONObject range = rule.getJSONObject("ip_range");
-
-                            if( range.has("cidr") && !range.isNull("cidr")) {
-                                sourceEndpoint = RuleTarget.getCIDR(range.getString("cidr"));
-                            }
-                        }
-                        if( rule.has("group") && !rule.isNull("group")) {
-                            JSONObject g = rule.getJSONObject("group");
-                            String id = (g.has("id") && !g.isNull("id") ? g.getString("id") : null);
-
-                            if( id != null ) {
-                                sourceEndpoint = RuleTarget.getGlobal(id);
-                            }
-                            else {
-                                String o = (g.has("tenant_id") && !g.isNull("tenant_id") ? g.getString("tenant_id") : null);
-
-                                if( getTenantId().equals(o) ) {
-                                    String n = (g.has("name") && !g.isNull("name") ? g.getString("name") : null);
-
-                                    if( n != null ) {
-                                        if( myFirewalls == null ) {
-                                            myFirewalls = list();
-                                        }
-                                        for( Firewall fw : myFirewalls ) {
-                                            if( fw.getName().equals(n) ) {
-                                                sourceEndpoint = RuleTarget.getGlobal(fw.getProviderFirewallId());
-                                                break;
-                                            }
-                                        }
-
-                                    }
-                                }
-                            }
-                        }
-                        if( sourceEndpoint == null ) {
-                            continue;
-                        }
-
-                        if( rule.has("from_port") && !rule.isNull("from_port")) {
-                            startPort = rule.getInt("from_port");
-                        }
-                        if( rule.has("to_port") && !rule.isNull("to_port")) {
-                            endPort = rule.getInt("to_port");
-                        }
-                        if( startPort == -1 && endPort != -1 ) {
-                            startPort = endPort;
-                        }
-                        else if( endPort == -1 && startPort != -1 ) {
-                            endPort = startPort;
-                        }
-                        if( startPort > endPort ) {
-                            int s = startPort;
-
-                            startPort = endPort;
-                            endPort = s;
-                        }
-                        if( rule.has("ip_protocol") ) {
-                            String p = null;
-
-                            if( !rule.isNull("ip_protocol") ) {
-                                p = rule.getString("ip_protocol");
-                            }
-
-                            if( p == null || p.equalsIgnoreCase("null") ) {
-                                protocol = Protocol.ANY;
-                            }
-                            else {
-                                protocol = Protocol.valueOf(p.toUpperCase());
-                            }
-                        }
-                        if( protocol == null ) {
-                            protocol = Protocol.TCP;
-                        }
-
-                        rules.add(FirewallRule.getInstance(ruleId, firewallId, sourceEndpoint, Direction.INGRESS, protocol, Permission.ALLOW, RuleTarget.getGlobal(firewallId), startPort, endPort));
                     }
+                    getRuleIndex(firewallId).load(rules);
                     return rules;
                 }
             }
@@ -538,6 +491,11 @@ public class NovaSecurityGroup extends AbstractFirewallSupport {
             do {
                 try {
                     method.deleteServers("/os-security-group-rules", providerFirewallRuleId);
+                    for( SecurityGroupRuleIndex index : ((NovaOpenStack)getProvider()).getRuleIndexes() ) {
+                        if( index.remove(providerFirewallRuleId) ) {
+                            break;
+                        }
+                    }
                     return;
                 }
                 catch( NovaException e ) {
@@ -579,84 +537,208 @@ public class NovaSecurityGroup extends AbstractFirewallSupport {
             if( direction.equals(Direction.EGRESS) ) {
                 throw new OperationNotSupportedException(getProvider().getCloudName() + " does not support egress rules.");
             }
-            FirewallRule targetRule = null;
-
-            for( FirewallRule rule : getRules(firewallId) ) {
-                RuleTarget t = rule.getSourceEndpoint();
-
-                if( t.getRuleTargetType().equals(RuleTargetType.CIDR) && source.equals(t.getCidr()) ) {
-                    RuleTarget rt = rule.getDestinationEndpoint();
-
-                    if( target.getRuleTargetType().equals(rt.getRuleTargetType()) ) {
-                        boolean matches = false;
-
-                        switch( rt.getRuleTargetType() ) {
-                            case CIDR:
-                                //noinspection ConstantConditions
-                                matches = target.getCidr().equals(rt.getCidr());
-                                break;
-                            case GLOBAL:
-                                //noinspection ConstantConditions
-                                matches = target.getProviderFirewallId().equals(rt.getProviderFirewallId());
-                                break;
-                            case VLAN:
-                                //noinspection ConstantConditions
-                                matches = target.getProviderVlanId().equals(rt.getProviderVlanId());
-                                break;
-                            case VM:
-                                //noinspection ConstantConditions
-                                matches = target.getProviderVirtualMachineId().equals(rt.getProviderVirtualMachineId());
-                                break;
-                        }
-                        if( matches && rule.getProtocol().equals(protocol) && rule.getPermission().equals(permission) && rule.getDirection().equals(direction) ) {
-                            if( rule.getStartPort() == beginPort && rule.getEndPort() == endPort ) {
-                                targetRule = rule;
-                                break;
-                            }
-                        }
+            FirewallRule targetRule = findRule(firewallId, SecurityGroupRuleIndex.toKey(direction, permission, protocol, source, target, beginPort, endPort));
+
+            if( targetRule == null ) {
+                throw new CloudException("No such firewall rule");
+            }
+            revoke(targetRule.getProviderRuleId());
+        }
+        finally {
+            APITrace.end();
+        }
+    }
+
+    /**
+     * Revokes a batch of rules from one security group. Rules carrying the ID of a rule in the group are revoked by
+     * that ID; others are matched against the group's rule index. The index is loaded at most once for the batch.
+     * @param firewallId the security group holding the rules
+     * @param rules the rules to revoke
+     * @throws CloudException an error occurred revoking a rule, or some rules did not exist; every rule that did exist
+     * has been revoked
+     * @throws InternalException an internal error occurred revoking a rule
+     * @since 2016.02
+     */
+    public void revoke(@Nonnull String firewallId, @Nonnull Collection<FirewallRule> rules) throws CloudException, InternalException {
+        APITrace.begin(getProvider(), "Firewall.revokeBatch");
+        try {
+            SecurityGroupRuleIndex index = getRuleIndex(firewallId);
+            int missing = 0;
+
+            for( FirewallRule rule : rules ) {
+                String ruleId = rule.getProviderRuleId();
+
+                if( ruleId == null || !index.contains(ruleId) ) {
+                    FirewallRule match = findRule(firewallId, SecurityGroupRuleIndex.toKey(rule));
+
+                    ruleId = (match == null ? null : match.getProviderRuleId());
+                }
+                if( ruleId == null ) {
+                    missing++;
+                    continue;
+                }
+                revoke(ruleId);
+            }
+            if( missing > 0 ) {
+                throw new CloudException("No such firewall rule for " + missing + " of " + rules.size() + " rules in " + firewallId);
+            }
+        }
+        finally {
+            APITrace.end();
+        }
+    }
+
+    private @Nonnull SecurityGroupRuleIndex getRuleIndex(@Nonnull String firewallId) {
+        return ((NovaOpenStack)getProvider()).getRuleIndex(firewallId);
+    }
+
+    private long getRuleIndexTtl() throws CloudException, InternalException {
+        Properties p = getContext().getCustomProperties();
+        String value = (p == null ? null : p.getProperty("ruleIndexTtl"));
+
+        if( value != null ) {
+            try {
+                return Long.parseLong(value.trim());
+            }
+            catch( NumberFormatException e ) {
+                logger.warn("Ignoring invalid value for ruleIndexTtl: " + value);
+            }
+        }
+        return DEFAULT_RULE_INDEX_TTL;
+    }
+
+    /**
+     * Looks a rule up in the group's rule index, loading the index if it is out of date and reloading it once if the
+     * rule is missing from an index that was not fresh from the cloud. Both loads bypass the response cache, which may
+     * still hold the group as it was before someone else changed its rules.
+     * @param firewallId the security group holding the rule
+     * @param key the key of the rule
+     * @return the matching rule, or <code>null</code> if the group has none
+     */
+    private @Nullable FirewallRule findRule(@Nonnull String firewallId, @Nonnull String key) throws CloudException, InternalException {
+        SecurityGroupRuleIndex index = getRuleIndex(firewallId);
+        boolean loaded = false;
+
+        if( !index.isCurrent(getRuleIndexTtl()) ) {
+            reloadRules(firewallId);
+            loaded = true;
+        }
+        FirewallRule rule = index.find(key);
+
+        if( rule == null && !loaded ) {
+            reloadRules(firewallId);
+            rule = index.find(key);
+        }
+        return rule;
+    }
+
+    private void reloadRules(@Nonnull String firewallId) throws CloudException, InternalException {
+        ((NovaOpenStack)getProvider()).getResponseCache().invalidate("/os-security-groups/" + firewallId);
+        getRules(firewallId);
+    }
+
+    /**
+     * Resolves the names of the tenant's own security groups to their IDs, listing the groups at most once.
+     */
+    private class GroupNames {
+        private Map<String,String> ids;
+
+        private @Nullable String getId(@Nonnull String name) throws CloudException, InternalException {
+            if( ids == null ) {
+                ids = new HashMap<String,String>();
+                for( Firewall fw : list() ) {
+                    if( !ids.containsKey(fw.getName()) ) {
+                        ids.put(fw.getName(), fw.getProviderFirewallId());
                     }
                 }
-                else if( t.getRuleTargetType().equals(RuleTargetType.GLOBAL) && source.equals(t.getProviderFirewallId()) ) {
-                    RuleTarget rt = rule.getDestinationEndpoint();
-
-                    if( target.getRuleTargetType().equals(rt.getRuleTargetType()) ) {
-                        boolean matches = false;
-
-                        switch( rt.getRuleTargetType() ) {
-                            case CIDR:
-                                //noinspection ConstantConditions
-                                matches = target.getCidr().equals(rt.getCidr());
-                                break;
-                            case GLOBAL:
-                                //noinspection ConstantConditions
-                                matches = target.getProviderFirewallId().equals(rt.getProviderFirewallId());
-                                break;
-                            case VLAN:
-                                //noinspection ConstantConditions
-                                matches = target.getProviderVlanId().equals(rt.getProviderVlanId());
-                                break;
-                            case VM:
-                                //noinspection ConstantConditions
-                                matches = target.getProviderVirtualMachineId().equals(rt.getProviderVirtualMachineId());
-                                break;
-                        }
-                        if( matches && rule.getProtocol().equals(protocol) && rule.getPermission().equals(permission) && rule.getDirection().equals(direction) ) {
-                            if( rule.getStartPort() == beginPort && rule.getEndPort() == endPort ) {
-                                targetRule = rule;
-                                break;
-                            }
+            }
+            return ids.get(name);
+        }
+    }
+
+    private @Nullable FirewallRule toRule(@Nonnull String firewallId, @Nonnull JSONObject rule, @Nonnull GroupNames names) throws CloudException, InternalException, JSONException {
+        int startPort = -1, endPort = -1;
+        Protocol protocol = null;
+        String ruleId = null;
+
+        if( rule.has("id") && !rule.isNull("id")) {
+            ruleId = rule.getString("id");
+        }
+        if( ruleId == null ) {
+            return null;
+        }
+        RuleTarget sourceEndpoint = null;
+
+        if( rule.has("ip_range") && !rule.isNull("ip_range")) {
+            JSONObject range = rule.getJSONObject("ip_range");
+
+            if( range.has("cidr") && !range.isNull("cidr")) {
+                sourceEndpoint = RuleTarget.getCIDR(range.getString("cidr"));
+            }
+        }
+        if( rule.has("group") && !rule.isNull("group")) {
+            JSONObject g = rule.getJSONObject("group");
+            String id = (g.has("id") && !g.isNull("id") ? g.getString("id") : null);
+
+            if( id != null ) {
+                sourceEndpoint = RuleTarget.getGlobal(id);
+            }
+            else {
+                String o = (g.has("tenant_id") && !g.isNull("tenant_id") ? g.getString("tenant_id") : null);
+
+                if( getTenantId().equals(o) ) {
+                    String n = (g.has("name") && !g.isNull("name") ? g.getString("name") : null);
+
+                    if( n != null ) {
+                        String groupId = names.getId(n);
+
+                        if( groupId != null ) {
+                            sourceEndpoint = RuleTarget.getGlobal(groupId);
                         }
                     }
                 }
             }
-            if( targetRule == null ) {
-                throw new CloudException("No such firewall rule");
+        }
+        if( sourceEndpoint == null ) {
+            return null;
+        }
+
+        if( rule.has("from_port") && !rule.isNull("from_port")) {
+            startPort = rule.getInt("from_port");
+        }
+        if( rule.has("to_port") && !rule.isNull("to_port")) {
+            endPort = rule.getInt("to_port");
+        }
+        if( startPort == -1 && endPort != -1 ) {
+            startPort = endPort;
+        }
+        else if( endPort == -1 && startPort != -1 ) {
+            endPort = startPort;
+        }
+        if( startPort > endPort ) {
+            int s = startPort;
+
+            startPort = endPort;
+            endPort = s;
+        }
+        if( rule.has("ip_protocol") ) {
+            String p = null;
+
+            if( !rule.isNull("ip_protocol") ) {
+                p = rule.getString("ip_protocol");
+            }
+
+            if( p == null || p.equalsIgnoreCase("null") ) {
+                protocol = Protocol.ANY;
+            }
+            else {
+                protocol = Protocol.valueOf(p.toUpperCase());
             }
-            revoke(targetRule.getProviderRuleId());
         }
-        finally {
-            APITrace.end();
+        if( protocol == null ) {
+            protocol = Protocol.TCP;
         }
+        return FirewallRule.getInstance(ruleId, firewallId, sourceEndpoint, Direction.INGRESS, protocol, Permission.ALLOW, RuleTarget.getGlobal(firewallId), startPort, endPort);
     }
 
     @Override
@@ -169,6 +169,27 @@ public class Quantum extends AbstractVLANSupport<NovaOpenStack> {
                 }
                 throw new CloudException("Invalid id no network or subnet found for " + subnetId);
             }
+            return createPort(subnet, vmName, firewallIds);
+        }
+        finally {
+            APITrace.end();
+        }
+    }
+
+    /**
+     * Creates a port in a subnet that has already been looked up, so that callers creating many ports in the same
+     * subnet, such as {@link org.dasein.cloud.openstack.nova.os.compute.NovaServer#launchMany},
+     * fetch the subnet only once.
+     * @param subnet the subnet to create the port in
+     * @param vmName the name of the virtual machine the port is for
+     * @param firewallIds the security groups to apply to the port
+     * @return the id of the new port
+     * @throws CloudException the cloud rejected the port
+     * @throws InternalException an internal error occurred creating the port
+     */
+    public @Nonnull String createPort(@Nonnull Subnet subnet, @Nonnull String vmName, @Nullable String[] firewallIds) throws CloudException, InternalException {
+        APITrace.begin(getProvider(), "VLAN.createPort");
+        try {
             Map<String, Object> wrapper = new HashMap<String,Object>();
             Map<String, Object> json = new HashMap<String,Object>();
 
@@ -185,7 +206,7 @@ public class Quantum extends AbstractVLANSupport<NovaOpenStack> {
             List<Map<String,Object>> ips = new ArrayList<Map<String, Object>>();
             Map<String,Object> ip = new HashMap<String, Object>();
 
-            ip.put("subnet_id", subnetId);
+            ip.put("subnet_id", subnet.getProviderSubnetId());
             ips.add(ip);
 
             json.put("fixed_ips", ips);
@@ -674,38 +695,41 @@ public class Quantum extends AbstractVLANSupport<NovaOpenStack> {
     @Override
     public @Nonnull Iterable<Subnet> listSubnets(@Nonnull String inVlanId) throws CloudException, InternalException {
         APITrace.begin(getProvider(), "VLAN.listSubnets");
+        try {
+            return loadSubnets(inVlanId);
+        }
+        finally {
+            APITrace.end();
+        }
+    }
+
+    /**
+     * Lists the subnets of every network in the current region with a single call, so callers resolving subnets for
+     * many networks can index the result by {@link Subnet#getProviderVlanId()} rather than calling
+     * {@link #listSubnets(String)} once per network.
+     * @return all subnets visible to the current tenant
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public @Nonnull Iterable<Subnet> listAllSubnets() throws CloudException, InternalException {
+        APITrace.begin(getProvider(), "VLAN.listAllSubnets");
         try {
             if( !getNetworkType().equals(QuantumType.QUANTUM) ) {
                 return Collections.emptyList();
             }
-            JSONObject ob = null;
-
-            if (getNetworkType().equals(QuantumType.QUANTUM) ) {
-                ob = getMethod().getNetworks(getSubnetResource(), null, false);
-            }
-            else {
-                ob = getMethod().getServers(getSubnetResource(), null, false);
-            }
-            ArrayList<Subnet> subnets = new ArrayList<Subnet>();
-
-            try {
-                if( ob != null && ob.has("subnets") ) {
-                    JSONArray list = ob.getJSONArray("subnets");
+            final ArrayList<Subnet> subnets = new ArrayList<Subnet>();
 
-                    for( int i=0; i<list.length(); i++ ) {
-                        Subnet subnet = toSubnet(list.getJSONObject(i), null);
+            // the region-wide listing can be large, so convert each subnet as it is read rather than parsing the whole body
+            getMethod().getStreamedResource("network", getSubnetResource(), "subnets", false, null, false, new AbstractMethod.ItemHandler() {
+                public boolean handle(@Nonnull JSONObject item) throws CloudException, InternalException, JSONException {
+                    Subnet subnet = toSubnet(item, null);
 
-                        if( subnet != null && subnet.getProviderVlanId().equals(inVlanId) ) {
-                            subnets.add(subnet);
-                        }
+                    if( subnet != null ) {
+                        subnets.add(subnet);
                     }
+                    return true;
                 }
-            }
-            catch( JSONException e ) {
-                logger.error("Unable to identify expected values in JSON: " + e.getMessage());
-                e.printStackTrace();
-                throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", "Missing JSON element for subnets in " + ob.toString());
-            }
+            });
             return subnets;
         }
         finally {
@@ -713,6 +737,34 @@ public class Quantum extends AbstractVLANSupport<NovaOpenStack> {
         }
     }
 
+    private @Nonnull List<Subnet> loadSubnets(@Nullable String inVlanId) throws CloudException, InternalException {
+        if( !getNetworkType().equals(QuantumType.QUANTUM) ) {
+            return Collections.emptyList();
+        }
+        JSONObject ob = getMethod().getNetworks(getSubnetResource(), null, false);
+        ArrayList<Subnet> subnets = new ArrayList<Subnet>();
+
+        try {
+            if( ob != null && ob.has("subnets") ) {
+                JSONArray list = ob.getJSONArray("subnets");
+
+                for( int i=0; i<list.length(); i++ ) {
+                    Subnet subnet = toSubnet(list.getJSONObject(i), null);
+
+                    if( subnet != null && (inVlanId == null || subnet.getProviderVlanId().equals(inVlanId)) ) {
+                        subnets.add(subnet);
+                    }
+                }
+            }
+        }
+        catch( JSONException e ) {
+            logger.error("Unable to identify expected values in JSON: " + e.getMessage());
+            e.printStackTrace();
+            throw new CloudException(CloudErrorType.COMMUNICATION, 200, "invalidJson", "Missing JSON element for subnets in " + ob.toString());
+        }
+        return subnets;
+    }
+
     @Override
     public @Nonnull Iterable<ResourceStatus> listVlanStatus() throws CloudException, InternalException {
         APITrace.begin(getProvider(), "VLAN.listVlanStatus");
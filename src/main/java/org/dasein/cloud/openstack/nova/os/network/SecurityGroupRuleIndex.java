@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os.network;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.dasein.cloud.network.Direction;
+import org.dasein.cloud.network.FirewallRule;
+import org.dasein.cloud.network.Permission;
+import org.dasein.cloud.network.Protocol;
+import org.dasein.cloud.network.RuleTarget;
+
+/**
+ * The rules of one security group, indexed by everything that identifies a rule apart from its ID (direction,
+ * permission, protocol, source, destination and port range) so that a rule can be found for revocation without
+ * downloading and scanning the group. The index is filled from {@link NovaSecurityGroup#getRules(String)}, kept up to
+ * date in place as rules are authorized and revoked through this connection, and reloaded once it is older than its
+ * time to live so that changes made elsewhere are picked up.
+ * <p>Indexes are held per cloud connection by {@link org.dasein.cloud.openstack.nova.os.NovaOpenStack#getRuleIndex(String)}.</p>
+ * @since 2016.02
+ */
+public class SecurityGroupRuleIndex {
+    /**
+     * Builds the lookup key for a rule.
+     * @param direction the direction of the traffic
+     * @param permission whether the traffic is allowed or denied
+     * @param protocol the protocol of the traffic
+     * @param source the source CIDR or the ID of the source security group
+     * @param target the destination of the traffic
+     * @param startPort the first port of the range
+     * @param endPort the last port of the range
+     * @return the key identifying the rule within its group
+     */
+    static public @Nonnull String toKey(@Nonnull Direction direction, @Nonnull Permission permission, @Nonnull Protocol protocol, @Nonnull String source, @Nonnull RuleTarget target, int startPort, int endPort) {
+        return direction.name() + "|" + permission.name() + "|" + protocol.name() + "|" + source + "|" + target.getRuleTargetType().name() + ":" + toValue(target) + "|" + startPort + "-" + endPort;
+    }
+
+    /**
+     * @param rule the rule
+     * @return the lookup key for the rule
+     */
+    static public @Nonnull String toKey(@Nonnull FirewallRule rule) {
+        return toKey(rule.getDirection(), rule.getPermission(), rule.getProtocol(), toValue(rule.getSourceEndpoint()), rule.getDestinationEndpoint(), rule.getStartPort(), rule.getEndPort());
+    }
+
+    static private @Nonnull String toValue(@Nonnull RuleTarget target) {
+        String value = null;
+
+        switch( target.getRuleTargetType() ) {
+            case CIDR: value = target.getCidr(); break;
+            case GLOBAL: value = target.getProviderFirewallId(); break;
+            case VLAN: value = target.getProviderVlanId(); break;
+            case VM: value = target.getProviderVirtualMachineId(); break;
+        }
+        return (value == null ? "" : value);
+    }
+
+    private final String firewallId;
+
+    private Map<String,String>       keys   = new HashMap<String,String>();
+    private long                     loaded = -1L;
+    private Map<String,FirewallRule> rules  = new HashMap<String,FirewallRule>();
+
+    public SecurityGroupRuleIndex(@Nonnull String firewallId) {
+        this.firewallId = firewallId;
+    }
+
+    public @Nonnull String getFirewallId() {
+        return firewallId;
+    }
+
+    /**
+     * @param ttl the time to live of the index in milliseconds
+     * @return true if the index has been loaded within the time to live
+     */
+    public synchronized boolean isCurrent(long ttl) {
+        return (loaded >= 0L && System.currentTimeMillis() - loaded < ttl);
+    }
+
+    /**
+     * Replaces the content of the index with a full listing of the group's rules.
+     * @param listing the rules of the group
+     */
+    public synchronized void load(@Nonnull Collection<FirewallRule> listing) {
+        Map<String,FirewallRule> rules = new HashMap<String,FirewallRule>();
+        Map<String,String> keys = new HashMap<String,String>();
+
+        for( FirewallRule rule : listing ) {
+            String key = toKey(rule);
+
+            rules.put(key, rule);
+            keys.put(rule.getProviderRuleId(), key);
+        }
+        this.rules = rules;
+        this.keys = keys;
+        this.loaded = System.currentTimeMillis();
+    }
+
+    /**
+     * @param key the key of the rule as built by {@link #toKey(Direction, Permission, Protocol, String, RuleTarget, int, int)}
+     * @return the matching rule, or <code>null</code> if the index holds none
+     */
+    public synchronized @Nullable FirewallRule find(@Nonnull String key) {
+        return rules.get(key);
+    }
+
+    /**
+     * @param ruleId the ID of a rule
+     * @return true if the index holds the rule
+     */
+    public synchronized boolean contains(@Nonnull String ruleId) {
+        return keys.containsKey(ruleId);
+    }
+
+    /**
+     * Records a rule just authorized. Nothing is recorded before the index has been loaded.
+     * @param rule the new rule
+     */
+    public synchronized void add(@Nonnull FirewallRule rule) {
+        if( loaded < 0L ) {
+            return;
+        }
+        String key = toKey(rule);
+
+        rules.put(key, rule);
+        keys.put(rule.getProviderRuleId(), key);
+    }
+
+    /**
+     * Forgets a rule just revoked.
+     * @param ruleId the ID of the revoked rule
+     * @return true if the index held the rule
+     */
+    public synchronized boolean remove(@Nonnull String ruleId) {
+        String key = keys.remove(ruleId);
+
+        if( key == null ) {
+            return false;
+        }
+        rules.remove(key);
+        return true;
+    }
+
+    /**
+     * Empties the index so that the next lookup reloads it.
+     */
+    public synchronized void clear() {
+        rules = new HashMap<String,FirewallRule>();
+        keys = new HashMap<String,String>();
+        loaded = -1L;
+    }
+
+    /**
+     * @return the number of rules indexed
+     */
+    public synchronized int size() {
+        return rules.size();
+    }
+}
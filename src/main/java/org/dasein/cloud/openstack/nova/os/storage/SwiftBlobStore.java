@@ -27,6 +27,7 @@ import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 
@@ -37,9 +38,12 @@ import org.dasein.cloud.OperationNotSupportedException;
 import org.dasein.cloud.ProviderContext;
 import org.dasein.cloud.Tag;
 import org.dasein.cloud.identity.ServiceAction;
+import org.dasein.cloud.openstack.nova.os.AbstractMethod;
 import org.dasein.cloud.openstack.nova.os.AuthenticationContext;
 import org.dasein.cloud.openstack.nova.os.NovaOpenStack;
+import org.dasein.cloud.openstack.nova.os.RateLimiter;
 import org.dasein.cloud.openstack.nova.os.SwiftMethod;
+import org.dasein.cloud.openstack.nova.os.TagBatch;
 import org.dasein.cloud.storage.AbstractBlobStoreSupport;
 import org.dasein.cloud.storage.Blob;
 import org.dasein.cloud.storage.BlobStoreCapabilities;
@@ -51,6 +55,8 @@ import org.dasein.util.JiteratorPopulator;
 import org.dasein.util.PopulatorThread;
 import org.dasein.util.uom.storage.Byte;
 import org.dasein.util.uom.storage.Storage;
+import org.json.JSONException;
+import org.json.JSONObject;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -174,18 +180,20 @@ public class SwiftBlobStore extends AbstractBlobStoreSupport<NovaOpenStack> {
     }
 
     @Override
-    public boolean exists(@Nonnull String bucketName) throws InternalException, CloudException {
+    public boolean exists(@Nonnull final String bucketName) throws InternalException, CloudException {
         APITrace.begin(getProvider(), "exists");
         try {
             try {
                 SwiftMethod method = new SwiftMethod(getProvider());
+                final boolean[] found = new boolean[1];
 
-                for( String container : method.get(null) ) {
-                    if( container.equals(bucketName) ) {
-                        return true;
+                method.list(null, bucketName, null, new AbstractMethod.ItemHandler() {
+                    public boolean handle(@Nonnull JSONObject item) throws JSONException {
+                        found[0] = bucketName.equals(item.optString("name"));
+                        return !found[0];
                     }
-                }
-                return false;
+                });
+                return found[0];
             }
             catch( RuntimeException e ) {
                 logger.error("Could not retrieve file info for " + bucketName + ": " + e.getMessage());
@@ -219,20 +227,36 @@ public class SwiftBlobStore extends AbstractBlobStoreSupport<NovaOpenStack> {
     }
 
     @Override
-    public Blob getObject(@Nullable String bucketName, @Nonnull String objectName) throws InternalException, CloudException {
+    public Blob getObject(@Nullable final String bucketName, @Nonnull final String objectName) throws InternalException, CloudException {
         APITrace.begin(getProvider(), "Blob.getObject");
         try {
             if( bucketName == null ) {
                 return null;
             }
-            for( Blob blob : list(bucketName) ) {
-                String name = blob.getObjectName();
+            ProviderContext ctx = getProvider().getContext();
 
-                if( name != null && name.equals(objectName) ) {
-                    return blob;
-                }
+            if( ctx == null ) {
+                throw new CloudException("No context was specified for this request");
             }
-            return null;
+            final String regionId = ctx.getRegionId();
+
+            if( regionId == null ) {
+                throw new CloudException("No region ID was specified");
+            }
+            SwiftMethod method = new SwiftMethod(getProvider());
+            final Blob[] found = new Blob[1];
+
+            // only the entries sharing the object's name as a prefix need to be examined
+            method.list(bucketName, objectName, null, new AbstractMethod.ItemHandler() {
+                public boolean handle(@Nonnull JSONObject item) throws CloudException, JSONException {
+                    if( objectName.equals(item.optString("name")) ) {
+                        found[0] = toBlob(regionId, bucketName, item);
+                        return false;
+                    }
+                    return true;
+                }
+            });
+            return found[0];
         }
         finally {
             APITrace.end();
@@ -336,12 +360,16 @@ public class SwiftBlobStore extends AbstractBlobStoreSupport<NovaOpenStack> {
                 }
             }
             SwiftMethod method = new SwiftMethod(getProvider());
+            Map<String,String> meta = new HashMap<String,String>();
             InputStream input;
 
-            input = method.get(bucket, location);
+            input = method.get(bucket, location, meta);
             if( input == null ) {
                 throw new CloudException("No such object: " + bucket + "/" + location);
             }
+            if( new SwiftRangedDownload(getProvider(), bucket, location, toFile, transfer).download(meta, input) ) {
+                return;
+            }
             try {
                 copy(input, new FileOutputStream(toFile), transfer);
             }
@@ -464,7 +492,7 @@ public class SwiftBlobStore extends AbstractBlobStoreSupport<NovaOpenStack> {
         }
     }
 
-    private void loadBuckets(@Nonnull String regionId, @Nonnull Jiterator<Blob> iterator) throws CloudException, InternalException {
+    private void loadBuckets(@Nonnull final String regionId, @Nonnull final Jiterator<Blob> iterator) throws CloudException, InternalException {
         Logger logger = NovaOpenStack.getLogger(SwiftBlobStore.class, "std");
 
         if( logger.isTraceEnabled() ) {
@@ -472,19 +500,22 @@ public class SwiftBlobStore extends AbstractBlobStoreSupport<NovaOpenStack> {
         }
         try {
             SwiftMethod method = new SwiftMethod(getProvider());
-            Collection<String> containers;
 
             try {
-                containers = method.get(null);
+                method.list(null, null, null, new AbstractMethod.ItemHandler() {
+                    public boolean handle(@Nonnull JSONObject item) throws JSONException {
+                        String container = item.getString("name");
+
+                        iterator.push(Blob.getInstance(regionId, "/" + container, container, 0L));
+                        return true;
+                    }
+                });
             }
             catch( RuntimeException e ) {
                 logger.error("Could not load buckets: " + e.getMessage());
                 e.printStackTrace();
                 throw new CloudException(e);
             }
-            for( String container : containers ) {
-                iterator.push(Blob.getInstance(regionId, "/" + container, container, 0L));
-            }
         }
         finally {
             if( logger.isTraceEnabled() ) {
@@ -493,7 +524,7 @@ public class SwiftBlobStore extends AbstractBlobStoreSupport<NovaOpenStack> {
         }
     }
 
-    private void loadObjects(@Nonnull String regionId, @Nonnull String bucketName, @Nonnull Jiterator<Blob> iterator) throws CloudException, InternalException {
+    private void loadObjects(@Nonnull final String regionId, @Nonnull final String bucketName, @Nonnull final Jiterator<Blob> iterator) throws CloudException, InternalException {
         Logger logger = NovaOpenStack.getLogger(SwiftBlobStore.class, "std");
 
         if( logger.isTraceEnabled() ) {
@@ -501,26 +532,24 @@ public class SwiftBlobStore extends AbstractBlobStoreSupport<NovaOpenStack> {
         }
         try {
             SwiftMethod method = new SwiftMethod(getProvider());
-            Collection<String> files;
 
             try {
-                if( bucketName == null ) {
-                    files = method.get(null);
-                }
-                else {
-                    files = method.get(bucketName);
-                }
+                method.list(bucketName, null, null, new AbstractMethod.ItemHandler() {
+                    public boolean handle(@Nonnull JSONObject item) throws CloudException, JSONException {
+                        Blob blob = toBlob(regionId, bucketName, item);
+
+                        if( blob != null ) {
+                            iterator.push(blob);
+                        }
+                        return true;
+                    }
+                });
             }
             catch( RuntimeException e ) {
                 logger.error("Could not list files in " + bucketName + ": " + e.getMessage());
                 e.printStackTrace();
                 throw new CloudException(e);
             }
-            for( String info : files ) {
-                Map<String,String> metaData = method.head(bucketName, info);
-
-                iterator.push(Blob.getInstance(regionId, "/" + bucketName + "/" + info, bucketName, info, 0L, new Storage<Byte>(getMetaDataLength(metaData), Storage.BYTE)));
-            }
         }
         finally {
             if( logger.isTraceEnabled() ) {
@@ -529,6 +558,27 @@ public class SwiftBlobStore extends AbstractBlobStoreSupport<NovaOpenStack> {
         }
     }
 
+    /**
+     * Converts an entry of a JSON container listing into a blob. The size and modification time come straight from
+     * the listing, so no per-object HEAD is needed.
+     * @param regionId the region of the container
+     * @param bucketName the container that was listed
+     * @param item the listing entry
+     * @return the matching blob, or <code>null</code> for pseudo-directory entries
+     * @throws CloudException the modification time could not be parsed
+     * @throws JSONException the entry did not have the expected structure
+     */
+    private @Nullable Blob toBlob(@Nonnull String regionId, @Nonnull String bucketName, @Nonnull JSONObject item) throws CloudException, JSONException {
+        if( !item.has("name") ) {
+            return null;
+        }
+        String name = item.getString("name");
+        long size = (item.has("bytes") && !item.isNull("bytes") ? item.getLong("bytes") : -1L);
+        long modified = (item.has("last_modified") && !item.isNull("last_modified") ? NovaOpenStack.parseTimestamp(item.getString("last_modified")) : 0L);
+
+        return Blob.getInstance(regionId, "/" + bucketName + "/" + name, bucketName, name, modified, new Storage<Byte>(size, Storage.BYTE));
+    }
+
     @Override
     public void makePublic(@Nonnull String bucket) throws InternalException, CloudException {
         throw new OperationNotSupportedException("Swift does not support bucket sharing");
@@ -565,6 +615,10 @@ public class SwiftBlobStore extends AbstractBlobStoreSupport<NovaOpenStack> {
         }
     }
 
+    /**
+     * Uploads a file. Files above the segmented upload threshold are uploaded in parallel segments as a Static Large
+     * Object (see {@link SwiftLargeObjectUpload}); smaller files are sent in a single request.
+     */
     @Override
     protected void put(@Nullable String bucket, @Nonnull String object, @Nonnull File file) throws CloudException, InternalException {
         APITrace.begin(getProvider(), "Blob.put");
@@ -572,14 +626,32 @@ public class SwiftBlobStore extends AbstractBlobStoreSupport<NovaOpenStack> {
             if( bucket == null ) {
                 throw new OperationNotSupportedException("A bucket must be specified for Swift");
             }
+            ProviderContext ctx = getProvider().getContext();
+
+            if( SwiftLargeObjectUpload.isSegmented(ctx == null ? null : ctx.getCustomProperties(), file.length()) ) {
+                new SwiftLargeObjectUpload(getProvider(), bucket, object, file).upload();
+                return;
+            }
             SwiftMethod method = new SwiftMethod(getProvider());
+            FileInputStream input;
 
             try {
-                method.put(bucket, object, null, new FileInputStream(file));
+                input = new FileInputStream(file);
             }
             catch( IOException e ) {
                 throw new InternalException(e);
             }
+            try {
+                method.put(bucket, object, null, input);
+            }
+            finally {
+                try {
+                    input.close();
+                }
+                catch( IOException e ) {
+                    logger.warn("Unable to close " + file + ": " + e.getMessage());
+                }
+            }
         }
         finally {
             APITrace.end();
@@ -748,9 +820,7 @@ public class SwiftBlobStore extends AbstractBlobStoreSupport<NovaOpenStack> {
     
     @Override
     public void updateTags(@Nonnull String[] bucketNames, @Nonnull Tag ... tags) throws CloudException, InternalException {
-    	for( String id : bucketNames ) {
-    		updateTags(id, tags);
-    	}
+    	getTagBatch().update(bucketNames, tags).execute();
     }
     
     @Override
@@ -767,9 +837,32 @@ public class SwiftBlobStore extends AbstractBlobStoreSupport<NovaOpenStack> {
     
     @Override
     public void removeTags(@Nonnull String[] bucketNames, @Nonnull Tag ... tags) throws CloudException, InternalException {
-    	for( String id : bucketNames ) {
-    		removeTags(id, tags);
-    	}
+    	getTagBatch().remove(bucketNames, tags).execute();
+    }
+
+    /**
+     * @return a batch writing container metadata, with each container's updates and removals sent as one request
+     */
+    private @Nonnull TagBatch getTagBatch() {
+        return new TagBatch(getProvider(), "object-store", false, new TagBatch.Writer() {
+            @Override
+            public int write(@Nonnull RateLimiter limiter, @Nonnull String bucketName, @Nonnull TagBatch.Edit edit) throws CloudException, InternalException {
+                Map<String,String> headers = new HashMap<String,String>();
+
+                for( Map.Entry<String,String> tag : edit.getTags().entrySet() ) {
+                    headers.put("X-Container-Meta-" + tag.getKey(), tag.getValue());
+                }
+                for( String key : edit.getRemoved() ) {
+                    headers.put("X-Remove-Container-Meta-" + key, "");
+                }
+                if( headers.isEmpty() ) {
+                    return 0;
+                }
+                limiter.acquire();
+                new SwiftMethod(getProvider()).putResourceHeaders("object-store", "/" + bucketName, null, headers);
+                return 1;
+            }
+        });
     }
 
 }
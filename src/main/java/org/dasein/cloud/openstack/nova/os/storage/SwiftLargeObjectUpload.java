@@ -0,0 +1,335 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os.storage;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.http.HttpStatus;
+import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.openstack.nova.os.AbstractMethod;
+import org.dasein.cloud.openstack.nova.os.NovaException;
+import org.dasein.cloud.openstack.nova.os.NovaOpenStack;
+import org.dasein.cloud.openstack.nova.os.RetryPolicy;
+import org.dasein.cloud.openstack.nova.os.SwiftMethod;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Uploads a file as a Swift Static Large Object. The file is split into fixed-size segments, which are uploaded
+ * concurrently into the <code>&lt;bucket&gt;_segments</code> container and then joined by a manifest. Each segment is
+ * sent with its MD5 so Swift verifies it on arrival and the returned ETag is checked again on our side.
+ * <p>Segment names are derived from the file's size, modification time and the segment size, so repeating a failed
+ * upload of the same file finds the segments already stored, skips those whose checksum still matches, and carries on
+ * from the first missing one.</p>
+ * <p>The mode is used for files larger than the <code>segmentedUploadThreshold</code> custom property (bytes) and for
+ * anything larger than {@link SwiftBlobStore#MAX_OBJECT_SIZE}. The <code>segmentSize</code> (bytes) and
+ * <code>uploadThreads</code> custom properties control the split and the concurrency.</p>
+ * @since 2016.02
+ */
+class SwiftLargeObjectUpload {
+    static private final Logger logger = NovaOpenStack.getLogger(SwiftLargeObjectUpload.class, "std");
+
+    static public final long   DEFAULT_SEGMENT_SIZE      = 100L * 1024L * 1024L;
+    static public final long   DEFAULT_THRESHOLD         = 1024L * 1024L * 1024L;
+    static public final int    DEFAULT_UPLOAD_THREADS    = 4;
+    static public final int    MAX_SEGMENTS              = 1000;
+    static public final long   MIN_SEGMENT_SIZE          = 1024L * 1024L;
+    static public final String SEGMENT_CONTAINER_SUFFIX  = "_segments";
+
+    static private final int   BUFFER_SIZE               = 64 * 1024;
+
+    static boolean isSegmented(@Nullable Properties p, long length) {
+        return (length > SwiftBlobStore.MAX_OBJECT_SIZE.getQuantity().longValue() || length > getLongProperty(p, "segmentedUploadThreshold", DEFAULT_THRESHOLD));
+    }
+
+    static private long getLongProperty(@Nullable Properties p, @Nonnull String name, long defaultValue) {
+        String value = (p == null ? null : p.getProperty(name));
+
+        if( value == null || value.trim().length() < 1 ) {
+            return defaultValue;
+        }
+        try {
+            long l = Long.parseLong(value.trim());
+
+            return (l > 0 ? l : defaultValue);
+        }
+        catch( NumberFormatException e ) {
+            logger.warn("Ignoring invalid value for " + name + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    static private class Segment {
+        private final int    index;
+        private final long   offset;
+        private final long   size;
+        private final String name;
+        private String       md5;
+
+        private Segment(int index, long offset, long size, @Nonnull String name) {
+            this.index = index;
+            this.offset = offset;
+            this.size = size;
+            this.name = name;
+        }
+    }
+
+    private final String        bucket;
+    private final File          file;
+    private final String        object;
+    private final NovaOpenStack provider;
+    private final String        segmentBucket;
+    private final long          segmentSize;
+    private final int           threads;
+
+    SwiftLargeObjectUpload(@Nonnull NovaOpenStack provider, @Nonnull String bucket, @Nonnull String object, @Nonnull File file) {
+        Properties p = (provider.getContext() == null ? null : provider.getContext().getCustomProperties());
+        long size = Math.max(MIN_SEGMENT_SIZE, getLongProperty(p, "segmentSize", DEFAULT_SEGMENT_SIZE));
+        long length = file.length();
+
+        // Swift caps a manifest at 1000 segments by default, so very large files get larger segments
+        if( (length + size - 1) / size > MAX_SEGMENTS ) {
+            size = (length + MAX_SEGMENTS - 1) / MAX_SEGMENTS;
+        }
+        this.provider = provider;
+        this.bucket = bucket;
+        this.object = object;
+        this.file = file;
+        this.segmentBucket = bucket + SEGMENT_CONTAINER_SUFFIX;
+        this.segmentSize = size;
+        this.threads = (int)Math.max(1L, getLongProperty(p, "uploadThreads", DEFAULT_UPLOAD_THREADS));
+    }
+
+    /**
+     * Uploads any segments not already stored and writes the manifest.
+     * @throws CloudException a segment or the manifest could not be stored
+     * @throws InternalException the file could not be read or the upload was interrupted
+     */
+    void upload() throws CloudException, InternalException {
+        long length = file.length();
+        String prefix = object + "/slo/" + file.lastModified() + "/" + length + "/" + segmentSize + "/";
+        List<Segment> segments = new ArrayList<Segment>();
+
+        for( long offset = 0L; offset < length; offset += segmentSize ) {
+            int index = segments.size();
+
+            segments.add(new Segment(index, offset, Math.min(segmentSize, length - offset), prefix + String.format("%08d", index)));
+        }
+        SwiftMethod method = new SwiftMethod(provider);
+
+        method.put(segmentBucket);
+        final Map<String,JSONObject> stored = listStoredSegments(method, prefix);
+        FileInputStream input;
+
+        try {
+            input = new FileInputStream(file);
+        }
+        catch( IOException e ) {
+            throw new InternalException(e);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, segments.size()));
+
+        try {
+            final FileChannel channel = input.getChannel();
+            List<Future<Segment>> results = new ArrayList<Future<Segment>>();
+
+            for( final Segment segment : segments ) {
+                results.add(executor.submit(new Callable<Segment>() {
+                    public Segment call() throws Exception {
+                        return uploadSegment(channel, segment, stored.get(segment.name));
+                    }
+                }));
+            }
+            JSONArray manifest = new JSONArray();
+
+            for( Future<Segment> result : results ) {
+                Segment segment = await(result);
+                Map<String,Object> entry = new HashMap<String,Object>();
+
+                entry.put("path", "/" + segmentBucket + "/" + segment.name);
+                entry.put("etag", segment.md5);
+                entry.put("size_bytes", segment.size);
+                manifest.put(new JSONObject(entry));
+            }
+            method.putManifest(bucket, object, manifest);
+        }
+        finally {
+            executor.shutdownNow();
+            try {
+                input.close();
+            }
+            catch( IOException e ) {
+                logger.warn("Unable to close " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private @Nonnull Map<String,JSONObject> listStoredSegments(@Nonnull SwiftMethod method, @Nonnull String prefix) throws CloudException, InternalException {
+        final Map<String,JSONObject> stored = new HashMap<String,JSONObject>();
+
+        method.list(segmentBucket, prefix, null, new AbstractMethod.ItemHandler() {
+            public boolean handle(@Nonnull JSONObject item) throws JSONException {
+                if( item.has("name") ) {
+                    stored.put(item.getString("name"), item);
+                }
+                return true;
+            }
+        });
+        return stored;
+    }
+
+    private @Nonnull Segment uploadSegment(@Nonnull FileChannel channel, @Nonnull Segment segment, @Nullable JSONObject stored) throws CloudException, InternalException {
+        segment.md5 = checksum(channel, segment);
+        if( stored != null && segment.md5.equalsIgnoreCase(stored.optString("hash")) && stored.optLong("bytes", -1L) == segment.size ) {
+            logger.debug("Segment " + segment.index + " of " + bucket + "/" + object + " is already stored");
+            return segment;
+        }
+        RetryPolicy policy = provider.getRetryPolicy();
+        SwiftMethod method = new SwiftMethod(provider);
+        boolean reauthenticated = false;
+        int attempt = 0;
+
+        while( true ) {
+            SegmentInputStream input = new SegmentInputStream(channel, segment.offset, segment.size);
+
+            try {
+                method.put(segmentBucket, segment.name, segment.md5, input);
+                return segment;
+            }
+            catch( CloudException | InternalException e ) {
+                // streamed uploads are never replayed by the method itself, but a segment can simply be read again
+                if( !reauthenticated && e instanceof NovaException && ((NovaException)e).getHttpCode() == HttpStatus.SC_UNAUTHORIZED ) {
+                    reauthenticated = true;
+                    continue;
+                }
+                long delay = policy.getRetryDelay("PUT", e, attempt);
+
+                if( delay < 0 ) {
+                    throw e;
+                }
+                logger.warn("Segment " + segment.index + " of " + bucket + "/" + object + " failed, retrying: " + e.getMessage());
+                attempt++;
+                policy.pause(delay);
+            }
+        }
+    }
+
+    private @Nonnull String checksum(@Nonnull FileChannel channel, @Nonnull Segment segment) throws InternalException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            SegmentInputStream input = new SegmentInputStream(channel, segment.offset, segment.size);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+
+            while( (count = input.read(buffer, 0, buffer.length)) != -1 ) {
+                digest.update(buffer, 0, count);
+            }
+            StringBuilder hex = new StringBuilder();
+
+            for( byte b : digest.digest() ) {
+                hex.append(String.format("%02x", b & 0xff));
+            }
+            return hex.toString();
+        }
+        catch( NoSuchAlgorithmException | IOException e ) {
+            throw new InternalException(e);
+        }
+    }
+
+    private @Nonnull Segment await(@Nonnull Future<Segment> result) throws CloudException, InternalException {
+        try {
+            return result.get();
+        }
+        catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new InternalException(e);
+        }
+        catch( ExecutionException e ) {
+            Throwable cause = e.getCause();
+
+            if( cause instanceof CloudException ) {
+                throw (CloudException)cause;
+            }
+            if( cause instanceof InternalException ) {
+                throw (InternalException)cause;
+            }
+            throw new InternalException(cause);
+        }
+    }
+
+    /**
+     * Reads one segment of the file with positional reads, so many segments can share a single channel.
+     */
+    static private class SegmentInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long        end;
+        private long              position;
+
+        private SegmentInputStream(@Nonnull FileChannel channel, long offset, long size) {
+            this.channel = channel;
+            this.position = offset;
+            this.end = offset + size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+
+            return (read(b, 0, 1) == -1 ? -1 : (b[0] & 0xff));
+        }
+
+        @Override
+        public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+            if( position >= end ) {
+                return -1;
+            }
+            int count = channel.read(ByteBuffer.wrap(b, off, (int)Math.min(len, end - position)), position);
+
+            if( count == -1 ) {
+                return -1;
+            }
+            position += count;
+            return count;
+        }
+    }
+}
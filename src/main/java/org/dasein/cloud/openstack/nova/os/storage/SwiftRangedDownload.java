@@ -0,0 +1,455 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.http.conn.EofSensorInputStream;
+import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.openstack.nova.os.NovaOpenStack;
+import org.dasein.cloud.openstack.nova.os.RetryPolicy;
+import org.dasein.cloud.openstack.nova.os.SwiftMethod;
+import org.dasein.cloud.storage.FileTransfer;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Downloads a Swift object over several connections at once. The size comes from the headers of the plain GET that
+ * opened the object, so small objects cost no extra round trip. For a large object the target file is pre-allocated,
+ * the body of that GET supplies the first range, and the remaining byte ranges are fetched concurrently with
+ * <code>Range</code> requests, each written straight to its place in the file with positional {@link FileChannel}
+ * writes. A ranged reply must be a partial response whose <code>Content-Range</code> matches the request.
+ * <p>For Static Large Objects the ranges follow the segments of the manifest and each range is checked against its
+ * segment's MD5 as it completes. For ordinary objects the ranges are fixed-size and the finished file is checked
+ * against the object's ETag. The ETag of a Dynamic Large Object, or of a Static Large Object whose manifest cannot be
+ * matched to its length, is a digest of the segment ETags rather than of the content, so such objects are fetched in
+ * fixed-size ranges without a checksum. A range that fails, or whose checksum does not match, is fetched again on its
+ * own.</p>
+ * <p>Objects smaller than the <code>rangedDownloadThreshold</code> custom property (bytes) are left to the single
+ * stream download. The <code>downloadRangeSize</code> (bytes) and <code>downloadThreads</code> custom properties
+ * control the split and the concurrency.</p>
+ * @since 2016.02
+ */
+class SwiftRangedDownload {
+    static private final Logger logger = NovaOpenStack.getLogger(SwiftRangedDownload.class, "std");
+
+    static public final long DEFAULT_RANGE_SIZE       = 64L * 1024L * 1024L;
+    static public final long DEFAULT_THRESHOLD        = 128L * 1024L * 1024L;
+    static public final int  DEFAULT_DOWNLOAD_THREADS = 4;
+
+    static private final int BUFFER_SIZE              = 64 * 1024;
+
+    static private long getLongProperty(@Nullable Properties p, @Nonnull String name, long defaultValue) {
+        String value = (p == null ? null : p.getProperty(name));
+
+        if( value == null || value.trim().length() < 1 ) {
+            return defaultValue;
+        }
+        try {
+            long l = Long.parseLong(value.trim());
+
+            return (l > 0 ? l : defaultValue);
+        }
+        catch( NumberFormatException e ) {
+            logger.warn("Ignoring invalid value for " + name + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    static private @Nullable String getHeader(@Nonnull Map<String,String> headers, @Nonnull String name) {
+        for( Map.Entry<String,String> entry : headers.entrySet() ) {
+            if( entry.getKey().equalsIgnoreCase(name) ) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lets go of a response without reading the rest of it. Closing a pooled response stream drains it first, which
+     * for a partly read object would mean downloading the remainder just to throw it away.
+     * @param input the response body to let go of
+     */
+    static private void abort(@Nonnull InputStream input) {
+        try {
+            if( input instanceof EofSensorInputStream ) {
+                ((EofSensorInputStream)input).abortConnection();
+            }
+            else {
+                input.close();
+            }
+        }
+        catch( IOException ignore ) {
+            // the connection is discarded either way
+        }
+    }
+
+    static private class Range {
+        private final long   first;
+        private final long   length;
+        private final String md5;
+
+        private Range(long first, long length, @Nullable String md5) {
+            this.first = first;
+            this.length = length;
+            this.md5 = md5;
+        }
+    }
+
+    private final String        bucket;
+    private final String        object;
+    private final NovaOpenStack provider;
+    private final long          rangeSize;
+    private final int           threads;
+    private final long          threshold;
+    private final File          toFile;
+    private final FileTransfer  transfer;
+    private final AtomicLong    transferred = new AtomicLong();
+
+    SwiftRangedDownload(@Nonnull NovaOpenStack provider, @Nonnull String bucket, @Nonnull String object, @Nonnull File toFile, @Nullable FileTransfer transfer) {
+        Properties p = (provider.getContext() == null ? null : provider.getContext().getCustomProperties());
+
+        this.provider = provider;
+        this.bucket = bucket;
+        this.object = object;
+        this.toFile = toFile;
+        this.transfer = transfer;
+        this.rangeSize = getLongProperty(p, "downloadRangeSize", DEFAULT_RANGE_SIZE);
+        this.threshold = getLongProperty(p, "rangedDownloadThreshold", DEFAULT_THRESHOLD);
+        this.threads = (int)Math.max(1L, getLongProperty(p, "downloadThreads", DEFAULT_DOWNLOAD_THREADS));
+    }
+
+    /**
+     * Downloads the object if it is large enough to benefit from parallel ranges.
+     * @param meta the headers of the GET that opened the object
+     * @param input the body of that GET; if the object is downloaded here the stream is used for the first range and
+     * released, otherwise it is left untouched for the caller to read as a single stream
+     * @return true if the object was downloaded, false if it should be fetched as a single stream instead
+     * @throws CloudException a range could not be fetched or verified
+     * @throws InternalException the file could not be written or the download was interrupted
+     */
+    boolean download(@Nonnull Map<String,String> meta, @Nonnull InputStream input) throws CloudException, InternalException {
+        String value = getHeader(meta, "Content-Length");
+        long length;
+
+        try {
+            length = (value == null ? -1L : Long.parseLong(value));
+        }
+        catch( NumberFormatException e ) {
+            length = -1L;
+        }
+        if( length < threshold ) {
+            return false;
+        }
+        boolean complete = false;
+
+        try {
+            boolean slo = "true".equalsIgnoreCase(getHeader(meta, "X-Static-Large-Object"));
+            // the ETag of a large object is a digest of its segment ETags, not of its content
+            String etag = (slo || getHeader(meta, "X-Object-Manifest") != null ? null : getHeader(meta, "ETag"));
+            List<Range> ranges = (slo ? getSegmentRanges(getMethod(), length) : null);
+
+            if( ranges == null ) {
+                ranges = new ArrayList<Range>();
+                for( long first = 0L; first < length; first += rangeSize ) {
+                    ranges.add(new Range(first, Math.min(rangeSize, length - first), null));
+                }
+            }
+            if( transfer != null ) {
+                transfer.setBytesToTransfer(length);
+            }
+            fetch(ranges, length, input);
+            if( etag != null ) {
+                verify(etag.replace("\"", ""));
+            }
+            complete = true;
+        }
+        finally {
+            abort(input);
+            if( !complete && toFile.exists() && !toFile.delete() ) {
+                logger.warn("Unable to delete incomplete download " + toFile);
+            }
+        }
+        return true;
+    }
+
+    protected @Nonnull SwiftMethod getMethod() {
+        return new SwiftMethod(provider);
+    }
+
+    private @Nullable List<Range> getSegmentRanges(@Nonnull SwiftMethod method, long length) throws CloudException, InternalException {
+        JSONArray manifest = method.getManifest(bucket, object);
+
+        if( manifest == null ) {
+            return null;
+        }
+        List<Range> ranges = new ArrayList<Range>();
+        long first = 0L;
+
+        try {
+            for( int i=0; i<manifest.length(); i++ ) {
+                JSONObject segment = manifest.getJSONObject(i);
+                long bytes = segment.getLong("bytes");
+
+                ranges.add(new Range(first, bytes, segment.optString("hash", null)));
+                first += bytes;
+            }
+        }
+        catch( JSONException e ) {
+            logger.warn("Unable to read the manifest of " + bucket + "/" + object + ", falling back to fixed ranges: " + e.getMessage());
+            return null;
+        }
+        return (first == length ? ranges : null);
+    }
+
+    private void fetch(@Nonnull List<Range> ranges, long length, @Nonnull InputStream input) throws CloudException, InternalException {
+        RandomAccessFile file;
+
+        try {
+            file = new RandomAccessFile(toFile, "rw");
+            file.setLength(length);
+        }
+        catch( IOException e ) {
+            throw new InternalException(e);
+        }
+        // this thread reads the first range from the open GET, so the pool covers the rest
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads - 1, ranges.size() - 1)));
+
+        try {
+            final FileChannel channel = file.getChannel();
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+
+            for( final Range range : ranges.subList(1, ranges.size()) ) {
+                results.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        fetchRange(channel, range, null);
+                        return null;
+                    }
+                }));
+            }
+            fetchRange(channel, ranges.get(0), input);
+            for( Future<Void> result : results ) {
+                await(result);
+            }
+            channel.force(false);
+        }
+        catch( IOException e ) {
+            throw new InternalException(e);
+        }
+        finally {
+            executor.shutdownNow();
+            try {
+                file.close();
+            }
+            catch( IOException e ) {
+                logger.warn("Unable to close " + toFile + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void fetchRange(@Nonnull FileChannel channel, @Nonnull Range range, @Nullable InputStream opened) throws CloudException, InternalException {
+        RetryPolicy policy = provider.getRetryPolicy();
+        SwiftMethod method = getMethod();
+        int attempt = 0;
+
+        while( true ) {
+            try {
+                if( opened != null ) {
+                    InputStream input = opened;
+
+                    // a failed first attempt is retried as an ordinary ranged GET
+                    opened = null;
+                    writeRange(channel, range, input, true);
+                }
+                else {
+                    writeRange(channel, range, openRange(method, range), false);
+                }
+                return;
+            }
+            catch( CloudException | InternalException e ) {
+                long delay = policy.getRetryDelay("GET", e, attempt);
+
+                if( delay < 0 ) {
+                    throw e;
+                }
+                logger.warn("Range " + range.first + "+" + range.length + " of " + bucket + "/" + object + " failed, retrying: " + e.getMessage());
+                attempt++;
+                policy.pause(delay);
+            }
+        }
+    }
+
+    private @Nonnull InputStream openRange(@Nonnull SwiftMethod method, @Nonnull Range range) throws CloudException, InternalException {
+        Map<String,String> headers = new HashMap<String,String>();
+        long last = range.first + range.length - 1;
+        InputStream input = method.get(bucket, object, range.first, last, headers);
+
+        if( input == null ) {
+            throw new CloudException("No such object: " + bucket + "/" + object);
+        }
+        String contentRange = getHeader(headers, "Content-Range");
+
+        // only a 206 carries Content-Range; a server that ignored the Range header is sending the whole object
+        if( contentRange == null || !contentRange.trim().startsWith("bytes " + range.first + "-" + last + "/") ) {
+            abort(input);
+            throw new CloudException("Expected bytes " + range.first + "-" + last + " of " + bucket + "/" + object + " but the reply was " + (contentRange == null ? "not a partial response" : contentRange));
+        }
+        return input;
+    }
+
+    private void writeRange(@Nonnull FileChannel channel, @Nonnull Range range, @Nonnull InputStream input, boolean whole) throws CloudException, InternalException {
+        long position = range.first;
+        boolean complete = false;
+
+        try {
+            MessageDigest digest = (range.md5 == null ? null : MessageDigest.getInstance("MD5"));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long end = range.first + range.length;
+            int count;
+
+            while( position < end && (count = input.read(buffer, 0, (int)Math.min(buffer.length, end - position))) != -1 ) {
+                ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, count);
+
+                while( bytes.hasRemaining() ) {
+                    position += channel.write(bytes, position);
+                }
+                if( digest != null ) {
+                    digest.update(buffer, 0, count);
+                }
+                addProgress(count);
+            }
+            if( position != end ) {
+                throw new InternalException(new IOException("Range " + range.first + "+" + range.length + " ended after " + (position - range.first) + " bytes"));
+            }
+            if( digest != null && !range.md5.equalsIgnoreCase(toHex(digest.digest())) ) {
+                throw new InternalException(new IOException("Checksum mismatch in range " + range.first + "+" + range.length));
+            }
+            complete = true;
+        }
+        catch( NoSuchAlgorithmException | IOException e ) {
+            throw new InternalException(e);
+        }
+        finally {
+            if( !complete ) {
+                // take back the progress reported for a range that has to be fetched again
+                addProgress(range.first - position);
+            }
+            if( complete && !whole ) {
+                try {
+                    input.close();
+                }
+                catch( IOException ignore ) {
+                    // the connection is discarded either way
+                }
+            }
+            else {
+                // the rest of the whole object, or of a failed range, is not worth reading
+                abort(input);
+            }
+        }
+    }
+
+    private void verify(@Nonnull String etag) throws CloudException, InternalException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            RandomAccessFile file = new RandomAccessFile(toFile, "r");
+
+            try {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int count;
+
+                while( (count = file.read(buffer)) != -1 ) {
+                    digest.update(buffer, 0, count);
+                }
+            }
+            finally {
+                file.close();
+            }
+            if( !etag.equalsIgnoreCase(toHex(digest.digest())) ) {
+                throw new CloudException("MD5 hash values do not match for " + bucket + "/" + object + ", probably data corruption");
+            }
+        }
+        catch( NoSuchAlgorithmException | IOException e ) {
+            throw new InternalException(e);
+        }
+    }
+
+    private @Nonnull String toHex(@Nonnull byte[] digest) {
+        StringBuilder hex = new StringBuilder();
+
+        for( byte b : digest ) {
+            hex.append(String.format("%02x", b & 0xff));
+        }
+        return hex.toString();
+    }
+
+    private void await(@Nonnull Future<Void> result) throws CloudException, InternalException {
+        try {
+            result.get();
+        }
+        catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new InternalException(e);
+        }
+        catch( ExecutionException e ) {
+            Throwable cause = e.getCause();
+
+            if( cause instanceof CloudException ) {
+                throw (CloudException)cause;
+            }
+            if( cause instanceof InternalException ) {
+                throw (InternalException)cause;
+            }
+            throw new InternalException(cause);
+        }
+    }
+
+    private void addProgress(long bytes) {
+        long total = transferred.addAndGet(bytes);
+
+        if( transfer != null ) {
+            transfer.setBytesTransferred(total);
+        }
+    }
+}
@@ -7,23 +7,32 @@ import org.apache.http.conn.ClientConnectionManager;
 import org.dasein.cloud.CloudErrorType;
 import org.dasein.cloud.CloudException;
 import org.dasein.cloud.InternalException;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
 import org.junit.Test;
+import org.mockito.internal.util.reflection.Whitebox;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
 /**
  * Created by mariapavlova on 08/09/2015.
  */
 public class AbstractMethodTest {
-    @Test
-    public void postStringThrowsExceptionFor413() {
-        final int expectedStatusCode = 413;
-        InputStream json = getClass().getClassLoader().getResourceAsStream("nova/fixtures/error413.json");
+    private NovaException post413(InputStream json) throws Exception {
         NovaMethod method = mock(NovaMethod.class);
         HttpClient mockClient = mock(HttpClient.class);
         HttpResponse response = mock(HttpResponse.class);
@@ -48,7 +57,7 @@ public class AbstractMethodTest {
             }
 
             @Override public int getStatusCode() {
-                return expectedStatusCode;
+                return 413;
             }
 
             @Override public String getReasonPhrase() {
@@ -56,33 +65,130 @@ public class AbstractMethodTest {
             }
         });
         HttpEntity entity = mock(HttpEntity.class);
-        try {
-            when(entity.getContent()).thenReturn(json);
-            when(entity.getContentLength()).thenReturn(( long ) json.available());
-            when(response.getEntity()).thenReturn(entity);
-        }
-        catch( IOException e ) {
-            e.printStackTrace();
-        }
+        when(entity.getContent()).thenReturn(json);
+        when(entity.getContentLength()).thenReturn(( long ) json.available());
+        when(response.getEntity()).thenReturn(entity);
 
+        when(mockClient.execute(any(HttpPost.class))).thenReturn(response);
+        when(method.getClient()).thenReturn(mockClient);
+        when(method.postString("bogus", "bogus", null, "bogus")).thenCallRealMethod();
         try {
-            when(mockClient.execute(any(HttpPost.class))).thenReturn(response);
-            when(method.getClient()).thenReturn(mockClient);
-            when(method.postString("bogus", "bogus", null, "bogus")).thenCallRealMethod();
             method.postString("bogus", "bogus", null, "bogus");
-            assertTrue("Exception should have been thrown", false);
+            fail("Exception should have been thrown");
+            return null;
         }
-        catch( CloudException e ) {
-            assertEquals("Exception HTTP status code does not match", expectedStatusCode, e.getHttpCode());
-            assertEquals("Exception provider code does not match", "Over Limit", e.getProviderCode());
-            assertEquals("Exception message does not match", "VolumeLimitExceeded: Maximum number of volumes allowed (10) exceeded", e.getMessage());
-            assertEquals("Exception error type does not match", CloudErrorType.CAPACITY, e.getErrorType());
+        catch( NovaException e ) {
+            verify(mockClient, times(1)).execute(any(HttpPost.class));
+            return e;
         }
-        catch( InternalException e ) {
-            e.printStackTrace();
+    }
+
+    @Test
+    public void postStringThrowsExceptionFor413() throws Exception {
+        NovaException e = post413(getClass().getClassLoader().getResourceAsStream("nova/fixtures/error413.json"));
+
+        assertEquals("Exception HTTP status code does not match", 413, e.getHttpCode());
+        assertEquals("Exception provider code does not match", "VolumeLimitExceeded: Maximum number of volumes allowed (10) exceeded", e.getProviderCode());
+        assertEquals("Exception error type does not match", CloudErrorType.THROTTLING, e.getErrorType());
+        assertEquals("No retry delay was given", -1L, e.getRetryAfter());
+    }
+
+    @Test
+    public void postStringLeavesOverLimitRetryToPolicyTest() throws Exception {
+        String body = "{\"overLimit\": {\"message\": \"This request was rate-limited.\", \"code\": 413, \"retryAfter\": \"60\"}}";
+        NovaException e = post413(new ByteArrayInputStream(body.getBytes("utf-8")));
+
+        assertEquals("The body's retryAfter should reach the retry policy", 60000L, e.getRetryAfter());
+    }
+
+    private JSONObject page(String next, String ... ids) throws JSONException {
+        JSONArray servers = new JSONArray();
+
+        for( String id : ids ) {
+            servers.put(new JSONObject().put("id", id));
         }
-        catch( IOException e ) {
-            e.printStackTrace();
+        JSONObject ob = new JSONObject().put("servers", servers);
+
+        if( next != null ) {
+            JSONArray links = new JSONArray();
+
+            links.put(new JSONObject().put("rel", "next").put("href", "http://compute.example.com/v2/t/servers/detail?limit=2&marker=" + next));
+            ob.put("servers_links", links);
         }
+        return ob;
+    }
+
+    private List<String> listPages(NovaMethod method) throws CloudException, InternalException {
+        final List<String> ids = new ArrayList<String>();
+
+        when(method.getPageSize()).thenReturn(2);
+        doCallRealMethod().when(method).getPagedResource(anyString(), anyString(), anyString(), anyBoolean(), anyString(), any(AbstractMethod.PageHandler.class));
+        method.getPagedResource("compute", "/servers", "servers", true, null, new AbstractMethod.PageHandler() {
+            public boolean handle(JSONArray page) throws JSONException {
+                for( int i=0; i<page.length(); i++ ) {
+                    ids.add(page.getJSONObject(i).getString("id"));
+                }
+                return true;
+            }
+        });
+        return ids;
+    }
+
+    @Test
+    public void pagedResourceFollowsNextLinkTest() throws Exception {
+        NovaMethod method = mock(NovaMethod.class);
+
+        when(method.getResource("compute", "/servers/detail", "?limit=2", false)).thenReturn(page("x", "a", "b"));
+        when(method.getResource("compute", "/servers/detail", "?limit=2&marker=x", false)).thenReturn(page(null, "c"));
+        assertEquals(Arrays.asList("a", "b", "c"), listPages(method));
+        verify(method, times(2)).getResource(anyString(), anyString(), anyString(), anyBoolean());
+    }
+
+    @Test
+    public void pagedResourceFallsBackToLastIdTest() throws Exception {
+        NovaMethod method = mock(NovaMethod.class);
+
+        when(method.getResource("compute", "/servers/detail", "?limit=2", false)).thenReturn(page(null, "a", "b"));
+        when(method.getResource("compute", "/servers/detail", "?limit=2&marker=b", false)).thenReturn(page(null, "c", "d"));
+        when(method.getResource("compute", "/servers/detail", "?limit=2&marker=d", false)).thenReturn(page(null));
+        assertEquals(Arrays.asList("a", "b", "c", "d"), listPages(method));
+        verify(method, times(3)).getResource(anyString(), anyString(), anyString(), anyBoolean());
+    }
+
+    @Test
+    public void pagedResourceStopsOnShortPageTest() throws Exception {
+        NovaMethod method = mock(NovaMethod.class);
+
+        when(method.getResource("compute", "/servers/detail", "?limit=2", false)).thenReturn(page(null, "a"));
+        assertEquals(Arrays.asList("a"), listPages(method));
+        verify(method, times(1)).getResource(anyString(), anyString(), anyString(), anyBoolean());
+    }
+
+    @Test
+    public void streamedResourceClosesWhenStoppedEarlyTest() throws Exception {
+        NovaMethod method = mock(NovaMethod.class);
+        final boolean[] closed = new boolean[1];
+        InputStream body = new ByteArrayInputStream("{\"servers\": [{\"id\": \"a\"}, {\"id\": \"b\"}]}".getBytes()) {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        };
+        final List<String> ids = new ArrayList<String>();
+
+        Whitebox.setInternalState(method, "provider", mock(NovaOpenStack.class));
+        when(method.getPageSize()).thenReturn(2);
+        when(method.execute(anyString(), anyBoolean(), any(AbstractMethod.AuthenticatedCall.class))).thenReturn(body);
+        doCallRealMethod().when(method).getStreamedResource(anyString(), anyString(), anyString(), anyBoolean(), anyString(), anyBoolean(), any(AbstractMethod.ItemHandler.class));
+        method.getStreamedResource("compute", "/servers", "servers", true, null, true, new AbstractMethod.ItemHandler() {
+            public boolean handle(JSONObject item) throws JSONException {
+                ids.add(item.getString("id"));
+                return false;
+            }
+        });
+        assertEquals(Arrays.asList("a"), ids);
+        assertTrue("The response should be closed", closed[0]);
+        verify(method, times(1)).execute(anyString(), anyBoolean(), any(AbstractMethod.AuthenticatedCall.class));
     }
 }
@@ -7,6 +7,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by mariapavlova on 08/10/2015.
@@ -41,4 +42,24 @@ public class AuthenticationContextTest {
         assertEquals("Returned service url is not as expected", SERVICE_URL, authenticationContext.getServiceUrl("myService"));
     }
 
+    @Test
+    public void versionTest() {
+        Map<String, Map<String, String>> services = new HashMap<String, Map<String, String>>();
+        Map<String, String> computeMap = new HashMap<String, String>();
+        computeMap.put(REGION_ID, "https://nova.example.com:8774/v1.1/" + TENANT_ID + "/");
+        services.put("compute", computeMap);
+        AuthenticationContext context = new AuthenticationContext(REGION_ID, TOKEN, TENANT_ID, services, null);
+
+        assertEquals("Major version is not as expected", 1, context.getMajorVersion());
+        assertEquals("Minor version is not as expected", 1, context.getMinorVersion());
+        assertTrue("Version 1.1 should be post-Cactus", context.isPostCactus());
+    }
+
+    @Test
+    public void versionWithoutEndpointTest() {
+        assertEquals("Major version should default to 1", 1, authenticationContext.getMajorVersion());
+        assertEquals("Minor version should default to 1", 1, authenticationContext.getMinorVersion());
+        assertEquals("Cloud provider should default to OTHER", OpenStackProvider.OTHER, authenticationContext.getCloudProvider());
+    }
+
 }
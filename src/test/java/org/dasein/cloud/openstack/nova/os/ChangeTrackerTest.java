@@ -0,0 +1,251 @@
+package org.dasein.cloud.openstack.nova.os;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks the snapshots and deltas {@link ChangeTracker} builds from full and <code>changes-since</code> listings.
+ */
+public class ChangeTrackerTest {
+    /**
+     * Keeps the name of each server, remembering which items it was asked to convert.
+     */
+    static private class NameMapper implements ChangeTracker.Mapper<String> {
+        private final List<String> converted = new ArrayList<String>();
+        private final String       prefix;
+
+        NameMapper(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public String toValue(JSONObject item) throws JSONException {
+            converted.add(item.getString("id"));
+            return (item.has("name") ? prefix + item.getString("name") : null);
+        }
+
+        @Override
+        public boolean isDeleted(JSONObject item) throws JSONException {
+            return "DELETED".equals(item.optString("status"));
+        }
+
+        @Override
+        public long getUpdated(JSONObject item) {
+            return item.optLong("updated", -1L);
+        }
+    }
+
+    private final LinkedList<JSONArray> listings = new LinkedList<JSONArray>();
+    private final List<String>          queries  = new ArrayList<String>();
+
+    private ChangeTracker<String> tracker(boolean changesSince) throws CloudException, InternalException {
+        final NovaMethod method = mock(NovaMethod.class);
+
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                AbstractMethod.ItemHandler handler = (AbstractMethod.ItemHandler)invocation.getArguments()[6];
+                JSONArray items = listings.removeFirst();
+
+                queries.add((String)invocation.getArguments()[4]);
+                for( int i=0; i<items.length(); i++ ) {
+                    if( !handler.handle(items.getJSONObject(i)) ) {
+                        break;
+                    }
+                }
+                return null;
+            }
+        }).when(method).getStreamedResource(eq("compute"), eq("/servers"), eq("servers"), eq(true), anyString(), eq(true), any(AbstractMethod.ItemHandler.class));
+        return new ChangeTracker<String>(mock(NovaOpenStack.class), "compute", "/servers", "servers", true, true, changesSince) {
+            @Override
+            protected NovaMethod getMethod() {
+                return method;
+            }
+        };
+    }
+
+    private void list(JSONObject ... items) {
+        listings.add(new JSONArray(Arrays.asList(items)));
+    }
+
+    private JSONObject server(String id, long updated, String name) throws JSONException {
+        JSONObject ob = new JSONObject();
+
+        ob.put("id", id);
+        ob.put("updated", updated);
+        if( name != null ) {
+            ob.put("name", name);
+        }
+        return ob;
+    }
+
+    private JSONObject deleted(String id, long updated) throws JSONException {
+        return server(id, updated, null).put("status", "DELETED");
+    }
+
+    @Test
+    public void fullSyncTest() throws Exception {
+        ChangeTracker<String> tracker = tracker(true);
+        NameMapper mapper = new NameMapper("");
+
+        list(server("a", 1000L, "one"), server("b", 2000L, "two"), deleted("c", 1500L), new JSONObject().put("name", "no id"));
+        ChangeTracker.Delta<String> delta = tracker.sync(mapper);
+
+        assertTrue(delta.isFull());
+        assertNull("The first sync should list the whole collection", queries.get(0));
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<String>(delta.getChanged().keySet()));
+        assertEquals("one", delta.getChanged().get("a"));
+        assertEquals("two", delta.getChanged().get("b"));
+        assertTrue(delta.getRemoved().isEmpty());
+        assertEquals(delta.getChanged(), tracker.getSnapshot());
+        assertEquals(Arrays.asList("a", "b"), mapper.converted);
+    }
+
+    @Test
+    public void deltaSyncTest() throws Exception {
+        ChangeTracker<String> tracker = tracker(true);
+        NameMapper mapper = new NameMapper("");
+
+        list(server("a", 1000L, "one"), server("b", 2000L, "two"), server("c", 1500L, "three"));
+        tracker.sync(mapper);
+        String two = tracker.getSnapshot().get("b");
+
+        mapper.converted.clear();
+        // changes-since is inclusive, so b comes back although it has not changed; d was never seen
+        list(server("b", 2000L, "two"), server("a", 3000L, "uno"), deleted("c", 2500L), deleted("d", 2600L));
+        ChangeTracker.Delta<String> delta = tracker.sync(mapper);
+
+        assertFalse(delta.isFull());
+        assertEquals("changes-since=1970-01-01T00%3A00%3A02Z", queries.get(1));
+        assertEquals(Collections.singletonMap("a", "uno"), delta.getChanged());
+        assertEquals(Collections.singleton("c"), delta.getRemoved());
+        assertEquals(Arrays.asList("a"), mapper.converted);
+        assertEquals(2, tracker.getSnapshot().size());
+        assertEquals("uno", tracker.getSnapshot().get("a"));
+        assertSame("An unchanged item should keep its value", two, tracker.getSnapshot().get("b"));
+
+        list();
+        delta = tracker.sync(mapper);
+        assertEquals("The mark should move to the newest update seen", "changes-since=1970-01-01T00%3A00%3A03Z", queries.get(2));
+        assertTrue(delta.getChanged().isEmpty());
+        assertTrue(delta.getRemoved().isEmpty());
+    }
+
+    @Test
+    public void unconvertibleItemRemovedTest() throws Exception {
+        ChangeTracker<String> tracker = tracker(true);
+        NameMapper mapper = new NameMapper("");
+
+        list(server("a", 1000L, "one"), server("b", 2000L, "two"));
+        tracker.sync(mapper);
+        list(server("b", 3000L, null));
+        ChangeTracker.Delta<String> delta = tracker.sync(mapper);
+
+        assertTrue(delta.getChanged().isEmpty());
+        assertEquals(Collections.singleton("b"), delta.getRemoved());
+        assertEquals(Collections.singleton("a"), tracker.getSnapshot().keySet());
+    }
+
+    @Test
+    public void periodicRefreshTest() throws Exception {
+        ChangeTracker<String> tracker = tracker(true);
+        NameMapper mapper = new NameMapper("");
+
+        list(server("a", 1000L, "one"), server("b", 2000L, "two"));
+        tracker.sync(mapper);
+        String one = tracker.getSnapshot().get("a");
+
+        mapper.converted.clear();
+        Whitebox.setInternalState(tracker, "lastFull", System.currentTimeMillis() - ChangeTracker.DEFAULT_FULL_SYNC_INTERVAL - 1L);
+        // a delta would never report b, which vanished without a deleted entry
+        list(server("a", 1000L, "one"), server("c", 2500L, "three"));
+        ChangeTracker.Delta<String> delta = tracker.sync(mapper);
+
+        assertTrue(delta.isFull());
+        assertNull(queries.get(1));
+        assertEquals(Collections.singletonMap("c", "three"), delta.getChanged());
+        assertEquals(Collections.singleton("b"), delta.getRemoved());
+        assertEquals(Arrays.asList("a", "c"), mapper.converted);
+        assertNotSame("A refresh should convert every item again", one, tracker.getSnapshot().get("a"));
+        assertEquals(Arrays.asList("a", "c"), new ArrayList<String>(tracker.getSnapshot().keySet()));
+
+        list();
+        assertFalse("The sync after a refresh should be a delta again", tracker.sync(mapper).isFull());
+        assertEquals("changes-since=1970-01-01T00%3A00%3A02Z", queries.get(2));
+    }
+
+    @Test
+    public void mapperPerSyncTest() throws Exception {
+        ChangeTracker<String> tracker = tracker(true);
+        NameMapper first = new NameMapper("first:");
+        NameMapper second = new NameMapper("second:");
+
+        list(server("a", 1000L, "one"), server("b", 2000L, "two"));
+        tracker.sync(first);
+        list(server("b", 2000L, "two"), server("a", 3000L, "uno"));
+        ChangeTracker.Delta<String> delta = tracker.sync(second);
+
+        assertEquals(Collections.singletonMap("a", "second:uno"), delta.getChanged());
+        assertEquals("Only the updated item should go through the new mapper", Arrays.asList("a"), second.converted);
+        assertEquals("first:two", tracker.getSnapshot().get("b"));
+
+        Whitebox.setInternalState(tracker, "lastFull", System.currentTimeMillis() - ChangeTracker.DEFAULT_FULL_SYNC_INTERVAL - 1L);
+        list(server("a", 3000L, "uno"), server("b", 2000L, "two"));
+        delta = tracker.sync(second);
+        assertTrue("A refresh should not report items whose update time has not moved", delta.getChanged().isEmpty());
+        assertEquals("second:uno", tracker.getSnapshot().get("a"));
+        assertEquals("A refresh should convert every item with the mapper it was given", "second:two", tracker.getSnapshot().get("b"));
+    }
+
+    @Test
+    public void fullListingWithoutChangesSinceTest() throws Exception {
+        ChangeTracker<String> tracker = tracker(false);
+        NameMapper mapper = new NameMapper("");
+
+        list(server("a", 1000L, "one"), server("b", 2000L, "two"));
+        tracker.sync(mapper);
+        String one = tracker.getSnapshot().get("a");
+
+        mapper.converted.clear();
+        list(server("a", 1000L, "one"), server("b", 2500L, "deux"));
+        ChangeTracker.Delta<String> delta = tracker.sync(mapper);
+
+        assertTrue(delta.isFull());
+        assertNull("Collections without changes-since should always be listed in full", queries.get(1));
+        assertEquals(Collections.singletonMap("b", "deux"), delta.getChanged());
+        assertTrue(delta.getRemoved().isEmpty());
+        assertEquals(Arrays.asList("b"), mapper.converted);
+        assertSame("An unchanged item should keep its value", one, tracker.getSnapshot().get("a"));
+
+        list(server("a", 1000L, "one"));
+        delta = tracker.sync(mapper);
+        assertNull(queries.get(2));
+        assertTrue(delta.getChanged().isEmpty());
+        assertEquals(Collections.singleton("b"), delta.getRemoved());
+    }
+}
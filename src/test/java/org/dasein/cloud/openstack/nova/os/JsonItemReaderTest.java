@@ -0,0 +1,186 @@
+package org.dasein.cloud.openstack.nova.os;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that {@link JsonItemReader} reads the items of OpenStack list responses one at a time.
+ */
+public class JsonItemReaderTest {
+    static private class TrackedInput extends ByteArrayInputStream {
+        private boolean closed;
+
+        TrackedInput(String body) {
+            super(body.getBytes());
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+
+    private JsonItemReader reader(String body, String collection) {
+        return new JsonItemReader(new ByteArrayInputStream(body.getBytes()), collection);
+    }
+
+    private List<String> ids(JsonItemReader reader) throws JSONException {
+        List<String> ids = new ArrayList<String>();
+        JSONObject item;
+
+        while( (item = reader.next()) != null ) {
+            ids.add(item.getString("id"));
+        }
+        return ids;
+    }
+
+    @Test
+    public void emptyBodyTest() throws JSONException {
+        JsonItemReader reader = reader("", "servers");
+
+        assertNull(reader.next());
+        assertEquals(0, reader.getRemainder().length());
+        reader.close();
+
+        reader = reader("  ", null);
+        assertNull(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void emptyCollectionTest() throws JSONException {
+        JsonItemReader reader = reader("{\"servers\": []}", "servers");
+
+        assertNull(reader.next());
+        assertNull(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void missingCollectionTest() throws JSONException {
+        JsonItemReader reader = reader("{\"itemNotFound\": {\"code\": 404}}", "servers");
+
+        assertNull(reader.next());
+        assertEquals(404, reader.getRemainder().getJSONObject("itemNotFound").getInt("code"));
+        reader.close();
+    }
+
+    @Test
+    public void bareArrayTest() throws JSONException {
+        JsonItemReader reader = reader("[{\"id\": \"a\", \"bytes\": 1}, {\"id\": \"b\", \"bytes\": 2}]", null);
+
+        assertEquals(Arrays.asList("a", "b"), ids(reader));
+        assertNull(reader.next());
+        assertEquals(0, reader.getRemainder().length());
+        reader.close();
+    }
+
+    @Test
+    public void linksAfterCollectionTest() throws JSONException {
+        JsonItemReader reader = reader("{\"servers\": [{\"id\": \"a\"}, {\"id\": \"b\"}], \"servers_links\": [{\"rel\": \"next\", \"href\": \"http://x/servers?marker=b\"}]}", "servers");
+
+        assertEquals(Arrays.asList("a", "b"), ids(reader));
+        assertEquals("http://x/servers?marker=b", reader.getRemainder().getJSONArray("servers_links").getJSONObject(0).getString("href"));
+        reader.close();
+    }
+
+    @Test
+    public void linksBeforeCollectionTest() throws JSONException {
+        JsonItemReader reader = reader("{\"servers_links\": [{\"rel\": \"next\", \"href\": \"http://x/servers?marker=b\"}], \"servers\": [{\"id\": \"a\"}, {\"id\": \"b\"}]}", "servers");
+
+        assertEquals(Arrays.asList("a", "b"), ids(reader));
+        assertEquals("next", reader.getRemainder().getJSONArray("servers_links").getJSONObject(0).getString("rel"));
+        reader.close();
+    }
+
+    @Test
+    public void remainderSkipsUnreadItemsTest() throws JSONException {
+        JsonItemReader reader = reader("{\"servers\": [{\"id\": \"a\"}, {\"id\": \"b\"}, {\"id\": \"c\"}], \"servers_links\": []}", "servers");
+
+        assertEquals("a", reader.next().getString("id"));
+        assertTrue(reader.getRemainder().has("servers_links"));
+        assertNull(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void nestedValuesTest() throws JSONException {
+        JsonItemReader reader = reader("{\"servers\": [{\"id\": \"a\", \"addresses\": {\"private\": [{\"addr\": \"10.0.0.1\", \"version\": 4}]}, \"links\": [[1, 2], {\"rel\": \"self\"}]}, {\"id\": \"b\", \"metadata\": {}}]}", "servers");
+        JSONObject first = reader.next();
+
+        assertEquals("a", first.getString("id"));
+        assertEquals("10.0.0.1", first.getJSONObject("addresses").getJSONArray("private").getJSONObject(0).getString("addr"));
+        assertEquals(2, first.getJSONArray("links").getJSONArray(0).getInt(1));
+        assertEquals("b", reader.next().getString("id"));
+        assertNull(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void escapedStringsTest() throws JSONException {
+        JsonItemReader reader = reader("{\"servers\": [{\"id\": \"a\", \"name\": \"quote \\\" bracket ] brace } comma , \\u00e9\"}, {\"id\": \"b\\\\c\"}]}", "servers");
+
+        assertEquals("quote \" bracket ] brace } comma , \u00e9", reader.next().getString("name"));
+        assertEquals("b\\c", reader.next().getString("id"));
+        assertNull(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void earlyCloseTest() throws JSONException {
+        TrackedInput input = new TrackedInput("{\"servers\": [{\"id\": \"a\"}, {\"id\": \"b\"}, {\"id\": \"c\"}]}");
+        JsonItemReader reader = new JsonItemReader(input, "servers");
+
+        assertEquals("a", reader.next().getString("id"));
+        assertFalse(input.closed);
+        reader.close();
+        assertTrue("Closing early should close the response stream", input.closed);
+    }
+
+    @Test
+    public void malformedInputTest() {
+        String[][] invalid = {
+                { "servers", "{\"servers\": [{\"id\": \"a\"} {\"id\": \"b\"}]}" },
+                { "servers", "{\"servers\": [{\"id\": \"a\"}," },
+                { "servers", "{\"servers\": [{\"id\": \"a\"}]" },
+                { "servers", "{\"servers\" [{\"id\": \"a\"}]}" },
+                { "servers", "[{\"id\": \"a\"}]" },
+                { null, "{\"id\": \"a\"}" },
+                { null, "[{\"id\": \"a\"}" }
+        };
+
+        for( String[] test : invalid ) {
+            InputStream input = new ByteArrayInputStream(test[1].getBytes());
+            JsonItemReader reader = new JsonItemReader(input, test[0]);
+
+            try {
+                while( reader.next() != null ) {
+                    // read to the end
+                }
+                reader.getRemainder();
+                fail("Read " + test[1] + " without an error");
+            }
+            catch( JSONException expected ) {
+                // expected
+            }
+            finally {
+                reader.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.dasein.cloud.openstack.nova.os;
+
+import org.dasein.cloud.CloudException;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.SimpleTimeZone;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks {@link NovaOpenStack#parseTimestamp(String)} against every timestamp format the OpenStack services emit.
+ */
+public class NovaOpenStackTest {
+    static private final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    /**
+     * A format the clouds use, with the precision it keeps. Fractions longer than milliseconds are written as
+     * milliseconds followed by a fixed suffix, as {@link SimpleDateFormat} only knows milliseconds.
+     */
+    static private class Format {
+        private final String pattern;
+        private final long   precision;
+        private final String suffix;
+        private final String zone;
+
+        Format(String pattern, String suffix, String zone, long precision) {
+            this.pattern = pattern;
+            this.suffix = suffix;
+            this.zone = zone;
+            this.precision = precision;
+        }
+
+        String format(long millis, TimeZone offset) {
+            SimpleDateFormat fmt = new SimpleDateFormat(pattern);
+
+            fmt.setTimeZone(zone == null ? UTC : offset);
+            String time = fmt.format(new Date(millis)) + suffix;
+
+            if( zone != null ) {
+                fmt = new SimpleDateFormat(zone);
+                fmt.setTimeZone(offset);
+                time = time + fmt.format(new Date(millis));
+            }
+            return time;
+        }
+    }
+
+    static private final Format[] FORMATS = {
+            // Nova and Glance
+            new Format("yyyy-MM-dd'T'HH:mm:ss'Z'", "", null, 1000L),
+            // Keystone v2 token expiry
+            new Format("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", "", null, 1L),
+            // Keystone v3 token expiry
+            new Format("yyyy-MM-dd'T'HH:mm:ss.SSS", "000Z", null, 1L),
+            // Cinder, Neutron and Swift listings
+            new Format("yyyy-MM-dd'T'HH:mm:ss", "", null, 1000L),
+            new Format("yyyy-MM-dd'T'HH:mm:ss.SSS", "000", null, 1L),
+            new Format("yyyy-MM-dd'T'HH:mm:ss.SSS", "999999", null, 1L),
+            // Trove and Designate
+            new Format("yyyy-MM-dd HH:mm:ss", "", null, 1000L),
+            // Timestamps with a UTC offset
+            new Format("yyyy-MM-dd'T'HH:mm:ss", "", "XXX", 1000L),
+            new Format("yyyy-MM-dd'T'HH:mm:ss.SSS", "", "XX", 1L),
+            new Format("yyyy-MM-dd'T'HH:mm:ss.SSS", "123", "XXX", 1L)
+    };
+
+    @Test
+    public void knownTimestampsTest() throws CloudException {
+        assertEquals(1340030822000L, NovaOpenStack.parseTimestamp("2012-06-18T14:47:02Z"));
+        assertEquals(1340030822000L, NovaOpenStack.parseTimestamp("2012-06-18T14:47:02"));
+        assertEquals(1339875689000L, NovaOpenStack.parseTimestamp("2012-06-16 19:41:29"));
+        assertEquals(1440668998000L, NovaOpenStack.parseTimestamp("2015-08-27T09:49:58.000000Z"));
+        assertEquals(1392048192123L, NovaOpenStack.parseTimestamp("2014-02-10T16:03:12.123Z"));
+        assertEquals(1452859200123L, NovaOpenStack.parseTimestamp("2016-01-15T12:00:00.123456"));
+        assertEquals(1452852000000L, NovaOpenStack.parseTimestamp("2016-01-15T12:00:00+02:00"));
+        assertEquals(1452877200000L, NovaOpenStack.parseTimestamp("2016-01-15T12:00:00-0500"));
+        assertEquals(1330473600000L, NovaOpenStack.parseTimestamp("2012-02-29T00:00:00Z"));
+        assertEquals(0L, NovaOpenStack.parseTimestamp("1970-01-01T00:00:00Z"));
+    }
+
+    @Test
+    public void missingTimestampTest() throws CloudException {
+        assertEquals(0L, NovaOpenStack.parseTimestamp(null));
+        assertEquals(0L, NovaOpenStack.parseTimestamp(""));
+    }
+
+    @Test
+    public void invalidTimestampsTest() {
+        String[] invalid = {
+                "yesterday", "2012-06-18", "2012-06-18T14:47", "2012/06/18T14:47:02Z", "2012-06-18_14:47:02",
+                "2012-13-01T00:00:00Z", "2011-02-29T00:00:00Z", "2012-06-31T00:00:00Z", "2012-06-18T24:00:00Z",
+                "2012-06-18T14:60:02Z", "2012-06-18T14:47:02.Z", "2012-06-18T14:47:02X", "2012-06-18T14:47:02Z ",
+                "2012-06-18T14:47:02+2", "2012-06-18T14:47:02+02:0", "2012-06-18T14:47:02+25:00", "2012-O6-18T14:47:02Z"
+        };
+
+        for( String time : invalid ) {
+            try {
+                long millis = NovaOpenStack.parseTimestamp(time);
+
+                fail("Parsed " + time + " as " + millis);
+            }
+            catch( CloudException expected ) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void randomTimestampsTest() throws CloudException {
+        Random random = new Random(20160201L);
+        long until = 4102444800000L; // 2100-01-01
+
+        for( int i=0; i<20000; i++ ) {
+            long millis = (long)(random.nextDouble() * until);
+            Format format = FORMATS[random.nextInt(FORMATS.length)];
+            // whole quarter hours from -12:00 to +14:00
+            TimeZone zone = new SimpleTimeZone((random.nextInt(105) - 48) * 15 * 60000, "offset");
+            String time = format.format(millis, zone);
+
+            assertEquals(time, millis - millis % format.precision, NovaOpenStack.parseTimestamp(time));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Builds the synthetic payloads used by the benchmarks and the load-test stub. Each payload is a fixture from
+ * <code>src/test/resources</code> copied as many times as needed, every copy with its own ID and name so that nothing
+ * downstream can share work between items.
+ * @since 2016.02
+ */
+public final class Payloads {
+    private Payloads() { }
+
+    /**
+     * @param resource the class path resource holding the fixture, e.g. <code>nova/fixtures/compute/list_flavors.json</code>
+     * @return the fixture
+     * @throws IOException the fixture could not be read
+     * @throws JSONException the fixture is not a JSON object
+     */
+    static public @Nonnull JSONObject read(@Nonnull String resource) throws IOException, JSONException {
+        InputStream in = Payloads.class.getClassLoader().getResourceAsStream(resource);
+
+        if( in == null ) {
+            throw new IOException("No such fixture: " + resource);
+        }
+        try {
+            Reader reader = new InputStreamReader(in, "utf-8");
+            StringBuilder json = new StringBuilder();
+            char[] buffer = new char[8192];
+            int count;
+
+            while( (count = reader.read(buffer)) != -1 ) {
+                json.append(buffer, 0, count);
+            }
+            return new JSONObject(json.toString());
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @param resource the class path resource holding the fixture, e.g. <code>nova/fixtures/compute/get_server.json</code>
+     * @param element the element of the fixture holding the item, e.g. <code>server</code>
+     * @return the item
+     * @throws IOException the fixture could not be read
+     * @throws JSONException the fixture is not a JSON object or lacks the element
+     */
+    static public @Nonnull JSONObject read(@Nonnull String resource, @Nonnull String element) throws IOException, JSONException {
+        return read(resource).getJSONObject(element);
+    }
+
+    /**
+     * Copies an item.
+     * @param template the item to copy
+     * @param count the number of copies
+     * @param statuses the values to cycle the <code>status</code> of the copies through, or <code>null</code> to keep
+     * the status of the template
+     * @return the copies, each with a unique ID and name
+     * @throws JSONException the template could not be copied
+     */
+    static public @Nonnull JSONObject[] replicate(@Nonnull JSONObject template, int count, @Nullable String ... statuses) throws JSONException {
+        String source = template.toString();
+        JSONObject[] items = new JSONObject[count];
+
+        for( int i=0; i<count; i++ ) {
+            JSONObject item = new JSONObject(source);
+
+            item.put("id", String.format("%08x-0000-4000-8000-%012x", i, (long)i));
+            if( item.has("name") && !item.isNull("name") ) {
+                item.put("name", item.getString("name") + "-" + i);
+            }
+            if( statuses != null && statuses.length > 0 ) {
+                item.put("status", statuses[i % statuses.length]);
+            }
+            items[i] = item;
+        }
+        return items;
+    }
+
+    /**
+     * @param collection the name of the JSON array holding the items, e.g. <code>servers</code>
+     * @param items the items
+     * @return the body of a listing response holding the items
+     * @throws JSONException the listing could not be built
+     */
+    static public @Nonnull String toListing(@Nonnull String collection, @Nonnull JSONObject[] items) throws JSONException {
+        JSONArray list = new JSONArray();
+
+        for( JSONObject item : items ) {
+            list.put(item);
+        }
+        return new JSONObject().put(collection, list).toString();
+    }
+}
@@ -0,0 +1,52 @@
+package org.dasein.cloud.openstack.nova.os;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks how resource paths are grouped into endpoint templates.
+ */
+public class RequestMetricsTest {
+    @Test
+    public void computeTemplateTest() {
+        assertEquals("/servers/detail", RequestMetrics.toTemplate("compute", "/servers/detail?limit=1000&marker=abc"));
+        assertEquals("/servers/{id}", RequestMetrics.toTemplate("compute", "/servers/7838ff1b-b71f-48b9-91e9-7c08de20b249"));
+        assertEquals("/servers/{id}/metadata/key", RequestMetrics.toTemplate("compute", "/servers/7838ff1b-b71f-48b9-91e9-7c08de20b249/metadata/key"));
+        assertEquals("/flavors/{id}", RequestMetrics.toTemplate("compute", "/flavors/42"));
+        assertEquals("/flavors/m1.small", RequestMetrics.toTemplate("compute", "/flavors/m1.small"));
+        assertEquals("/os-floating-ips", RequestMetrics.toTemplate("compute", "os-floating-ips"));
+        assertEquals("/", RequestMetrics.toTemplate("compute", null));
+    }
+
+    @Test
+    public void networkTemplateTest() {
+        assertEquals("/v2.0/ports/{id}.json", RequestMetrics.toTemplate("network", "/v2.0/ports/3b8a1b3f-1a2c-4f7e-9d35-4b5e2f1c9a10.json"));
+        assertEquals("/v2.0/networks", RequestMetrics.toTemplate("network", "/v2.0/networks?tenant_id=e2312698a3534c3aab7038d46a80795d"));
+    }
+
+    @Test
+    public void storageTemplateTest() {
+        assertEquals("/{container}", RequestMetrics.toTemplate("object-store", "/backups"));
+        assertEquals("/{container}/{object}", RequestMetrics.toTemplate("object-store", "/backups/2016/01/db.tar.gz"));
+    }
+
+    @Test
+    public void connectionsOpenedWithoutPoolTest() throws Exception {
+        NovaOpenStack provider = mock(NovaOpenStack.class);
+        NovaConnectionPool pool = mock(NovaConnectionPool.class);
+        RequestMetrics metrics = new RequestMetrics(provider, null);
+
+        assertEquals(0L, metrics.getConnectionsOpened());
+        verify(provider, never()).getConnectionPool();
+
+        when(pool.getConnectionsOpened()).thenReturn(3L);
+        when(provider.getOpenConnectionPool()).thenReturn(pool);
+        assertEquals(3L, metrics.getConnectionsOpened());
+        verify(provider, never()).getConnectionPool();
+    }
+}
@@ -0,0 +1,177 @@
+package org.dasein.cloud.openstack.nova.os;
+
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks which responses {@link ResponseCache} keeps, for how long, and what drops them.
+ */
+public class ResponseCacheTest {
+    static private final String ENDPOINT = "https://compute.example.com/v2/tenant";
+
+    private ResponseCache cache(String ... properties) {
+        Properties p = new Properties();
+
+        for( int i=0; i<properties.length; i += 2 ) {
+            p.setProperty(properties[i], properties[i + 1]);
+        }
+        return new ResponseCache(p);
+    }
+
+    @Test
+    public void normalizeTest() {
+        assertEquals("os-keypairs", ResponseCache.normalize("/os-keypairs"));
+        assertEquals("networks/abc", ResponseCache.normalize("v2.0/networks/abc?x=y"));
+        assertEquals("images", ResponseCache.normalize("/v2/images/"));
+        assertEquals("networks", ResponseCache.normalize("networks"));
+        assertEquals("", ResponseCache.normalize("/v1.1"));
+        assertEquals("The version check should not strip ordinary paths", "vpn/ikepolicies", ResponseCache.normalize("/vpn/ikepolicies"));
+    }
+
+    @Test
+    public void matchingTest() {
+        ResponseCache cache = cache();
+
+        assertTrue(cache.isCacheable("/os-keypairs"));
+        assertTrue(cache.isCacheable("/os-keypairs?limit=10"));
+        assertTrue("Items of a collection should be cached", cache.isCacheable("/os-keypairs/mykey"));
+        assertTrue(cache.isCacheable("/v2.0/networks/abc"));
+        assertFalse("Sub-resources of an item should not be cached", cache.isCacheable("/v2.0/networks/abc/ports"));
+        assertFalse(cache.isCacheable("/os-keypairsv2"));
+        assertFalse(cache.isCacheable("/servers"));
+        assertFalse(cache.isCacheable(null));
+    }
+
+    @Test
+    public void imageStatusNotCachedTest() {
+        ResponseCache cache = cache();
+
+        assertTrue("The image summary carries no status", cache.isCacheable("/images"));
+        assertFalse("Image details carry a status the server changes", cache.isCacheable("/images/detail"));
+        assertFalse(cache.isCacheable("/images/abc"));
+        cache.put(ENDPOINT, "/images/abc", "{\"image\": {\"status\": \"SAVING\"}}", cache.getGeneration());
+        assertNull(cache.get(ENDPOINT, "/images/abc"));
+    }
+
+    @Test
+    public void disabledTest() {
+        ResponseCache cache = cache("responseCache", "false");
+
+        assertFalse(cache.isCacheable("/os-keypairs"));
+        cache.put(ENDPOINT, "/os-keypairs", "{}", cache.getGeneration());
+        assertNull(cache.get(ENDPOINT, "/os-keypairs"));
+    }
+
+    @Test
+    public void hitTest() {
+        ResponseCache cache = cache();
+
+        assertNull(cache.get(ENDPOINT, "/os-keypairs"));
+        cache.put(ENDPOINT, "/os-keypairs", "{\"keypairs\": []}", cache.getGeneration());
+        assertEquals("{\"keypairs\": []}", cache.get(ENDPOINT, "/os-keypairs"));
+        assertNull("Responses should be kept per endpoint", cache.get("https://other.example.com/v2/tenant", "/os-keypairs"));
+        assertNull("Responses should be kept per query", cache.get(ENDPOINT, "/os-keypairs?limit=10"));
+        assertEquals(1L, cache.getHits());
+        assertEquals(3L, cache.getMisses());
+    }
+
+    @Test
+    public void invalidationTest() {
+        ResponseCache cache = cache();
+
+        cache.put(ENDPOINT, "/images", "images", cache.getGeneration());
+        cache.put(ENDPOINT, "/os-keypairs", "keypairs", cache.getGeneration());
+        cache.put(ENDPOINT, "/v2.0/networks", "networks", cache.getGeneration());
+        cache.put(ENDPOINT, "/v2.0/subnets", "subnets", cache.getGeneration());
+
+        // a server action such as createImage can add an image
+        cache.invalidate("/servers/abc/action");
+        assertNull(cache.get(ENDPOINT, "/images"));
+        assertEquals("keypairs", cache.get(ENDPOINT, "/os-keypairs"));
+        assertEquals("networks", cache.get(ENDPOINT, "/v2.0/networks"));
+
+        cache.invalidate("/v2.0/subnets/def");
+        assertNull(cache.get(ENDPOINT, "/v2.0/networks"));
+        assertNull(cache.get(ENDPOINT, "/v2.0/subnets"));
+        assertEquals("keypairs", cache.get(ENDPOINT, "/os-keypairs"));
+
+        cache.invalidate("/os-keypairs/mykey");
+        assertNull(cache.get(ENDPOINT, "/os-keypairs"));
+
+        for( ResponseCache.Policy policy : cache.getPolicies() ) {
+            if( policy.getName().equals("images") || policy.getName().equals("networks") || policy.getName().equals("subnets") || policy.getName().equals("keypairs") ) {
+                assertEquals(policy.getName(), 1L, policy.getInvalidations());
+            }
+            else {
+                assertEquals(policy.getName(), 0L, policy.getInvalidations());
+            }
+        }
+    }
+
+    @Test
+    public void generationGuardTest() {
+        ResponseCache cache = cache();
+        long generation = cache.getGeneration();
+
+        cache.invalidate("/unrelated/path");
+        assertEquals("A change no policy cares about should not move the generation", generation, cache.getGeneration());
+
+        // the keypair is created while the listing is in flight, so the listing may not include it
+        cache.invalidate("/os-keypairs");
+        cache.put(ENDPOINT, "/os-keypairs", "stale", generation);
+        assertNull(cache.get(ENDPOINT, "/os-keypairs"));
+
+        cache.put(ENDPOINT, "/os-keypairs", "fresh", cache.getGeneration());
+        assertEquals("fresh", cache.get(ENDPOINT, "/os-keypairs"));
+
+        generation = cache.getGeneration();
+        cache.clear();
+        cache.put(ENDPOINT, "/os-keypairs", "stale", generation);
+        assertNull(cache.get(ENDPOINT, "/os-keypairs"));
+    }
+
+    @Test
+    public void ttlTest() throws InterruptedException {
+        ResponseCache cache = cache("cacheTtl.keypairs", "50", "cacheTtl.images", "0");
+
+        assertFalse("A TTL of 0 should leave the catalog uncached", cache.isCacheable("/images"));
+        cache.put(ENDPOINT, "/os-keypairs", "keypairs", cache.getGeneration());
+        assertEquals("keypairs", cache.get(ENDPOINT, "/os-keypairs"));
+        Thread.sleep(100L);
+        assertNull("The response should expire with its policy's TTL", cache.get(ENDPOINT, "/os-keypairs"));
+    }
+
+    @Test
+    public void lruEvictionTest() {
+        ResponseCache cache = cache("responseCacheSize", "2");
+
+        cache.put(ENDPOINT, "/os-keypairs/a", "a", cache.getGeneration());
+        cache.put(ENDPOINT, "/os-keypairs/b", "b", cache.getGeneration());
+        assertEquals("a", cache.get(ENDPOINT, "/os-keypairs/a"));
+        cache.put(ENDPOINT, "/os-keypairs/c", "c", cache.getGeneration());
+
+        assertEquals(1L, cache.getEvictions());
+        assertNull("The least recently used response should go first", cache.get(ENDPOINT, "/os-keypairs/b"));
+        assertEquals("a", cache.get(ENDPOINT, "/os-keypairs/a"));
+        assertEquals("c", cache.get(ENDPOINT, "/os-keypairs/c"));
+    }
+
+    @Test
+    public void novaMethodOnlyTest() {
+        NovaOpenStack provider = mock(NovaOpenStack.class);
+        ResponseCache cache = cache();
+
+        when(provider.getResponseCache()).thenReturn(cache);
+        assertSame(cache, new NovaMethod(provider).getResponseCache());
+        assertNull("Swift paths should never reach the catalog cache", new SwiftMethod(provider).getResponseCache());
+    }
+}
@@ -0,0 +1,66 @@
+package org.dasein.cloud.openstack.nova.os;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that {@link WireLogger} keeps credentials and tokens out of the wire log.
+ */
+public class WireLoggerTest {
+    @Test
+    public void redactCredentialsTest() {
+        assertEquals("{\"auth\":{\"passwordCredentials\":{\"username\":\"admin\",\"password\":\"<redacted>\"},\"tenantName\":\"demo\"}}",
+                WireLogger.redact("{\"auth\":{\"passwordCredentials\":{\"username\":\"admin\",\"password\":\"s3\\\"cret\"},\"tenantName\":\"demo\"}}"));
+        assertEquals("{\"auth\":{\"apiAccessKeyCredentials\":{\"accessKey\":\"AK\",\"secretKey\":\"<redacted>\"}}}",
+                WireLogger.redact("{\"auth\":{\"apiAccessKeyCredentials\":{\"accessKey\":\"AK\",\"secretKey\":\"SK\"}}}"));
+        assertEquals("{\"auth\":{\"RAX-KSKEY:apiKeyCredentials\":{\"username\":\"admin\",\"apiKey\":\"<redacted>\"}}}",
+                WireLogger.redact("{\"auth\":{\"RAX-KSKEY:apiKeyCredentials\":{\"username\":\"admin\",\"apiKey\":\"abc\"}}}"));
+        assertEquals("{\"server\":{\"id\":\"s1\",\"adminPass\":\"<redacted>\"}}",
+                WireLogger.redact("{\"server\":{\"id\":\"s1\",\"adminPass\":\"xyz\"}}"));
+    }
+
+    @Test
+    public void redactTokenTest() {
+        String redacted = WireLogger.redact("{\"access\":{\"token\":{\"issued_at\":\"2016-01-01T00:00:00Z\",\"id\":\"abcdef0123\",\"tenant\":{\"id\":\"t1\"}},\"user\":{\"id\":\"u1\"}}}");
+
+        assertFalse(redacted, redacted.contains("abcdef0123"));
+        assertEquals("{\"access\":{\"token\":{\"issued_at\":\"2016-01-01T00:00:00Z\",\"id\":\"<redacted>\",\"tenant\":{\"id\":\"t1\"}},\"user\":{\"id\":\"u1\"}}}", redacted);
+    }
+
+    @Test
+    public void redactTokenAfterTenantTest() {
+        // Keystone v2 may put the tenant, with an id of its own, ahead of the token id
+        String redacted = WireLogger.redact("{\"access\": {\"token\": {\"expires\": \"2016-01-02T00:00:00Z\", \"tenant\": {\"id\": \"t1\", \"name\": \"demo\"}, \"audit_ids\": [\"a1\"], \"id\" : \"abcdef0123\"}, \"user\": {\"id\": \"u1\"}}}");
+
+        assertFalse(redacted, redacted.contains("abcdef0123"));
+        assertEquals("{\"access\": {\"token\": {\"expires\": \"2016-01-02T00:00:00Z\", \"tenant\": {\"id\": \"t1\", \"name\": \"demo\"}, \"audit_ids\": [\"a1\"], \"id\" : \"<redacted>\"}, \"user\": {\"id\": \"u1\"}}}", redacted);
+    }
+
+    @Test
+    public void redactTokenEdgeCasesTest() {
+        assertEquals("{\"token\":{\"tenant\":{\"name\":\"id\"},\"id\":\"<redacted>\"},\"other\":{\"token\":{\"id\":\"<redacted>\"}}}",
+                WireLogger.redact("{\"token\":{\"tenant\":{\"name\":\"id\"},\"id\":\"first\"},\"other\":{\"token\":{\"id\":\"second\"}}}"));
+        assertEquals("{\"token\":{\"name\":\"a \\\"}\\\" b\",\"id\":\"<redacted>\"}}",
+                WireLogger.redact("{\"token\":{\"name\":\"a \\\"}\\\" b\",\"id\":\"secret\"}}"));
+        assertEquals("A body cut off inside the id should not leak it", "{\"token\":{\"id\":\"<redacted>",
+                WireLogger.redact("{\"token\":{\"id\":\"abcdef"));
+    }
+
+    @Test
+    public void plainBodyTest() {
+        assertEquals("{\"server\":{\"id\":\"s1\",\"name\":\"web\"}}", WireLogger.redact("{\"server\":{\"id\":\"s1\",\"name\":\"web\"}}"));
+        assertEquals("404 Not Found", WireLogger.redact("404 Not Found"));
+    }
+
+    @Test
+    public void disabledExchangeTest() {
+        WireLogger.Exchange exchange = WireLogger.open(null);
+
+        if( !exchange.isEnabled() ) {
+            assertSame(exchange, WireLogger.open(null));
+        }
+    }
+}
@@ -7,7 +7,9 @@ import org.dasein.cloud.ResourceStatus;
 import org.dasein.cloud.Tag;
 import org.dasein.cloud.compute.*;
 import org.dasein.cloud.network.*;
+import org.dasein.cloud.openstack.nova.os.AbstractMethod;
 import org.dasein.cloud.openstack.nova.os.NovaMethod;
+import org.dasein.cloud.openstack.nova.os.NovaOpenStack;
 import org.dasein.cloud.openstack.nova.os.OpenStackProvider;
 import org.dasein.cloud.openstack.nova.os.network.NovaFloatingIP;
 import org.dasein.cloud.openstack.nova.os.network.NovaNetworkServices;
@@ -15,11 +17,15 @@ import org.dasein.cloud.openstack.nova.os.network.NovaSecurityGroup;
 import org.dasein.cloud.openstack.nova.os.network.Quantum;
 import org.dasein.util.uom.storage.Megabyte;
 import org.dasein.util.uom.storage.Storage;
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.skyscreamer.jsonassert.JSONAssert;
 
 import java.io.IOException;
@@ -31,6 +37,7 @@ import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 import static org.mockito.internal.verification.VerificationModeFactory.atLeast;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
@@ -152,6 +159,7 @@ public class NovaServerTest {
             when(server.toVirtualMachine(any(JSONObject.class), anyList(), anyList(), anyList())).thenCallRealMethod();
             when(method.getServers(anyString(), anyString(), anyBoolean())).thenReturn(json);
             when(server.getVirtualMachine(anyString())).thenCallRealMethod();
+            when(server.getVirtualMachine(anyString(), any(ServerNetworkContext.class))).thenCallRealMethod();
             VirtualMachine vm = server.getVirtualMachine(testVmId);
             assertEquals("VM ID is not as expected ", "7838ff1b-b71f-48b9-91e9-7c08de20b249", vm.getProviderVirtualMachineId());
             assertEquals("Current State is not as expected ", VmState.RUNNING, vm.getCurrentState());
@@ -354,7 +362,10 @@ public class NovaServerTest {
         NovaNetworkServices networkServicesMock = mock(NovaNetworkServices.class);
         NovaFloatingIP ipAddressSupportMock = mock(NovaFloatingIP.class);
         Quantum vlanSupportMock = mock(Quantum.class);
+        NovaOpenStack provider = mock(NovaOpenStack.class);
         JSONObject json = readJson("nova/fixtures/compute/list_servers.json");
+        // listing is streamed from a populator thread, which holds the provider open while it runs
+        Whitebox.setInternalState(server, "provider", provider);
         try {
             when(server.getMethod()).thenReturn(method);
             //when(networkServicesMock.getIpAddressSupport()).thenReturn(ipAddressSupportMock);
@@ -362,13 +373,34 @@ public class NovaServerTest {
             when(server.getCloudProvider()).thenReturn(OpenStackProvider.OTHER);
             when(server.listFirewalls(anyString(), any(JSONObject.class))).thenReturn(Collections.EMPTY_LIST);
             when(networkServicesMock.getVlanSupport()).thenReturn(vlanSupportMock);
-            when(method.getServers(anyString(), anyString(), anyBoolean())).thenReturn(json);
+            when(server.getTenantId()).thenReturn("openstack");
+            when(server.getRegionId()).thenReturn("testRegion");
+            final JSONArray servers = json.getJSONArray("servers");
+            doAnswer(new Answer<Void>() {
+                @Override
+                public Void answer(InvocationOnMock invocation) throws Throwable {
+                    AbstractMethod.ItemHandler handler = (AbstractMethod.ItemHandler)invocation.getArguments()[6];
+
+                    for( int i=0; i<servers.length(); i++ ) {
+                        handler.handle(servers.getJSONObject(i));
+                    }
+                    return null;
+                }
+            }).when(method).getStreamedResource(eq(NovaServer.SERVICE), eq("/servers"), eq("servers"), eq(true), anyString(), eq(true), any(AbstractMethod.ItemHandler.class));
             when(server.getNovaFloatingIp()).thenCallRealMethod();
             when(server.getQuantum()).thenCallRealMethod();
             when(server.toVirtualMachine(any(JSONObject.class), anyList(), anyList(), anyList())).thenCallRealMethod();
             when(server.listVirtualMachines()).thenCallRealMethod();
-            Iterable<VirtualMachine> vm = server.listVirtualMachines();
-            assertNotNull("List of virtual machines cannot be null", vm);
+            List<VirtualMachine> vms = new ArrayList<VirtualMachine>();
+
+            for( VirtualMachine vm : server.listVirtualMachines() ) {
+                vms.add(vm);
+            }
+            assertEquals("Virtual machine count is incorrect", 1, vms.size());
+            assertEquals("VM ID is not as expected ", "a291599e-6de2-41a6-88df-c443ddcef70d", vms.get(0).getProviderVirtualMachineId());
+            assertEquals("VM name is not as expected ", "new-server-test", vms.get(0).getName());
+            assertEquals("Provider Owner ID is not as expected ", "openstack", vms.get(0).getProviderOwnerId());
+            assertEquals("Provider Region ID is not as expected ", "testRegion", vms.get(0).getProviderRegionId());
         }
         catch( JSONException | InternalException | CloudException e) {
             e.printStackTrace();
@@ -689,6 +721,39 @@ public class NovaServerTest {
         }
     }
 
+    @Test
+    public void toVirtualMachineSharedNetworkContextTest() {
+        NovaServer server = mock(NovaServer.class);
+        Quantum quantum = mock(Quantum.class);
+        JSONObject json = readJson("nova/fixtures/compute/get_server.json");
+
+        VLAN testVlan = new VLAN();
+        testVlan.setName("private");
+        testVlan.setProviderVlanId("testVlanId");
+        Subnet other = Subnet.getInstance("testOwnerId", "testRegionId", "testVlanId", "otherSubnetId", SubnetState.AVAILABLE, "other", "other", "10.0.0.0/24");
+        Subnet subnet = Subnet.getInstance("testOwnerId", "testRegionId", "testVlanId", "testSubnetId", SubnetState.AVAILABLE, "test", "test", "192.168.0.0/24");
+
+        try {
+            when(quantum.listAllSubnets()).thenReturn(Arrays.asList(other, subnet));
+            when(server.getCloudProvider()).thenReturn(OpenStackProvider.OTHER);
+            when(server.listFirewalls(anyString(), any(JSONObject.class))).thenReturn(Collections.EMPTY_LIST);
+            when(server.toVirtualMachine(any(JSONObject.class), anyCollection(), anyCollection(), any(Iterable.class))).thenCallRealMethod();
+
+            ServerNetworkContext context = new ServerNetworkContext(null, null, Arrays.asList(testVlan), quantum);
+            for( int i=0; i<3; i++ ) {
+                VirtualMachine vm = server.toVirtualMachine(json.getJSONObject("server"), context.getIpv4(), context.getIpv6(), context);
+                assertEquals("Provider Vlan Id is not as expected", "testVlanId", vm.getProviderVlanId());
+                assertEquals("Provider Subnet Id is not as expected", "testSubnetId", vm.getProviderSubnetId());
+            }
+            verify(quantum, times(1)).listAllSubnets();
+            verify(quantum, never()).listSubnets(anyString());
+        }
+        catch( JSONException | InternalException | CloudException e ) {
+            e.printStackTrace();
+            fail("Test failed " + e.getMessage());
+        }
+    }
+
     @Test
     public void toVirtualMachineTest () {
         NovaServer server = mock(NovaServer.class);
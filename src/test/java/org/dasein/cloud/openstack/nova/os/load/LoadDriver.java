@@ -0,0 +1,372 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os.load;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.dasein.cloud.Cloud;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.ContextRequirements;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.ProviderContext;
+import org.dasein.cloud.openstack.nova.os.NovaOpenStack;
+import org.dasein.cloud.openstack.nova.os.RequestMetrics;
+import org.dasein.cloud.openstack.nova.os.network.Quantum;
+
+/**
+ * Exercises a {@link NovaOpenStack} connection from many threads at once, normally against an {@link OpenStackStub}.
+ * Operations are run one after the other; each is called by every thread for the configured number of iterations, so
+ * that the requests and connections counted while it runs belong to it alone. For each operation the driver reports
+ * the calls made and failed, the p50 and p99 latency of a call, the HTTP requests the stub received and the
+ * connections the connection pool opened.
+ * <p>Operations are named after the {@link org.dasein.cloud.util.APITrace} operation they start.</p>
+ * @since 2016.02
+ */
+public class LoadDriver {
+    /**
+     * One call into the driver under load.
+     */
+    public interface Operation {
+        void run(@Nonnull NovaOpenStack provider) throws Exception;
+    }
+
+    /**
+     * The outcome of running one operation.
+     */
+    static public class Result {
+        private final long   calls;
+        private final long   connections;
+        private final long   errors;
+        private final long[] latencies;
+        private final String name;
+        private final long   requests;
+
+        private Result(@Nonnull String name, @Nonnull long[] latencies, long errors, long requests, long connections) {
+            this.name = name;
+            this.latencies = latencies;
+            this.calls = latencies.length;
+            this.errors = errors;
+            this.requests = requests;
+            this.connections = connections;
+            Arrays.sort(this.latencies);
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        /**
+         * @return the number of connections opened by the connection pool while the operation ran
+         */
+        public long getConnectionsOpened() {
+            return connections;
+        }
+
+        /**
+         * @return the number of calls that threw an exception
+         */
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * @param percentile the percentile, e.g. 99.0
+         * @return the latency of a call at the percentile in milliseconds
+         */
+        public double getLatency(double percentile) {
+            if( latencies.length < 1 ) {
+                return 0.0;
+            }
+            int idx = (int)Math.ceil(percentile / 100.0 * latencies.length) - 1;
+
+            return latencies[Math.max(0, Math.min(idx, latencies.length - 1))] / 1000000.0;
+        }
+
+        public @Nonnull String getName() {
+            return name;
+        }
+
+        /**
+         * @return the number of HTTP requests the stub received while the operation ran, or -1 without a stub
+         */
+        public long getRequests() {
+            return requests;
+        }
+
+        @Override
+        public @Nonnull String toString() {
+            return String.format("%-32s %8d %7d %9d %6d %9.2f %9.2f", name, calls, errors, requests, connections, getLatency(50.0), getLatency(99.0));
+        }
+    }
+
+    /**
+     * Connects to a stub as its tenant.
+     * @param stub a started stub
+     * @param properties custom properties for the provider context, such as pool sizes or retry limits
+     * @return the connection
+     * @throws CloudException the connection could not be made
+     * @throws InternalException the provider context could not be built
+     */
+    static public @Nonnull NovaOpenStack connect(@Nonnull OpenStackStub stub, @Nullable Properties properties) throws CloudException, InternalException {
+        Cloud cloud = Cloud.register("OpenStack", "Load Test", stub.getEndpoint(), NovaOpenStack.class);
+        ContextRequirements.Field keys = new NovaOpenStack().getContextRequirements().getConfigurableValues().get(0);
+        ProviderContext ctx;
+
+        try {
+            ctx = cloud.createContext(OpenStackStub.TENANT, OpenStackStub.REGION, ProviderContext.Value.parseValue(keys, "load", "load"));
+        }
+        catch( UnsupportedEncodingException e ) {
+            throw new InternalException(e);
+        }
+        if( properties != null ) {
+            ctx.setCustomProperties(properties);
+        }
+        return (NovaOpenStack)ctx.connect();
+    }
+
+    static private int count(@Nonnull Iterable<?> items) {
+        int count = 0;
+
+        //noinspection UnusedDeclaration
+        for( Object item : items ) {
+            count++;
+        }
+        return count;
+    }
+
+    private final Map<String,Operation> operations = new LinkedHashMap<String,Operation>();
+    private final NovaOpenStack         provider;
+    private final OpenStackStub         stub;
+
+    private int iterations = 10;
+    private int threads    = 8;
+
+    /**
+     * @param provider the connection to put under load
+     * @param stub the stub the connection talks to, or <code>null</code> to leave requests uncounted
+     */
+    public LoadDriver(@Nonnull NovaOpenStack provider, @Nullable OpenStackStub stub) {
+        this.provider = provider;
+        this.stub = stub;
+    }
+
+    public @Nonnull LoadDriver withThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * @param iterations the number of calls each thread makes to each operation
+     * @return this driver
+     */
+    public @Nonnull LoadDriver withIterations(int iterations) {
+        this.iterations = iterations;
+        return this;
+    }
+
+    public @Nonnull LoadDriver add(@Nonnull String name, @Nonnull Operation operation) {
+        operations.put(name, operation);
+        return this;
+    }
+
+    /**
+     * Adds listing servers and their states, networks, subnets and containers, the listings the stub serves.
+     * @return this driver
+     */
+    public @Nonnull LoadDriver addListings() {
+        add("VM.listVirtualMachines", new Operation() {
+            @Override
+            public void run(@Nonnull NovaOpenStack provider) throws Exception {
+                count(provider.getComputeServices().getVirtualMachineSupport().listVirtualMachines());
+            }
+        });
+        add("VM.listVirtualMachineStatus", new Operation() {
+            @Override
+            public void run(@Nonnull NovaOpenStack provider) throws Exception {
+                count(provider.getComputeServices().getVirtualMachineSupport().listVirtualMachineStatus());
+            }
+        });
+        add("VLAN.listVlans", new Operation() {
+            @Override
+            public void run(@Nonnull NovaOpenStack provider) throws Exception {
+                count(provider.getNetworkServices().getVlanSupport().listVlans());
+            }
+        });
+        add("VLAN.listAllSubnets", new Operation() {
+            @Override
+            public void run(@Nonnull NovaOpenStack provider) throws Exception {
+                count(((Quantum)provider.getNetworkServices().getVlanSupport()).listAllSubnets());
+            }
+        });
+        add("Blob.list", new Operation() {
+            @Override
+            public void run(@Nonnull NovaOpenStack provider) throws Exception {
+                count(provider.getStorageServices().getOnlineStorageSupport().list(null));
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Runs every operation in turn.
+     * @return the outcome of each operation, in the order they were added
+     * @throws InternalException the connection pool is unavailable
+     * @throws InterruptedException the calling thread was interrupted
+     */
+    public @Nonnull List<Result> run() throws InternalException, InterruptedException {
+        List<Result> results = new ArrayList<Result>();
+
+        for( Map.Entry<String,Operation> entry : operations.entrySet() ) {
+            results.add(run(entry.getKey(), entry.getValue()));
+        }
+        return results;
+    }
+
+    private @Nonnull Result run(@Nonnull String name, @Nonnull final Operation operation) throws InternalException, InterruptedException {
+        final long[] latencies = new long[threads * iterations];
+        final AtomicLong errors = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        long requests = (stub == null ? 0L : stub.getRequestCount());
+        long connections = provider.getConnectionPool().getConnectionsOpened();
+
+        for( int t=0; t<threads; t++ ) {
+            final int offset = t * iterations;
+
+            Thread thread = new Thread(name + "-" + t) {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for( int i=0; i<iterations; i++ ) {
+                            long begin = System.nanoTime();
+
+                            try {
+                                operation.run(provider);
+                            }
+                            catch( Throwable e ) {
+                                errors.incrementAndGet();
+                            }
+                            latencies[offset + i] = System.nanoTime() - begin;
+                        }
+                    }
+                    catch( InterruptedException e ) {
+                        Thread.currentThread().interrupt();
+                    }
+                    finally {
+                        done.countDown();
+                    }
+                }
+            };
+            thread.setDaemon(true);
+            thread.start();
+        }
+        start.countDown();
+        done.await();
+        requests = (stub == null ? -1L : stub.getRequestCount() - requests);
+        connections = provider.getConnectionPool().getConnectionsOpened() - connections;
+        return new Result(name, latencies, errors.get(), requests, connections);
+    }
+
+    /**
+     * @param results the results of a run
+     * @return a table of the results, followed by the requests, bytes received and latency per endpoint as recorded by
+     * the connection's {@link RequestMetrics} and the requests per route if the driver has a stub
+     */
+    public @Nonnull String report(@Nonnull List<Result> results) {
+        StringBuilder report = new StringBuilder();
+
+        report.append(String.format("%-32s %8s %7s %9s %6s %9s %9s%n", "operation", "calls", "errors", "requests", "conns", "p50 ms", "p99 ms"));
+        for( Result result : results ) {
+            report.append(result).append(String.format("%n"));
+        }
+        report.append(String.format("retries=%d, throttled=%d, reauthentications=%d%n", provider.getRetryPolicy().getRetryCount(), provider.getRetryPolicy().getThrottledCount(), provider.getRetryPolicy().getReauthenticationCount()));
+        for( RequestMetrics.EndpointSnapshot endpoint : provider.getRequestMetrics().getEndpoints() ) {
+            report.append(String.format("%-56s %9d %12d %9.2f %9.2f%n", endpoint, endpoint.getRequests(), endpoint.getBytesIn(), endpoint.getLatencyP50(), endpoint.getLatencyP99()));
+        }
+        if( stub != null ) {
+            for( Map.Entry<String,Long> entry : stub.getRequestCounts().entrySet() ) {
+                report.append(String.format("%-56s %9d%n", entry.getKey(), entry.getValue()));
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * Runs the listings against a stub and prints the report. Sizes and behaviour are taken from the system
+     * properties <code>load.threads</code>, <code>load.iterations</code>, <code>load.servers</code>,
+     * <code>load.latency</code> and <code>load.jitter</code> (milliseconds), and <code>load.errors</code>, a list such as
+     * <code>503:0.05,413:0.01</code>. Any other system property starting with <code>load.context.</code> is passed to
+     * the provider context as a custom property without the prefix.
+     * @param args ignored
+     * @throws Exception the run failed
+     */
+    static public void main(String ... args) throws Exception {
+        OpenStackStub stub = new OpenStackStub()
+                .withServers(Integer.getInteger("load.servers", 1000))
+                .withLatency(Long.getLong("load.latency", 5L), Long.getLong("load.jitter", 5L));
+        String errors = System.getProperty("load.errors");
+
+        if( errors != null && errors.trim().length() > 0 ) {
+            for( String error : errors.split(",") ) {
+                String[] parts = error.trim().split(":");
+
+                stub.withErrors(Integer.parseInt(parts[0]), Double.parseDouble(parts[1]));
+            }
+        }
+        Properties properties = new Properties();
+
+        for( String name : System.getProperties().stringPropertyNames() ) {
+            if( name.startsWith("load.context.") ) {
+                properties.setProperty(name.substring("load.context.".length()), System.getProperty(name));
+            }
+        }
+        stub.start();
+        try {
+            NovaOpenStack provider = connect(stub, properties);
+
+            try {
+                LoadDriver driver = new LoadDriver(provider, stub)
+                        .withThreads(Integer.getInteger("load.threads", 16))
+                        .withIterations(Integer.getInteger("load.iterations", 20))
+                        .addListings();
+
+                System.out.print(driver.report(driver.run()));
+            }
+            finally {
+                provider.close();
+            }
+        }
+        finally {
+            stub.stop();
+        }
+    }
+}
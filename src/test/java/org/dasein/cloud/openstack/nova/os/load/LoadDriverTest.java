@@ -0,0 +1,181 @@
+package org.dasein.cloud.openstack.nova.os.load;
+
+import org.apache.http.concurrent.FutureCallback;
+import org.dasein.cloud.compute.VirtualMachine;
+import org.dasein.cloud.openstack.nova.os.NovaOpenStack;
+import org.dasein.cloud.openstack.nova.os.RequestMetrics;
+import org.dasein.cloud.openstack.nova.os.compute.NovaServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the listings from several threads against the local stub.
+ */
+public class LoadDriverTest {
+    private OpenStackStub stub;
+    private NovaOpenStack provider;
+
+    @Before
+    public void before() throws Exception {
+        stub = new OpenStackStub().withServers(100).withNetworks(5, 10, 50).withContainers(150).withLatency(1, 2);
+        stub.start();
+    }
+
+    @After
+    public void after() {
+        if( provider != null ) {
+            provider.close();
+        }
+        stub.stop();
+    }
+
+    private NovaOpenStack connect(Properties properties) throws Exception {
+        properties.setProperty("listPageSize", "40");
+        properties.setProperty("maxConnections", "8");
+        properties.setProperty("maxConnectionsPerRoute", "8");
+        provider = LoadDriver.connect(stub, properties);
+        return provider;
+    }
+
+    @Test
+    public void listingsUnderLoadTest() throws Exception {
+        LoadDriver driver = new LoadDriver(connect(new Properties()), stub).withThreads(8).withIterations(3).addListings();
+        List<LoadDriver.Result> results = driver.run();
+        long connections = 0L;
+
+        assertEquals("Every listing should have been run", 5, results.size());
+        for( LoadDriver.Result result : results ) {
+            assertEquals(result.getName() + " calls", 24, result.getCalls());
+            assertEquals(result.getName() + " failed: " + driver.report(results), 0, result.getErrors());
+            assertTrue(result.getName() + " made no requests", result.getRequests() > 0);
+            assertTrue(result.getLatency(50.0) <= result.getLatency(99.0));
+            connections += result.getConnectionsOpened();
+        }
+        assertTrue("Connections should be reused, opened " + connections, connections <= 8);
+    }
+
+    @Test
+    public void transientErrorsAreRetriedTest() throws Exception {
+        Properties properties = new Properties();
+
+        properties.setProperty("maxRetries", "5");
+        properties.setProperty("retryBaseDelay", "1");
+        properties.setProperty("retryMaxDelay", "10");
+        stub.withErrors(503, 0.1);
+
+        LoadDriver driver = new LoadDriver(connect(properties), stub).withThreads(4).withIterations(5).addListings();
+        List<LoadDriver.Result> results = driver.run();
+
+        for( LoadDriver.Result result : results ) {
+            assertEquals(result.getName() + " failed: " + driver.report(results), 0, result.getErrors());
+        }
+        assertTrue("Some requests should have been retried", provider.getRetryPolicy().getRetryCount() > 0);
+    }
+
+    @Test
+    public void requestMetricsTest() throws Exception {
+        LoadDriver driver = new LoadDriver(connect(new Properties()), stub).withThreads(4).withIterations(2).addListings();
+
+        driver.run();
+        RequestMetrics metrics = provider.getRequestMetrics();
+        RequestMetrics.EndpointSnapshot servers = null;
+        long requests = 0L;
+
+        for( RequestMetrics.EndpointSnapshot endpoint : metrics.getEndpoints() ) {
+            requests += endpoint.getRequests();
+            if( endpoint.getService().equals("compute") && endpoint.getVerb().equals("GET") && endpoint.getResource().equals("/servers/detail") ) {
+                servers = endpoint;
+            }
+        }
+        assertEquals("Every request should be counted once", stub.getRequestCount(), metrics.getRequests());
+        assertEquals("Endpoint counts should add up", metrics.getRequests(), requests);
+        assertEquals("No request should be in flight", 0, metrics.getInFlight());
+        assertNotNull("Server listings should be counted under their template", servers);
+        assertEquals("Server listings should have succeeded", Long.valueOf(servers.getRequests()), servers.getStatusCodes().get(200));
+        assertTrue("Response bodies should be counted", servers.getBytesIn() > 0);
+        assertTrue(servers.getLatencyP50() <= servers.getLatencyP99());
+    }
+
+    @Test
+    public void asyncListingsTest() throws Exception {
+        Properties properties = new Properties();
+
+        properties.setProperty("asyncIoThreads", "2");
+        properties.setProperty("asyncMaxConnections", "8");
+        properties.setProperty("asyncMaxConnectionsPerRoute", "8");
+
+        NovaOpenStack cloud = connect(properties);
+        NovaServer support = (NovaServer)cloud.getComputeServices().getVirtualMachineSupport();
+        List<Future<Iterable<VirtualMachine>>> listings = new ArrayList<Future<Iterable<VirtualMachine>>>();
+
+        for( int i=0; i<50; i++ ) {
+            listings.add(support.listVirtualMachinesAsync(null));
+        }
+        for( Future<Iterable<VirtualMachine>> listing : listings ) {
+            int count = 0;
+
+            for( VirtualMachine ignored : listing.get(60, TimeUnit.SECONDS) ) {
+                count++;
+            }
+            assertEquals("Every server should be listed", 100, count);
+        }
+        assertEquals("No request should be in flight", 0, cloud.getRequestMetrics().getInFlight());
+        assertEquals("Every request should be counted once", stub.getRequestCount(), cloud.getRequestMetrics().getRequests());
+    }
+
+    @Test
+    public void asyncConversionOffDispatcherTest() throws Exception {
+        Properties properties = new Properties();
+
+        stub.stop();
+        stub = new OpenStackStub().withServers(5).withNetworks(1, 1, 5).withLatency("/compute/os-security-groups", 50L);
+        stub.start();
+        // every server conversion lists the security groups again
+        properties.setProperty("asyncIoThreads", "1");
+        properties.setProperty("responseCache", "false");
+
+        NovaOpenStack cloud = connect(properties);
+        NovaServer support = (NovaServer)cloud.getComputeServices().getVirtualMachineSupport();
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<String> thread = new AtomicReference<String>();
+        Future<Iterable<VirtualMachine>> listing = support.listVirtualMachinesAsync(new FutureCallback<Iterable<VirtualMachine>>() {
+            public void completed(Iterable<VirtualMachine> result) {
+                thread.set(Thread.currentThread().getName());
+                done.countDown();
+            }
+
+            public void failed(Exception e) {
+                done.countDown();
+            }
+
+            public void cancelled() {
+                done.countDown();
+            }
+        });
+
+        assertTrue("The listing never finished", done.await(60, TimeUnit.SECONDS));
+        assertNotNull("The listing failed", thread.get());
+        assertTrue("Servers should be converted on a worker thread, not " + thread.get(), thread.get().startsWith("Dasein OpenStack async worker"));
+        assertTrue("The conversions should have listed the security groups", stub.getRequestCounts().containsKey("GET /compute/os-security-groups"));
+
+        int count = 0;
+
+        for( VirtualMachine ignored : listing.get() ) {
+            count++;
+        }
+        assertEquals("Every server should be listed", 5, count);
+    }
+}
@@ -0,0 +1,575 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.openstack.nova.os.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.dasein.cloud.openstack.nova.os.Payloads;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * A local stand-in for the parts of an OpenStack cloud the load tests exercise, served over plain HTTP on a free port
+ * of the loopback interface. It answers Keystone v2 token requests with a service catalog pointing back at itself and
+ * serves, from the fixtures under <code>src/test/resources</code>:
+ * <ul>
+ *     <li>Nova <code>/servers</code>, <code>/servers/detail</code>, <code>/servers/{id}</code> and <code>/flavors</code></li>
+ *     <li>Neutron <code>/networks</code>, <code>/subnets</code> and <code>/ports</code></li>
+ *     <li>Swift container listings</li>
+ * </ul>
+ * Server, network, subnet, port and container listings are scaled to the configured sizes and honour
+ * <code>limit</code>/<code>marker</code> paging. Every response can be delayed by a fixed latency plus random jitter,
+ * the responses of single routes can be delayed further, and requests other than token requests can be failed at random with 401, 413 or 503 errors. Requests are counted
+ * per route so that a test can see what each operation cost.
+ * @since 2016.02
+ */
+public class OpenStackStub {
+    static public final String REGION = "RegionOne";
+    static public final String TENANT = "e2312698a3534c3aab7038d46a80795d";
+    static public final String TOKEN  = "0123456789abcdef0123456789abcdef";
+
+    static private final String[] SERVER_STATES = { "ACTIVE", "ACTIVE", "ACTIVE", "SHUTOFF", "BUILD" };
+
+    /**
+     * One collection, held as pre-rendered items so that a page costs no more than joining strings.
+     */
+    static private class Collection {
+        private final String              name;
+        private final String[]            items;
+        private final Map<String,Integer> positions = new HashMap<String,Integer>();
+
+        Collection(@Nonnull String name, @Nonnull JSONObject[] items, @Nonnull String key) throws JSONException {
+            this.name = name;
+            this.items = new String[items.length];
+            for( int i=0; i<items.length; i++ ) {
+                this.items[i] = items[i].toString();
+                positions.put(items[i].getString(key), i);
+            }
+        }
+
+        @Nonnull String page(@Nonnull Map<String,String> query, boolean bare) {
+            String marker = query.get("marker");
+            int start = 0;
+            int end = items.length;
+
+            if( marker != null ) {
+                Integer position = positions.get(marker);
+
+                start = (position == null ? items.length : position + 1);
+            }
+            if( query.containsKey("limit") ) {
+                end = Math.min(end, start + Integer.parseInt(query.get("limit")));
+            }
+            StringBuilder json = new StringBuilder();
+
+            json.append(bare ? "[" : "{\"" + name + "\":[");
+            for( int i=start; i<end; i++ ) {
+                if( i > start ) {
+                    json.append(',');
+                }
+                json.append(items[i]);
+            }
+            json.append(bare ? "]" : "]}");
+            return json.toString();
+        }
+
+        @Nullable String get(@Nonnull String id) {
+            Integer position = positions.get(id);
+
+            return (position == null ? null : items[position]);
+        }
+    }
+
+    private final Map<Integer,Double>                  errors   = new ConcurrentHashMap<Integer,Double>();
+    private final Map<String,Long>                     delays   = new ConcurrentHashMap<String,Long>();
+    private final ConcurrentHashMap<String,AtomicLong> requests = new ConcurrentHashMap<String,AtomicLong>();
+    private final AtomicLong                           total    = new AtomicLong();
+    private final Random                               random   = new Random();
+
+    private int  containerCount = 100;
+    private int  networkCount   = 10;
+    private int  portCount      = 100;
+    private int  serverCount    = 100;
+    private int  subnetCount    = 10;
+
+    private volatile long jitter  = 0L;
+    private volatile long latency = 0L;
+
+    private Collection      containers;
+    private ExecutorService executor;
+    private String          flavors;
+    private Collection      networks;
+    private Collection      ports;
+    private HttpServer      server;
+    private Collection      servers;
+    private Collection      serverSummaries;
+    private Collection      subnets;
+    private String          versions;
+
+    /**
+     * @param servers the number of servers in the compute listings
+     * @return this stub
+     */
+    public @Nonnull OpenStackStub withServers(int servers) {
+        this.serverCount = servers;
+        return this;
+    }
+
+    /**
+     * @param networks the number of networks in the network listing
+     * @param subnets the number of subnets, spread over the networks
+     * @param ports the number of ports
+     * @return this stub
+     */
+    public @Nonnull OpenStackStub withNetworks(int networks, int subnets, int ports) {
+        this.networkCount = networks;
+        this.subnetCount = subnets;
+        this.portCount = ports;
+        return this;
+    }
+
+    /**
+     * @param containers the number of containers in the Swift account listing
+     * @return this stub
+     */
+    public @Nonnull OpenStackStub withContainers(int containers) {
+        this.containerCount = containers;
+        return this;
+    }
+
+    /**
+     * Delays every response. May be changed while the stub runs.
+     * @param latency the fixed delay in milliseconds
+     * @param jitter the upper bound of a random delay in milliseconds added to the fixed one
+     * @return this stub
+     */
+    public @Nonnull OpenStackStub withLatency(long latency, long jitter) {
+        this.latency = latency;
+        this.jitter = jitter;
+        return this;
+    }
+
+    /**
+     * Delays the responses of one route on top of the latency of every response. May be changed while the stub runs.
+     * @param route the route as counted, e.g. <code>/compute/os-security-groups</code>
+     * @param latency the extra delay in milliseconds, 0 to remove it
+     * @return this stub
+     */
+    public @Nonnull OpenStackStub withLatency(@Nonnull String route, long latency) {
+        if( latency <= 0L ) {
+            delays.remove(route);
+        }
+        else {
+            delays.put(route, latency);
+        }
+        return this;
+    }
+
+    /**
+     * Fails requests at random. Token requests are never failed. May be changed while the stub runs.
+     * @param status 401, 413 (rate limited, with a <code>Retry-After</code> of one second) or 503
+     * @param probability the chance of any request failing with the status, 0 to stop failing
+     * @return this stub
+     */
+    public @Nonnull OpenStackStub withErrors(int status, double probability) {
+        if( status != 401 && status != 413 && status != 503 ) {
+            throw new IllegalArgumentException("Only 401, 413 and 503 errors may be injected: " + status);
+        }
+        if( probability <= 0.0 ) {
+            errors.remove(status);
+        }
+        else {
+            errors.put(status, probability);
+        }
+        return this;
+    }
+
+    /**
+     * Builds the payloads and starts serving.
+     * @throws IOException the fixtures could not be read or the server could not be started
+     */
+    public synchronized void start() throws IOException {
+        try {
+            load();
+        }
+        catch( JSONException e ) {
+            throw new IOException(e);
+        }
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    serve(exchange);
+                }
+                catch( JSONException e ) {
+                    send(exchange, 500, "{\"computeFault\":{\"code\":500,\"message\":\"" + e.getMessage() + "\"}}");
+                }
+                finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Stops serving, dropping any open connections.
+     */
+    public synchronized void stop() {
+        if( server != null ) {
+            server.stop(0);
+            server = null;
+        }
+        if( executor != null ) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * @return the Keystone endpoint to use as the cloud endpoint of the provider context
+     */
+    public @Nonnull String getEndpoint() {
+        return getBaseUrl() + "/identity/v2.0";
+    }
+
+    private @Nonnull String getBaseUrl() {
+        InetSocketAddress address = server.getAddress();
+
+        return "http://" + address.getAddress().getHostAddress() + ":" + address.getPort();
+    }
+
+    /**
+     * @return the number of requests received since the stub started or was last reset
+     */
+    public long getRequestCount() {
+        return total.get();
+    }
+
+    /**
+     * @return the number of requests received per route, e.g. <code>GET /compute/servers/detail</code>
+     */
+    public @Nonnull Map<String,Long> getRequestCounts() {
+        Map<String,Long> counts = new TreeMap<String,Long>();
+
+        for( Map.Entry<String,AtomicLong> entry : requests.entrySet() ) {
+            counts.put(entry.getKey(), entry.getValue().get());
+        }
+        return counts;
+    }
+
+    /**
+     * Zeroes the request counts.
+     */
+    public void reset() {
+        requests.clear();
+        total.set(0L);
+    }
+
+    private void load() throws IOException, JSONException {
+        JSONObject[] items = Payloads.replicate(Payloads.read("nova/fixtures/compute/get_server.json", "server"), serverCount, SERVER_STATES);
+        JSONObject[] summaries = new JSONObject[items.length];
+
+        for( int i=0; i<items.length; i++ ) {
+            summaries[i] = new JSONObject().put("id", items[i].getString("id")).put("name", items[i].getString("name")).put("links", items[i].getJSONArray("links"));
+        }
+        servers = new Collection("servers", items, "id");
+        serverSummaries = new Collection("servers", summaries, "id");
+        flavors = Payloads.read("nova/fixtures/compute/list_flavors.json").toString();
+
+        JSONObject[] vlans = Payloads.replicate(Payloads.read("nova/fixtures/get_vlan.json", "network"), networkCount);
+
+        networks = new Collection("networks", vlans, "id");
+        items = Payloads.replicate(Payloads.read("nova/fixtures/get_subnet.json", "subnet"), subnetCount);
+        for( int i=0; i<items.length; i++ ) {
+            items[i].put("network_id", vlans[i % vlans.length].getString("id"));
+        }
+        subnets = new Collection("subnets", items, "id");
+        ports = new Collection("ports", Payloads.replicate(Payloads.read("nova/fixtures/list_ports.json").getJSONArray("ports").getJSONObject(0), portCount), "id");
+        versions = Payloads.read("nova/fixtures/get_networkResourceVersion.json").toString();
+
+        items = new JSONObject[containerCount];
+        for( int i=0; i<containerCount; i++ ) {
+            items[i] = new JSONObject().put("name", String.format("container-%06d", i)).put("count", 0).put("bytes", 0);
+        }
+        containers = new Collection("containers", items, "name");
+    }
+
+    private void count(@Nonnull String method, @Nonnull String route) {
+        String key = method + " " + route;
+        AtomicLong count = requests.get(key);
+
+        if( count == null ) {
+            AtomicLong existing = requests.putIfAbsent(key, count = new AtomicLong());
+
+            if( existing != null ) {
+                count = existing;
+            }
+        }
+        count.incrementAndGet();
+        total.incrementAndGet();
+    }
+
+    private void serve(@Nonnull HttpExchange exchange) throws IOException, JSONException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        Map<String,String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        drain(exchange.getRequestBody());
+        pause();
+        if( path.equals("/identity/v2.0/tokens") && method.equals("POST") ) {
+            count(method, "/identity/tokens");
+            send(exchange, 200, getToken().toString());
+            return;
+        }
+        if( !TOKEN.equals(exchange.getRequestHeaders().getFirst("X-Auth-Token")) ) {
+            count(method, "(unauthenticated)");
+            send(exchange, 401, "{\"unauthorized\":{\"code\":401,\"message\":\"This server could not verify that you are authorized to access the document you requested.\"}}");
+            return;
+        }
+        String compute = "/compute/v2/" + TENANT;
+        String network = "/network/v2.0";
+        String storage = "/object-store/v1/AUTH_" + TENANT;
+
+        if( path.startsWith(compute + "/") ) {
+            String resource = path.substring(compute.length());
+
+            if( resource.equals("/servers/detail") ) {
+                respond(exchange, "/compute/servers/detail", servers.page(query, false));
+            }
+            else if( resource.equals("/servers") ) {
+                respond(exchange, "/compute/servers", serverSummaries.page(query, false));
+            }
+            else if( resource.startsWith("/servers/") && resource.endsWith("/os-security-groups") ) {
+                respond(exchange, "/compute/servers/{id}/os-security-groups", "{\"security_groups\":[]}");
+            }
+            else if( resource.startsWith("/servers/") && resource.indexOf('/', "/servers/".length()) < 0 ) {
+                String item = servers.get(resource.substring("/servers/".length()));
+
+                respond(exchange, "/compute/servers/{id}", item == null ? null : "{\"server\":" + item + "}");
+            }
+            else if( resource.equals("/flavors") || resource.equals("/flavors/detail") ) {
+                respond(exchange, "/compute" + resource, flavors);
+            }
+            else if( resource.equals("/os-floating-ips") ) {
+                respond(exchange, "/compute/os-floating-ips", "{\"floating_ips\":[]}");
+            }
+            else if( resource.equals("/os-security-groups") ) {
+                respond(exchange, "/compute/os-security-groups", "{\"security_groups\":[]}");
+            }
+            else {
+                respond(exchange, "/compute/(other)", null);
+            }
+        }
+        else if( path.equals("/network") || path.equals("/network/") ) {
+            respond(exchange, "/network", versions);
+        }
+        else if( path.startsWith(network + "/") ) {
+            String resource = path.substring(network.length());
+
+            if( resource.equals("/networks") ) {
+                respond(exchange, "/network/networks", networks.page(query, false));
+            }
+            else if( resource.startsWith("/networks/") ) {
+                String item = networks.get(resource.substring("/networks/".length()));
+
+                respond(exchange, "/network/networks/{id}", item == null ? null : "{\"network\":" + item + "}");
+            }
+            else if( resource.equals("/subnets") ) {
+                respond(exchange, "/network/subnets", subnets.page(query, false));
+            }
+            else if( resource.equals("/ports") ) {
+                respond(exchange, "/network/ports", ports.page(query, false));
+            }
+            else if( resource.equals("/floatingips") ) {
+                respond(exchange, "/network/floatingips", "{\"floatingips\":[]}");
+            }
+            else if( resource.equals("/security-groups") ) {
+                respond(exchange, "/network/security-groups", "{\"security_groups\":[]}");
+            }
+            else {
+                respond(exchange, "/network/(other)", null);
+            }
+        }
+        else if( path.equals(storage) || path.equals(storage + "/") ) {
+            respond(exchange, "/object-store/{account}", containers.page(query, true));
+        }
+        else {
+            respond(exchange, "(other)", null);
+        }
+    }
+
+    private void respond(@Nonnull HttpExchange exchange, @Nonnull String route, @Nullable String body) throws IOException {
+        count(exchange.getRequestMethod(), route);
+
+        Long delay = delays.get(route);
+
+        if( delay != null ) {
+            sleep(delay);
+        }
+        Integer status = pickError();
+
+        if( status != null ) {
+            if( status == 401 ) {
+                send(exchange, 401, "{\"unauthorized\":{\"code\":401,\"message\":\"The request you have made requires authentication.\"}}");
+            }
+            else if( status == 413 ) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, 413, "{\"overLimit\":{\"code\":413,\"message\":\"This request was rate-limited.\",\"retryAfter\":\"1\"}}");
+            }
+            else {
+                send(exchange, 503, "{\"serviceUnavailable\":{\"code\":503,\"message\":\"The service is temporarily unavailable.\"}}");
+            }
+        }
+        else if( body == null ) {
+            send(exchange, 404, "{\"itemNotFound\":{\"code\":404,\"message\":\"The resource could not be found.\"}}");
+        }
+        else {
+            send(exchange, 200, body);
+        }
+    }
+
+    private @Nullable Integer pickError() {
+        if( errors.isEmpty() ) {
+            return null;
+        }
+        double roll;
+
+        synchronized( random ) {
+            roll = random.nextDouble();
+        }
+        for( Map.Entry<Integer,Double> entry : errors.entrySet() ) {
+            if( roll < entry.getValue() ) {
+                return entry.getKey();
+            }
+            roll -= entry.getValue();
+        }
+        return null;
+    }
+
+    private void pause() {
+        long delay = latency;
+
+        if( jitter > 0L ) {
+            synchronized( random ) {
+                delay += (long)(random.nextDouble() * jitter);
+            }
+        }
+        sleep(delay);
+    }
+
+    private @Nonnull JSONObject getToken() throws JSONException {
+        String base = getBaseUrl();
+        JSONArray catalog = new JSONArray();
+
+        catalog.put(toService("compute", "nova", base + "/compute/v2/" + TENANT, null));
+        catalog.put(toService("network", "neutron", base + "/network", "2.0"));
+        catalog.put(toService("object-store", "swift", base + "/object-store/v1/AUTH_" + TENANT, null));
+
+        JSONObject tenant = new JSONObject().put("id", TENANT).put("name", "load");
+        JSONObject token = new JSONObject().put("id", TOKEN).put("expires", "2099-01-01T00:00:00Z").put("tenant", tenant);
+
+        return new JSONObject().put("access", new JSONObject().put("token", token).put("serviceCatalog", catalog));
+    }
+
+    private @Nonnull JSONObject toService(@Nonnull String type, @Nonnull String name, @Nonnull String url, @Nullable String version) throws JSONException {
+        JSONObject endpoint = new JSONObject().put("region", REGION).put("publicURL", url).put("internalURL", url);
+
+        if( version != null ) {
+            endpoint.put("versionId", version);
+        }
+        return new JSONObject().put("type", type).put("name", name).put("endpoints", new JSONArray().put(endpoint));
+    }
+
+    static private @Nonnull Map<String,String> parseQuery(@Nullable String query) throws IOException {
+        Map<String,String> params = new HashMap<String,String>();
+
+        if( query == null ) {
+            return params;
+        }
+        for( String pair : query.split("&") ) {
+            int idx = pair.indexOf('=');
+
+            if( idx > 0 ) {
+                params.put(URLDecoder.decode(pair.substring(0, idx), "utf-8"), URLDecoder.decode(pair.substring(idx + 1), "utf-8"));
+            }
+        }
+        return params;
+    }
+
+    static private void sleep(long delay) {
+        if( delay > 0L ) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(delay);
+            }
+            catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static private void drain(@Nonnull InputStream in) throws IOException {
+        byte[] buffer = new byte[4096];
+
+        //noinspection StatementWithEmptyBody
+        while( in.read(buffer) != -1 ) { }
+        in.close();
+    }
+
+    static private void send(@Nonnull HttpExchange exchange, int status, @Nonnull String body) throws IOException {
+        byte[] bytes = body.getBytes("utf-8");
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        if( exchange.getRequestMethod().equals("HEAD") ) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+
+        OutputStream out = exchange.getResponseBody();
+
+        out.write(bytes);
+        out.close();
+    }
+}
@@ -0,0 +1,163 @@
+package org.dasein.cloud.openstack.nova.os.storage;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.ProviderContext;
+import org.dasein.cloud.openstack.nova.os.NovaOpenStack;
+import org.dasein.cloud.openstack.nova.os.SwiftMethod;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks which objects {@link SwiftRangedDownload} verifies against their ETag, using ranged replies served from memory.
+ */
+public class SwiftRangedDownloadTest {
+    private final byte[] content = new byte[10000];
+
+    private File       file;
+    private SwiftMethod method;
+
+    @Before
+    public void before() throws Exception {
+        new Random(42L).nextBytes(content);
+        file = File.createTempFile("ranged", ".bin");
+        method = mock(SwiftMethod.class);
+        doAnswer(new Answer<InputStream>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public InputStream answer(InvocationOnMock invocation) throws Throwable {
+                long first = (Long)invocation.getArguments()[2];
+                long last = (Long)invocation.getArguments()[3];
+                Map<String,String> headers = (Map<String,String>)invocation.getArguments()[4];
+
+                headers.put("Content-Range", "bytes " + first + "-" + last + "/" + content.length);
+                return new ByteArrayInputStream(content, (int)first, (int)(last - first + 1));
+            }
+        }).when(method).get(eq("bucket"), eq("object"), anyLong(), anyLong(), any(Map.class));
+    }
+
+    @After
+    public void after() {
+        if( file.exists() ) {
+            file.delete();
+        }
+    }
+
+    private SwiftRangedDownload downloader() {
+        NovaOpenStack provider = mock(NovaOpenStack.class);
+        ProviderContext ctx = mock(ProviderContext.class);
+        Properties p = new Properties();
+
+        p.setProperty("rangedDownloadThreshold", "1024");
+        p.setProperty("downloadRangeSize", "3000");
+        p.setProperty("downloadThreads", "3");
+        when(ctx.getCustomProperties()).thenReturn(p);
+        when(provider.getContext()).thenReturn(ctx);
+        return new SwiftRangedDownload(provider, "bucket", "object", file, null) {
+            @Override
+            protected SwiftMethod getMethod() {
+                return method;
+            }
+        };
+    }
+
+    private Map<String,String> meta(String etag, String ... headers) {
+        Map<String,String> meta = new HashMap<String,String>();
+
+        meta.put("Content-Length", String.valueOf(content.length));
+        meta.put("ETag", "\"" + etag + "\"");
+        for( int i=0; i<headers.length; i += 2 ) {
+            meta.put(headers[i], headers[i + 1]);
+        }
+        return meta;
+    }
+
+    private String md5(byte[] data) throws Exception {
+        StringBuilder hex = new StringBuilder();
+
+        for( byte b : MessageDigest.getInstance("MD5").digest(data) ) {
+            hex.append(String.format("%02x", b & 0xff));
+        }
+        return hex.toString();
+    }
+
+    private byte[] downloaded() throws Exception {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+
+        try {
+            byte[] data = new byte[(int)in.length()];
+
+            in.readFully(data);
+            return data;
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void ordinaryObjectTest() throws Exception {
+        assertTrue(downloader().download(meta(md5(content)), new ByteArrayInputStream(content)));
+        assertTrue(Arrays.equals(content, downloaded()));
+    }
+
+    @Test
+    public void corruptObjectTest() throws Exception {
+        try {
+            downloader().download(meta(md5("something else".getBytes())), new ByteArrayInputStream(content));
+            fail("A file that does not match its ETag should be rejected");
+        }
+        catch( CloudException expected ) {
+            assertFalse("The corrupt download should be deleted", file.exists());
+        }
+    }
+
+    @Test
+    public void dynamicLargeObjectTest() throws Exception {
+        // a DLO's ETag is the MD5 of its segment ETags
+        Map<String,String> meta = meta(md5((md5("a".getBytes()) + md5("b".getBytes())).getBytes()), "X-Object-Manifest", "segments/object/");
+
+        assertTrue(downloader().download(meta, new ByteArrayInputStream(content)));
+        assertTrue(Arrays.equals(content, downloaded()));
+    }
+
+    @Test
+    public void staticLargeObjectFallbackTest() throws Exception {
+        Map<String,String> meta = meta(md5((md5("a".getBytes()) + md5("b".getBytes())).getBytes()), "X-Static-Large-Object", "True");
+
+        when(method.getManifest("bucket", "object")).thenReturn(null);
+        assertTrue(downloader().download(meta, new ByteArrayInputStream(content)));
+        assertTrue(Arrays.equals(content, downloaded()));
+    }
+
+    @Test
+    public void smallObjectTest() throws Exception {
+        Map<String,String> meta = meta(md5(content));
+
+        meta.put("Content-Length", "1000");
+        assertFalse("Objects below the threshold should be left to the single stream", downloader().download(meta, new ByteArrayInputStream(content)));
+    }
+}